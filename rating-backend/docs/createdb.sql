@@ -77,11 +77,17 @@ VALUES
 -- 2. 核心数据与计算结果表
 -- ----------------------------------------------------
 
+-- 说明：ContentSnapshot 与 MemberRating 按月做 RANGE COLUMNS 分区（publish_time / update_date），
+-- 带时间条件的查询只访问相关分区。建表时只有 p_history（历史兜底）与 p_future（MAXVALUE）两个分区，
+-- 按月的分区由 PartitionMaintenanceService 在启动后切分 p_future 生成并持续向后补足，过期分区由其删除。
+-- MySQL 分区表不支持外键，且每个唯一键都必须包含分区列，因此这两张表不声明外键（引用完整性由计算流程保证），
+-- 主键分别为 (content_id, publish_time) 与 (rating_id, update_date)。
+
 -- 2.1 ContentSnapshot (内容快照表)
 CREATE TABLE ContentSnapshot (
-    content_id BIGINT UNSIGNED NOT NULL PRIMARY KEY COMMENT '帖子唯一 ID',
+    content_id BIGINT UNSIGNED NOT NULL COMMENT '帖子唯一 ID',
     member_id BIGINT UNSIGNED NOT NULL COMMENT '内容作者 ID',
-    publish_time TIMESTAMP NOT NULL COMMENT '帖子发布时间，用于时效性计算',
+    publish_time DATETIME NOT NULL COMMENT '帖子发布时间，用于时效性计算（分区列）',
     area_id INT UNSIGNED NOT NULL COMMENT '帖子所属领域id',
     post_length_level TINYINT UNSIGNED NOT NULL COMMENT '帖子长度分级 (1, 2, 3)',
     
@@ -96,9 +102,8 @@ CREATE TABLE ContentSnapshot (
     -- CIS 计算结果（核心输出）
     cis_score DECIMAL(10, 4) NOT NULL COMMENT '内容影响力分数',
     
-    -- 外键和索引
-    FOREIGN KEY (member_id) REFERENCES Member(member_id),
-    FOREIGN KEY (area_id) REFERENCES KnowledgeArea(area_id),
+    -- 主键和索引（分区表：主键包含分区列）
+    PRIMARY KEY (content_id, publish_time),
     -- 索引：支持批量计算时的聚合和时间过滤
     INDEX idx_member_tag (member_id, area_id),
     INDEX idx_publish_time (publish_time),
@@ -106,29 +111,114 @@ CREATE TABLE ContentSnapshot (
     INDEX idx_like_count (like_count_snapshot),
     INDEX idx_comment_count (comment_count_snapshot),
     INDEX idx_share_count (share_count_snapshot)
-) COMMENT='每日批量计算的原始数据快照及CIS得分';
+) COMMENT='每日批量计算的原始数据快照及CIS得分'
+PARTITION BY RANGE COLUMNS (publish_time) (
+    PARTITION p_history VALUES LESS THAN ('2024-01-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
 
 
 -- 2.2 MemberRating (成员评级历史表)
 CREATE TABLE MemberRating (
-    rating_id BIGINT UNSIGNED NOT NULL PRIMARY KEY AUTO_INCREMENT,
+    rating_id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT,
     member_id BIGINT UNSIGNED NOT NULL,
     area_id INT UNSIGNED NOT NULL,
     
     des_score DECIMAL(12, 4) NOT NULL COMMENT 'DES_K 最终影响力分数',
     rating_level VARCHAR(2) NOT NULL COMMENT '映射后的等级 (L1-L5)',
-    update_date DATE NOT NULL COMMENT '记录本次评级的计算日期',
+    update_date DATE NOT NULL COMMENT '记录本次评级的计算日期（分区列）',
+    
+    -- 主键（分区表：主键包含分区列）
+    PRIMARY KEY (rating_id, update_date),
+    
+    -- 唯一键：每个 (成员, 领域) 每天至多一条评级，同一天重复计算时 upsert 覆盖；
+    -- 同时支持快速查询成员在特定领域最新的评级记录（按日期倒序取第一条）
+    UNIQUE KEY uk_member_area_date (member_id, area_id, update_date),
+    
+    -- 复合索引：支持按领域进行影响力分数排名（Web展示，需要子查询获取最新记录）
+    INDEX idx_rank_des (area_id, des_score),
+    
+    -- 索引：历史保留压缩按日期范围查找并删除已汇总的日粒度记录
+    INDEX idx_update_date (update_date)
+) COMMENT='存储成员在各领域的评级历史记录（日粒度，仅保留最近一段时间，更早的汇总到 MemberRatingRollup）'
+PARTITION BY RANGE COLUMNS (update_date) (
+    PARTITION p_history VALUES LESS THAN ('2024-01-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+
+-- 2.2.1 MemberRatingRollup (成员评级历史汇总表)
+CREATE TABLE MemberRatingRollup (
+    rollup_id BIGINT UNSIGNED NOT NULL PRIMARY KEY AUTO_INCREMENT,
+    member_id BIGINT UNSIGNED NOT NULL,
+    area_id INT UNSIGNED NOT NULL,
+    
+    granularity CHAR(1) NOT NULL COMMENT '汇总粒度：W 周 / M 月',
+    period_start DATE NOT NULL COMMENT '周期起始日（周一 / 每月 1 日）',
+    last_date DATE NOT NULL COMMENT '周期内最后一条评级的日期',
+    last_score DECIMAL(12, 4) NOT NULL COMMENT '周期内最后一条评级的 DES 分数',
+    last_level VARCHAR(2) NOT NULL COMMENT '周期内最后一条评级的等级',
+    min_score DECIMAL(12, 4) NOT NULL COMMENT '周期内最低 DES 分数',
+    max_score DECIMAL(12, 4) NOT NULL COMMENT '周期内最高 DES 分数',
+    sample_count INT UNSIGNED NOT NULL COMMENT '汇总的日评级条数',
     
     -- 外键约束
     FOREIGN KEY (member_id) REFERENCES Member(member_id),
     FOREIGN KEY (area_id) REFERENCES KnowledgeArea(area_id),
     
-    -- 复合索引：支持快速查询成员在特定领域最新的评级记录（按日期倒序取第一条）
-    INDEX idx_member_area_date (member_id, area_id, update_date DESC),
+    -- 复合唯一索引：每个 (成员, 领域, 粒度, 周期) 只有一条汇总，重复压缩时合并
+    UNIQUE KEY uk_member_area_period (member_id, area_id, granularity, period_start),
     
-    -- 复合索引：支持按领域进行影响力分数排名（Web展示，需要子查询获取最新记录）
-    INDEX idx_rank_des (area_id, des_score)
-) COMMENT='存储成员在各领域的评级历史记录';
+    -- 索引：压缩任务按粒度查找最早的周期
+    INDEX idx_granularity_period (granularity, period_start)
+) COMMENT='成员评级历史的周/月汇总（最后值、最小值、最大值）';
+
+
+-- 2.2.2 MemberScoreSeries (成员分数序列表)
+CREATE TABLE MemberScoreSeries (
+    member_id BIGINT UNSIGNED NOT NULL,
+    area_id INT UNSIGNED NOT NULL,
+    
+    points MEDIUMBLOB NOT NULL COMMENT '(epoch-day, DES) 点序列：差分 + varint 编码，见 ScoreSeriesCodec',
+    point_count INT UNSIGNED NOT NULL COMMENT '序列点数',
+    last_day INT NOT NULL COMMENT '最后一个点的 epoch-day（追加时计算差分）',
+    last_score BIGINT NOT NULL COMMENT '最后一个点的 DES（放大 10^4 的整数）',
+    
+    -- 主键：成员详情按 member_id 前缀一次读取所有领域的序列
+    PRIMARY KEY (member_id, area_id),
+    
+    -- 外键约束
+    FOREIGN KEY (member_id) REFERENCES Member(member_id),
+    FOREIGN KEY (area_id) REFERENCES KnowledgeArea(area_id)
+) COMMENT='每个 (成员, 领域) 的完整每日 DES 序列（紧凑编码，每点约 3~4 字节）';
+
+
+-- 2.2.3 RatingLevelCounter (评级等级分布计数表)
+CREATE TABLE RatingLevelCounter (
+    area_id INT UNSIGNED NOT NULL,
+    rating_level VARCHAR(2) NOT NULL COMMENT '评级等级 (L1-L5)',
+    
+    member_count BIGINT NOT NULL DEFAULT 0 COMMENT '该领域最新评级处于该等级的成员数',
+    
+    -- 主键：每个 (领域, 等级) 一行；全局分布为各领域按等级求和（领域数 × 等级数行）
+    PRIMARY KEY (area_id, rating_level),
+    
+    -- 外键约束
+    FOREIGN KEY (area_id) REFERENCES KnowledgeArea(area_id)
+) COMMENT='评级等级分布计数（由 RatingWriter 在写入评级的同一事务内按等级变化增减）';
+
+
+-- 2.2.4 ScoreSketch (分数分位数草图表)
+CREATE TABLE ScoreSketch (
+    metric VARCHAR(8) NOT NULL COMMENT '分数类型：DES / CIS',
+    area_id INT UNSIGNED NOT NULL COMMENT '领域 ID；0 表示全部领域（各领域草图合并）',
+    
+    sketch BLOB NOT NULL COMMENT '对数分桶计数的可合并分位数草图，见 QuantileSketch',
+    value_count BIGINT NOT NULL COMMENT '草图包含的分数个数',
+    as_of DATETIME NOT NULL COMMENT '构建草图的计算参考时间',
+    
+    PRIMARY KEY (metric, area_id)
+) COMMENT='每日计算时构建的 DES（按领域）与 CIS 分布草图，供分位数、直方图与成员排名百分比查询';
 
 
 -- 2.3 AchievementStatus (成就状态表)
@@ -153,3 +243,29 @@ CREATE TABLE AchievementStatus (
     INDEX idx_achievement_key_member (achievement_key, member_id)
 ) COMMENT='存储成员的成就达成状态和时间';
 
+
+
+-- ----------------------------------------------------
+-- 3. 计算运行状态表
+-- ----------------------------------------------------
+
+-- 3.1 CalculationCheckpoint (评级计算检查点表)
+CREATE TABLE CalculationCheckpoint (
+    run_id VARCHAR(36) NOT NULL PRIMARY KEY COMMENT '运行 ID',
+    as_of DATETIME NOT NULL COMMENT '本次计算的参考时间（虚拟时间）',
+    stage VARCHAR(20) NOT NULL COMMENT '当前阶段：MEMBER_SYNC / CIS_NEW / CIS_UPDATE / DES / ACHIEVEMENT',
+    last_key BIGINT NOT NULL DEFAULT 0 COMMENT '当前阶段已提交的最大键（CIS 阶段为 content_id，DES 阶段为 member_id）',
+    source_version BIGINT NOT NULL DEFAULT 0 COMMENT '已提交分块所依据的数据源版本（CIS_NEW 为内容变更流版本，CIS_UPDATE 为内容快照数据版本），不一致时重放本阶段',
+    status VARCHAR(10) NOT NULL COMMENT 'RUNNING / COMPLETED / ABANDONED',
+    started_at DATETIME NOT NULL,
+    updated_at DATETIME NOT NULL,
+
+    -- 索引：启动与恢复时查找最近的未完成运行
+    INDEX idx_status_updated (status, updated_at)
+) COMMENT='评级计算分块提交的检查点，中断后从检查点继续';
+
+-- 3.2 DataVersion (数据版本表)
+CREATE TABLE DataVersion (
+    name VARCHAR(32) NOT NULL PRIMARY KEY COMMENT '数据名称（如 contentsnapshot）',
+    version BIGINT NOT NULL COMMENT '版本号：每次修改时在同一事务内替换为新的随机值'
+) COMMENT='本地缓存与数据库一致性校验用的数据版本';
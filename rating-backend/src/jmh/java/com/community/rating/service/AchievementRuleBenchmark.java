@@ -0,0 +1,163 @@
+package com.community.rating.service;
+
+import com.community.rating.achievement.AchievementRule;
+import com.community.rating.entity.ContentSnapshot;
+import com.community.rating.entity.Member;
+import com.community.rating.entity.MemberRating;
+import com.community.rating.repository.ContentSnapshotRepository;
+import com.community.rating.repository.MemberRatingRepository;
+import com.community.rating.repository.MemberRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 成就规则 detect() 在 JVM 内的处理耗时。
+ * 仓库以内存桩替代：findAll() 返回合成实体，返回 List&lt;Long&gt; 的原生查询返回全部成员 ID，
+ * 因此纯 SQL 规则只体现结果处理开销，findAll + Stream 类规则体现完整的内存计算开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AchievementRuleBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int contentCount;
+
+    @Param({
+            "AllRounderRule", "CommentExpertRule", "CommunityRisingStarRule", "CommunityStarRule",
+            "CommunityVeteranRule", "ConsistentCreatorRule", "ContentLoverRule", "ContentMasterRule",
+            "ContentSharerRule", "DomainExpertRule", "EngagementExpertRule", "FastGrowthRule",
+            "FirstPostRule", "HundredLikesSingleRule", "PopularAuthorRule", "ProlificAuthorRule",
+            "SharePioneerRule", "ThousandLikesSingleRule", "VersatileMemberRule"
+    })
+    public String rule;
+
+    private AchievementRule achievementRule;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        RatingAlgorithm ratingAlgorithm = new RatingAlgorithm();
+        ContentColumnStore store = SyntheticContentData.columnStore(contentCount, ratingAlgorithm);
+
+        List<ContentSnapshot> contents = new ArrayList<>(store.size());
+        Set<Long> memberIds = new LinkedHashSet<>();
+        for (int row = 0; row < store.size(); row++) {
+            ContentSnapshot content = new ContentSnapshot();
+            content.setContentId(store.contentId(row));
+            content.setMemberId(store.memberId(row));
+            content.setAreaId(store.areaId(row));
+            content.setPublishTime(store.publishTime(row));
+            content.setPostLengthLevel(store.postLengthLevel(row));
+            content.setCisScore(BigDecimal.valueOf(store.cisScoreUnscaled(row), 4));
+            content.setReadCountSnapshot(store.readCount(row));
+            content.setLikeCountSnapshot(store.likeCount(row));
+            content.setCommentCountSnapshot(store.commentCount(row));
+            content.setShareCountSnapshot(store.shareCount(row));
+            content.setCollectCountSnapshot(store.collectCount(row));
+            content.setHateCountSnapshot(store.hateCount(row));
+            contents.add(content);
+            memberIds.add(store.memberId(row));
+        }
+
+        List<Member> members = new ArrayList<>(memberIds.size());
+        for (Long memberId : memberIds) {
+            Member member = new Member();
+            member.setMemberId(memberId);
+            member.setName("member-" + memberId);
+            member.setJoinDate(SyntheticContentData.AS_OF.minusDays(memberId % 400));
+            members.add(member);
+        }
+
+        List<MemberRating> ratings = new ArrayList<>();
+        int[] rows = store.rowsOrderedByMemberArea();
+        int groupStart = 0;
+        while (groupStart < rows.length) {
+            int groupEnd = groupStart + 1;
+            while (groupEnd < rows.length && store.sameMemberArea(rows[groupStart], rows[groupEnd])) {
+                groupEnd++;
+            }
+            BigDecimal des = ratingAlgorithm.calculateDES(store, rows, groupStart, groupEnd, SyntheticContentData.AS_OF);
+            MemberRating rating = new MemberRating();
+            rating.setMemberId(store.memberId(rows[groupStart]));
+            rating.setAreaId(store.areaId(rows[groupStart]));
+            rating.setDesScore(des);
+            rating.setRatingLevel(ratingAlgorithm.determineRatingLevel(des));
+            rating.setUpdateDate(SyntheticContentData.AS_OF.toLocalDate());
+            ratings.add(rating);
+            groupStart = groupEnd;
+        }
+
+        List<Long> allMemberIds = new ArrayList<>(memberIds);
+        Class<?> ruleClass = Class.forName("com.community.rating.achievement.rules." + rule);
+        Constructor<?> constructor = ruleClass.getConstructors()[0];
+        Object[] args = new Object[constructor.getParameterCount()];
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (int i = 0; i < args.length; i++) {
+            if (parameterTypes[i] == ContentSnapshotRepository.class) {
+                args[i] = stubRepository(ContentSnapshotRepository.class, contents, allMemberIds);
+            } else if (parameterTypes[i] == MemberRepository.class) {
+                args[i] = stubRepository(MemberRepository.class, members, allMemberIds);
+            } else if (parameterTypes[i] == MemberRatingRepository.class) {
+                args[i] = stubRepository(MemberRatingRepository.class, ratings, allMemberIds);
+            } else {
+                throw new IllegalStateException("未支持的规则依赖: " + parameterTypes[i]);
+            }
+        }
+        achievementRule = (AchievementRule) constructor.newInstance(args);
+    }
+
+    @Benchmark
+    public List<Long> detect() {
+        return achievementRule.detect();
+    }
+
+    /**
+     * 以动态代理构造仓库桩，仅覆盖规则实际使用到的查询形态。
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> R stubRepository(Class<R> repositoryType, List<?> entities, List<Long> memberIds) {
+        return (R) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return entities;
+                    }
+                    Class<?> returnType = method.getReturnType();
+                    if (List.class.isAssignableFrom(returnType)) {
+                        Type generic = method.getGenericReturnType();
+                        if (generic instanceof ParameterizedType parameterized
+                                && parameterized.getActualTypeArguments()[0] == Long.class) {
+                            return memberIds;
+                        }
+                        return Collections.emptyList();
+                    }
+                    if (returnType == Optional.class) {
+                        return Optional.empty();
+                    }
+                    if (returnType == Long.class || returnType == long.class) {
+                        return 0L;
+                    }
+                    if (returnType == boolean.class) {
+                        return false;
+                    }
+                    if (method.getName().equals("toString")) {
+                        return repositoryType.getSimpleName() + "Stub";
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,86 @@
+package com.community.rating.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 旧 Map 快照映射（原 mapToDTO / mapToDTOWithAreaId 路径），仅作为 SnapshotMappingBenchmark 的对照基线；
+ * 生产拉取使用 RatingCalculationService.appendSnapshotRecord。
+ */
+final class LegacySnapshotMapping {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacySnapshotMapping.class);
+
+    private LegacySnapshotMapping() {
+    }
+
+    /**
+     * 将模拟器返回的 Map 快照追加到列式存储，并解析 knowledgeTag 为 areaId。
+     * @return 是否成功追加（领域无法解析或必填字段缺失时返回 false，该内容将被过滤）
+     */
+    static boolean appendSnapshotMap(ContentColumnStore store, Map<String, Object> map, Map<String, Integer> tagToAreaId) {
+        try {
+            Long contentId = safeToLong(map, "content_id");
+            Long memberId = safeToLong(map, "member_id");
+            
+            // 通过缓存解析 knowledge_tag 为 areaId
+            String knowledgeTag = (String) map.get("knowledge_tag");
+            Integer areaId = knowledgeTag != null ? tagToAreaId.get(knowledgeTag) : null;
+            if (knowledgeTag != null && areaId == null) {
+                log.warn("内容 ID: {} 无法解析 knowledgeTag: {} 为 areaId，该内容将被过滤。", contentId, knowledgeTag);
+            }
+            
+            // publish_time 可能是 String 或 java.sql.Timestamp
+            LocalDateTime publishTime = null;
+            Object publishTimeObj = map.get("publish_time");
+            if (publishTimeObj instanceof String) {
+                publishTime = LocalDateTime.parse((String) publishTimeObj);
+            } else if (publishTimeObj instanceof java.sql.Timestamp) {
+                publishTime = ((java.sql.Timestamp) publishTimeObj).toLocalDateTime();
+            }
+            
+            if (contentId == null || memberId == null || areaId == null || publishTime == null) {
+                return false;
+            }
+            
+            Integer postLengthLevel = safeToInteger(map, "post_length_level");
+            store.add(contentId, memberId, areaId, publishTime,
+                postLengthLevel != null ? postLengthLevel : 0,
+                safeToLong(map, "read_count_snapshot", 0L),
+                safeToLong(map, "like_count_snapshot", 0L),
+                safeToLong(map, "comment_count_snapshot", 0L),
+                safeToLong(map, "share_count_snapshot", 0L),
+                safeToLong(map, "collect_count_snapshot", 0L),
+                safeToLong(map, "hate_count_snapshot", 0L));
+            return true;
+        } catch (Exception e) {
+            log.error("映射 Content 快照数据到列式存储失败: {}", map, e);
+            return false;
+        }
+    }
+
+    // 安全转换辅助方法（保持不变）
+    private static Long safeToLong(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return null; 
+    }
+
+    private static long safeToLong(Map<String, Object> map, String key, long defaultValue) {
+        Long value = safeToLong(map, key);
+        return value != null ? value : defaultValue;
+    }
+
+    private static Integer safeToInteger(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return null; 
+    }
+}
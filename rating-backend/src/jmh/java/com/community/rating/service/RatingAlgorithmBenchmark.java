@@ -0,0 +1,78 @@
+package com.community.rating.service;
+
+import com.community.rating.dto.ContentDataDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RatingAlgorithm 单次调用的微基准：CIS、DES（DTO 版与列式版）、评级映射。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatingAlgorithmBenchmark {
+
+    // 单个成员-领域组合的内容数
+    @Param({"10", "100"})
+    public int contentsPerGroup;
+
+    private final RatingAlgorithm ratingAlgorithm = new RatingAlgorithm();
+
+    private ContentColumnStore store;
+    private int[] rows;
+    private List<ContentDataDTO> dtoGroup;
+    private BigDecimal[] desScores;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = SyntheticContentData.columnStore(Math.max(contentsPerGroup, 4096), ratingAlgorithm);
+
+        rows = new int[contentsPerGroup];
+        dtoGroup = new ArrayList<>(contentsPerGroup);
+        for (int row = 0; row < contentsPerGroup; row++) {
+            rows[row] = row;
+            ContentDataDTO dto = new ContentDataDTO();
+            dto.setCisScore(BigDecimal.valueOf(store.cisScoreUnscaled(row), 4));
+            dto.setPublishTime(store.publishTime(row));
+            dtoGroup.add(dto);
+        }
+
+        desScores = new BigDecimal[1024];
+        for (int i = 0; i < desScores.length; i++) {
+            desScores[i] = BigDecimal.valueOf(i * 7L, 0).setScale(4, RoundingMode.HALF_UP);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateCIS() {
+        int row = cursor++ & 4095;
+        return ratingAlgorithm.calculateCIS(
+                store.readCount(row), store.likeCount(row), store.commentCount(row),
+                store.shareCount(row), store.collectCount(row), store.hateCount(row),
+                store.postLengthLevel(row));
+    }
+
+    @Benchmark
+    public BigDecimal calculateDES_dto() {
+        return ratingAlgorithm.calculateDES(dtoGroup);
+    }
+
+    @Benchmark
+    public BigDecimal calculateDES_columnStore() {
+        return ratingAlgorithm.calculateDES(store, rows, 0, rows.length, SyntheticContentData.AS_OF);
+    }
+
+    @Benchmark
+    public String determineRatingLevel() {
+        return ratingAlgorithm.determineRatingLevel(desScores[cursor++ & 1023]);
+    }
+}
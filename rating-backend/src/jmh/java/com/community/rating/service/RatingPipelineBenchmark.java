@@ -0,0 +1,75 @@
+package com.community.rating.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每日评级流水线各阶段（不含数据库 I/O）在不同数据规模下的整体耗时。
+ * 千万级数据集需要约 2 GB 堆，已通过 jvmArgsAppend 放宽。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RatingPipelineBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int contentCount;
+
+    private final RatingAlgorithm ratingAlgorithm = new RatingAlgorithm();
+
+    private ContentColumnStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = SyntheticContentData.columnStore(contentCount, ratingAlgorithm);
+    }
+
+    /**
+     * CIS 阶段：逐行调用生产实现 computeAndStoreCIS 计算并写回定点分数。
+     */
+    @Benchmark
+    public void cisStage() {
+        for (int row = 0; row < store.size(); row++) {
+            RatingCalculationService.computeAndStoreCIS(ratingAlgorithm, store, row);
+        }
+    }
+
+    /**
+     * DES 分组：按 (memberId, areaId) 排序下标并统计分组数。
+     */
+    @Benchmark
+    public int desGrouping() {
+        int[] rows = store.rowsOrderedByMemberArea();
+        int groups = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (i == 0 || !store.sameMemberArea(rows[i - 1], rows[i])) {
+                groups++;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * DES 阶段：分组 + 计算 DES + 映射评级。
+     */
+    @Benchmark
+    public void desStage(Blackhole blackhole) {
+        int[] rows = store.rowsOrderedByMemberArea();
+        int groupStart = 0;
+        while (groupStart < rows.length) {
+            int groupEnd = groupStart + 1;
+            while (groupEnd < rows.length && store.sameMemberArea(rows[groupStart], rows[groupEnd])) {
+                groupEnd++;
+            }
+            BigDecimal des = ratingAlgorithm.calculateDES(store, rows, groupStart, groupEnd, SyntheticContentData.AS_OF);
+            blackhole.consume(ratingAlgorithm.determineRatingLevel(des));
+            groupStart = groupEnd;
+        }
+    }
+}
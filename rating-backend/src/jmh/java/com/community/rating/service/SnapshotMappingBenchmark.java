@@ -0,0 +1,55 @@
+package com.community.rating.service;
+
+import com.community.rating.simulation.ContentSnapshotRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 快照映射：模拟器快照解析为列式存储。
+ * - snapshotMapping：旧 Map 结构（LegacySnapshotMapping，仅作对照基线），逐键查找并拆箱
+ * - typedSnapshotMapping：类型化 ContentSnapshotRecord，字段直接读取（生产路径 appendSnapshotRecord）
+ * 需预先持有全部快照，规模受限于堆大小，不提供千万级参数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SnapshotMappingBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int contentCount;
+
+    private List<Map<String, Object>> maps;
+    private List<ContentSnapshotRecord> records;
+    private Map<String, Integer> tagToAreaId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = SyntheticContentData.snapshotRecords(contentCount);
+        maps = records.stream().map(ContentSnapshotRecord::toMap).toList();
+        tagToAreaId = SyntheticContentData.tagToAreaId();
+    }
+
+    @Benchmark
+    public ContentColumnStore snapshotMapping() {
+        ContentColumnStore mapped = new ContentColumnStore(maps.size());
+        for (Map<String, Object> map : maps) {
+            LegacySnapshotMapping.appendSnapshotMap(mapped, map, tagToAreaId);
+        }
+        return mapped;
+    }
+
+    @Benchmark
+    public ContentColumnStore typedSnapshotMapping() {
+        ContentColumnStore mapped = new ContentColumnStore(records.size());
+        for (ContentSnapshotRecord record : records) {
+            RatingCalculationService.appendSnapshotRecord(mapped, record, tagToAreaId);
+        }
+        return mapped;
+    }
+}
@@ -0,0 +1,66 @@
+package com.community.rating.service;
+
+import com.community.rating.simulation.ContentSnapshotRecord;
+import com.community.rating.simulation.ForumDataSimulation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试数据集：通过 ForumDataSimulation 的行为模型离线生成合成内容。
+ */
+final class SyntheticContentData {
+
+    // 与 knowledgearea 表初始数据一致
+    static final List<String> AREA_TAGS = List.of(
+            "前端开发", "后端开发", "数据科学", "视觉设计", "产品管理", "云计算与运维");
+
+    // 固定参考时间，保证各轮次数据分布一致
+    static final LocalDateTime AS_OF = LocalDateTime.of(2025, 1, 1, 4, 0);
+
+    private SyntheticContentData() {
+    }
+
+    static Map<String, Integer> tagToAreaId() {
+        Map<String, Integer> tagToAreaId = new HashMap<>();
+        for (int i = 0; i < AREA_TAGS.size(); i++) {
+            tagToAreaId.put(AREA_TAGS.get(i), i + 1);
+        }
+        return tagToAreaId;
+    }
+
+    /**
+     * 生成模拟器类型化快照（与 getContentChangesSince 一致）。
+     */
+    static List<ContentSnapshotRecord> snapshotRecords(int contentCount) {
+        List<ContentSnapshotRecord> records = new ArrayList<>(contentCount);
+        new ForumDataSimulation(null).generateSyntheticContentSnapshots(contentCount, AS_OF, records::add);
+        return records;
+    }
+
+    /**
+     * 生成模拟器原始快照（旧 Map 结构，与 getContentSnapshot 一致）。
+     */
+    static List<Map<String, Object>> snapshotMaps(int contentCount) {
+        List<Map<String, Object>> maps = new ArrayList<>(contentCount);
+        new ForumDataSimulation(null).generateSyntheticContentSnapshots(contentCount, AS_OF, r -> maps.add(r.toMap()));
+        return maps;
+    }
+
+    /**
+     * 直接生成列式存储，并调用生产实现填充 CIS（不保留中间快照，便于构造千万级数据集）。
+     */
+    static ContentColumnStore columnStore(int contentCount, RatingAlgorithm ratingAlgorithm) {
+        ContentColumnStore store = new ContentColumnStore(contentCount);
+        Map<String, Integer> tagToAreaId = tagToAreaId();
+        new ForumDataSimulation(null).generateSyntheticContentSnapshots(contentCount, AS_OF,
+                snapshot -> RatingCalculationService.appendSnapshotRecord(store, snapshot, tagToAreaId));
+        for (int row = 0; row < store.size(); row++) {
+            RatingCalculationService.computeAndStoreCIS(ratingAlgorithm, store, row);
+        }
+        return store;
+    }
+}
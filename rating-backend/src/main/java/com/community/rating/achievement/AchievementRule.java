@@ -1,5 +1,6 @@
 package com.community.rating.achievement;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -15,4 +16,12 @@ public interface AchievementRule {
      * 执行检测并返回新达到该成就的成员 ID 列表（不包含已发放过的）。
      */
     List<Long> detect();
+
+    /**
+     * 以给定参考时间执行检测。与时间相关的规则应覆盖此方法，使同一次计算中的所有规则使用同一冻结时间；
+     * 与时间无关的规则直接沿用 detect()。
+     */
+    default List<Long> detect(LocalDateTime asOf) {
+        return detect();
+    }
 }
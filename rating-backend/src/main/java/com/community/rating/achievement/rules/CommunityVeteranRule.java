@@ -29,7 +29,12 @@ public class CommunityVeteranRule implements AchievementRule {
 
     @Override
     public List<Long> detect() {
-        LocalDateTime cutoff = com.community.rating.simulation.TimeSimulation.now().minusDays(DAYS_THRESHOLD);
+        return detect(com.community.rating.simulation.TimeSimulation.now());
+    }
+
+    @Override
+    public List<Long> detect(LocalDateTime asOf) {
+        LocalDateTime cutoff = asOf.minusDays(DAYS_THRESHOLD);
         return memberRepo.findAll().stream()
                 .filter(m -> m.getJoinDate() != null && m.getJoinDate().isBefore(cutoff))
                 .map(Member::getMemberId)
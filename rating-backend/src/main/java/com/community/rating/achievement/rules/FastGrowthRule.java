@@ -31,7 +31,12 @@ public class FastGrowthRule implements AchievementRule {
 
     @Override
     public List<Long> detect() {
-        LocalDateTime cutoff = com.community.rating.simulation.TimeSimulation.now();
+        return detect(com.community.rating.simulation.TimeSimulation.now());
+    }
+
+    @Override
+    public List<Long> detect(LocalDateTime asOf) {
+        LocalDateTime cutoff = asOf;
         // collect members who joined within last 30 days
         List<Member> recent = memberRepo.findAll().stream()
                 .filter(m -> m.getJoinDate() != null && m.getJoinDate().isAfter(cutoff.minusDays(30)))
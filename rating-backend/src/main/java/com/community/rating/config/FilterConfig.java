@@ -1,6 +1,8 @@
 package com.community.rating.config;
 
 import com.community.rating.filter.CalculationStatusFilter;
+import com.community.rating.filter.GenerationETagFilter;
+import com.community.rating.filter.RequestMetricsFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
@@ -12,6 +14,12 @@ public class FilterConfig {
     @Autowired
     private CalculationStatusFilter calculationStatusFilter;
     
+    @Autowired
+    private RequestMetricsFilter requestMetricsFilter;
+    
+    @Autowired
+    private GenerationETagFilter generationETagFilter;
+    
     @Bean
     public FilterRegistrationBean<CalculationStatusFilter> calculationStatusFilterBean() {
         FilterRegistrationBean<CalculationStatusFilter> registrationBean = 
@@ -25,4 +33,32 @@ public class FilterConfig {
         
         return registrationBean;
     }
+    
+    @Bean
+    public FilterRegistrationBean<RequestMetricsFilter> requestMetricsFilterBean() {
+        FilterRegistrationBean<RequestMetricsFilter> registrationBean = 
+                new FilterRegistrationBean<>(requestMetricsFilter);
+        
+        // 只统计API请求
+        registrationBean.addUrlPatterns("/api/*");
+        
+        // 先于计算状态过滤器执行，423 拦截的请求同样计入
+        registrationBean.setOrder(0);
+        
+        return registrationBean;
+    }
+    
+    @Bean
+    public FilterRegistrationBean<GenerationETagFilter> generationETagFilterBean() {
+        FilterRegistrationBean<GenerationETagFilter> registrationBean = 
+                new FilterRegistrationBean<>(generationETagFilter);
+        
+        // 只处理API请求（过滤器内部跳过非 GET 与管理接口）
+        registrationBean.addUrlPatterns("/api/*");
+        
+        // 在计算状态过滤器之后执行：计算进行中仍返回 423
+        registrationBean.setOrder(2);
+        
+        return registrationBean;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.community.rating.config;
+
+import com.community.rating.util.RequestQueryCounter;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 数据源包装配置 - 为请求级 SQL 计数提供钩子
+ * 使用 DelegatingDataSource 包装（连接池指标等仍可通过 unwrap 获取 HikariDataSource），
+ * 每次 prepareStatement / createStatement / prepareCall 计为一条语句
+ */
+@Configuration
+public class QueryCountingDataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+                    return new QueryCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static class QueryCountingDataSource extends DelegatingDataSource {
+
+        QueryCountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return countingConnection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return countingConnection(super.getConnection(username, password));
+        }
+
+        private static Connection countingConnection(Connection target) {
+            return (Connection) Proxy.newProxyInstance(
+                    QueryCountingDataSource.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.equals("prepareStatement") || name.equals("createStatement") || name.equals("prepareCall")) {
+                            RequestQueryCounter.increment();
+                        }
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.community.rating.config;
+
+import com.community.rating.util.SlowRequestLog;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator 端点：GET /actuator/slowrequests
+ * 返回最近的慢请求及疑似 N+1 请求（含每请求 SQL 语句数）
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestEndpoint {
+
+    private final SlowRequestLog slowRequestLog;
+
+    public SlowRequestEndpoint(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @ReadOperation
+    public List<SlowRequestLog.SlowRequest> slowRequests() {
+        return slowRequestLog.recent();
+    }
+}
@@ -0,0 +1,84 @@
+package com.community.rating.controller;
+
+import com.community.rating.dto.CommonResponse;
+import com.community.rating.service.CalculationJobRunner;
+import com.community.rating.service.CalculationScheduler;
+import com.community.rating.simulation.VirtualClock;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 评级计算管理接口：查看调度状态；提交、查询、取消计算任务。
+ */
+@RestController
+@RequestMapping("/api/admin/calculation")
+public class CalculationAdminController {
+
+    private final CalculationScheduler calculationScheduler;
+    private final CalculationJobRunner calculationJobRunner;
+    private final VirtualClock virtualClock;
+
+    public CalculationAdminController(CalculationScheduler calculationScheduler,
+                                      CalculationJobRunner calculationJobRunner,
+                                      VirtualClock virtualClock) {
+        this.calculationScheduler = calculationScheduler;
+        this.calculationJobRunner = calculationJobRunner;
+        this.virtualClock = virtualClock;
+    }
+
+    /**
+     * GET /api/admin/calculation/schedule
+     * 功能: 查看最近完成日期、下一次触发的虚拟/真实时间、当前租约持有者
+     */
+    @GetMapping("/schedule")
+    public ResponseEntity<CommonResponse<CalculationScheduler.ScheduleStatus>> getSchedule() {
+        return ResponseEntity.ok(CommonResponse.success(calculationScheduler.status()));
+    }
+
+    /**
+     * POST /api/admin/calculation/jobs
+     * 功能: 以当前虚拟时间提交一次评级计算任务，立即返回任务 ID（任务异步排队执行）
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<CommonResponse<CalculationJobRunner.JobSnapshot>> submitJob() {
+        long jobId = calculationJobRunner.submit("manual", virtualClock.now());
+        return ResponseEntity.accepted().body(CommonResponse.success(calculationJobRunner.find(jobId).orElse(null)));
+    }
+
+    /**
+     * GET /api/admin/calculation/jobs
+     * 功能: 最近的计算任务历史（最新在前），含状态、起止时间与各阶段耗时
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<CommonResponse<List<CalculationJobRunner.JobSnapshot>>> getJobs() {
+        return ResponseEntity.ok(CommonResponse.success(calculationJobRunner.history()));
+    }
+
+    /**
+     * GET /api/admin/calculation/jobs/{jobId}
+     * 功能: 查询任务详情与各阶段实时进度（已处理行数、吞吐、预计剩余时间）
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<CommonResponse<CalculationJobRunner.JobSnapshot>> getJob(@PathVariable long jobId) {
+        return calculationJobRunner.find(jobId)
+                .map(job -> ResponseEntity.ok(CommonResponse.success(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(CommonResponse.error(404, "计算任务不存在: " + jobId)));
+    }
+
+    /**
+     * POST /api/admin/calculation/jobs/{jobId}/cancel
+     * 功能: 取消排队中或运行中的任务（运行中的任务在下一次进度上报时中止，已提交的分块保留并可从检查点恢复）；任务不存在或已结束时返回 409
+     */
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<CommonResponse<CalculationJobRunner.JobSnapshot>> cancelJob(@PathVariable long jobId) {
+        if (!calculationJobRunner.cancel(jobId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(CommonResponse.error(409, "计算任务不存在或已结束: " + jobId));
+        }
+        return ResponseEntity.accepted().body(CommonResponse.success(calculationJobRunner.find(jobId).orElse(null)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.community.rating.controller;
+
+import com.community.rating.dto.CommonResponse;
+import com.community.rating.simulation.VirtualClock;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 虚拟时钟管理接口：查看状态、暂停/恢复、步进、调整倍速。
+ * 真实时间模式下控制操作返回 400。
+ */
+@RestController
+@RequestMapping("/api/admin/clock")
+public class ClockAdminController {
+
+    private final VirtualClock virtualClock;
+
+    public ClockAdminController(VirtualClock virtualClock) {
+        this.virtualClock = virtualClock;
+    }
+
+    /**
+     * GET /api/admin/clock
+     * 功能: 查看虚拟时钟状态（当前虚拟时间、模式、倍速、是否暂停、最近一次计算的参考时间）
+     */
+    @GetMapping
+    public ResponseEntity<CommonResponse<VirtualClock.ClockStatus>> getStatus() {
+        return ResponseEntity.ok(CommonResponse.success(virtualClock.status()));
+    }
+
+    /**
+     * POST /api/admin/clock/pause
+     * 功能: 暂停虚拟时钟
+     */
+    @PostMapping("/pause")
+    public ResponseEntity<CommonResponse<VirtualClock.ClockStatus>> pause() {
+        return control(virtualClock::pause);
+    }
+
+    /**
+     * POST /api/admin/clock/resume
+     * 功能: 恢复虚拟时钟
+     */
+    @PostMapping("/resume")
+    public ResponseEntity<CommonResponse<VirtualClock.ClockStatus>> resume() {
+        return control(virtualClock::resume);
+    }
+
+    /**
+     * POST /api/admin/clock/step?days=1&hours=0&minutes=0
+     * 功能: 虚拟时钟前进指定时长（暂停状态下同样有效）
+     */
+    @PostMapping("/step")
+    public ResponseEntity<CommonResponse<VirtualClock.ClockStatus>> step(
+            @RequestParam(defaultValue = "0") long days,
+            @RequestParam(defaultValue = "0") long hours,
+            @RequestParam(defaultValue = "0") long minutes) {
+        Duration duration = Duration.ofDays(days).plusHours(hours).plusMinutes(minutes);
+        return control(() -> virtualClock.step(duration));
+    }
+
+    /**
+     * POST /api/admin/clock/speed?multiplier=720
+     * 功能: 调整虚拟时间相对真实时间的倍速（默认 720，即 120 秒推进 1 天）
+     */
+    @PostMapping("/speed")
+    public ResponseEntity<CommonResponse<VirtualClock.ClockStatus>> setSpeed(@RequestParam double multiplier) {
+        return control(() -> virtualClock.setSpeed(multiplier));
+    }
+
+    private ResponseEntity<CommonResponse<VirtualClock.ClockStatus>> control(Supplier<VirtualClock.ClockStatus> action) {
+        try {
+            return ResponseEntity.ok(CommonResponse.success(action.get()));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(CommonResponse.error(400, e.getMessage()));
+        }
+    }
+}
@@ -50,4 +50,19 @@ public class ContentController {
         
         return ResponseEntity.ok(CommonResponse.success(content));
     }
+
+    /**
+     * **路径: /api/Content/batch**
+     * 功能: 按帖子 ID 批量获取内容详情（最多 500 个），结果按请求顺序返回，不存在的帖子为 null
+     * @param contentIds 帖子 ID 列表，逗号分隔 (必需)
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<CommonResponse<List<ContentDTO>>> getContents(
+            @RequestParam("content_ids") List<Long> contentIds) {
+        try {
+            return ResponseEntity.ok(CommonResponse.success(contentService.getContentsByIds(contentIds)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(CommonResponse.error(400, e.getMessage()));
+        }
+    }
 }
\ No newline at end of file
@@ -55,6 +55,19 @@ public class MemberController {
         return ResponseEntity.ok(CommonResponse.success(dtoList));
     }
 
+    /**
+     * 批量获取成员详情：GET /api/Member/batch?ids=1,2,3（最多 500 个）
+     * 结果按请求顺序返回，每个元素与单个成员接口的返回相同，不存在的成员为空列表。
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<CommonResponse<List<List<MemberScoreHistoryDTO>>>> getMembers(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(CommonResponse.success(memberService.getMembers(ids)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(CommonResponse.error(400, e.getMessage()));
+        }
+    }
+
     @GetMapping("/search")
     public ResponseEntity<CommonResponse<List<MemberDTO>>> searchMembers(@RequestParam String keyword,
                                                                          @RequestParam(required = false) String domain,
@@ -62,4 +75,15 @@ public class MemberController {
         List<MemberDTO> list = memberService.searchMembers(keyword, domain, count);
         return ResponseEntity.ok(CommonResponse.success(list));
     }
+
+    /**
+     * 成员名称前缀联想（输入框实时提示），按名字长度排序，不区分大小写。
+     */
+    @GetMapping("/typeahead")
+    public ResponseEntity<CommonResponse<List<MemberDTO>>> typeaheadMembers(@RequestParam String prefix,
+                                                                            @RequestParam(required = false) String domain,
+                                                                            @RequestParam(required = false) Integer count) {
+        List<MemberDTO> list = memberService.typeaheadMembers(prefix, domain, count);
+        return ResponseEntity.ok(CommonResponse.success(list));
+    }
 }
@@ -0,0 +1,57 @@
+package com.community.rating.controller;
+
+import com.community.rating.dto.CommonResponse;
+import com.community.rating.dto.MemberStandingDTO;
+import com.community.rating.dto.ScoreDistributionDTO;
+import com.community.rating.service.ScoreDistributionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/ScoreDistribution")
+public class ScoreDistributionController {
+
+    private final ScoreDistributionService scoreDistributionService;
+
+    public ScoreDistributionController(ScoreDistributionService scoreDistributionService) {
+        this.scoreDistributionService = scoreDistributionService;
+    }
+
+    /**
+     * GET /api/ScoreDistribution?metric=des&areaId=&buckets=10
+     * 获取 DES（可按领域）或 CIS 的分位数与直方图（由每日计算构建的分位数草图估计）。
+     */
+    @GetMapping
+    public ResponseEntity<CommonResponse<ScoreDistributionDTO>> getDistribution(
+            @RequestParam(required = false, defaultValue = "des") String metric,
+            @RequestParam(required = false) Integer areaId,
+            @RequestParam(required = false, defaultValue = "10") Integer buckets) {
+        try {
+            ScoreDistributionDTO dto = scoreDistributionService.getDistribution(metric, areaId, buckets);
+            if (dto == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(CommonResponse.error(404, "分数分布尚未构建（等待下一次每日计算）"));
+            }
+            return ResponseEntity.ok(CommonResponse.success(dto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(CommonResponse.error(400, e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/ScoreDistribution/member/{member_id}
+     * 获取成员在其各领域的最新 DES 处于前百分之几。
+     */
+    @GetMapping("/member/{member_id}")
+    public ResponseEntity<CommonResponse<List<MemberStandingDTO>>> getMemberStanding(
+            @PathVariable("member_id") Long memberId) {
+        return ResponseEntity.ok(CommonResponse.success(scoreDistributionService.getMemberStanding(memberId)));
+    }
+}
@@ -7,8 +7,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor // Lombok: 注入 Service
@@ -34,4 +37,17 @@ public class SystemOverviewController {
         // 3. 返回 HTTP 200 OK
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * GET /api/SystemOverview/ratingDistribution?areaId=
+     * 获取评级等级分布百分比（读取增量维护的等级计数）；不传 areaId 时为全局分布。
+     * 计数口径为 (成员, 领域) 的最新评级，与概览中的 ratingDistribution 一致。
+     *
+     * @return 封装在 CommonResponse 中的 Map<等级, 百分比>
+     */
+    @GetMapping("/SystemOverview/ratingDistribution")
+    public ResponseEntity<CommonResponse<Map<String, Double>>> getRatingDistribution(
+            @RequestParam(required = false) Integer areaId) {
+        return ResponseEntity.ok(CommonResponse.success(systemOverviewService.getRatingDistribution(areaId)));
+    }
 }
\ No newline at end of file
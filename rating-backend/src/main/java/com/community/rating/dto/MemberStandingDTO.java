@@ -0,0 +1,25 @@
+package com.community.rating.dto;
+
+import lombok.Data;
+
+/**
+ * 成员在某领域的分数排名百分比 DTO
+ */
+@Data
+public class MemberStandingDTO {
+    private Long memberId;
+
+    private Integer areaId;
+
+    // 领域名称
+    private String mainDomain;
+
+    // 最新 DES 分数
+    private Double desScore;
+
+    // 处于该领域前 X%（例如 3.2 表示前 3.2%）
+    private Double topPercent;
+
+    // 该领域参与排名的成员数
+    private Long areaMemberCount;
+}
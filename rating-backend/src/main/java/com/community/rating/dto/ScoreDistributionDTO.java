@@ -0,0 +1,44 @@
+package com.community.rating.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分数分布 DTO（由分位数草图估计，相对误差约 1%）
+ */
+@Data
+public class ScoreDistributionDTO {
+    // 分数类型：DES / CIS
+    private String metric;
+
+    // 领域 ID（null 表示全部领域）
+    private Integer areaId;
+
+    // 构建草图的计算参考时间
+    private String asOf;
+
+    // 分数个数（DES 为成员-领域组合数，CIS 为内容数）
+    private Long count;
+
+    private Double min;
+    private Double max;
+
+    // 分位数，例如 {"p50": 12.3, "p90": 45.6}
+    private Map<String, Double> percentiles;
+
+    // 在 [min, max] 上等宽切分的直方图
+    private List<HistogramBucket> histogram;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HistogramBucket {
+        private Double lower;
+        private Double upper;
+        private Long count;
+    }
+}
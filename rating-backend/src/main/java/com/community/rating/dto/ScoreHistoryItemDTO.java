@@ -6,15 +6,27 @@ import lombok.AllArgsConstructor;
 /**
  * 成员分领域的历史分数记录项。
  * 领域信息由外部 MemberScoreHistoryDTO 实例的 main_domain 字段提供。
+ * 近期记录为日粒度；超出保留期的记录为周/月汇总，des_score 为周期内最后值，并附带周期内最小/最大值。
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ScoreHistoryItemDTO {
     
-    // 记录本次评级的计算日期 (格式化为字符串)
+    // 记录本次评级的计算日期 (格式化为字符串)；汇总记录为周期内最后一条评级的日期
     private String update_date; 
     
     // DESK 最终影响力分数
     private Double des_score;   
-}
\ No newline at end of file
+    
+    // 粒度：day / week / month
+    private String granularity;
+    
+    // 周期内最低、最高分数（仅汇总记录）
+    private Double min_score;
+    private Double max_score;
+    
+    public ScoreHistoryItemDTO(String update_date, Double des_score) {
+        this(update_date, des_score, "day", null, null);
+    }
+}
@@ -30,7 +30,8 @@ public class SystemOverviewDTO {
     // 平均等级（如"L2.8"）
     private String averageRating;
     
-    // 评级分布百分比（等级名 -> 百分比，如 {"L1": 5.2, "L2": 12.5, "L3": 8.0}）
+    // 评级分布百分比（等级名 -> 百分比，如 {"L1": 5.2, "L2": 12.5, "L3": 8.0}）。
+    // 按 (成员, 领域) 的最新评级计数：在多个领域有评级的成员在各领域的等级上各计一次（不再按成员去重）
     private Map<String, Double> ratingDistribution;
     
     // 顶级成员列表
@@ -0,0 +1,64 @@
+package com.community.rating.entity;
+
+import lombok.Data;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Column;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * MemberRatingRollup Entity: 成员评级历史汇总表
+ * 超出日粒度保留期的 MemberRating 记录按周、再按月汇总为一行（最后值、最小值、最大值）。
+ */
+@Entity
+@Data
+@Table(name = "memberratingrollup")
+public class MemberRatingRollup implements Serializable {
+
+    public static final String WEEKLY = "W";
+    public static final String MONTHLY = "M";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "area_id", nullable = false)
+    private Integer areaId;
+
+    // 汇总粒度：W 周 / M 月
+    @Column(name = "granularity", nullable = false, length = 1)
+    private String granularity;
+
+    // 周期起始日（周一 / 每月 1 日）
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    // 周期内最后一条评级的日期、分数与等级
+    @Column(name = "last_date", nullable = false)
+    private LocalDate lastDate;
+
+    @Column(name = "last_score", nullable = false, precision = 12, scale = 4)
+    private BigDecimal lastScore;
+
+    @Column(name = "last_level", nullable = false, length = 2)
+    private String lastLevel;
+
+    @Column(name = "min_score", nullable = false, precision = 12, scale = 4)
+    private BigDecimal minScore;
+
+    @Column(name = "max_score", nullable = false, precision = 12, scale = 4)
+    private BigDecimal maxScore;
+
+    // 汇总的日评级条数
+    @Column(name = "sample_count", nullable = false)
+    private Integer sampleCount;
+}
@@ -18,13 +18,16 @@ import java.nio.charset.StandardCharsets;
 
 /**
  * 计算状态过滤器 - 拦截所有API请求，检查评分计算状态
- * 当计算进行中时，直接返回423状态码（资源被锁定）
+ * 当计算进行中时，直接返回423状态码（资源被锁定）；管理接口（/api/admin/）不拦截，以便查看调度与时钟状态
  */
 @Component
 @Order(1) // 确保在其他过滤器之前执行
 public class CalculationStatusFilter implements Filter {
     
     private static final Logger log = LoggerFactory.getLogger(CalculationStatusFilter.class);
+
+    // 计算期间仍放行的管理接口前缀
+    private static final String ADMIN_PATH_PREFIX = "/api/admin/";
     
     @Autowired
     private CalculationStatusManager statusManager;
@@ -40,7 +43,7 @@ public class CalculationStatusFilter implements Filter {
         HttpServletResponse httpResponse = (HttpServletResponse) response;
         
         // 检查评分计算是否正在进行
-        if (statusManager.isCalculationInProgress()) {
+        if (statusManager.isCalculationInProgress() && !httpRequest.getRequestURI().startsWith(ADMIN_PATH_PREFIX)) {
             // 记录拦截的请求
             log.warn("拦截请求: {} {} (评分计算正在进行)", 
                     httpRequest.getMethod(), httpRequest.getRequestURI());
@@ -0,0 +1,85 @@
+package com.community.rating.filter;
+
+import com.community.rating.simulation.TimeSimulation;
+import com.community.rating.util.DataGeneration;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 数据代数 ETag 过滤器 - 读接口（GET /api/*，管理接口与模拟数据源接口除外）的响应以当前数据代数作为弱 ETag：
+ * W/"纪元-代数-虚拟日期"（虚拟日期使“今日”“近 30 天”等按日统计的窗口跨日后失效）。
+ * 请求的 If-None-Match 与当前 ETag 一致时直接返回 304，不进入控制器与服务；否则正常处理并附带 ETag。
+ * ETag 在处理前取得：处理期间数据发生变化时，响应附带的是较旧的代数，下一次请求会重新获取，不会把新数据误判为旧数据。
+ */
+@Component
+public class GenerationETagFilter implements Filter {
+
+    // 不参与缓存的管理接口前缀（调度、时钟、作业状态随时变化）
+    private static final String ADMIN_PATH_PREFIX = "/api/admin/";
+    // 不参与缓存的模拟数据源接口前缀（变更流、事件流随模拟时间推进，与数据代数无关）
+    private static final String SIMULATION_PATH_PREFIX = "/api/simulation/";
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final DataGeneration dataGeneration;
+
+    public GenerationETagFilter(DataGeneration dataGeneration) {
+        this.dataGeneration = dataGeneration;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        String uri = httpRequest.getRequestURI();
+        if (!"GET".equals(httpRequest.getMethod())
+                || uri.startsWith(ADMIN_PATH_PREFIX) || uri.startsWith(SIMULATION_PATH_PREFIX)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String etag = currentETag();
+        httpResponse.setHeader(HttpHeaders.ETAG, etag);
+        // 允许缓存，但每次使用前须携带 If-None-Match 重新验证
+        httpResponse.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (matches(httpRequest.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    String currentETag() {
+        return "W/\"" + dataGeneration.epoch() + "-" + dataGeneration.current() + "-"
+                + TimeSimulation.now().toLocalDate().format(DAY_FORMATTER) + "\"";
+    }
+
+    /**
+     * If-None-Match 是否命中（弱比较：忽略 W/ 前缀；支持逗号分隔的多个 ETag 与 *）
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
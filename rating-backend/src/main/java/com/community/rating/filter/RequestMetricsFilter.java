@@ -0,0 +1,84 @@
+package com.community.rating.filter;
+
+import com.community.rating.util.RequestQueryCounter;
+import com.community.rating.util.SlowRequestLog;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * 请求指标过滤器 - 统计每个 API 请求执行的 SQL 语句数
+ * 接口耗时直方图由 Actuator 的 http.server.requests 提供（见 application.properties）；
+ * 本过滤器补充：
+ * - rating.http.request.queries：按接口模板统计的每请求语句数分布（用于发现 N+1）
+ * - 慢请求 / 语句数过多的请求写入日志与 SlowRequestLog
+ */
+@Component
+public class RequestMetricsFilter implements Filter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestMetricsFilter.class);
+
+    // 慢请求阈值（毫秒）
+    private static final long SLOW_REQUEST_MILLIS = 500;
+    // 单请求语句数阈值，超过视为疑似 N+1
+    private static final int QUERY_COUNT_THRESHOLD = 20;
+
+    private final MeterRegistry meterRegistry;
+    private final SlowRequestLog slowRequestLog;
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry, SlowRequestLog slowRequestLog) {
+        this.meterRegistry = meterRegistry;
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        long startTime = System.nanoTime();
+        RequestQueryCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int queryCount = RequestQueryCounter.stop();
+            long durationMs = (System.nanoTime() - startTime) / 1_000_000;
+
+            // 使用接口模板（如 /api/members/{id}）作为标签，避免路径参数导致标签爆炸
+            Object patternAttr = httpRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String pattern = patternAttr != null ? patternAttr.toString() : "UNKNOWN";
+
+            DistributionSummary.builder("rating.http.request.queries")
+                    .description("每个请求执行的 SQL 语句数")
+                    .tag("uri", pattern)
+                    .tag("method", httpRequest.getMethod())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(queryCount);
+
+            boolean slow = durationMs >= SLOW_REQUEST_MILLIS;
+            boolean tooManyQueries = queryCount > QUERY_COUNT_THRESHOLD;
+            if (slow || tooManyQueries) {
+                String reason = slow ? "slow" : "queries";
+                log.warn("慢请求: {} {} ({}) 状态: {}, 耗时: {} ms, SQL 语句数: {}{}",
+                        httpRequest.getMethod(), httpRequest.getRequestURI(), pattern,
+                        httpResponse.getStatus(), durationMs, queryCount,
+                        tooManyQueries ? "（疑似 N+1）" : "");
+                slowRequestLog.add(new SlowRequestLog.SlowRequest(
+                        LocalDateTime.now(), httpRequest.getMethod(), httpRequest.getRequestURI(), pattern,
+                        httpResponse.getStatus(), durationMs, queryCount, reason));
+            }
+        }
+    }
+}
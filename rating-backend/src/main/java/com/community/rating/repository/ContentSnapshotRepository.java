@@ -17,6 +17,7 @@ public interface ContentSnapshotRepository extends JpaRepository<ContentSnapshot
     Long countByPublishTimeAfter(LocalDateTime time);
 
     // ContentSnapshot (单表): countByPublishTimeBetween()
+    // 直接以分区列 publish_time 的半开区间过滤（不对列套函数），MySQL 只访问区间覆盖的月分区
     @Query(value = "SELECT COUNT(*) FROM contentsnapshot c WHERE c.publish_time >= :start AND c.publish_time < :end", nativeQuery = true)
     Long countByPublishTimeBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
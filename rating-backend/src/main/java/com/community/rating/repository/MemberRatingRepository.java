@@ -5,12 +5,20 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MemberRatingRepository extends JpaRepository<MemberRating, Long> {
 
+    /**
+     * “最新评级”查询只扫描最近评级日期之前这么多天内的记录：每日计算只在分数变化时写入新行，
+     * 但未变化的评级至少每 RatingWriter.HEARTBEAT_DAYS（28）天重写一次，加上补跑上限 3 天，
+     * 最新评级必然落在该窗口内，据此给出 update_date 下界以裁剪分区。
+     */
+    int LATEST_RATING_WINDOW_DAYS = 35;
+
     /**
      * 根据知识领域 ID 查询该领域下所有成员的评级，并按分数降序排列（用于排名榜单）
      * 对应 SQL: SELECT * FROM member_rating WHERE knowledge_area_id = ? ORDER BY des_score DESC
@@ -34,18 +42,46 @@ public interface MemberRatingRepository extends JpaRepository<MemberRating, Long
      * 用于获取特定成员的所有领域评级（如果有需要）。
      */
     List<MemberRating> findAllByMemberId(Long memberId);
+
+    /**
+     * 查询成员在指定日期之前的评级（分数序列开始之前的历史）
+     */
+    List<MemberRating> findAllByMemberIdAndUpdateDateBefore(Long memberId, LocalDate before);
+
+    /**
+     * 批量查询多个成员在所有领域的评级（批量成员详情）
+     */
+    List<MemberRating> findAllByMemberIdIn(Collection<Long> memberIds);
+
+    /**
+     * 批量查询多个成员在指定日期之前的评级（批量成员详情，分数序列开始之前的历史）
+     */
+    List<MemberRating> findAllByMemberIdInAndUpdateDateBefore(Collection<Long> memberIds, LocalDate before);
     // MemberRating (单表): findMaxUpdateDate()
     @Query("SELECT MAX(m.updateDate) FROM MemberRating m")
     LocalDate findMaxUpdateDate();
 
+    /**
+     * 最新评级查询的 update_date 下界（最近评级日期前 LATEST_RATING_WINDOW_DAYS 天；没有评级时不限制）
+     */
+    default LocalDate latestRatingWindowStart() {
+        LocalDate maxUpdateDate = findMaxUpdateDate();
+        return maxUpdateDate == null ? LocalDate.EPOCH : maxUpdateDate.minusDays(LATEST_RATING_WINDOW_DAYS);
+    }
+
     // MemberRating (单表/复杂查询): calculateAverageDesScoreOfLatestRatings()
+    default Double calculateAverageDesScoreOfLatestRatings() {
+        return calculateAverageDesScoreOfLatestRatingsSince(latestRatingWindowStart());
+    }
+
     @Query(value = "SELECT AVG(latest_ratings.des_score) FROM (" +
                    "    SELECT mr.des_score, " +
                    "           ROW_NUMBER() OVER(PARTITION BY mr.member_id ORDER BY mr.update_date DESC) as rn " +
-                   "    FROM memberrating mr" +
+                   "    FROM memberrating mr " +
+                   "    WHERE mr.update_date >= :since" +
                    ") latest_ratings " +
                    "WHERE latest_ratings.rn = 1", nativeQuery = true)
-    Double calculateAverageDesScoreOfLatestRatings();
+    Double calculateAverageDesScoreOfLatestRatingsSince(LocalDate since);
 
     // Return member_ids who have at least `minAreas` distinct areas with rating level >= L{minLevel}
     @Query(value = "SELECT t.member_id FROM (SELECT mr.member_id, mr.area_id, mr.rating_level FROM memberrating mr WHERE (mr.rating_level LIKE 'L%') AND CAST(SUBSTRING(mr.rating_level,2) AS UNSIGNED) >= :minLevel GROUP BY mr.member_id, mr.area_id, mr.rating_level) t GROUP BY t.member_id HAVING COUNT(DISTINCT t.area_id) >= :minAreas", nativeQuery = true)
@@ -56,35 +92,67 @@ public interface MemberRatingRepository extends JpaRepository<MemberRating, Long
     java.util.List<java.lang.Long> findMemberIdsWithAnyAreaAtOrAboveLevel(int level);
 
     /**
-     * 查询评级分布：按 rating_level 分组统计每个等级的成员数（去重）
+     * 查询评级分布：按 rating_level 分组统计每个等级的最新评级数
      * 逻辑：
      * 1. 先按 (member_id, area_id) 分组，取每个成员在每个领域的最新评级
-     * 2. 再按 rating_level 分组，统计有多少不同的成员达到了该等级
-     * 返回 [rating_level, count] 的列表
+     * 2. 再按 rating_level 分组计数（与 RatingLevelCounterStore 的计数口径一致）。
+     *    注意：此前按 COUNT(DISTINCT member_id) 统计每个等级的成员数，现改为每个 (成员, 领域) 各计一次，
+     *    在多个领域有评级的成员会计入其各领域的等级
+     * 返回 [rating_level, count] 的列表。
+     * 概览优先读取等级分布计数表，此查询仅在计数表为空时作为回退。
      */
-    @Query(value = "SELECT latest.rating_level, COUNT(DISTINCT latest.member_id) as level_count " +
+    default java.util.List<Object[]> getRatingDistribution() {
+        return getRatingDistributionSince(latestRatingWindowStart());
+    }
+
+    @Query(value = "SELECT latest.rating_level, COUNT(*) as level_count " +
                    "FROM (" +
                    "    SELECT mr.member_id, mr.area_id, mr.rating_level, " +
                    "           ROW_NUMBER() OVER(PARTITION BY mr.member_id, mr.area_id ORDER BY mr.update_date DESC) as rn " +
                    "    FROM memberrating mr " +
-                   "    WHERE mr.rating_level IS NOT NULL" +
+                   "    WHERE mr.rating_level IS NOT NULL AND mr.update_date >= :since" +
+                   ") latest " +
+                   "WHERE latest.rn = 1 " +
+                   "GROUP BY latest.rating_level " +
+                   "ORDER BY latest.rating_level ASC", nativeQuery = true)
+    java.util.List<Object[]> getRatingDistributionSince(LocalDate since);
+
+    /**
+     * 查询指定领域的评级分布（等级分布计数表为空时的回退）
+     * 返回 [rating_level, count] 的列表
+     */
+    default java.util.List<Object[]> getRatingDistributionByArea(Integer areaId) {
+        return getRatingDistributionByAreaSince(areaId, latestRatingWindowStart());
+    }
+
+    @Query(value = "SELECT latest.rating_level, COUNT(*) as level_count " +
+                   "FROM (" +
+                   "    SELECT mr.rating_level, " +
+                   "           ROW_NUMBER() OVER(PARTITION BY mr.member_id ORDER BY mr.update_date DESC) as rn " +
+                   "    FROM memberrating mr " +
+                   "    WHERE mr.area_id = :areaId AND mr.rating_level IS NOT NULL AND mr.update_date >= :since" +
                    ") latest " +
                    "WHERE latest.rn = 1 " +
                    "GROUP BY latest.rating_level " +
                    "ORDER BY latest.rating_level ASC", nativeQuery = true)
-    java.util.List<Object[]> getRatingDistribution();
+    java.util.List<Object[]> getRatingDistributionByAreaSince(Integer areaId, LocalDate since);
 
     /**
      * 获取所有成员的最新 DES 分数（用于分析分数分布）
      * 返回每个成员的最新 DES 分数
      */
+    default java.util.List<Object[]> getAllLatestDesScores() {
+        return getAllLatestDesScoresSince(latestRatingWindowStart());
+    }
+
     @Query(value = "SELECT latest.des_score " +
                    "FROM (" +
                    "    SELECT mr.member_id, mr.des_score, " +
                    "           ROW_NUMBER() OVER(PARTITION BY mr.member_id ORDER BY mr.update_date DESC) as rn " +
-                   "    FROM memberrating mr" +
+                   "    FROM memberrating mr " +
+                   "    WHERE mr.update_date >= :since" +
                    ") latest " +
                    "WHERE latest.rn = 1 " +
                    "ORDER BY latest.des_score DESC", nativeQuery = true)
-    java.util.List<Object[]> getAllLatestDesScores();
+    java.util.List<Object[]> getAllLatestDesScoresSince(LocalDate since);
 }
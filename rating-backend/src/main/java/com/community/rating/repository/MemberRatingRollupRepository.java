@@ -0,0 +1,33 @@
+package com.community.rating.repository;
+
+import com.community.rating.entity.MemberRatingRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MemberRatingRollupRepository extends JpaRepository<MemberRatingRollup, Long> {
+
+    /**
+     * 查询成员在所有领域的周/月汇总（用于拼接完整的历史分数）
+     */
+    List<MemberRatingRollup> findAllByMemberId(Long memberId);
+
+    /**
+     * 查询成员在指定日期之前结束的周/月汇总（分数序列开始之前的历史）
+     */
+    List<MemberRatingRollup> findAllByMemberIdAndLastDateBefore(Long memberId, LocalDate before);
+
+    /**
+     * 批量查询多个成员的周/月汇总（批量成员详情）
+     */
+    List<MemberRatingRollup> findAllByMemberIdIn(Collection<Long> memberIds);
+
+    /**
+     * 批量查询多个成员在指定日期之前结束的周/月汇总
+     */
+    List<MemberRatingRollup> findAllByMemberIdInAndLastDateBefore(Collection<Long> memberIds, LocalDate before);
+}
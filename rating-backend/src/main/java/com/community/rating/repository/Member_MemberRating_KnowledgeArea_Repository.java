@@ -3,12 +3,24 @@ package com.community.rating.repository;
 
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository; // 导入 Repository
+import java.time.LocalDate;
 import java.util.List;
 import com.community.rating.entity.Member;
 
 @Repository
 public interface Member_MemberRating_KnowledgeArea_Repository extends org.springframework.data.repository.Repository<Member, Long> {
 
+    @Query("SELECT MAX(r.updateDate) FROM MemberRating r")
+    LocalDate findMaxRatingUpdateDate();
+
+    // 最新评级只在最近 LATEST_RATING_WINDOW_DAYS 天内查找，按 update_date 裁剪分区
+    default List<Object[]> findTopMembersRankingData(int limit) {
+        LocalDate maxUpdateDate = findMaxRatingUpdateDate();
+        LocalDate since = maxUpdateDate == null ? LocalDate.EPOCH
+                : maxUpdateDate.minusDays(MemberRatingRepository.LATEST_RATING_WINDOW_DAYS);
+        return findTopMembersRankingDataSince(limit, since);
+    }
+
     // 【关键修改】修改 JOIN 条件中的字段名：knowledgearea -> area_id
     @Query(value = "SELECT " +
                    "    m.member_id, " +
@@ -21,10 +33,11 @@ public interface Member_MemberRating_KnowledgeArea_Repository extends org.spring
                    "    SELECT mr.*, " +
                    "           ROW_NUMBER() OVER(PARTITION BY mr.member_id ORDER BY mr.update_date DESC) as rn " +
                    "    FROM memberrating mr " +
+                   "    WHERE mr.update_date >= :since " +
                    ") latest_rating ON m.member_id = latest_rating.member_id " +
                    "JOIN knowledgearea ka ON latest_rating.area_id = ka.area_id " + // <--- **这里是关键修改**
                    "WHERE latest_rating.rn = 1 " +
                    "ORDER BY latest_rating.des_score DESC " +
                    "LIMIT :limit", nativeQuery = true)
-    List<Object[]> findTopMembersRankingData(int limit);
+    List<Object[]> findTopMembersRankingDataSince(int limit, LocalDate since);
 }
\ No newline at end of file
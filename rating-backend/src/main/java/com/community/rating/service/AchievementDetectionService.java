@@ -4,6 +4,7 @@ import com.community.rating.achievement.AchievementRule;
 import com.community.rating.entity.AchievementStatus;
 import com.community.rating.repository.AchievementStatusRepository;
 import com.community.rating.util.ProgressBar;
+import com.community.rating.util.RatingMetrics;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,13 +28,16 @@ public class AchievementDetectionService {
     private final List<AchievementRule> rules;
     private final AchievementStatusRepository statusRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final RatingMetrics ratingMetrics;
 
     public AchievementDetectionService(List<AchievementRule> rules,
                                        AchievementStatusRepository statusRepository,
-                                       JdbcTemplate jdbcTemplate) {
+                                       JdbcTemplate jdbcTemplate,
+                                       RatingMetrics ratingMetrics) {
         this.rules = rules;
         this.statusRepository = statusRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.ratingMetrics = ratingMetrics;
     }
 
     /**
@@ -42,6 +46,15 @@ public class AchievementDetectionService {
      */
     @Transactional
     public void detectAndPersistAchievements() {
+        detectAndPersistAchievements(com.community.rating.simulation.TimeSimulation.now());
+    }
+
+    /**
+     * 以给定参考时间执行成就检测：时间相关规则的判定与成就达成时间均使用该时间。
+     * 每日评级计算传入本次计算冻结的参考时间。
+     */
+    @Transactional
+    public void detectAndPersistAchievements(LocalDateTime asOf) {
         log.info("Achievement detection started.");
         
         // 创建进度条，以规则数量为总步骤
@@ -55,8 +68,9 @@ public class AchievementDetectionService {
             String key = rule.getAchievementKey();
             
             // 1. 检测符合条件的成员
-            List<Long> candidateMemberIds = rule.detect();
+            List<Long> candidateMemberIds = rule.detect(asOf);
             if (candidateMemberIds == null || candidateMemberIds.isEmpty()) {
+                ratingMetrics.recordRule(key, System.currentTimeMillis() - ruleStartTime, 0);
                 progressBar.step();
                 continue;
             }
@@ -77,6 +91,7 @@ public class AchievementDetectionService {
             
             if (newMemberIds.isEmpty()) {
                 log.debug("规则 {} 无新成就需要颁发 (候选: {}, 已存在: {})", key, candidateMemberIds.size(), existingMemberIds.size());
+                ratingMetrics.recordRule(key, System.currentTimeMillis() - ruleStartTime, 0);
                 progressBar.step();
                 continue;
             }
@@ -84,20 +99,21 @@ public class AchievementDetectionService {
             // 4. 批量插入新成就 (使用原生 SQL 以获得最佳性能)
             long insertStartTime = System.currentTimeMillis();
             String sql = "INSERT INTO achievementstatus (member_id, achievement_key, achieved_time) VALUES (?, ?, ?)";
-            LocalDateTime now = com.community.rating.simulation.TimeSimulation.now();
             
             jdbcTemplate.batchUpdate(sql, newMemberIds, newMemberIds.size(), 
                 (ps, memberId) -> {
                     ps.setLong(1, memberId);
                     ps.setString(2, key);
-                    ps.setObject(3, now);
+                    ps.setObject(3, asOf);
                 });
             
             long insertTime = System.currentTimeMillis() - insertStartTime;
             totalBatchInsertTime += insertTime;
+            ratingMetrics.recordJdbcBatch("achievementstatus_insert", insertTime * 1_000_000, newMemberIds.size());
             totalAwardedCount += newMemberIds.size();
             
             long ruleTime = System.currentTimeMillis() - ruleStartTime;
+            ratingMetrics.recordRule(key, ruleTime, newMemberIds.size());
             log.debug("规则 {} 完成: 候选 {}, 新颁发 {}, 耗时 {} ms (查询: {} ms, 插入: {} ms)", 
                 key, candidateMemberIds.size(), newMemberIds.size(), ruleTime, queryTime, insertTime);
             
@@ -0,0 +1,154 @@
+package com.community.rating.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 【计算检查点】持久化每次评级计算的运行 ID、当前阶段与阶段内已提交的最大键（CalculationCheckpoint 表）。
+ * 各阶段分块提交时在同一事务内更新检查点，因此检查点与已落库的数据始终一致；
+ * 计算中断后以相同参考时间重新执行时，从检查点所在阶段、所在键之后继续，而不是从头开始。
+ * CIS 阶段的分块同时记录其所依据的数据源版本：中断期间数据源有更新时，已提交的分块可能已过时，
+ * 恢复时不再跳过，而是幂等地重放整个阶段。
+ */
+@Component
+public class CalculationCheckpointStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CalculationCheckpointStore.class);
+
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_ABANDONED = "ABANDONED";
+
+    /**
+     * 计算阶段（按执行顺序）
+     */
+    public enum Stage { MEMBER_SYNC, CIS_NEW, CIS_UPDATE, DES, ACHIEVEMENT }
+
+    /**
+     * 检查点
+     * @param runId 运行 ID
+     * @param asOf 本次计算的参考时间
+     * @param stage 当前阶段（之前的阶段均已完成）
+     * @param lastKey 当前阶段已提交的最大键：CIS 阶段为 content_id，DES 阶段为 member_id；尚未提交任何分块时为 0
+     * @param sourceVersion 已提交分块所依据的数据源版本：CIS_NEW 为内容变更流版本，CIS_UPDATE 为内容快照数据版本；其他阶段为 0
+     */
+    public record Checkpoint(String runId, LocalDateTime asOf, Stage stage, long lastKey, long sourceVersion) {
+
+        /**
+         * 指定阶段是否已全部完成（当前阶段在其之后）
+         */
+        public boolean isPast(Stage other) {
+            return stage.compareTo(other) > 0;
+        }
+
+        /**
+         * 恢复时指定阶段应跳过的最大键：当前阶段返回 lastKey，尚未开始的阶段返回 0
+         */
+        public long resumeKey(Stage other) {
+            return stage == other ? lastKey : 0L;
+        }
+
+        /**
+         * 恢复时指定阶段应跳过的最大键，仅当已提交分块所依据的数据源版本与当前版本一致时有效；
+         * 版本不一致（中断后数据源有更新）时返回 0，调用方从头重放该阶段
+         */
+        public long resumeKey(Stage other, long currentSourceVersion) {
+            return sourceVersion == currentSourceVersion ? resumeKey(other) : 0L;
+        }
+
+        public Checkpoint withLastKey(long key, long version) {
+            return new Checkpoint(runId, asOf, stage, key, version);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CalculationCheckpointStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 最近一次未完成的运行
+     */
+    public Optional<Checkpoint> findUnfinished() {
+        List<Checkpoint> checkpoints = jdbcTemplate.query(
+                "SELECT run_id, as_of, stage, last_key, source_version FROM calculationcheckpoint WHERE status = ? " +
+                        "ORDER BY updated_at DESC LIMIT 1",
+                (rs, i) -> new Checkpoint(rs.getString("run_id"), rs.getTimestamp("as_of").toLocalDateTime(),
+                        Stage.valueOf(rs.getString("stage")), rs.getLong("last_key"), rs.getLong("source_version")),
+                STATUS_RUNNING);
+        return checkpoints.stream().findFirst();
+    }
+
+    /**
+     * 参考时间为指定时刻（定时计算的触发时刻）的已完成运行中最晚的日期；没有时为 null
+     */
+    public LocalDate findLastCompletedDate(LocalTime asOfTime) {
+        LocalDateTime asOf = jdbcTemplate.queryForObject(
+                "SELECT MAX(as_of) FROM calculationcheckpoint WHERE status = ? AND TIME(as_of) = ?",
+                LocalDateTime.class, STATUS_COMPLETED, asOfTime);
+        return asOf == null ? null : asOf.toLocalDate();
+    }
+
+    /**
+     * 参考时间相同的未完成运行存在时从其检查点恢复；否则放弃其他未完成运行并开始新运行
+     */
+    public Checkpoint resumeOrBegin(LocalDateTime asOf) {
+        Optional<Checkpoint> unfinished = findUnfinished();
+        if (unfinished.isPresent() && unfinished.get().asOf().equals(asOf)) {
+            Checkpoint checkpoint = unfinished.get();
+            log.info("【检查点】恢复运行 {}：阶段 {}，已提交键 {}", checkpoint.runId(), checkpoint.stage(), checkpoint.lastKey());
+            return checkpoint;
+        }
+        unfinished.ifPresent(previous -> log.warn("【检查点】放弃参考时间为 {} 的未完成运行 {}（阶段 {}）",
+                previous.asOf(), previous.runId(), previous.stage()));
+        jdbcTemplate.update("UPDATE calculationcheckpoint SET status = ?, updated_at = NOW() WHERE status = ?",
+                STATUS_ABANDONED, STATUS_RUNNING);
+        Checkpoint checkpoint = new Checkpoint(UUID.randomUUID().toString(), asOf, Stage.MEMBER_SYNC, 0L, 0L);
+        jdbcTemplate.update("INSERT INTO calculationcheckpoint (run_id, as_of, stage, last_key, status, started_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, NOW(), NOW())",
+                checkpoint.runId(), asOf, checkpoint.stage().name(), 0L, STATUS_RUNNING);
+        log.info("【检查点】开始新运行 {}，参考时间 {}", checkpoint.runId(), asOf);
+        return checkpoint;
+    }
+
+    /**
+     * 记录阶段内已提交的最大键（应在写入该分块的同一事务内调用）
+     */
+    public Checkpoint save(Checkpoint checkpoint, long lastKey) {
+        return save(checkpoint, lastKey, 0L);
+    }
+
+    /**
+     * 记录阶段内已提交的最大键及其所依据的数据源版本（应在写入该分块的同一事务内调用）
+     */
+    public Checkpoint save(Checkpoint checkpoint, long lastKey, long sourceVersion) {
+        Checkpoint updated = checkpoint.withLastKey(lastKey, sourceVersion);
+        jdbcTemplate.update("UPDATE calculationcheckpoint SET last_key = ?, source_version = ?, updated_at = NOW() WHERE run_id = ?",
+                lastKey, sourceVersion, checkpoint.runId());
+        return updated;
+    }
+
+    /**
+     * 进入下一阶段（阶段内键归零）
+     */
+    public Checkpoint advance(Checkpoint checkpoint, Stage next) {
+        jdbcTemplate.update("UPDATE calculationcheckpoint SET stage = ?, last_key = 0, source_version = 0, updated_at = NOW() WHERE run_id = ?",
+                next.name(), checkpoint.runId());
+        return new Checkpoint(checkpoint.runId(), checkpoint.asOf(), next, 0L, 0L);
+    }
+
+    public void complete(Checkpoint checkpoint) {
+        jdbcTemplate.update("UPDATE calculationcheckpoint SET status = ?, updated_at = NOW() WHERE run_id = ?",
+                STATUS_COMPLETED, checkpoint.runId());
+    }
+}
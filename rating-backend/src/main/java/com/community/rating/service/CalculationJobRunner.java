@@ -0,0 +1,305 @@
+package com.community.rating.service;
+
+import com.community.rating.util.CalculationLease;
+import com.community.rating.util.ProgressBar;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 【评级计算任务执行器】在独立的单线程执行器上异步运行评级计算：
+ * - 提交即返回任务 ID，任务按提交顺序排队执行，执行前获取计算租约
+ * - 通过 ProgressBar 监听器采集各阶段进度（已处理行数、吞吐、预计剩余时间），可随时查询
+ * - 保留最近 HISTORY_LIMIT 个任务的历史（状态、起止时间、各阶段耗时）
+ * - 取消为协作式：排队中的任务直接取消；运行中的任务在下一次进度上报时抛出 CancellationException，
+ *   已提交的分块保留，下次以相同参考时间运行时从检查点继续
+ */
+@Component
+public class CalculationJobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CalculationJobRunner.class);
+
+    // 保留的历史任务数
+    private static final int HISTORY_LIMIT = 50;
+    // 计算租约有效期（真实时间）
+    private static final Duration LEASE_TTL = Duration.ofHours(2);
+    // 等待租约（如流式微批正在执行）的最长时间与轮询间隔
+    private static final Duration LEASE_WAIT = Duration.ofMinutes(5);
+    private static final long LEASE_POLL_MILLIS = 200;
+
+    public enum JobStatus { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    /**
+     * 阶段进度
+     * @param name 阶段名称（同 ProgressBar 任务名）
+     * @param processed 已处理行数
+     * @param total 总行数
+     * @param elapsedMillis 已耗时
+     * @param rowsPerSecond 吞吐（行/秒）
+     * @param etaMillis 预计剩余时间（无法估算时为 null）
+     * @param completed 是否已完成
+     */
+    public record StageProgress(String name, long processed, long total, long elapsedMillis,
+                                double rowsPerSecond, Long etaMillis, boolean completed) {
+    }
+
+    /**
+     * 任务快照
+     * @param jobId 任务 ID
+     * @param trigger 触发方（如 "scheduled:2024-06-01"、"manual"）
+     * @param asOf 计算参考时间
+     * @param status 状态
+     * @param submittedAt 提交时间
+     * @param startedAt 开始执行时间
+     * @param finishedAt 结束时间
+     * @param error 失败原因
+     * @param stages 各阶段进度（按开始顺序）
+     * @param stageMillis 成功完成后的各阶段耗时（键同性能统计报告）
+     */
+    public record JobSnapshot(long jobId, String trigger, LocalDateTime asOf, JobStatus status,
+                              Instant submittedAt, Instant startedAt, Instant finishedAt, String error,
+                              List<StageProgress> stages, Map<String, Long> stageMillis) {
+    }
+
+    private final RatingCalculationService ratingCalculationService;
+    private final CalculationLease calculationLease;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "calculation-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong jobSequence = new AtomicLong();
+    // 任务历史（按提交顺序），超过上限时淘汰最早的任务
+    private final Map<Long, Job> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Job> eldest) {
+            return size() > HISTORY_LIMIT;
+        }
+    });
+
+    public CalculationJobRunner(RatingCalculationService ratingCalculationService,
+                                CalculationLease calculationLease) {
+        this.ratingCalculationService = ratingCalculationService;
+        this.calculationLease = calculationLease;
+    }
+
+    /**
+     * 提交一次计算，返回任务 ID
+     */
+    public long submit(String trigger, LocalDateTime asOf) {
+        return submit(trigger, asOf, job -> { });
+    }
+
+    /**
+     * 提交一次计算，任务结束（成功、失败或取消）后在执行器线程上回调 onFinished
+     */
+    public long submit(String trigger, LocalDateTime asOf, Consumer<JobSnapshot> onFinished) {
+        Job job = new Job(jobSequence.incrementAndGet(), trigger, asOf);
+        jobs.put(job.id, job);
+        log.info("【计算任务】#{} 已提交（{}，参考时间 {}）", job.id, trigger, asOf);
+        executor.execute(() -> {
+            run(job);
+            onFinished.accept(job.snapshot());
+        });
+        return job.id;
+    }
+
+    public Optional<JobSnapshot> find(long jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+    }
+
+    /**
+     * 任务历史，最新的在前
+     */
+    public List<JobSnapshot> history() {
+        List<JobSnapshot> snapshots = new ArrayList<>();
+        synchronized (jobs) {
+            jobs.values().forEach(job -> snapshots.add(job.snapshot()));
+        }
+        Collections.reverse(snapshots);
+        return snapshots;
+    }
+
+    /**
+     * 请求取消任务；任务不存在或已结束时返回 false
+     */
+    public boolean cancel(long jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || job.isFinished()) {
+            return false;
+        }
+        job.cancelRequested = true;
+        log.info("【计算任务】#{} 请求取消", jobId);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        CalculationLease.Lease lease = null;
+        try {
+            lease = awaitLease(job);
+            if (lease == null) {
+                return;
+            }
+            job.startedAt = Instant.now();
+            job.status = JobStatus.RUNNING;
+            ProgressBar.setListener(job);
+            ratingCalculationService.executeDailyRatingCalculation(job.asOf);
+            job.stageMillis = ratingCalculationService.getLastTimingStats();
+            job.finish(JobStatus.SUCCEEDED, null);
+        } catch (CancellationException e) {
+            job.finish(JobStatus.CANCELLED, null);
+        } catch (RuntimeException e) {
+            log.error("【计算任务】#{} 失败: {}", job.id, e.getMessage(), e);
+            job.finish(JobStatus.FAILED, e.getMessage());
+        } finally {
+            ProgressBar.setListener(null);
+            if (lease != null) {
+                calculationLease.release(lease);
+            }
+            log.info("【计算任务】#{} 结束，状态 {}", job.id, job.status);
+        }
+    }
+
+    // 等待并获取计算租约；任务被取消或等待超时时结束任务并返回 null
+    private CalculationLease.Lease awaitLease(Job job) {
+        long deadline = System.currentTimeMillis() + LEASE_WAIT.toMillis();
+        while (true) {
+            if (job.cancelRequested) {
+                job.finish(JobStatus.CANCELLED, null);
+                return null;
+            }
+            CalculationLease.Lease lease = calculationLease.tryAcquire(job.trigger, LEASE_TTL);
+            if (lease != null) {
+                return lease;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                CalculationLease.Lease holder = calculationLease.current();
+                job.finish(JobStatus.FAILED, "等待计算租约超时，当前持有者: " + (holder == null ? "无" : holder.holder()));
+                return null;
+            }
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.finish(JobStatus.CANCELLED, null);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 单个任务的可变状态；同时作为进度监听器接收 ProgressBar 上报
+     */
+    private static final class Job implements ProgressBar.Listener {
+
+        private final long id;
+        private final String trigger;
+        private final LocalDateTime asOf;
+        private final Instant submittedAt = Instant.now();
+        private final List<Stage> stages = new CopyOnWriteArrayList<>();
+        private final Map<String, Stage> stagesByName = new ConcurrentHashMap<>();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private volatile Map<String, Long> stageMillis = Map.of();
+        private volatile boolean cancelRequested;
+
+        Job(long id, String trigger, LocalDateTime asOf) {
+            this.id = id;
+            this.trigger = trigger;
+            this.asOf = asOf;
+        }
+
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        void finish(JobStatus finalStatus, String failure) {
+            error = failure;
+            status = finalStatus;
+            finishedAt = Instant.now();
+        }
+
+        @Override
+        public void onStart(String taskName, int totalSteps) {
+            Stage stage = new Stage(taskName, totalSteps);
+            stagesByName.put(taskName, stage);
+            stages.add(stage);
+        }
+
+        @Override
+        public void onProgress(String taskName, int currentStep) {
+            if (cancelRequested) {
+                throw new CancellationException("评级计算任务 #" + id + " 已取消");
+            }
+            Stage stage = stagesByName.get(taskName);
+            if (stage != null) {
+                stage.processed = currentStep;
+            }
+        }
+
+        @Override
+        public void onComplete(String taskName) {
+            Stage stage = stagesByName.get(taskName);
+            if (stage != null) {
+                stage.processed = stage.total;
+                stage.endNanos = System.nanoTime();
+            }
+        }
+
+        JobSnapshot snapshot() {
+            List<StageProgress> progress = new ArrayList<>(stages.size());
+            stages.forEach(stage -> progress.add(stage.snapshot()));
+            return new JobSnapshot(id, trigger, asOf, status, submittedAt, startedAt, finishedAt, error,
+                    progress, stageMillis);
+        }
+    }
+
+    private static final class Stage {
+
+        private final String name;
+        private final long total;
+        private final long startNanos = System.nanoTime();
+        private volatile long processed;
+        private volatile long endNanos;
+
+        Stage(String name, long total) {
+            this.name = name;
+            this.total = total;
+        }
+
+        StageProgress snapshot() {
+            long done = processed;
+            boolean completed = endNanos != 0;
+            long elapsedNanos = (completed ? endNanos : System.nanoTime()) - startNanos;
+            double rowsPerSecond = elapsedNanos > 0 ? done * 1e9 / elapsedNanos : 0;
+            Long etaMillis = completed ? Long.valueOf(0)
+                    : rowsPerSecond > 0 ? Long.valueOf((long) ((total - done) / rowsPerSecond * 1000)) : null;
+            return new StageProgress(name, done, total, elapsedNanos / 1_000_000, rowsPerSecond, etaMillis, completed);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.community.rating.service;
+
+import com.community.rating.simulation.ForumDataSimulation;
+import com.community.rating.simulation.VirtualClock;
+import com.community.rating.util.CalculationLease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 【评级计算调度器】按虚拟时钟精确排期每日评级计算（虚拟时间凌晨 4 点）：
+ * - 由“下一个触发时刻 - 当前虚拟时间”按当前倍速换算为真实延迟，直接定时到点，不再轮询整点
+ * - 错过的触发日（停机、暂停后步进、倍速过高等）按日期顺序补跑，每个补跑日以该日触发时刻为参考时间，最多补跑 MAX_BACKFILL_DAYS 天
+ * - 计算以任务形式提交给 CalculationJobRunner 执行（租约防止与手动触发、流式微批重叠），同一时刻最多一个定时任务在途
+ * - 启动时存在未完成的计算（检查点）时，先以其参考时间重跑该日，从检查点继续
+ * - 时钟被暂停/步进/调速后立即重新排期；另有低频兜底检查，覆盖绕过 VirtualClock 直接修改时钟的情况
+ * 回放模式下不启用，由回放驱动器逐日调用。
+ */
+@Component
+public class CalculationScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(CalculationScheduler.class);
+
+    // 每日计算的虚拟触发时刻
+    static final LocalTime TRIGGER_TIME = LocalTime.of(4, 0);
+    // 最多补跑的天数（更早的错过日只记录日志）
+    static final int MAX_BACKFILL_DAYS = 3;
+    // 计算失败后的重试间隔（真实时间）
+    private static final Duration RETRY_BACKOFF = Duration.ofMinutes(1);
+    // 兜底检查间隔（真实时间，毫秒）
+    private static final long RECONCILE_INTERVAL_MS = 30_000;
+
+    /**
+     * 调度状态
+     * @param lastCompletedDate 最近一次完成的定时计算对应的虚拟日期
+     * @param nextTrigger 下一次触发的虚拟时间
+     * @param nextFireTime 下一次触发对应的真实时间（时钟暂停时为 null）
+     * @param leaseHolder 当前持有计算租约的触发方（无人持有时为 null）
+     * @param inFlightJobId 在途的定时计算任务 ID（没有时为 null）
+     */
+    public record ScheduleStatus(LocalDate lastCompletedDate, LocalDateTime nextTrigger, Instant nextFireTime,
+                                 String leaseHolder, Long inFlightJobId) {
+    }
+
+    private final CalculationJobRunner calculationJobRunner;
+    private final VirtualClock virtualClock;
+    private final CalculationLease calculationLease;
+    private final CalculationCheckpointStore checkpointStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskScheduler taskScheduler;
+
+    private volatile LocalDate lastCompletedDate;
+    private volatile Instant retryNotBefore = Instant.MIN;
+    private volatile boolean started = false;
+    private volatile Long inFlightJobId;
+    // 以下两项在 synchronized(this) 内修改（tick 与任务回调均持有该锁）
+    private ScheduledFuture<?> nextRun;
+    private volatile Instant nextFireTime;
+
+    public CalculationScheduler(CalculationJobRunner calculationJobRunner,
+                                VirtualClock virtualClock,
+                                CalculationLease calculationLease,
+                                CalculationCheckpointStore checkpointStore,
+                                JdbcTemplate jdbcTemplate,
+                                TaskScheduler taskScheduler) {
+        this.calculationJobRunner = calculationJobRunner;
+        this.virtualClock = virtualClock;
+        this.calculationLease = calculationLease;
+        this.checkpointStore = checkpointStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (ForumDataSimulation.IS_REPLAY_MODE) {
+            return;
+        }
+        LocalDateTime now = virtualClock.now();
+        LocalDate latestDue = latestDueDate(now);
+        LocalDate persisted = loadLastRatingDate();
+        if (persisted == null || persisted.isAfter(latestDue)) {
+            // 没有历史记录（或历史记录晚于当前虚拟时间，如重新开始模拟）时不补跑，从下一个触发时刻开始
+            lastCompletedDate = latestDue;
+        } else {
+            lastCompletedDate = persisted;
+        }
+        LocalDate unfinished = loadUnfinishedDate();
+        if (unfinished != null && !unfinished.isAfter(latestDue) && !unfinished.isAfter(lastCompletedDate)) {
+            // 未完成的运行已写入部分评级，回退一天使该日以相同参考时间重跑并从检查点继续
+            log.info("【计算调度】发现 {} 的未完成计算，将从检查点继续", unfinished);
+            lastCompletedDate = unfinished.minusDays(1);
+        }
+        started = true;
+        log.info("【计算调度】启动，虚拟时间 {}，最近完成日期 {}", now, lastCompletedDate);
+        taskScheduler.schedule(this::tick, Instant.now());
+    }
+
+    @EventListener
+    public void onClockChanged(VirtualClock.ClockChangedEvent event) {
+        if (started) {
+            // 在调度线程上重新检查，避免在请求线程中执行计算
+            taskScheduler.schedule(this::tick, Instant.now());
+        }
+    }
+
+    @Scheduled(fixedDelay = RECONCILE_INTERVAL_MS)
+    public void reconcile() {
+        if (started) {
+            tick();
+        }
+    }
+
+    public ScheduleStatus status() {
+        LocalDate completed = lastCompletedDate;
+        CalculationLease.Lease lease = calculationLease.current();
+        return new ScheduleStatus(completed,
+                completed == null ? null : completed.plusDays(1).atTime(TRIGGER_TIME),
+                nextFireTime,
+                lease == null ? null : lease.holder(),
+                inFlightJobId);
+    }
+
+    // 提交最早一个到期的触发日；在途任务结束后再次检查（逐日补跑），没有到期日时排期下一次
+    private synchronized void tick() {
+        if (inFlightJobId != null) {
+            return;
+        }
+        if (!Instant.now().isBefore(retryNotBefore)) {
+            List<LocalDate> due = dueDates(lastCompletedDate, virtualClock.now(), MAX_BACKFILL_DAYS);
+            if (!due.isEmpty()) {
+                LocalDate date = due.get(0);
+                cancelNextRun();
+                inFlightJobId = calculationJobRunner.submit("scheduled:" + date, date.atTime(TRIGGER_TIME),
+                        job -> onScheduledJobFinished(date, job));
+                return;
+            }
+        }
+        scheduleNext();
+    }
+
+    private synchronized void onScheduledJobFinished(LocalDate date, CalculationJobRunner.JobSnapshot job) {
+        inFlightJobId = null;
+        if (job.status() == CalculationJobRunner.JobStatus.SUCCEEDED) {
+            lastCompletedDate = date;
+            retryNotBefore = Instant.MIN;
+        } else {
+            retryNotBefore = Instant.now().plus(RETRY_BACKOFF);
+            log.warn("【计算调度】{} 的计算任务 #{} 未成功（{}），{} 后重试", date, job.jobId(), job.status(), RETRY_BACKOFF);
+        }
+        taskScheduler.schedule(this::tick, Instant.now());
+    }
+
+    private void cancelNextRun() {
+        if (nextRun != null) {
+            nextRun.cancel(false);
+            nextRun = null;
+        }
+        nextFireTime = null;
+    }
+
+    private void scheduleNext() {
+        cancelNextRun();
+        LocalDateTime now = virtualClock.now();
+        LocalDateTime trigger = lastCompletedDate.plusDays(1).atTime(TRIGGER_TIME);
+        Instant fireTime;
+        if (!trigger.isAfter(now)) {
+            // 仍有到期未完成的触发日（失败或被取消），等待重试
+            fireTime = retryNotBefore.isAfter(Instant.now()) ? retryNotBefore : Instant.now().plusMillis(RECONCILE_INTERVAL_MS);
+        } else {
+            Duration realDelay = virtualClock.realDurationOf(Duration.between(now, trigger));
+            fireTime = realDelay == null ? null : Instant.now().plus(realDelay);
+        }
+        nextFireTime = fireTime;
+        if (fireTime != null) {
+            nextRun = taskScheduler.schedule(this::tick, fireTime);
+        }
+    }
+
+    // 最近完成的触发日：已完成的定时计算运行与最新评级日期中较晚者
+    // （评级只在分数变化时写入，某天没有新评级行不代表当天未计算）
+    private LocalDate loadLastRatingDate() {
+        try {
+            LocalDate ratingDate = jdbcTemplate.queryForObject("SELECT MAX(update_date) FROM memberrating", LocalDate.class);
+            LocalDate completedDate = checkpointStore.findLastCompletedDate(TRIGGER_TIME);
+            if (ratingDate == null || (completedDate != null && completedDate.isAfter(ratingDate))) {
+                return completedDate;
+            }
+            return ratingDate;
+        } catch (DataAccessException e) {
+            log.warn("读取最近评级日期失败，不补跑: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // 未完成运行的触发日（仅限定时计算，即参考时间为触发时刻的运行）
+    private LocalDate loadUnfinishedDate() {
+        try {
+            return checkpointStore.findUnfinished()
+                    .filter(checkpoint -> checkpoint.asOf().toLocalTime().equals(TRIGGER_TIME))
+                    .map(checkpoint -> checkpoint.asOf().toLocalDate())
+                    .orElse(null);
+        } catch (DataAccessException e) {
+            log.warn("读取计算检查点失败，不恢复: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 截至 now 最近一个已到触发时刻的虚拟日期
+     */
+    static LocalDate latestDueDate(LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        return now.toLocalTime().isBefore(TRIGGER_TIME) ? today.minusDays(1) : today;
+    }
+
+    /**
+     * lastCompleted 之后、截至 now 已到触发时刻的日期（升序），超过 maxBackfill 天时只保留最近的 maxBackfill 天
+     */
+    static List<LocalDate> dueDates(LocalDate lastCompleted, LocalDateTime now, int maxBackfill) {
+        LocalDate latest = latestDueDate(now);
+        LocalDate first = lastCompleted.plusDays(1);
+        List<LocalDate> dates = new ArrayList<>();
+        if (first.isAfter(latest)) {
+            return dates;
+        }
+        LocalDate earliestAllowed = latest.minusDays(maxBackfill - 1L);
+        if (first.isBefore(earliestAllowed)) {
+            log.warn("【计算调度】错过 {} 至 {} 的计算，超出补跑上限 {} 天，不再补跑",
+                    first, earliestAllowed.minusDays(1), maxBackfill);
+            first = earliestAllowed;
+        }
+        for (LocalDate date = first; !date.isAfter(latest); date = date.plusDays(1)) {
+            dates.add(date);
+        }
+        return dates;
+    }
+}
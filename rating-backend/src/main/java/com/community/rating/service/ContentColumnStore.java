@@ -0,0 +1,233 @@
+package com.community.rating.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * 【列式内容存储】评级引擎内部使用的紧凑内存结构（Struct-of-Arrays）。
+ *
+ * 替代 Map&lt;String,Object&gt; → ContentDataDTO → ContentSnapshot 三层对象图：
+ * 每条内容只占用若干个原始类型数组槽位（约 60 字节），
+ * CIS / DES 阶段直接按下标遍历，无装箱、无中间对象。
+ *
+ * 发布时间拆分为 epoch-day + 当天秒数两列，
+ * 以便在不创建 LocalDateTime 的情况下精确复现 ChronoUnit.DAYS.between 的语义。
+ * CIS 以定点数存储（scale = 4 的 unscaled 值），与数据库 DECIMAL(10,4) 一致。
+ *
+ * 非线程安全：每次计算任务独立创建一个实例。
+ */
+public class ContentColumnStore {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private int size;
+
+    private long[] contentIds;
+    private long[] memberIds;
+    private short[] areaIds;
+    private int[] publishEpochDays;
+    private int[] publishSecondOfDays;
+    private byte[] postLengthLevels;
+
+    // 快照计数
+    private int[] readCounts;
+    private int[] likeCounts;
+    private int[] commentCounts;
+    private int[] shareCounts;
+    private int[] collectCounts;
+    private int[] hateCounts;
+
+    // 计算结果：CIS 定点数（scale = 4）
+    private long[] cisScores;
+
+    public ContentColumnStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ContentColumnStore(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        contentIds = new long[capacity];
+        memberIds = new long[capacity];
+        areaIds = new short[capacity];
+        publishEpochDays = new int[capacity];
+        publishSecondOfDays = new int[capacity];
+        postLengthLevels = new byte[capacity];
+        readCounts = new int[capacity];
+        likeCounts = new int[capacity];
+        commentCounts = new int[capacity];
+        shareCounts = new int[capacity];
+        collectCounts = new int[capacity];
+        hateCounts = new int[capacity];
+        cisScores = new long[capacity];
+    }
+
+    /**
+     * 追加一条内容，返回其行下标。
+     * 计数超过 int 范围时截断为 Integer.MAX_VALUE（与数据库 INT UNSIGNED 列的实际取值范围一致）。
+     */
+    public int add(long contentId, long memberId, int areaId, LocalDateTime publishTime, int postLengthLevel,
+                   long readCount, long likeCount, long commentCount,
+                   long shareCount, long collectCount, long hateCount) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        contentIds[row] = contentId;
+        memberIds[row] = memberId;
+        areaIds[row] = (short) areaId;
+        publishEpochDays[row] = (int) publishTime.toLocalDate().toEpochDay();
+        publishSecondOfDays[row] = publishTime.toLocalTime().toSecondOfDay();
+        postLengthLevels[row] = (byte) postLengthLevel;
+        readCounts[row] = clampToInt(readCount);
+        likeCounts[row] = clampToInt(likeCount);
+        commentCounts[row] = clampToInt(commentCount);
+        shareCounts[row] = clampToInt(shareCount);
+        collectCounts[row] = clampToInt(collectCount);
+        hateCounts[row] = clampToInt(hateCount);
+        cisScores[row] = 0L;
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // --- 按行读取 ---
+
+    public long contentId(int row) { return contentIds[row]; }
+    public long memberId(int row) { return memberIds[row]; }
+    public int areaId(int row) { return areaIds[row]; }
+    public int publishEpochDay(int row) { return publishEpochDays[row]; }
+    public int publishSecondOfDay(int row) { return publishSecondOfDays[row]; }
+    public int postLengthLevel(int row) { return postLengthLevels[row]; }
+    public int readCount(int row) { return readCounts[row]; }
+    public int likeCount(int row) { return likeCounts[row]; }
+    public int commentCount(int row) { return commentCounts[row]; }
+    public int shareCount(int row) { return shareCounts[row]; }
+    public int collectCount(int row) { return collectCounts[row]; }
+    public int hateCount(int row) { return hateCounts[row]; }
+    public long cisScoreUnscaled(int row) { return cisScores[row]; }
+
+    public LocalDateTime publishTime(int row) {
+        return LocalDate.ofEpochDay(publishEpochDays[row])
+                .atStartOfDay()
+                .plusSeconds(publishSecondOfDays[row]);
+    }
+
+    public void setCisScoreUnscaled(int row, long unscaledCis) {
+        cisScores[row] = unscaledCis;
+    }
+
+    /**
+     * 计算从发布到参考时间经过的完整天数，语义与 ChronoUnit.DAYS.between(publishTime, asOf) 一致。
+     * 发布时间晚于参考时间时返回值 ≤ 0。
+     */
+    public long daysSincePublish(int row, int asOfEpochDay, int asOfSecondOfDay) {
+        long days = (long) asOfEpochDay - publishEpochDays[row];
+        int seconds = asOfSecondOfDay - publishSecondOfDays[row];
+        if (days > 0 && seconds < 0) {
+            days--;
+        } else if (days < 0 && seconds > 0) {
+            days++;
+        }
+        return days;
+    }
+
+    // --- 分组支持 ---
+
+    /**
+     * 判断行是否已按 (memberId, areaId) 升序排列。
+     * 从数据库按 ORDER BY member_id, area_id 加载时成立，可直接线性扫描分组。
+     */
+    public boolean isSortedByMemberArea() {
+        for (int i = 1; i < size; i++) {
+            if (compareMemberArea(i - 1, i) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 返回按 (memberId, areaId) 排序后的行下标序列。
+     * 已有序时直接返回恒等序列；否则进行一次稳定归并排序（仅排序 int 下标，不移动数据列）。
+     */
+    public int[] rowsOrderedByMemberArea() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        if (isSortedByMemberArea()) {
+            return order;
+        }
+        mergeSort(order, this::compareMemberArea);
+        return order;
+    }
+
+    /**
+     * 返回 rows 前 count 个行下标按 contentId 升序排列后的副本（分块提交按 content_id 记录检查点时使用）。
+     */
+    public int[] rowsOrderedByContentId(int[] rows, int count) {
+        int[] order = Arrays.copyOf(rows, count);
+        mergeSort(order, (a, b) -> Long.compare(contentIds[a], contentIds[b]));
+        return order;
+    }
+
+    // 稳定归并排序（仅排序 int 下标，不移动数据列）
+    private static void mergeSort(int[] order, IntBinaryOperator comparator) {
+        int n = order.length;
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n - width; lo += width << 1) {
+                int mid = lo + width;
+                int hi = Math.min(lo + (width << 1), n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    buffer[k++] = comparator.applyAsInt(order[j], order[i]) < 0 ? order[j++] : order[i++];
+                }
+                while (i < mid) buffer[k++] = order[i++];
+                while (j < hi) buffer[k++] = order[j++];
+                System.arraycopy(buffer, lo, order, lo, hi - lo);
+            }
+        }
+    }
+
+    public boolean sameMemberArea(int rowA, int rowB) {
+        return memberIds[rowA] == memberIds[rowB] && areaIds[rowA] == areaIds[rowB];
+    }
+
+    private int compareMemberArea(int rowA, int rowB) {
+        int byMember = Long.compare(memberIds[rowA], memberIds[rowB]);
+        return byMember != 0 ? byMember : Short.compare(areaIds[rowA], areaIds[rowB]);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= contentIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, contentIds.length + (contentIds.length >> 1));
+        contentIds = Arrays.copyOf(contentIds, capacity);
+        memberIds = Arrays.copyOf(memberIds, capacity);
+        areaIds = Arrays.copyOf(areaIds, capacity);
+        publishEpochDays = Arrays.copyOf(publishEpochDays, capacity);
+        publishSecondOfDays = Arrays.copyOf(publishSecondOfDays, capacity);
+        postLengthLevels = Arrays.copyOf(postLengthLevels, capacity);
+        readCounts = Arrays.copyOf(readCounts, capacity);
+        likeCounts = Arrays.copyOf(likeCounts, capacity);
+        commentCounts = Arrays.copyOf(commentCounts, capacity);
+        shareCounts = Arrays.copyOf(shareCounts, capacity);
+        collectCounts = Arrays.copyOf(collectCounts, capacity);
+        hateCounts = Arrays.copyOf(hateCounts, capacity);
+        cisScores = Arrays.copyOf(cisScores, capacity);
+    }
+
+    private static int clampToInt(long value) {
+        if (value > Integer.MAX_VALUE) return Integer.MAX_VALUE;
+        if (value < 0) return 0;
+        return (int) value;
+    }
+}
@@ -15,4 +15,9 @@ public interface ContentService {
      * 根据内容 ID 获取单个内容详情
      */
     ContentDTO getContentById(Long contentId);
+
+    /**
+     * 根据内容 ID 批量获取内容详情，按请求顺序返回，不存在的内容为 null
+     */
+    List<ContentDTO> getContentsByIds(List<Long> contentIds);
 }
\ No newline at end of file
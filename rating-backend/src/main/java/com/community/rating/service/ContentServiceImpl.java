@@ -11,12 +11,21 @@ import com.community.rating.repository.MemberRepository;
 import com.community.rating.repository.KnowledgeAreaRepository;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.time.format.DateTimeFormatter;
 
@@ -24,17 +33,23 @@ import java.time.format.DateTimeFormatter;
 @Transactional(readOnly = true)
 public class ContentServiceImpl implements ContentService {
 
+    // 批量内容详情一次最多查询的内容数
+    static final int MAX_BATCH_SIZE = 500;
+
     private final ContentSnapshotRepository contentRepository;
     private final MemberRepository memberRepository;
     private final KnowledgeAreaRepository areaRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     // 构造函数注入依赖
     public ContentServiceImpl(ContentSnapshotRepository contentRepository, 
                               MemberRepository memberRepository, 
-                              KnowledgeAreaRepository areaRepository) {
+                              KnowledgeAreaRepository areaRepository,
+                              JdbcTemplate jdbcTemplate) {
         this.contentRepository = contentRepository;
         this.memberRepository = memberRepository;
         this.areaRepository = areaRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     /**
@@ -51,6 +66,13 @@ public class ContentServiceImpl implements ContentService {
                 .map(KnowledgeArea::getAreaName)
                 .orElse("未知领域");
     
+        return convertToDTO(entity, rank, authorName, domain);
+    }
+
+    /**
+     * 辅助方法：以已解析的作者名与领域名填充 ContentDTO（单个与批量查询共用）
+     */
+    private ContentDTO convertToDTO(ContentSnapshot entity, Integer rank, String authorName, String domain) {
         ContentDTO dto = new ContentDTO();
         dto.setRank(rank);
         dto.setContentId(entity.getContentId());
@@ -125,4 +147,71 @@ public class ContentServiceImpl implements ContentService {
         // 转换为 DTO，并传入计算出的排名
         return convertToDTO(entity, rank);
     }
-}
\ No newline at end of file
+
+    /**
+     * 根据内容 ID 批量获取内容详情：内容、作者、领域各一次集合查询，
+     * 排名由一次扫描同时统计每个分数之上的帖子数，不再逐条 COUNT
+     */
+    @Override
+    public List<ContentDTO> getContentsByIds(List<Long> contentIds) {
+        if (contentIds == null || contentIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (contentIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("一次最多查询 " + MAX_BATCH_SIZE + " 篇内容");
+        }
+        Set<Long> distinctIds = contentIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<Long, ContentSnapshot> contentsById = contentRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(ContentSnapshot::getContentId, c -> c, (a, b) -> a));
+        Set<Long> authorIds = contentsById.values().stream()
+                .map(ContentSnapshot::getMemberId)
+                .collect(Collectors.toSet());
+        Map<Long, String> authorNames = memberRepository.findAllById(authorIds).stream()
+                .collect(Collectors.toMap(Member::getMemberId, Member::getName));
+        Map<Integer, String> areaNames = areaRepository.findAll().stream()
+                .collect(Collectors.toMap(KnowledgeArea::getAreaId, KnowledgeArea::getAreaName));
+        Map<BigDecimal, Long> higherCounts = countContentsWithHigherScores(contentsById.values().stream()
+                .map(ContentSnapshot::getCisScore)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+
+        Map<Long, ContentDTO> dtoById = new HashMap<>();
+        for (ContentSnapshot entity : contentsById.values()) {
+            dtoById.put(entity.getContentId(), convertToDTO(entity,
+                    higherCounts.get(entity.getCisScore()).intValue() + 1,
+                    authorNames.getOrDefault(entity.getMemberId(), "未知作者"),
+                    areaNames.getOrDefault(entity.getAreaId(), "未知领域")));
+        }
+
+        // 按请求顺序返回，不存在的内容为 null（与单个内容接口一致）
+        List<ContentDTO> results = new ArrayList<>(contentIds.size());
+        for (Long contentId : contentIds) {
+            results.add(dtoById.get(contentId));
+        }
+        return results;
+    }
+
+    /**
+     * 每个分数之上的帖子数：一次表扫描内对各分数分别计数（cis_score 无索引，逐个 COUNT 需要扫描多次）
+     */
+    private Map<BigDecimal, Long> countContentsWithHigherScores(Set<BigDecimal> scores) {
+        Map<BigDecimal, Long> counts = new HashMap<>();
+        if (scores.isEmpty()) {
+            return counts;
+        }
+        List<BigDecimal> ordered = new ArrayList<>(scores);
+        String sums = ordered.stream()
+                .map(score -> "COALESCE(SUM(cis_score > ?), 0)")
+                .collect(Collectors.joining(", "));
+        jdbcTemplate.query("SELECT " + sums + " FROM contentsnapshot",
+                (RowCallbackHandler) rs -> {
+                    for (int i = 0; i < ordered.size(); i++) {
+                        counts.put(ordered.get(i), rs.getLong(i + 1));
+                    }
+                },
+                ordered.toArray());
+        return counts;
+    }
+}
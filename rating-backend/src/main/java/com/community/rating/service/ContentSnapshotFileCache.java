@@ -0,0 +1,338 @@
+package com.community.rating.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 【内容快照本地缓存】ContentSnapshot 表的内存映射文件副本。
+ *
+ * 每日计算中 99% 的内容行不会变化，无需每次从 MySQL 全量读取：
+ * - 文件采用定长二进制记录，启动时以 MappedByteBuffer 打开，读取不经过堆内中间缓冲；
+ *   单个映射不能超过 2 GB，记录区按 SEGMENT_RECORDS 条一段分段映射，偏移量均按 long 计算；
+ * - 每次修改 ContentSnapshot 的事务提交后，只将变化的内容行按 content_id 就地修补（追加或覆盖）；
+ * - 文件头记录缓存对应的数据版本（ContentSnapshotVersion），加载时与数据库当前版本比对，
+ *   不一致（提交后未修补、外部修改、回滚、文件损坏）时返回 null，由调用方全量重建。
+ *
+ * 缓存只保存原始快照列，CIS 每次仍由算法重新计算（时效性随时间变化）。
+ */
+@Component
+public class ContentSnapshotFileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentSnapshotFileCache.class);
+
+    // 缓存文件夹（与模拟数据目录同级）
+    private static final String CACHE_FOLDER = "./cache/";
+    // 缓存文件
+    private static final String CACHE_FILE = CACHE_FOLDER + "content_snapshot.bin";
+
+    // 文件头：magic(4) + version(4) + recordCount(4) + 保留(4) + dataVersion(8) + 保留(8)
+    private static final int MAGIC = 0x52534343; // "RSCC"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int OFFSET_RECORD_COUNT = 8;
+    private static final int OFFSET_DATA_VERSION = 16;
+
+    // 记录布局（定长 56 字节，8 字节对齐）
+    private static final int RECORD_SIZE = 56;
+    private static final int F_CONTENT_ID = 0;        // long
+    private static final int F_MEMBER_ID = 8;         // long
+    private static final int F_AREA_ID = 16;          // short
+    private static final int F_POST_LENGTH = 18;      // byte
+    private static final int F_EPOCH_DAY = 20;        // int
+    private static final int F_SECOND_OF_DAY = 24;    // int
+    private static final int F_COUNTS = 28;           // 6 x int：read, like, comment, share, collect, hate
+
+    // 每段映射的记录数（16M 条 x 56 字节 = 896 MB，低于单个映射 2 GB 的上限）
+    static final int SEGMENT_RECORDS = 1 << 24;
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final Path cachePath;
+    private final int segmentRecords;
+
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    // 记录区分段映射：第 i 段覆盖槽位 [i * segmentRecords, (i + 1) * segmentRecords)
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int capacity;
+    private int recordCount;
+    // content_id -> 记录槽位
+    private final Map<Long, Integer> slotByContentId = new HashMap<>();
+
+    public ContentSnapshotFileCache() {
+        this(Paths.get(CACHE_FILE), SEGMENT_RECORDS);
+    }
+
+    ContentSnapshotFileCache(Path cachePath) {
+        this(cachePath, SEGMENT_RECORDS);
+    }
+
+    ContentSnapshotFileCache(Path cachePath, int segmentRecords) {
+        this.cachePath = cachePath;
+        this.segmentRecords = segmentRecords;
+    }
+
+    /**
+     * 启动时映射已有的缓存文件；文件不存在或格式不符时保持关闭状态，首次计算时重建。
+     */
+    @PostConstruct
+    public synchronized void open() {
+        if (!Files.exists(cachePath)) {
+            log.info("内容快照缓存文件不存在，将在首次计算后创建: {}", cachePath.toAbsolutePath());
+            return;
+        }
+        try {
+            mapExisting();
+            log.info("内容快照缓存已映射，记录数: {}", recordCount);
+        } catch (IOException | RuntimeException e) {
+            log.warn("内容快照缓存文件无效，将在下次计算时重建: {}", e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (header != null) {
+            force();
+        }
+        closeQuietly();
+    }
+
+    /**
+     * 从缓存加载全部内容到列式存储。
+     * @param dataVersion 数据库中 ContentSnapshot 的当前版本，用于一致性校验
+     * @return 缓存命中时返回列式存储；未打开或版本不一致时返回 null
+     */
+    public synchronized ContentColumnStore load(long dataVersion) {
+        if (header == null) {
+            return null;
+        }
+        long cachedVersion = header.getLong(OFFSET_DATA_VERSION);
+        if (cachedVersion != dataVersion) {
+            log.warn("内容快照缓存版本 ({}) 与数据库 ({}) 不一致，缓存失效", cachedVersion, dataVersion);
+            return null;
+        }
+        try {
+            ContentColumnStore store = new ContentColumnStore(recordCount);
+            for (int slot = 0; slot < recordCount; slot++) {
+                MappedByteBuffer segment = segmentOf(slot);
+                int base = offsetInSegment(slot);
+                store.add(
+                    segment.getLong(base + F_CONTENT_ID),
+                    segment.getLong(base + F_MEMBER_ID),
+                    segment.getShort(base + F_AREA_ID),
+                    LocalDate.ofEpochDay(segment.getInt(base + F_EPOCH_DAY))
+                        .atStartOfDay()
+                        .plusSeconds(segment.getInt(base + F_SECOND_OF_DAY)),
+                    segment.get(base + F_POST_LENGTH),
+                    segment.getInt(base + F_COUNTS),
+                    segment.getInt(base + F_COUNTS + 4),
+                    segment.getInt(base + F_COUNTS + 8),
+                    segment.getInt(base + F_COUNTS + 12),
+                    segment.getInt(base + F_COUNTS + 16),
+                    segment.getInt(base + F_COUNTS + 20));
+            }
+            return store;
+        } catch (RuntimeException e) {
+            log.warn("读取内容快照缓存失败，缓存失效: {}", e.getMessage());
+            invalidate();
+            return null;
+        }
+    }
+
+    /**
+     * 按 content_id 修补缓存（在修改 ContentSnapshot 的事务提交后调用）：已存在的记录就地覆盖，新内容追加到末尾，
+     * 文件头版本更新为本次修改后的版本。缓存版本不是本次修改前的版本时（之前的修补丢失）直接失效；
+     * 缓存未打开时跳过（下次加载会因版本不一致而全量重建）。
+     */
+    public synchronized void upsert(ContentColumnStore source, int[] rows, int count, ContentSnapshotVersion.Transition transition) {
+        if (header == null) {
+            return;
+        }
+        if (header.getLong(OFFSET_DATA_VERSION) != transition.previous()) {
+            log.warn("内容快照缓存版本与本次修改前的数据库版本不一致，缓存失效");
+            invalidate();
+            return;
+        }
+        try {
+            int appended = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                Integer slot = slotByContentId.get(source.contentId(row));
+                if (slot == null) {
+                    ensureCapacity(recordCount + 1);
+                    slot = recordCount++;
+                    slotByContentId.put(source.contentId(row), slot);
+                    appended++;
+                }
+                writeRecord(slot, source, row);
+            }
+            header.putInt(OFFSET_RECORD_COUNT, recordCount);
+            // 记录全部写入后才更新版本：中途失败时版本仍为旧值，下次加载失效
+            force();
+            header.putLong(OFFSET_DATA_VERSION, transition.next());
+            header.force();
+            log.info("内容快照缓存已修补 {} 条记录（新增: {}），当前记录数: {}", count, appended, recordCount);
+        } catch (IOException | RuntimeException e) {
+            log.warn("修补内容快照缓存失败，缓存失效: {}", e.getMessage());
+            invalidate();
+        }
+    }
+
+    /**
+     * 以给定的列式存储全量重建缓存文件。
+     * @param dataVersion 读取 store 之前数据库中 ContentSnapshot 的版本
+     */
+    public synchronized void rebuild(ContentColumnStore store, long dataVersion) {
+        closeQuietly();
+        try {
+            Files.createDirectories(cachePath.getParent());
+            channel = FileChannel.open(cachePath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            capacity = 0;
+            recordCount = 0;
+            slotByContentId.clear();
+            ensureCapacity(Math.max(store.size(), INITIAL_CAPACITY));
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            for (int row = 0; row < store.size(); row++) {
+                writeRecord(row, store, row);
+                slotByContentId.put(store.contentId(row), row);
+            }
+            recordCount = store.size();
+            header.putInt(OFFSET_RECORD_COUNT, recordCount);
+            force();
+            header.putLong(OFFSET_DATA_VERSION, dataVersion);
+            header.force();
+            log.info("内容快照缓存已重建，记录数: {}", recordCount);
+        } catch (IOException | RuntimeException e) {
+            log.warn("重建内容快照缓存失败: {}", e.getMessage());
+            invalidate();
+        }
+    }
+
+    /**
+     * 使缓存失效（例如计算事务回滚后），下次加载时全量重建。
+     */
+    public synchronized void invalidate() {
+        closeQuietly();
+        try {
+            Files.deleteIfExists(cachePath);
+        } catch (IOException e) {
+            log.warn("删除内容快照缓存文件失败: {}", e.getMessage());
+        }
+    }
+
+    private void mapExisting() throws IOException {
+        channel = FileChannel.open(cachePath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE) {
+            throw new IllegalStateException("文件长度不足");
+        }
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IllegalStateException("文件头不匹配");
+        }
+        long fileCapacity = (fileSize - HEADER_SIZE) / RECORD_SIZE;
+        if (fileCapacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("文件过大: " + fileSize);
+        }
+        capacity = 0;
+        ensureCapacity((int) fileCapacity);
+        recordCount = header.getInt(OFFSET_RECORD_COUNT);
+        if (recordCount < 0 || recordCount > capacity) {
+            throw new IllegalStateException("记录数越界: " + recordCount);
+        }
+        slotByContentId.clear();
+        for (int slot = 0; slot < recordCount; slot++) {
+            slotByContentId.put(segmentOf(slot).getLong(offsetInSegment(slot) + F_CONTENT_ID), slot);
+        }
+    }
+
+    private void writeRecord(int slot, ContentColumnStore source, int row) {
+        MappedByteBuffer segment = segmentOf(slot);
+        int base = offsetInSegment(slot);
+        segment.putLong(base + F_CONTENT_ID, source.contentId(row));
+        segment.putLong(base + F_MEMBER_ID, source.memberId(row));
+        segment.putShort(base + F_AREA_ID, (short) source.areaId(row));
+        segment.put(base + F_POST_LENGTH, (byte) source.postLengthLevel(row));
+        segment.putInt(base + F_EPOCH_DAY, source.publishEpochDay(row));
+        segment.putInt(base + F_SECOND_OF_DAY, source.publishSecondOfDay(row));
+        segment.putInt(base + F_COUNTS, source.readCount(row));
+        segment.putInt(base + F_COUNTS + 4, source.likeCount(row));
+        segment.putInt(base + F_COUNTS + 8, source.commentCount(row));
+        segment.putInt(base + F_COUNTS + 12, source.shareCount(row));
+        segment.putInt(base + F_COUNTS + 16, source.collectCount(row));
+        segment.putInt(base + F_COUNTS + 20, source.hateCount(row));
+    }
+
+    private MappedByteBuffer segmentOf(int slot) {
+        return segments.get(slot / segmentRecords);
+    }
+
+    // 段内偏移：段内记录数 x 56 字节不超过 2 GB，int 足够
+    private int offsetInSegment(int slot) {
+        return (slot % segmentRecords) * RECORD_SIZE;
+    }
+
+    /**
+     * 扩大映射区域（按 1.5 倍增长）：重新映射最后一个未满的段并追加新段；READ_WRITE 映射超出文件长度时文件会自动扩展。
+     */
+    private void ensureCapacity(int required) throws IOException {
+        if (required <= capacity && !segments.isEmpty()) {
+            return;
+        }
+        int newCapacity = (int) Math.min(Integer.MAX_VALUE, Math.max(required, capacity + ((long) capacity >> 1)));
+        int firstSegment = segments.isEmpty() ? 0 : segments.size() - 1;
+        int lastSegment = (newCapacity - 1) / segmentRecords;
+        while (segments.size() > firstSegment) {
+            segments.remove(segments.size() - 1);
+        }
+        for (int i = firstSegment; i <= lastSegment; i++) {
+            long firstSlot = (long) i * segmentRecords;
+            long records = Math.min(segmentRecords, newCapacity - firstSlot);
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + firstSlot * RECORD_SIZE, records * RECORD_SIZE));
+        }
+        capacity = newCapacity;
+    }
+
+    private void force() {
+        segments.forEach(MappedByteBuffer::force);
+        header.force();
+    }
+
+    private void closeQuietly() {
+        header = null;
+        segments.clear();
+        capacity = 0;
+        recordCount = 0;
+        slotByContentId.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭内容快照缓存文件失败: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.community.rating.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 【内容快照版本】ContentSnapshot 的每次修改（新快照分块写入、流式计分更新计数）都在同一事务内
+ * 把 dataversion 表中的版本号替换为新的随机值。本地缓存文件头记录它所对应的版本，
+ * 加载时与数据库当前版本比对：提交后未能修补缓存（崩溃、回滚、外部修改）时版本不一致，缓存失效。
+ * 版本号取随机值而非自增，清空数据表后重新生成的版本不会与旧缓存文件碰巧相同。
+ */
+@Component
+public class ContentSnapshotVersion {
+
+    static final String NAME = "contentsnapshot";
+
+    /**
+     * 一次修改前后的版本号
+     */
+    public record Transition(long previous, long next) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ContentSnapshotVersion(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 当前版本号；尚无版本时生成一个
+     */
+    public long current() {
+        jdbcTemplate.update("INSERT IGNORE INTO dataversion (name, version) VALUES (?, ?)", NAME, randomVersion(0L));
+        return jdbcTemplate.queryForObject("SELECT version FROM dataversion WHERE name = ?", Long.class, NAME);
+    }
+
+    /**
+     * 替换为新版本号（应在修改 ContentSnapshot 的同一事务内调用，行锁使并发修改串行化）
+     */
+    public Transition advance() {
+        List<Long> rows = jdbcTemplate.queryForList(
+                "SELECT version FROM dataversion WHERE name = ? FOR UPDATE", Long.class, NAME);
+        long previous = rows.isEmpty() ? 0L : rows.get(0);
+        long next = randomVersion(previous);
+        jdbcTemplate.update("INSERT INTO dataversion (name, version) VALUES (?, ?) " +
+                "ON DUPLICATE KEY UPDATE version = VALUES(version)", NAME, next);
+        return new Transition(previous, next);
+    }
+
+    // 非 0 且不同于上一版本的随机值（0 表示尚无版本）
+    private static long randomVersion(long previous) {
+        long version;
+        do {
+            version = ThreadLocalRandom.current().nextLong();
+        } while (version == 0L || version == previous);
+        return version;
+    }
+}
@@ -0,0 +1,329 @@
+package com.community.rating.service;
+
+import com.community.rating.dto.MemberDTO;
+import com.community.rating.repository.MemberRatingRepository;
+import com.community.rating.util.DataGeneration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 【成员名称搜索索引】内存中的成员名称 n-gram 索引，替代 LIKE '%kw%' 全表扫描与逐条评级查询：
+ * - 成员按相关度预排序编号（名字越短，关键词占比越高，越靠前；同长按 member_id），倒排表按编号升序，
+ *   顺序扫描即按相关度输出，取满 limit 条即可停止
+ * - 名字的每个 1~3 字符子串各有一个倒排表：不超过 3 个字符的关键词直接命中；更长的关键词取其中最短的三元组倒排表再校验包含关系
+ * - 前缀联想使用单独的 1~3 字符前缀倒排表，更长的前缀同样先取 3 字符前缀再校验
+ * - 每个领域一个成员位图（在该领域有评级），领域过滤为一次位运算检查
+ * - 每个成员的最新评级（等级、分数、领域）随索引一并预先加载
+ * 索引为不可变快照，成员数或已完成的计算变化时整体重建后替换。名称匹配不区分大小写。
+ */
+@Component
+public class MemberSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberSearchIndex.class);
+
+    // 倒排的最大子串长度
+    static final int MAX_GRAM = 3;
+
+    /**
+     * 被索引的成员（含预先加载的最新评级）
+     */
+    record IndexedMember(long memberId, String name, LocalDateTime joinDate,
+                         String level, Integer score, String mainDomain, int[] areaIds) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberRatingRepository memberRatingRepository;
+    private final DataGeneration dataGeneration;
+
+    private volatile Snapshot snapshot;
+    private volatile String snapshotVersion;
+
+    public MemberSearchIndex(JdbcTemplate jdbcTemplate, MemberRatingRepository memberRatingRepository,
+                             DataGeneration dataGeneration) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.memberRatingRepository = memberRatingRepository;
+        this.dataGeneration = dataGeneration;
+    }
+
+    /**
+     * 名称包含关键词的成员（按相关度排序，最多 limit 条）；domain 不为空时只返回在该领域有评级的成员，领域不存在时为空
+     */
+    public List<MemberDTO> search(String keyword, String domain, int limit) {
+        return current().search(keyword, domain, limit, false);
+    }
+
+    /**
+     * 名称以 prefix 开头的成员（按相关度排序，最多 limit 条）
+     */
+    public List<MemberDTO> typeahead(String prefix, String domain, int limit) {
+        return current().search(prefix, domain, limit, true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        refreshIfChanged();
+    }
+
+    /**
+     * 定时检查：成员数或最近完成的计算变化时重建索引（新成员在计算的同步阶段入库，评级在计算中更新）
+     */
+    @Scheduled(initialDelay = 30, fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public void refreshIfChanged() {
+        try {
+            String version = loadVersion();
+            if (snapshot == null || !version.equals(snapshotVersion)) {
+                rebuild(version);
+            }
+        } catch (DataAccessException e) {
+            log.warn("【成员搜索】索引刷新失败: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    rebuild(loadVersion());
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private String loadVersion() {
+        return jdbcTemplate.queryForObject(
+                "SELECT CONCAT(COUNT(*), '@', IFNULL((SELECT MAX(updated_at) FROM calculationcheckpoint WHERE status = 'COMPLETED'), '')) FROM member",
+                String.class);
+    }
+
+    private synchronized void rebuild(String version) {
+        long startTime = System.currentTimeMillis();
+        Map<Integer, String> areaNames = new HashMap<>();
+        jdbcTemplate.query("SELECT area_id, area_name FROM knowledgearea",
+                (RowCallbackHandler) rs -> areaNames.put(rs.getInt("area_id"), rs.getString("area_name")));
+
+        // 各 (成员, 领域) 的最新评级：领域归属 + 成员最近一次更新的评级
+        Map<Long, List<Integer>> areasByMember = new HashMap<>();
+        Map<Long, Object[]> latestByMember = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT latest.member_id, latest.area_id, latest.des_score, latest.rating_level, latest.update_date
+                FROM (
+                    SELECT mr.member_id, mr.area_id, mr.des_score, mr.rating_level, mr.update_date,
+                           ROW_NUMBER() OVER(PARTITION BY mr.member_id, mr.area_id ORDER BY mr.update_date DESC) as rn
+                    FROM memberrating mr
+                    WHERE mr.update_date >= ?
+                ) latest
+                WHERE latest.rn = 1
+                """,
+                (RowCallbackHandler) rs -> {
+                    long memberId = rs.getLong("member_id");
+                    int areaId = rs.getInt("area_id");
+                    LocalDate updateDate = rs.getObject("update_date", LocalDate.class);
+                    areasByMember.computeIfAbsent(memberId, id -> new ArrayList<>()).add(areaId);
+                    Object[] latest = latestByMember.get(memberId);
+                    if (latest == null || updateDate.isAfter((LocalDate) latest[0])) {
+                        latestByMember.put(memberId, new Object[]{updateDate, areaId, rs.getBigDecimal("des_score"), rs.getString("rating_level")});
+                    }
+                },
+                memberRatingRepository.latestRatingWindowStart());
+
+        List<IndexedMember> members = new ArrayList<>();
+        jdbcTemplate.query("SELECT member_id, name, join_date FROM member",
+                (RowCallbackHandler) rs -> {
+                    long memberId = rs.getLong("member_id");
+                    Timestamp joinDate = rs.getTimestamp("join_date");
+                    Object[] latest = latestByMember.get(memberId);
+                    List<Integer> areas = areasByMember.getOrDefault(memberId, List.of());
+                    members.add(new IndexedMember(memberId, rs.getString("name"),
+                            joinDate != null ? joinDate.toLocalDateTime() : null,
+                            latest != null ? (String) latest[3] : null,
+                            latest != null ? ((BigDecimal) latest[2]).intValue() : null,
+                            latest != null ? areaNames.get((Integer) latest[1]) : null,
+                            areas.stream().mapToInt(Integer::intValue).toArray()));
+                });
+
+        snapshot = Snapshot.build(members, areaNames);
+        snapshotVersion = version;
+        // 搜索结果随索引切换而变化
+        dataGeneration.advance();
+        log.info("【成员搜索】索引重建完成：成员 {} 个，耗时 {} ms", members.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 不可变的索引快照
+     */
+    static final class Snapshot {
+
+        private static final int[] EMPTY = new int[0];
+
+        private final IndexedMember[] members;
+        private final String[] normalizedNames;
+        private final Map<String, int[]> grams;
+        private final Map<String, int[]> prefixes;
+        private final Map<Integer, BitSet> areaMembers;
+        private final Map<String, Integer> areaIdByName;
+
+        private Snapshot(IndexedMember[] members, String[] normalizedNames, Map<String, int[]> grams,
+                         Map<String, int[]> prefixes, Map<Integer, BitSet> areaMembers, Map<String, Integer> areaIdByName) {
+            this.members = members;
+            this.normalizedNames = normalizedNames;
+            this.grams = grams;
+            this.prefixes = prefixes;
+            this.areaMembers = areaMembers;
+            this.areaIdByName = areaIdByName;
+        }
+
+        static Snapshot build(Collection<IndexedMember> indexed, Map<Integer, String> areaNames) {
+            // 按相关度编号：名字越短越靠前，同长按 member_id
+            IndexedMember[] members = indexed.stream()
+                    .filter(m -> m.name() != null)
+                    .sorted(Comparator.comparingInt((IndexedMember m) -> m.name().length()).thenComparingLong(IndexedMember::memberId))
+                    .toArray(IndexedMember[]::new);
+            String[] normalizedNames = new String[members.length];
+            Map<String, IntList> gramLists = new HashMap<>();
+            Map<String, IntList> prefixLists = new HashMap<>();
+            Map<Integer, BitSet> areaMembers = new HashMap<>();
+            for (int ordinal = 0; ordinal < members.length; ordinal++) {
+                String name = normalize(members[ordinal].name());
+                normalizedNames[ordinal] = name;
+                for (int n = 1; n <= MAX_GRAM && n <= name.length(); n++) {
+                    prefixLists.computeIfAbsent(name.substring(0, n), g -> new IntList()).add(ordinal);
+                    for (int i = 0; i + n <= name.length(); i++) {
+                        // 同一名字中重复的子串只记录一次（编号递增，只需与末尾比较）
+                        gramLists.computeIfAbsent(name.substring(i, i + n), g -> new IntList()).addIfNotLast(ordinal);
+                    }
+                }
+                for (int areaId : members[ordinal].areaIds()) {
+                    areaMembers.computeIfAbsent(areaId, id -> new BitSet(members.length)).set(ordinal);
+                }
+            }
+            Map<String, Integer> areaIdByName = new HashMap<>();
+            areaNames.forEach((areaId, areaName) -> areaIdByName.put(areaName, areaId));
+            return new Snapshot(members, normalizedNames, toArrays(gramLists), toArrays(prefixLists), areaMembers, areaIdByName);
+        }
+
+        List<MemberDTO> search(String query, String domain, int limit, boolean prefixOnly) {
+            if (query == null || query.isBlank() || limit <= 0) {
+                return new ArrayList<>();
+            }
+            String normalized = normalize(query.trim());
+            BitSet areaFilter = null;
+            if (domain != null && !domain.isEmpty()) {
+                Integer areaId = areaIdByName.get(domain);
+                if (areaId == null) {
+                    return new ArrayList<>();
+                }
+                areaFilter = areaMembers.getOrDefault(areaId, new BitSet());
+            }
+
+            int[] postings = prefixOnly ? prefixPostings(normalized) : substringPostings(normalized);
+            boolean verify = normalized.length() > MAX_GRAM;
+            List<MemberDTO> results = new ArrayList<>(Math.min(limit, postings.length));
+            for (int ordinal : postings) {
+                if (areaFilter != null && !areaFilter.get(ordinal)) {
+                    continue;
+                }
+                if (verify && !(prefixOnly ? normalizedNames[ordinal].startsWith(normalized) : normalizedNames[ordinal].contains(normalized))) {
+                    continue;
+                }
+                results.add(toDTO(members[ordinal], results.size() + 1));
+                if (results.size() >= limit) {
+                    break;
+                }
+            }
+            return results;
+        }
+
+        // 不超过 MAX_GRAM 的关键词直接取其倒排表；更长时取各三元组中最短的倒排表（候选最少），由调用方校验
+        private int[] substringPostings(String keyword) {
+            if (keyword.length() <= MAX_GRAM) {
+                return grams.getOrDefault(keyword, EMPTY);
+            }
+            int[] shortest = null;
+            for (int i = 0; i + MAX_GRAM <= keyword.length(); i++) {
+                int[] postings = grams.getOrDefault(keyword.substring(i, i + MAX_GRAM), EMPTY);
+                if (shortest == null || postings.length < shortest.length) {
+                    shortest = postings;
+                }
+                if (shortest.length == 0) {
+                    break;
+                }
+            }
+            return shortest;
+        }
+
+        private int[] prefixPostings(String prefix) {
+            return prefixes.getOrDefault(prefix.length() <= MAX_GRAM ? prefix : prefix.substring(0, MAX_GRAM), EMPTY);
+        }
+
+        private static MemberDTO toDTO(IndexedMember member, int rank) {
+            MemberDTO dto = new MemberDTO();
+            dto.setRank(rank);
+            dto.setMember_id(member.memberId());
+            dto.setMember_name(member.name());
+            dto.setJoin_time(member.joinDate() != null ? member.joinDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : null);
+            dto.setLevel(member.level());
+            dto.setScore(member.score());
+            dto.setMain_domain(member.mainDomain());
+            return dto;
+        }
+
+        private static Map<String, int[]> toArrays(Map<String, IntList> lists) {
+            Map<String, int[]> arrays = new HashMap<>(lists.size() * 2);
+            lists.forEach((gram, list) -> arrays.put(gram, list.toArray()));
+            return arrays;
+        }
+    }
+
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // 构建倒排表用的 int 动态数组
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addIfNotLast(int value) {
+            if (size == 0 || values[size - 1] != value) {
+                add(value);
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -7,5 +7,7 @@ import java.util.List;
 public interface MemberService {
     List<MemberDTO> getMemberRankingList(Integer count, String domain, String sort_by);
     List<MemberScoreHistoryDTO> getMember(Long member_id);
+    List<List<MemberScoreHistoryDTO>> getMembers(List<Long> memberIds);
     List<MemberDTO> searchMembers(String keyword, String domain, Integer count);
+    List<MemberDTO> typeaheadMembers(String prefix, String domain, Integer count);
 }
@@ -6,37 +6,62 @@ import com.community.rating.dto.ScoreHistoryItemDTO;
 import com.community.rating.entity.KnowledgeArea;
 import com.community.rating.entity.Member;
 import com.community.rating.entity.MemberRating;
+import com.community.rating.entity.MemberRatingRollup;
 import com.community.rating.repository.KnowledgeAreaRepository;
 import com.community.rating.repository.MemberRatingRepository;
+import com.community.rating.repository.MemberRatingRollupRepository;
 import com.community.rating.repository.MemberRepository;
 import com.community.rating.repository.Member_MemberRating_KnowledgeArea_Repository;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
 import java.util.stream.Collectors;
 import java.math.BigDecimal;
 
 @Service
 public class MemberServiceImpl implements MemberService {
 
+    // 批量成员详情一次最多查询的成员数
+    static final int MAX_BATCH_SIZE = 500;
+
     private final MemberRepository memberRepository;
     private final MemberRatingRepository memberRatingRepository;
+    private final MemberRatingRollupRepository memberRatingRollupRepository;
     private final KnowledgeAreaRepository knowledgeAreaRepository;
     private final Member_MemberRating_KnowledgeArea_Repository combinedRepo;
+    private final ScoreSeriesStore scoreSeriesStore;
+    private final MemberSearchIndex memberSearchIndex;
+    private final RatingAlgorithm ratingAlgorithm;
 
     public MemberServiceImpl(MemberRepository memberRepository,
                              MemberRatingRepository memberRatingRepository,
+                             MemberRatingRollupRepository memberRatingRollupRepository,
                              KnowledgeAreaRepository knowledgeAreaRepository,
-                             Member_MemberRating_KnowledgeArea_Repository combinedRepo) {
+                             Member_MemberRating_KnowledgeArea_Repository combinedRepo,
+                             ScoreSeriesStore scoreSeriesStore,
+                             MemberSearchIndex memberSearchIndex,
+                             RatingAlgorithm ratingAlgorithm) {
         this.memberRepository = memberRepository;
         this.memberRatingRepository = memberRatingRepository;
+        this.memberRatingRollupRepository = memberRatingRollupRepository;
         this.knowledgeAreaRepository = knowledgeAreaRepository;
         this.combinedRepo = combinedRepo;
+        this.scoreSeriesStore = scoreSeriesStore;
+        this.memberSearchIndex = memberSearchIndex;
+        this.ratingAlgorithm = ratingAlgorithm;
     }
 
     @Override
@@ -120,29 +145,153 @@ public class MemberServiceImpl implements MemberService {
         if (mOpt.isEmpty()) return new ArrayList<>();
 
         Member member = mOpt.get();
+        // 完整的每日分数序列：按 member_id 一次读取所有领域；日记录与汇总只读取序列开始之前的部分
+        Map<Integer, List<ScoreSeriesStore.Point>> seriesByArea = scoreSeriesStore.findByMemberId(member_id);
+        LocalDate seriesStart = seriesStart(seriesByArea.values());
+        return buildMemberHistory(member,
+                seriesStart == null ? memberRatingRepository.findAllByMemberId(member_id)
+                        : memberRatingRepository.findAllByMemberIdAndUpdateDateBefore(member_id, seriesStart),
+                seriesStart == null ? memberRatingRollupRepository.findAllByMemberId(member_id)
+                        : memberRatingRollupRepository.findAllByMemberIdAndLastDateBefore(member_id, seriesStart),
+                seriesByArea,
+                areaId -> knowledgeAreaRepository.findById(areaId)
+                        .map(KnowledgeArea::getAreaName)
+                        .orElse("未知领域"),
+                this::calculateDomainRank);
+    }
+
+    @Override
+    public List<List<MemberScoreHistoryDTO>> getMembers(List<Long> memberIds) {
+        if (memberIds == null || memberIds.isEmpty()) return new ArrayList<>();
+        if (memberIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("一次最多查询 " + MAX_BATCH_SIZE + " 个成员");
+        }
+        Set<Long> distinctIds = memberIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // 集合查询：成员、分数序列各一次，领域名称一次读取全部；
+        // 评级与汇总对有序列的成员只读取序列开始之前的部分，没有序列的成员读取全部，各至多两次
+        Map<Long, Member> membersById = memberRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(Member::getMemberId, m -> m));
+        Set<Long> foundIds = membersById.keySet();
+        Map<Long, Map<Integer, List<ScoreSeriesStore.Point>>> seriesByMember = scoreSeriesStore.findByMemberIds(foundIds);
+        Set<Long> withSeries = new LinkedHashSet<>();
+        Set<Long> withoutSeries = new LinkedHashSet<>();
+        for (Long memberId : foundIds) {
+            Map<Integer, List<ScoreSeriesStore.Point>> series = seriesByMember.get(memberId);
+            (series != null && seriesStart(series.values()) != null ? withSeries : withoutSeries).add(memberId);
+        }
+        LocalDate seriesStart = seriesStart(withSeries.stream()
+                .flatMap(memberId -> seriesByMember.get(memberId).values().stream())
+                .toList());
+        List<MemberRating> ratings = new ArrayList<>();
+        List<MemberRatingRollup> rollups = new ArrayList<>();
+        if (!withoutSeries.isEmpty()) {
+            ratings.addAll(memberRatingRepository.findAllByMemberIdIn(withoutSeries));
+            rollups.addAll(memberRatingRollupRepository.findAllByMemberIdIn(withoutSeries));
+        }
+        if (!withSeries.isEmpty()) {
+            ratings.addAll(memberRatingRepository.findAllByMemberIdInAndUpdateDateBefore(withSeries, seriesStart));
+            rollups.addAll(memberRatingRollupRepository.findAllByMemberIdInAndLastDateBefore(withSeries, seriesStart));
+        }
+        Map<Long, List<MemberRating>> ratingsByMember = ratings.stream()
+                .collect(Collectors.groupingBy(MemberRating::getMemberId));
+        Map<Long, List<MemberRatingRollup>> rollupsByMember = rollups.stream()
+                .collect(Collectors.groupingBy(MemberRatingRollup::getMemberId));
+        Map<Integer, String> areaNames = knowledgeAreaRepository.findAll().stream()
+                .collect(Collectors.toMap(KnowledgeArea::getAreaId, KnowledgeArea::getAreaName));
+        // 每个领域的最新分数只加载一次，批内成员共用
+        Map<Integer, List<BigDecimal>> latestScoresByArea = new HashMap<>();
+
+        Map<Long, List<MemberScoreHistoryDTO>> resultById = new HashMap<>();
+        for (Member member : membersById.values()) {
+            Long memberId = member.getMemberId();
+            resultById.put(memberId, buildMemberHistory(member,
+                    ratingsByMember.getOrDefault(memberId, List.of()),
+                    rollupsByMember.getOrDefault(memberId, List.of()),
+                    seriesByMember.getOrDefault(memberId, Map.of()),
+                    areaId -> areaNames.getOrDefault(areaId, "未知领域"),
+                    (areaId, score) -> areaId == null || score == null ? 0
+                            : rankOf(latestScoresByArea.computeIfAbsent(areaId, this::latestScoresDesc), score)));
+        }
+
+        // 按请求顺序返回，不存在的成员为空列表（与单个成员接口一致）
+        List<List<MemberScoreHistoryDTO>> results = new ArrayList<>(memberIds.size());
+        for (Long memberId : memberIds) {
+            results.add(resultById.getOrDefault(memberId, List.of()));
+        }
+        return results;
+    }
+
+    /**
+     * 日记录与汇总的读取上界：各领域分数序列首个点中最晚的日期（按领域精确过滤在组装时进行）；没有序列时为 null
+     */
+    private static LocalDate seriesStart(Collection<List<ScoreSeriesStore.Point>> seriesByArea) {
+        LocalDate start = null;
+        for (List<ScoreSeriesStore.Point> series : seriesByArea) {
+            if (!series.isEmpty() && (start == null || series.get(0).date().isAfter(start))) {
+                start = series.get(0).date();
+            }
+        }
+        return start;
+    }
+
+    /**
+     * 由成员的评级、汇总与分数序列组装分领域详情（单个与批量成员详情共用）
+     * @param areaNameLookup 领域 ID -> 领域名称
+     * @param rankLookup (领域 ID, 分数) -> 领域内排名
+     */
+    private List<MemberScoreHistoryDTO> buildMemberHistory(Member member,
+                                                           List<MemberRating> allRatings,
+                                                           List<MemberRatingRollup> allRollups,
+                                                           Map<Integer, List<ScoreSeriesStore.Point>> seriesByArea,
+                                                           Function<Integer, String> areaNameLookup,
+                                                           ToIntBiFunction<Integer, BigDecimal> rankLookup) {
         List<MemberScoreHistoryDTO> resultList = new ArrayList<>();
 
-        // 获取成员在所有领域的所有评级记录
-        List<MemberRating> allRatings = memberRatingRepository.findAllByMemberId(member_id);
-        
         // 按领域分组
         Map<Integer, List<MemberRating>> ratingsByArea = allRatings.stream()
                 .filter(r -> r.getAreaId() != null)
                 .collect(Collectors.groupingBy(MemberRating::getAreaId));
+        
+        // 超出日粒度保留期的历史已汇总为周/月记录，按领域分组后拼接在日记录之后
+        Map<Integer, List<MemberRatingRollup>> rollupsByArea = allRollups.stream()
+                .filter(r -> r.getAreaId() != null)
+                .collect(Collectors.groupingBy(MemberRatingRollup::getAreaId));
+        Set<Integer> areaIds = new LinkedHashSet<>(ratingsByArea.keySet());
+        areaIds.addAll(rollupsByArea.keySet());
+        seriesByArea.forEach((areaId, series) -> {
+            if (!series.isEmpty()) {
+                areaIds.add(areaId);
+            }
+        });
 
         // 为每个领域创建DTO
-        for (Map.Entry<Integer, List<MemberRating>> entry : ratingsByArea.entrySet()) {
-            Integer areaId = entry.getKey();
-            List<MemberRating> areaRatings = entry.getValue();
+        for (Integer areaId : areaIds) {
+            List<MemberRating> areaRatings = ratingsByArea.getOrDefault(areaId, new ArrayList<>());
+            List<MemberRatingRollup> areaRollups = rollupsByArea.getOrDefault(areaId, new ArrayList<>());
             
             // 获取领域名称
-            String areaName = knowledgeAreaRepository.findById(areaId)
-                    .map(KnowledgeArea::getAreaName)
-                    .orElse("未知领域");
+            String areaName = areaNameLookup.apply(areaId);
             
-            // 按更新日期降序排序，获取最新评级作为当前评级
+            // 当前评级取分数序列的最后一个点（等级由分数确定）；没有序列时按更新日期降序取最新评级，
+            // 日记录已全部汇总时取最近的汇总
             areaRatings.sort(Comparator.comparing(MemberRating::getUpdateDate).reversed());
-            MemberRating latestRating = areaRatings.get(0);
+            areaRollups.sort(Comparator.comparing(MemberRatingRollup::getLastDate).reversed());
+            List<ScoreSeriesStore.Point> series = seriesByArea.get(areaId);
+            String latestLevel;
+            BigDecimal latestScore;
+            if (series != null && !series.isEmpty()) {
+                latestScore = series.get(series.size() - 1).desScore();
+                latestLevel = ratingAlgorithm.determineRatingLevel(latestScore);
+            } else if (!areaRatings.isEmpty()) {
+                latestLevel = areaRatings.get(0).getRatingLevel();
+                latestScore = areaRatings.get(0).getDesScore();
+            } else {
+                latestLevel = areaRollups.get(0).getLastLevel();
+                latestScore = areaRollups.get(0).getLastScore();
+            }
             
             // 创建DTO并填充基础信息
             MemberScoreHistoryDTO dto = new MemberScoreHistoryDTO();
@@ -153,23 +302,22 @@ public class MemberServiceImpl implements MemberService {
             
             // 填充领域特定信息
             dto.setMain_domain(areaName);
-            dto.setLevel(latestRating.getRatingLevel());
-            dto.setScore(latestRating.getDesScore() != null ? 
-                    latestRating.getDesScore().intValue() : null);
+            dto.setLevel(latestLevel);
+            dto.setScore(latestScore != null ? latestScore.intValue() : null);
             
             // 计算该成员在当前领域的排名
-            int rank = calculateDomainRank(areaId, latestRating.getDesScore());
+            int rank = rankLookup.applyAsInt(areaId, latestScore);
             dto.setRank(rank);
             
-            // 创建历史分数记录列表
-            List<ScoreHistoryItemDTO> historyList = areaRatings.stream()
-                    .map(rating -> new ScoreHistoryItemDTO(
-                            rating.getUpdateDate() != null ? 
-                                    rating.getUpdateDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : null,
-                            rating.getDesScore() != null ? 
-                                    rating.getDesScore().doubleValue() : null
-                    ))
-                    .collect(Collectors.toList());
+            // 创建历史分数记录列表：序列覆盖的日期取自每日分数序列，
+            // 序列开始之前（序列表建立前的数据）拼接日记录与周/月汇总
+            List<ScoreHistoryItemDTO> historyList;
+            if (series != null && !series.isEmpty()) {
+                historyList = buildHistoryFromSeries(series);
+                historyList.addAll(buildHistoryFromTiers(areaRatings, areaRollups, series.get(0).date()));
+            } else {
+                historyList = buildHistoryFromTiers(areaRatings, areaRollups, null);
+            }
             
             dto.setScore_history(historyList);
             resultList.add(dto);
@@ -189,6 +337,43 @@ public class MemberServiceImpl implements MemberService {
         return resultList;
     }
     
+    // 分数序列（日期升序）转为历史记录（日期降序）
+    private List<ScoreHistoryItemDTO> buildHistoryFromSeries(List<ScoreSeriesStore.Point> series) {
+        List<ScoreHistoryItemDTO> historyList = new ArrayList<>(series.size());
+        for (int i = series.size() - 1; i >= 0; i--) {
+            ScoreSeriesStore.Point point = series.get(i);
+            historyList.add(new ScoreHistoryItemDTO(
+                    point.date().format(DateTimeFormatter.ISO_LOCAL_DATE), point.desScore().doubleValue()));
+        }
+        return historyList;
+    }
+
+    // 日记录（已按日期降序）之后拼接周/月汇总（已按日期降序）；before 不为空时只取该日期之前的记录
+    private List<ScoreHistoryItemDTO> buildHistoryFromTiers(List<MemberRating> areaRatings, List<MemberRatingRollup> areaRollups,
+                                                            LocalDate before) {
+        List<ScoreHistoryItemDTO> historyList = areaRatings.stream()
+                .filter(rating -> before == null || (rating.getUpdateDate() != null && rating.getUpdateDate().isBefore(before)))
+                .map(rating -> new ScoreHistoryItemDTO(
+                        rating.getUpdateDate() != null ? 
+                                rating.getUpdateDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : null,
+                        rating.getDesScore() != null ? 
+                                rating.getDesScore().doubleValue() : null
+                ))
+                .collect(Collectors.toCollection(ArrayList::new));
+        for (MemberRatingRollup rollup : areaRollups) {
+            if (before != null && !rollup.getLastDate().isBefore(before)) {
+                continue;
+            }
+            historyList.add(new ScoreHistoryItemDTO(
+                    rollup.getLastDate().format(DateTimeFormatter.ISO_LOCAL_DATE),
+                    rollup.getLastScore().doubleValue(),
+                    MemberRatingRollup.WEEKLY.equals(rollup.getGranularity()) ? "week" : "month",
+                    rollup.getMinScore().doubleValue(),
+                    rollup.getMaxScore().doubleValue()));
+        }
+        return historyList;
+    }
+
     /**
      * 计算成员在特定领域的排名
      * @param areaId 领域ID
@@ -199,7 +384,13 @@ public class MemberServiceImpl implements MemberService {
         if (areaId == null || memberScore == null) {
             return 0; // 无效数据返回0
         }
-        
+        return rankOf(latestScoresDesc(areaId), memberScore);
+    }
+
+    /**
+     * 领域内每个成员最新评级的分数，按分数降序
+     */
+    private List<BigDecimal> latestScoresDesc(Integer areaId) {
         // 获取该领域所有成员的所有评级记录
         List<MemberRating> allAreaRatings = memberRatingRepository.findByAreaIdOrderByDesScoreDesc(areaId);
         
@@ -217,71 +408,42 @@ public class MemberServiceImpl implements MemberService {
                 }
             ));
         
-        // 将最新评级转换为列表并按分数降序排序
-        List<MemberRating> latestRatings = latestRatingsByMember.values().stream()
-            .filter(rating -> rating.getDesScore() != null)
-            .sorted((r1, r2) -> r2.getDesScore().compareTo(r1.getDesScore()))
+        // 将最新评级的分数按降序排序
+        return latestRatingsByMember.values().stream()
+            .map(MemberRating::getDesScore)
+            .filter(Objects::nonNull)
+            .sorted(Comparator.reverseOrder())
             .collect(Collectors.toList());
-        
-        // 计算排名
-        int rank = 1;
-        for (MemberRating rating : latestRatings) {
-            if (rating.getDesScore().compareTo(memberScore) > 0) {
-                rank++;
+    }
+
+    /**
+     * 排名 = 分数更高的成员数 + 1（scoresDesc 已按降序排列，二分查找第一个不高于 memberScore 的位置）
+     */
+    private static int rankOf(List<BigDecimal> scoresDesc, BigDecimal memberScore) {
+        int low = 0;
+        int high = scoresDesc.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (scoresDesc.get(mid).compareTo(memberScore) > 0) {
+                low = mid + 1;
             } else {
-                break;
+                high = mid;
             }
         }
-        return rank;
+        return low + 1;
     }
 
     @Override
     public List<MemberDTO> searchMembers(String keyword, String domain, Integer count) {
-        if (keyword == null || keyword.isBlank()) return new ArrayList<>();
         int limit = (count == null || count <= 0) ? 5 : count;
+        // 名称 n-gram 索引：按相关度（关键词占名字长度比例）排序，领域过滤与最新评级均在索引内完成
+        return memberSearchIndex.search(keyword, domain, limit);
+    }
 
-        List<com.community.rating.entity.Member> matches = memberRepository.findByNameContainingIgnoreCase(keyword);
-        if (domain != null && !domain.isEmpty()) {
-            Optional<KnowledgeArea> areaOpt = knowledgeAreaRepository.findByAreaName(domain);
-            if (areaOpt.isPresent()) {
-                Integer areaId = areaOpt.get().getAreaId();
-                // filter members that have any rating in that domain
-                matches = matches.stream().filter(m -> memberRatingRepository.findByMemberId(m.getMemberId()).stream().anyMatch(r -> areaId.equals(r.getAreaId()))).collect(Collectors.toList());
-            } else {
-                // domain specified but not found -> return empty
-                return new ArrayList<>();
-            }
-        }
-
-        // 计算匹配度：关键词长度占名字长度比例降序
-        List<MemberDTO> dtos = matches.stream()
-                .map(m -> {
-                    MemberDTO dto = new MemberDTO();
-                    dto.setMember_id(m.getMemberId());
-                    dto.setMember_name(m.getName());
-                    dto.setJoin_time(m.getJoinDate() != null ? m.getJoinDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : null);
-                    // attach latest rating if any
-                    List<MemberRating> ratings = memberRatingRepository.findAllByMemberId(m.getMemberId());
-                    if (!ratings.isEmpty()) {
-                        MemberRating latest = ratings.stream().max(Comparator.comparing(MemberRating::getUpdateDate)).get();
-                        dto.setLevel(latest.getRatingLevel());
-                        dto.setScore(latest.getDesScore() != null ? latest.getDesScore().intValue() : null);
-                        knowledgeAreaRepository.findById(latest.getAreaId()).ifPresent(a -> dto.setMain_domain(a.getAreaName()));
-                    }
-                    return dto;
-                })
-                .sorted((a, b) -> {
-                    double scoreA = (double) (a.getMember_name().contains(keyword) ? ((double) keyword.length() / a.getMember_name().length()) : 0.0);
-                    double scoreB = (double) (b.getMember_name().contains(keyword) ? ((double) keyword.length() / b.getMember_name().length()) : 0.0);
-                    return Double.compare(scoreB, scoreA);
-                })
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        // set ranks sequentially
-        for (int i = 0; i < dtos.size(); i++) dtos.get(i).setRank(i + 1);
-
-        return dtos;
+    @Override
+    public List<MemberDTO> typeaheadMembers(String prefix, String domain, Integer count) {
+        int limit = (count == null || count <= 0) ? 5 : count;
+        return memberSearchIndex.typeahead(prefix, domain, limit);
     }
 
     private MemberDTO buildDTOFromRating(MemberRating r, int rank) {
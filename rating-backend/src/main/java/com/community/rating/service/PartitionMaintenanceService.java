@@ -0,0 +1,188 @@
+package com.community.rating.service;
+
+import com.community.rating.simulation.VirtualClock;
+import com.community.rating.util.CalculationLease;
+import com.community.rating.util.CalculationStatusManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 【分区维护】contentsnapshot（按 publish_time）与 memberrating（按 update_date）按月 RANGE COLUMNS 分区：
+ * - 从 p_future（MAXVALUE）中切分出按月分区，始终保证虚拟时间之后还有 FUTURE_PARTITION_MONTHS 个月的空分区，
+ *   新数据不会落入 p_future，按时间范围的查询只访问相关月份
+ * - memberrating 中整体早于日粒度保留期（见 RatingRetentionService）且已被压缩清空的月分区直接删除
+ * - contentsnapshot 的历史内容仍参与 DES 计算（按时效性衰减），不过期，只新增分区
+ * p_history（历史兜底）与 p_future 从不删除。表未分区（旧库结构）时跳过。
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    // 虚拟时间之后预留的月分区数
+    static final int FUTURE_PARTITION_MONTHS = 3;
+    // 维护任务持有计算租约的最长时间（真实时间）
+    private static final Duration MAINTENANCE_LEASE_TTL = Duration.ofMinutes(10);
+
+    static final String FUTURE_PARTITION = "p_future";
+    static final String HISTORY_PARTITION = "p_history";
+    private static final DateTimeFormatter PARTITION_NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    // 分区表 -> 是否删除过期分区
+    private static final Map<String, Boolean> PARTITIONED_TABLES = new LinkedHashMap<>();
+    static {
+        PARTITIONED_TABLES.put("contentsnapshot", false);
+        PARTITIONED_TABLES.put("memberrating", true);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VirtualClock virtualClock;
+    private final CalculationLease calculationLease;
+    private final CalculationStatusManager calculationStatusManager;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       VirtualClock virtualClock,
+                                       CalculationLease calculationLease,
+                                       CalculationStatusManager calculationStatusManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.virtualClock = virtualClock;
+        this.calculationLease = calculationLease;
+        this.calculationStatusManager = calculationStatusManager;
+    }
+
+    /**
+     * 定时维护：启动后尽快执行一次，之后真实时间每 10 分钟一次（默认倍速下约为虚拟时间 5 天）。
+     * 分区 DDL 需要表级元数据锁，因此与评级计算共用计算租约，计算进行中时跳过。
+     */
+    @Scheduled(initialDelay = 5, fixedDelay = 600, timeUnit = TimeUnit.SECONDS)
+    public void scheduledMaintenance() {
+        if (calculationStatusManager.isCalculationInProgress()) {
+            return;
+        }
+        CalculationLease.Lease lease = calculationLease.tryAcquire("partition-maintenance", MAINTENANCE_LEASE_TTL);
+        if (lease == null) {
+            return;
+        }
+        try {
+            LocalDate today = virtualClock.now().toLocalDate();
+            PARTITIONED_TABLES.forEach((table, dropExpired) -> maintain(table, today, dropExpired));
+        } finally {
+            calculationLease.release(lease);
+        }
+    }
+
+    private void maintain(String table, LocalDate today, boolean dropExpired) {
+        try {
+            Map<String, LocalDate> partitions = loadPartitionBounds(table);
+            if (partitions.isEmpty()) {
+                log.debug("【分区维护】{} 未分区，跳过", table);
+                return;
+            }
+            LocalDate lastBound = null;
+            for (LocalDate bound : partitions.values()) {
+                if (bound != null) {
+                    lastBound = bound;
+                }
+            }
+            List<LocalDate> months = monthsToAdd(lastBound, today, FUTURE_PARTITION_MONTHS);
+            if (!months.isEmpty() && partitions.containsKey(FUTURE_PARTITION)) {
+                jdbcTemplate.execute(reorganizeFutureSql(table, months));
+                log.info("【分区维护】{} 新增 {} 个月分区：{} 至 {}", table, months.size(),
+                        partitionName(months.get(0)), partitionName(months.get(months.size() - 1)));
+            }
+            if (dropExpired) {
+                dropExpiredPartitions(table, partitions, RatingRetentionService.dailyCutoff(today));
+            }
+        } catch (DataAccessException e) {
+            log.warn("【分区维护】{} 维护失败: {}", table, e.getMessage());
+        }
+    }
+
+    // 删除整体早于 cutoff 且已清空的月分区（数据已由保留压缩汇总）
+    private void dropExpiredPartitions(String table, Map<String, LocalDate> partitions, LocalDate cutoff) {
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, LocalDate> partition : partitions.entrySet()) {
+            String name = partition.getKey();
+            LocalDate bound = partition.getValue();
+            if (HISTORY_PARTITION.equals(name) || bound == null || bound.isAfter(cutoff)) {
+                continue;
+            }
+            List<Integer> rows = jdbcTemplate.queryForList(
+                    "SELECT 1 FROM " + table + " PARTITION (" + name + ") LIMIT 1", Integer.class);
+            if (rows.isEmpty()) {
+                expired.add(name);
+            }
+        }
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + String.join(", ", expired));
+            log.info("【分区维护】{} 删除 {} 个过期分区：{}", table, expired.size(), expired);
+        }
+    }
+
+    /**
+     * 分区名 -> 上界（VALUES LESS THAN 的日期；MAXVALUE 为 null），按分区顺序；表未分区时为空
+     */
+    private Map<String, LocalDate> loadPartitionBounds(String table) {
+        Map<String, LocalDate> partitions = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                        "ORDER BY PARTITION_ORDINAL_POSITION",
+                (RowCallbackHandler) rs -> partitions.put(rs.getString("PARTITION_NAME"), parseBound(rs.getString("PARTITION_DESCRIPTION"))),
+                table);
+        return partitions;
+    }
+
+    /**
+     * 解析分区上界：'2024-02-01' 或 '2024-02-01 00:00:00' -> 日期；MAXVALUE -> null
+     */
+    static LocalDate parseBound(String description) {
+        if (description == null || description.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        String value = description.replace("'", "").trim();
+        return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+    }
+
+    /**
+     * 需要新增的月分区（每项为该月 1 日）：从 lastBound 所在月开始，直到覆盖 today 之后 futureMonths 个月
+     */
+    static List<LocalDate> monthsToAdd(LocalDate lastBound, LocalDate today, int futureMonths) {
+        List<LocalDate> months = new ArrayList<>();
+        if (lastBound == null) {
+            return months;
+        }
+        LocalDate target = today.withDayOfMonth(1).plusMonths(futureMonths + 1L);
+        for (LocalDate month = lastBound.withDayOfMonth(1); month.isBefore(target); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    static String partitionName(LocalDate month) {
+        return month.format(PARTITION_NAME_FORMAT);
+    }
+
+    static String reorganizeFutureSql(String table, List<LocalDate> months) {
+        String monthly = months.stream()
+                .map(month -> "PARTITION " + partitionName(month) + " VALUES LESS THAN ('" + month.plusMonths(1) + "')")
+                .collect(Collectors.joining(", "));
+        return "ALTER TABLE " + table + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" + monthly +
+                ", PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))";
+    }
+}
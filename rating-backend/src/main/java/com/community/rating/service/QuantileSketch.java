@@ -0,0 +1,248 @@
+package com.community.rating.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 【分位数草图】非负分数（DES、CIS）的可合并分位数草图：按对数等比分桶计数（相对误差 RELATIVE_ACCURACY），
+ * 不保存原始值，内存只与分数的数量级跨度有关（DES/CIS 约数百个桶）。
+ * - 分位数的相对误差不超过 RELATIVE_ACCURACY；排名（“前 X%”）与直方图在桶内按均匀分布插值；最小值/最大值精确
+ * - 两个草图的桶一一对应，合并即逐桶相加，因此按分区（或并行分片）各自构建的草图合并后与整体构建的结果完全相同
+ * - 小于 MIN_TRACKED_VALUE（数据库精度 10^-4）的值计入零桶
+ * 非线程安全：构建期间由单个线程持有，发布后只读。
+ */
+public final class QuantileSketch {
+
+    // 相对误差：分位数估计值与真实值相差不超过 1%
+    public static final double RELATIVE_ACCURACY = 0.01;
+    // 计入对数桶的最小值（DES/CIS 的存储精度）
+    static final double MIN_TRACKED_VALUE = 1e-4;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    // 对数桶：counts[i] 对应桶下标 offset + i，桶 k 覆盖 (GAMMA^(k-1), GAMMA^k]
+    private long[] counts = new long[0];
+    private int offset = 0;
+    private long zeroCount = 0;
+    private long count = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        double v = Math.max(value, 0);
+        if (v < MIN_TRACKED_VALUE) {
+            zeroCount++;
+        } else {
+            int index = bucketIndex(v);
+            ensureCapacity(index, index);
+            counts[index - offset]++;
+        }
+        count++;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+    }
+
+    /**
+     * 把另一个草图合并到本草图（逐桶相加）
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (other.counts.length > 0) {
+            ensureCapacity(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * q 分位数（0 ≤ q ≤ 1）；空草图返回 NaN
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        long rank = (long) Math.ceil(q * count);
+        long seen = zeroCount;
+        if (seen >= rank) {
+            return min;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return clamp(bucketValue(offset + i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 不超过 value 的值的个数（估计，value 所在桶内按均匀分布插值）
+     */
+    public long countAtOrBelow(double value) {
+        if (count == 0 || value < min) {
+            return 0;
+        }
+        if (value >= max) {
+            return count;
+        }
+        long below = zeroCount;
+        if (value < MIN_TRACKED_VALUE) {
+            return below;
+        }
+        int index = bucketIndex(value);
+        int limit = index - offset;
+        for (int i = 0; i < counts.length && i < limit; i++) {
+            below += counts[i];
+        }
+        if (limit >= 0 && limit < counts.length) {
+            // value 所在桶内按线性插值计入一部分
+            double lower = Math.pow(GAMMA, index - 1);
+            double upper = Math.pow(GAMMA, index);
+            below += Math.round(counts[limit] * Math.min(1.0, (value - lower) / (upper - lower)));
+        }
+        return below;
+    }
+
+    /**
+     * 分数高于 value 的比例（0~1），即 value 处于“前 X”；空草图返回 NaN
+     */
+    public double fractionAbove(double value) {
+        return count == 0 ? Double.NaN : (double) (count - countAtOrBelow(value)) / count;
+    }
+
+    /**
+     * 在 [min, max] 上等宽切分的直方图：返回 bucketCount 个桶的计数（估计）
+     */
+    public long[] histogram(int bucketCount) {
+        long[] histogram = new long[bucketCount];
+        if (count == 0 || bucketCount <= 0) {
+            return histogram;
+        }
+        double width = (max - min) / bucketCount;
+        long previous = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long atOrBelow = i == bucketCount - 1 ? count : countAtOrBelow(min + width * (i + 1));
+            histogram[i] = atOrBelow - previous;
+            previous = atOrBelow;
+        }
+        return histogram;
+    }
+
+    /**
+     * 序列化：[offset, zeroCount, count, min, max, 桶数, 各桶计数]
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 2 + Long.BYTES * (2 + counts.length) + Double.BYTES * 2);
+        buffer.putInt(offset).putLong(zeroCount).putLong(count).putDouble(min).putDouble(max).putInt(counts.length);
+        for (long c : counts) {
+            buffer.putLong(c);
+        }
+        return buffer.array();
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.offset = buffer.getInt();
+        sketch.zeroCount = buffer.getLong();
+        sketch.count = buffer.getLong();
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+        sketch.counts = new long[buffer.getInt()];
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = buffer.getLong();
+        }
+        return sketch;
+    }
+
+    private static int bucketIndex(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    // 桶的代表值：使桶内任意值的相对误差不超过 RELATIVE_ACCURACY
+    private static double bucketValue(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    // 扩展桶数组，使其覆盖 [lowIndex, highIndex]
+    private void ensureCapacity(int lowIndex, int highIndex) {
+        if (counts.length == 0) {
+            offset = lowIndex;
+            counts = new long[highIndex - lowIndex + 1];
+            return;
+        }
+        int newLow = Math.min(offset, lowIndex);
+        int newHigh = Math.max(offset + counts.length - 1, highIndex);
+        if (newLow == offset && newHigh == offset + counts.length - 1) {
+            return;
+        }
+        long[] grown = new long[newHigh - newLow + 1];
+        System.arraycopy(counts, 0, grown, offset - newLow, counts.length);
+        counts = grown;
+        offset = newLow;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof QuantileSketch other)) {
+            return false;
+        }
+        return count == other.count && zeroCount == other.zeroCount
+                && Double.compare(min(), other.min()) == 0 && Double.compare(max(), other.max()) == 0
+                && Arrays.equals(trimmed(), other.trimmed());
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(count) * 31 + Arrays.hashCode(trimmed());
+    }
+
+    // 去掉两端的空桶（不同构建顺序下数组边界可能不同），用于比较
+    private long[] trimmed() {
+        int from = 0;
+        int to = counts.length;
+        while (from < to && counts[from] == 0) {
+            from++;
+        }
+        while (to > from && counts[to - 1] == 0) {
+            to--;
+        }
+        long[] result = new long[to - from + 1];
+        result[0] = to > from ? offset + from : 0;
+        System.arraycopy(counts, from, result, 1, to - from);
+        return result;
+    }
+}
@@ -62,20 +62,33 @@ public class RatingAlgorithm {
      * @return CIS 分数 (BigDecimal)
      */
     public BigDecimal calculateCIS(ContentDataDTO content) {
+        return calculateCIS(
+                content.getReadCount(), content.getLikeCount(), content.getCommentCount(),
+                content.getShareCount(), content.getCollectCount(), content.getHateCount(),
+                content.getPostLengthLevel());
+    }
+
+    /**
+     * 1'. CIS 原始类型重载：供列式存储 (ContentColumnStore) 按下标直接调用，避免构造 DTO。
+     * 计算过程与 DTO 版本完全一致。
+     */
+    public BigDecimal calculateCIS(long readCount, long likeCount, long commentCount,
+                                   long shareCount, long collectCount, long hateCount,
+                                   int postLengthLevel) {
         // Step 1.1: BaseScore (基础得分)
         // BaseScore = (W_read × 阅读数) + (W_Like × 点赞数) + (W_Comment × 评论数) + (W_Share × 转发数)
         BigDecimal baseScore = BigDecimal.ZERO
-                .add(new BigDecimal(content.getReadCount()).multiply(W_READ))
-                .add(new BigDecimal(content.getLikeCount()).multiply(W_LIKE))
-                .add(new BigDecimal(content.getCommentCount()).multiply(W_COMMENT))
-                .add(new BigDecimal(content.getShareCount()).multiply(W_SHARE));
+                .add(new BigDecimal(readCount).multiply(W_READ))
+                .add(new BigDecimal(likeCount).multiply(W_LIKE))
+                .add(new BigDecimal(commentCount).multiply(W_COMMENT))
+                .add(new BigDecimal(shareCount).multiply(W_SHARE));
 
         // Step 1.2: QualityFactor (质量因子 - 使用 Sigmoid 逻辑函数)
         // Z = W_Collect × Collects + W_Length × PostLengthLevel + W_Like × Likes + W_Hate × Hates + b
-        BigDecimal collectTerm = new BigDecimal(content.getCollectCount()).multiply(W_COLLECT);
-        BigDecimal lengthTerm = new BigDecimal(content.getPostLengthLevel()).multiply(W_LENGTH);
-        BigDecimal likeTerm = new BigDecimal(content.getLikeCount()).multiply(W_QUALITY_LIKE);
-        BigDecimal hateTerm = new BigDecimal(content.getHateCount()).multiply(W_HATE);
+        BigDecimal collectTerm = new BigDecimal(collectCount).multiply(W_COLLECT);
+        BigDecimal lengthTerm = new BigDecimal(postLengthLevel).multiply(W_LENGTH);
+        BigDecimal likeTerm = new BigDecimal(likeCount).multiply(W_QUALITY_LIKE);
+        BigDecimal hateTerm = new BigDecimal(hateCount).multiply(W_HATE);
         
         BigDecimal Z = collectTerm
                 .add(lengthTerm)
@@ -91,11 +104,11 @@ public class RatingAlgorithm {
         // Step 1.3: ShareBoost (转发放大系数)
         // ShareBoost = 1 + γ × log(1 + shares)
         // 其中 γ = 0.12（转发增量权重）
-        BigDecimal shareBoost = calculateShareBoost(content.getShareCount());
+        BigDecimal shareBoost = calculateShareBoost(shareCount);
         
         // Step 1.4: NegativePenalty (负面惩罚)
         // NegativePenalty = W_Hate × 点踩数
-        BigDecimal negativePenalty = new BigDecimal(content.getHateCount()).multiply(W_NEGATIVE_HATE);
+        BigDecimal negativePenalty = new BigDecimal(hateCount).multiply(W_NEGATIVE_HATE);
         
         // Step 1.5: Final CIS
         // CIS = (BaseScore × QualityFactor × ShareBoost) - NegativePenalty
@@ -157,16 +170,24 @@ public class RatingAlgorithm {
      */
     public BigDecimal calculateRecencyFactor(LocalDateTime publishTime) {
         // 使用虚拟时间
-        long daysSincePublish = ChronoUnit.DAYS.between(publishTime, com.community.rating.simulation.TimeSimulation.now());
+        return calculateRecencyFactor(publishTime, com.community.rating.simulation.TimeSimulation.now());
+    }
 
-        if (daysSincePublish <= 30) {
-            return BigDecimal.ONE; // 1.0
-        } else if (daysSincePublish <= 90) {
-            return new BigDecimal("0.7"); // 轻度衰减
-        } else if (daysSincePublish <= 180) {
-            return new BigDecimal("0.4"); // 中度衰减
-        } else {
-            return new BigDecimal("0.1"); // 显著衰减
+    /**
+     * 以给定参考时间计算时效性衰减因子（批量计算时由调用方统一传入冻结的参考时间）
+     *
+     * @param publishTime 内容发布时间
+     * @param asOf 参考时间
+     * @return RecencyFactor (BigDecimal)
+     */
+    public BigDecimal calculateRecencyFactor(LocalDateTime publishTime, LocalDateTime asOf) {
+        long daysSincePublish = ChronoUnit.DAYS.between(publishTime, asOf);
+
+        switch (recencyFactorTenths(daysSincePublish)) {
+            case 10: return BigDecimal.ONE; // 1.0
+            case 7: return new BigDecimal("0.7"); // 轻度衰减
+            case 4: return new BigDecimal("0.4"); // 中度衰减
+            default: return new BigDecimal("0.1"); // 显著衰减
         }
 
         //         // 衰减率常数 k = 0.01（每天衰减约 1%）
@@ -203,10 +224,12 @@ public class RatingAlgorithm {
      */
     public BigDecimal calculateDES(List<ContentDataDTO> contentDTOs) {
         BigDecimal desScore = BigDecimal.ZERO;
+        // 同一次计算统一使用同一参考时间
+        LocalDateTime asOf = com.community.rating.simulation.TimeSimulation.now();
         
         for (ContentDataDTO dto : contentDTOs) {
             // 获取时效性因子
-            BigDecimal recencyFactor = calculateRecencyFactor(dto.getPublishTime());
+            BigDecimal recencyFactor = calculateRecencyFactor(dto.getPublishTime(), asOf);
             
             // 累加项: CIS_i × RecencyFactor_i
             BigDecimal term = dto.getCisScore().multiply(recencyFactor);
@@ -216,6 +239,50 @@ public class RatingAlgorithm {
         return desScore.setScale(SCALE, MODE);
     }
 
+    /**
+     * 辅助方法：时效性衰减因子的定点表示（单位 0.1），与 calculateRecencyFactor 的分段完全对应。
+     * 供整数累加的 DES 计算使用。
+     */
+    static int recencyFactorTenths(long daysSincePublish) {
+        if (daysSincePublish <= 30) {
+            return 10;
+        } else if (daysSincePublish <= 90) {
+            return 7;
+        } else if (daysSincePublish <= 180) {
+            return 4;
+        } else {
+            return 1;
+        }
+    }
+
+    /**
+     * 3'. DES 列式版本：对 rows[from, to) 中同一 (成员, 领域) 的内容累加 CIS × RecencyFactor。
+     *
+     * CIS 以 scale=4 定点数存储，衰减因子以 0.1 为单位，乘积累加在 long 上完成（scale=5），
+     * 最后一次性按 HALF_UP 舍入到 4 位小数，结果与 BigDecimal 版本逐位相同。
+     * 参考时间 asOf 由调用方在一次计算任务中固定，避免逐行读取虚拟时钟。
+     *
+     * @param store 列式内容存储（CIS 已计算）
+     * @param rows 行下标序列
+     * @param from 起始位置（含）
+     * @param to 结束位置（不含）
+     * @param asOf 本次计算的参考时间
+     * @return DES 分数 (BigDecimal)
+     */
+    public BigDecimal calculateDES(ContentColumnStore store, int[] rows, int from, int to, LocalDateTime asOf) {
+        int asOfEpochDay = (int) asOf.toLocalDate().toEpochDay();
+        int asOfSecondOfDay = asOf.toLocalTime().toSecondOfDay();
+
+        long desScaled5 = 0L;
+        for (int i = from; i < to; i++) {
+            int row = rows[i];
+            long days = store.daysSincePublish(row, asOfEpochDay, asOfSecondOfDay);
+            desScaled5 += store.cisScoreUnscaled(row) * recencyFactorTenths(days);
+        }
+
+        return BigDecimal.valueOf(desScaled5, SCALE + 1).setScale(SCALE, MODE);
+    }
+
     /**
      * 4. 最终评级映射：将 DES 分数映射到预定义的评级等级。
      * 
@@ -1,13 +1,16 @@
 package com.community.rating.service;
 
 import com.community.rating.util.CalculationStatusManager;
+import com.community.rating.util.DataGeneration;
 // 保留原有的imports，添加ProgressBar的import
 import com.community.rating.util.ProgressBar;
+import com.community.rating.util.RatingMetrics;
 
+import com.community.rating.simulation.ContentSnapshotRecord;
 import com.community.rating.simulation.ForumDataSimulation;
-import com.community.rating.simulation.TimeSimulation;
-import com.community.rating.dto.ContentDataDTO;
-import com.community.rating.entity.ContentSnapshot;
+import com.community.rating.simulation.MemberSnapshotRecord;
+import com.community.rating.simulation.VirtualClock;
+import com.community.rating.simulation.VersionedChangeFeed;
 import com.community.rating.entity.Member;
 import com.community.rating.entity.MemberRating;
 import com.community.rating.entity.KnowledgeArea;
@@ -17,20 +20,30 @@ import com.community.rating.repository.MemberRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -40,6 +53,7 @@ import java.util.stream.Collectors;
  * 新增：领域标签到 ID 的解析和缓存逻辑。
  * 
  * 【虚拟时间定时】每天虚拟时间凌晨 4 点执行一次，而非固定间隔
+ * 【分块提交】各阶段按 COMMIT_CHUNK_SIZE 行分块提交，每块在同一事务内更新检查点；中断后以相同参考时间重跑时从检查点继续
  */
 @Service
 public class RatingCalculationService {
@@ -51,12 +65,30 @@ public class RatingCalculationService {
     private final MemberRepository memberRepository; // 新增注入 MemberRepository
     private final AchievementDetectionService achievementDetectionService;
     private final JdbcTemplate jdbcTemplate;
+    private final ContentSnapshotFileCache contentSnapshotCache;
+    private final ContentSnapshotVersion contentSnapshotVersion;
+    private final RatingMetrics ratingMetrics;
+    private final VirtualClock virtualClock;
+    private final CalculationCheckpointStore checkpointStore;
+    private final RatingWriter ratingWriter;
+    private final ScoreSketchStore scoreSketchStore;
+    private final TransactionTemplate chunkTransaction;
     
     // 缓存：用于存储 knowledgeTag -> areaId 的映射，避免重复查询数据库
     private final Map<String, Integer> tagToIdCache = new ConcurrentHashMap<>();
-    
-    // 【虚拟时间定时】记录上一次执行的虚拟日期，用于检测是否跨越到新的一天凌晨 4 点
-    private LocalDate lastExecutionDate = null;
+
+    // CIS 在数据库中的精度：DECIMAL(10, 4)
+    private static final int CIS_SCALE = 4;
+    private static final double CIS_UNSCALE = 10_000.0;
+
+    // 从模拟数据源分页拉取变更的每页条数
+    private static final int CHANGE_PAGE_SIZE = 5000;
+
+    // 分块提交的行数：每块一个短事务（写入 + 检查点）
+    private static final int COMMIT_CHUNK_SIZE = 5000;
+
+    // 最近一次成功计算的各阶段耗时（供回放驱动器记录）
+    private volatile Map<String, Long> lastTimingStats = Map.of();
 
     public RatingCalculationService(
         ForumDataSimulation forumDataSimulation, 
@@ -64,7 +96,15 @@ public class RatingCalculationService {
         KnowledgeAreaRepository knowledgeAreaRepository,
         MemberRepository memberRepository,
         AchievementDetectionService achievementDetectionService,
-        JdbcTemplate jdbcTemplate) // 新增构造参数
+        JdbcTemplate jdbcTemplate, // 新增构造参数
+        ContentSnapshotFileCache contentSnapshotCache,
+        ContentSnapshotVersion contentSnapshotVersion,
+        RatingMetrics ratingMetrics,
+        VirtualClock virtualClock,
+        CalculationCheckpointStore checkpointStore,
+        RatingWriter ratingWriter,
+        ScoreSketchStore scoreSketchStore,
+        PlatformTransactionManager transactionManager)
     {
         this.forumDataSimulation = forumDataSimulation;
         this.ratingAlgorithm = ratingAlgorithm; // 新增赋值
@@ -72,8 +112,56 @@ public class RatingCalculationService {
         this.memberRepository = memberRepository; // 新增赋值
         this.achievementDetectionService = achievementDetectionService;
         this.jdbcTemplate = jdbcTemplate;
+        this.contentSnapshotCache = contentSnapshotCache;
+        this.contentSnapshotVersion = contentSnapshotVersion;
+        this.ratingMetrics = ratingMetrics;
+        this.virtualClock = virtualClock;
+        this.checkpointStore = checkpointStore;
+        this.ratingWriter = ratingWriter;
+        this.scoreSketchStore = scoreSketchStore;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
     }
     
+    /**
+     * 辅助方法：从确认水位线开始按页拉取全部未确认变更，逐条交给 sink 处理（不累积中间列表）。
+     * 拉取不修改数据源，调用方在结果提交后再确认返回的版本号。
+     * @return 处理完成后应确认的版本号
+     */
+    private static <T> long pullChanges(
+            long sinceVersion,
+            BiFunction<Long, Integer, VersionedChangeFeed.ChangePage<T>> pager,
+            Consumer<T> sink) {
+        long version = sinceVersion;
+        int pages = 0;
+        long count = 0;
+        VersionedChangeFeed.ChangePage<T> page;
+        do {
+            page = pager.apply(version, CHANGE_PAGE_SIZE);
+            page.items().forEach(sink);
+            count += page.items().size();
+            version = page.nextVersion();
+            pages++;
+        } while (page.hasMore());
+        log.debug("分页拉取变更：水位线 {} -> {}，共 {} 页 {} 条", sinceVersion, version, pages, count);
+        return version;
+    }
+
+    /**
+     * 辅助方法：在当前事务提交后执行确认；没有活动事务时（写入已自动提交）立即执行。
+     */
+    private static void acknowledgeAfterCommit(Runnable acknowledge) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acknowledge.run();
+                }
+            });
+        } else {
+            acknowledge.run();
+        }
+    }
+
     /**
      * 辅助方法：初始化标签到 ID 的映射缓存。
      * 必须在执行计算前调用。
@@ -92,36 +180,28 @@ public class RatingCalculationService {
     }
 
     /**
-     * 虚拟时间定时触发器：每隔 5 秒检查一次虚拟时间，当达到凌晨 4 点时执行评级计算
-     * 这样可以适配虚拟时间加速的场景（288x 加速）
-     */
-    @Scheduled(fixedRate = 2000) // 真实时间每 2 秒检查一次
-    public void checkAndExecuteVirtualTimeTask() {
-        LocalDateTime now = TimeSimulation.now();
-        LocalDate currentDate = now.toLocalDate();
-        int currentHour = now.getHour();
-        
-        // 检查虚拟时间是否在凌晨 4 点，且这是新的一天
-        if (currentHour == 4 && !currentDate.equals(lastExecutionDate)) {
-            log.info("【虚拟时间定时触发】检测到虚拟时间凌晨 4 点: {}", now);
-            lastExecutionDate = currentDate;
-            executeDailyRatingCalculation();
-        }
-    }
-    
-    /**
-     * 核心评级计算逻辑（由虚拟时间触发器调用）
+     * 核心评级计算逻辑（由计算任务执行器、回放驱动器调用）
      */
     // 添加依赖注入
     @Autowired
     private CalculationStatusManager calculationStatusManager;
+
+    @Autowired
+    private DataGeneration dataGeneration;
     
     // 修改executeDailyRatingCalculation方法
-    @Transactional 
     public void executeDailyRatingCalculation() {
-        // 【打印虚拟时间】
-        LocalDateTime virtualNow = TimeSimulation.now();
-        log.info("【虚拟时间定时执行】开始执行定时任务，虚拟时间: {}", virtualNow);
+        executeDailyRatingCalculation(virtualClock.captureAsOf());
+    }
+
+    /**
+     * 以指定参考时间执行评级计算（调度器按触发时刻或补跑日期的触发时刻传入）。
+     * 不包裹整体事务：各阶段分块提交，参考时间相同的未完成运行从检查点继续。
+     */
+    public void executeDailyRatingCalculation(LocalDateTime asOf) {
+        // 【冻结参考时间】整条计算链路（成员同步、DES、成就检测）统一使用该时间
+        virtualClock.freezeAsOf(asOf);
+        log.info("【虚拟时间定时执行】开始执行定时任务，虚拟时间: {}", asOf);
         
         // 开始计算前设置标志为true
         calculationStatusManager.setCalculationInProgress(true);
@@ -129,6 +209,7 @@ public class RatingCalculationService {
         try {
             long totalStartTime = System.currentTimeMillis();
             Map<String, Long> timingStats = new ConcurrentHashMap<>();
+            CalculationCheckpointStore.Checkpoint checkpoint = checkpointStore.resumeOrBegin(asOf);
             
             // 0. 初始化缓存
             long cacheStartTime = System.currentTimeMillis();
@@ -136,85 +217,125 @@ public class RatingCalculationService {
             timingStats.put("0. 缓存初始化", System.currentTimeMillis() - cacheStartTime);
             
             // 1. 成员数据同步
-            log.info("--- 0. 开始执行【成员数据同步】任务 ---");
-            long memberSyncStartTime = System.currentTimeMillis();
-            syncMemberDataFromSnapshot();
-            timingStats.put("1. 成员数据同步", System.currentTimeMillis() - memberSyncStartTime);
+            if (!checkpoint.isPast(CalculationCheckpointStore.Stage.MEMBER_SYNC)) {
+                log.info("--- 0. 开始执行【成员数据同步】任务 ---");
+                long memberSyncStartTime = System.currentTimeMillis();
+                syncMemberDataFromSnapshot(asOf);
+                timingStats.put("1. 成员数据同步", System.currentTimeMillis() - memberSyncStartTime);
+                ratingMetrics.recordStage(RatingMetrics.STAGE_SYNC, timingStats.get("1. 成员数据同步"));
+                checkpoint = checkpointStore.advance(checkpoint, CalculationCheckpointStore.Stage.CIS_NEW);
+            }
             
-            // 2. CIS 计算
+            // 2. CIS 计算（新快照落库 + 全量更新；全量 CIS 总在内存中重算，供 DES 使用）
             log.info("--- 1. 开始执行【内容影响力分数 (CIS)】计算任务 ---");
             long cisStartTime = System.currentTimeMillis();
-            List<ContentDataDTO> allContentDTOsWithUpdatedCIS = calculateAllContentCIS();
+            if (!checkpoint.isPast(CalculationCheckpointStore.Stage.CIS_NEW)) {
+                insertNewContentSnapshots(checkpoint);
+                checkpoint = checkpointStore.advance(checkpoint, CalculationCheckpointStore.Stage.CIS_UPDATE);
+            }
+            ContentColumnStore contentStore = updateAllContentCIS(checkpoint);
+            if (!checkpoint.isPast(CalculationCheckpointStore.Stage.CIS_UPDATE)) {
+                checkpoint = checkpointStore.advance(checkpoint, CalculationCheckpointStore.Stage.DES);
+            }
             timingStats.put("2. CIS计算", System.currentTimeMillis() - cisStartTime);
     
             // 3. DES 计算
-            log.info("--- 2. 开始执行【成员领域专精度得分 (DES)】计算任务 ---");
-            long desStartTime = System.currentTimeMillis();
-            updateAllMemberRankings(allContentDTOsWithUpdatedCIS);
-            timingStats.put("3. DES计算", System.currentTimeMillis() - desStartTime);
+            if (!checkpoint.isPast(CalculationCheckpointStore.Stage.DES)) {
+                log.info("--- 2. 开始执行【成员领域专精度得分 (DES)】计算任务 ---");
+                long desStartTime = System.currentTimeMillis();
+                updateAllMemberRankings(contentStore, asOf, checkpoint);
+                timingStats.put("3. DES计算", System.currentTimeMillis() - desStartTime);
+                ratingMetrics.recordStage(RatingMetrics.STAGE_DES, timingStats.get("3. DES计算"));
+                checkpoint = checkpointStore.advance(checkpoint, CalculationCheckpointStore.Stage.ACHIEVEMENT);
+            }
     
             log.info("--- 评级定时计算任务执行完毕。---");
     
-            // 4. 成就检测
+            // 4. 成就检测（按规则各自提交，已颁发的成就不会重复插入，恢复时整体重跑）
             try {
                 log.info("--- 3. 开始执行【成就检测】计算任务 ---");
                 long achievementStartTime = System.currentTimeMillis();
-                achievementDetectionService.detectAndPersistAchievements();
+                achievementDetectionService.detectAndPersistAchievements(asOf);
                 timingStats.put("4. 成就检测", System.currentTimeMillis() - achievementStartTime);
+                ratingMetrics.recordStage(RatingMetrics.STAGE_ACHIEVEMENT, timingStats.get("4. 成就检测"));
+            } catch (CancellationException ex) {
+                throw ex;
             } catch (Exception ex) {
                 log.error("成就检测执行失败: {}", ex.getMessage(), ex);
                 timingStats.put("4. 成就检测", System.currentTimeMillis() - System.currentTimeMillis());
             }
     
             log.info("--- 成就检测任务执行完毕。---");
+            checkpointStore.complete(checkpoint);
             
             // 计算总耗时
             long totalTime = System.currentTimeMillis() - totalStartTime;
             timingStats.put("总耗时", totalTime);
+            ratingMetrics.recordStage(RatingMetrics.STAGE_TOTAL, totalTime);
+            ratingMetrics.recordRun(true);
             
             // 打印性能统计报告
             printPerformanceReport(timingStats);
+            lastTimingStats = Map.copyOf(timingStats);
+        } catch (RuntimeException e) {
+            ratingMetrics.recordRun(false);
+            // 已提交的分块与检查点保留；当前分块已回滚，本地内容缓存可能与数据库不一致，直接作废
+            contentSnapshotCache.invalidate();
+            throw e;
         } finally {
             // 无论计算是否成功，最终都要设置标志为false
             calculationStatusManager.setCalculationInProgress(false);
+            // 计算期间已分块提交的数据对读接口可见，递增数据代数使客户端缓存失效（失败时同样递增）
+            dataGeneration.advance();
             log.info("评分计算结束，已设置计算状态标志为false");
         }
     }
     
+    /**
+     * 最近一次成功计算的各阶段耗时（毫秒），键同性能统计报告
+     */
+    public Map<String, Long> getLastTimingStats() {
+        return lastTimingStats;
+    }
+
     /**
      * 新增方法：从论坛快照中同步成员数据。
-     * 使用 REQUIRES_NEW 确保该方法在独立事务中运行，并在完成后立即提交，
-     * 即使外部调用方 (executeDailyRatingCalculation) 没有事务或仍在事务中。
+     * 每个新成员单独保存并提交；已存在的成员跳过，因此中断后重跑是幂等的。
+     * 取消或失败时向上抛出，检查点不会越过成员同步阶段：否则未同步成员的内容会在 CIS_NEW 阶段被过滤并确认，永久丢失。
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    private void syncMemberDataFromSnapshot() {
+    private void syncMemberDataFromSnapshot(LocalDateTime asOf) {
         long methodStartTime = System.currentTimeMillis();
         try {
             // 获取成员快照数据
             long pullStartTime = System.currentTimeMillis();
-            List<Map<String, Object>> memberSnapshotMaps = forumDataSimulation.getMemberSnapshot();
+            List<MemberSnapshotRecord> memberSnapshots = new java.util.ArrayList<>();
+            long memberVersion = pullChanges(
+                    forumDataSimulation.getMemberAcknowledgedVersion(), forumDataSimulation::getMemberChangesSince,
+                    memberSnapshots::add);
             long pullTime = System.currentTimeMillis() - pullStartTime;
             
-            if (memberSnapshotMaps.isEmpty()) {
+            if (memberSnapshots.isEmpty()) {
                 log.warn("未拉取到任何成员快照数据，跳过成员同步。");
                 return;
             }
             
-            log.info("  拉取成员快照耗时: {} ms, 数量: {}", pullTime, memberSnapshotMaps.size());
+            log.info("  拉取成员快照耗时: {} ms, 数量: {}", pullTime, memberSnapshots.size());
             
             // 使用进度条
-            ProgressBar memberProgressBar = new ProgressBar("成员数据同步", memberSnapshotMaps.size());
+            ProgressBar memberProgressBar = new ProgressBar("成员数据同步", memberSnapshots.size());
             
             int newMemberCount = 0;
+            int invalidMemberCount = 0;
             long dbCheckTime = 0;
             long dbSaveTime = 0;
             
             // 遍历所有成员快照，检查并添加新成员
-            for (Map<String, Object> memberMap : memberSnapshotMaps) {
-                Long memberId = safeToLong(memberMap, "member_id");
+            for (MemberSnapshotRecord memberSnapshot : memberSnapshots) {
+                long memberId = memberSnapshot.memberId();
                 
                 // 跳过无效的成员ID
-                if (memberId == null) {
+                if (memberId <= 0) {
+                    invalidMemberCount++;
                     memberProgressBar.step();
                     continue;
                 }
@@ -228,15 +349,14 @@ public class RatingCalculationService {
                     // 创建新成员
                     Member newMember = new Member();
                     newMember.setMemberId(memberId);
-                    newMember.setName((String) memberMap.get("name"));
+                    newMember.setName(memberSnapshot.name());
                     
-                    // 解析加入日期
-                    String joinDateStr = (String) memberMap.get("join_date");
-                    if (joinDateStr != null) {
-                        newMember.setJoinDate(LocalDateTime.parse(joinDateStr));
+                    // 加入日期
+                    if (memberSnapshot.joinDate() != null) {
+                        newMember.setJoinDate(memberSnapshot.joinDate());
                     } else {
-                        // 如果没有提供加入日期，使用虚拟时间（支持时间模拟）
-                        newMember.setJoinDate(TimeSimulation.now());
+                        // 如果没有提供加入日期，使用本次计算的参考时间（虚拟时间）
+                        newMember.setJoinDate(asOf);
                     }
                     
                     // 保存新成员
@@ -254,256 +374,345 @@ public class RatingCalculationService {
             
             long totalTime = System.currentTimeMillis() - methodStartTime;
             log.info("成员数据同步完成，新增 {} 个成员。", newMemberCount);
+            ratingMetrics.recordRows(RatingMetrics.STAGE_SYNC, memberSnapshots.size() - invalidMemberCount, invalidMemberCount);
             log.info("  - 数据库检查耗时: {} ms", dbCheckTime);
             log.info("  - 数据库保存耗时: {} ms", dbSaveTime);
             log.info("  - 成员同步总耗时: {} ms", totalTime);
+
+            acknowledgeAfterCommit(() -> forumDataSimulation.acknowledgeMemberChanges(memberVersion));
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("成员数据同步失败: {}", e.getMessage(), e);
+            throw new IllegalStateException("成员数据同步失败: " + e.getMessage(), e);
         }
         
         log.info("--- 成员数据同步任务执行完毕。---");
     }
 
     /**
-     * 职责：计算所有内容的 CIS，并持久化到 ContentSnapshotRepository。
-     * 流程：
-     * 1. 拉取新快照并处理（有则插入，无则跳过）
-     * 2. 无论是否有新快照，都遍历并更新数据库中所有现有的 ContentSnapshot 条目
-     *    （因为分数随时间变化，需要重新计算衰减因子）
-     * 返回：所有现有内容的更新后CIS列表（用于后续DES计算）
+     * 职责：拉取新快照、计算 CIS 并落库（CIS_NEW 阶段）。
+     * 有效新快照按 content_id 升序分块提交：每块先删除相同 content_id 的旧记录再插入，并在同一事务内记录检查点；
+     * 恢复时跳过 content_id 不大于检查点的行（删除 + 插入本身也是幂等的）。
+     * 全部分块提交后才确认内容变更；失败时变更保留，下次从同一水位线重新拉取。
      */
-    @Transactional
-    private List<ContentDataDTO> calculateAllContentCIS() {
+    private void insertNewContentSnapshots(CalculationCheckpointStore.Checkpoint checkpoint) {
         long methodStartTime = System.currentTimeMillis();
         
+        // 按页拉取新快照并直接写入列式存储（拉取与映射合并，不保留中间对象）
         long pullStartTime = System.currentTimeMillis();
-        List<Map<String, Object>> snapshotMaps = forumDataSimulation.getContentSnapshot();
+        ContentColumnStore newStore = new ContentColumnStore(CHANGE_PAGE_SIZE);
+        final int[] pulledCount = {0};
+        final int[] pulledFilteredCount = {0};
+        long contentVersion = pullChanges(
+                forumDataSimulation.getContentAcknowledgedVersion(), forumDataSimulation::getContentChangesSince,
+                snapshot -> {
+                    pulledCount[0]++;
+                    if (!appendSnapshotRecord(newStore, snapshot, tagToIdCache)) {
+                        pulledFilteredCount[0]++;
+                    }
+                });
         long pullTime = System.currentTimeMillis() - pullStartTime;
         
-        final long[] mappingTime = {0};
-        final long[] calculationTime = {0};
-        final int[] filteredCount = {0};
-        final int[] processedCount = {0};
+        long calculationTime = 0;
+        int newValidCount = 0;
+        int committedCount = 0;
         
-        List<ContentDataDTO> calculatedContentDTOs = new java.util.ArrayList<>();
-        
-        // 第一步：处理新拉取的快照（如果有）
-        long dbInsertStart = System.currentTimeMillis();
-        if (!snapshotMaps.isEmpty()) {
-            log.info("  拉取内容快照耗时: {} ms, 数量: {}", pullTime, snapshotMaps.size());
-            ProgressBar cisProgressBar = new ProgressBar("内容影响力分数计算（新快照）", snapshotMaps.size());
-            
-            List<ContentSnapshot> newEntitiesToSave = new java.util.ArrayList<>();
-            
-            calculatedContentDTOs = snapshotMaps.stream()
-                .map(map -> {
-                    long mapStart = System.nanoTime();
-                    ContentDataDTO dto = this.mapToDTO(map);
-                    mappingTime[0] += (System.nanoTime() - mapStart) / 1_000_000;
-                    return dto;
-                })
-                .filter(dto -> {
-                    boolean hasAreaId = dto.getAreaId() != null;
-                    if (!hasAreaId) filteredCount[0]++;
-                    return hasAreaId;
-                })
-                .peek(dto -> {
-                    long calcStart = System.nanoTime();
-                    BigDecimal cisScore = ratingAlgorithm.calculateCIS(dto);
-                    if (cisScore == null || cisScore.compareTo(BigDecimal.ZERO) < 0) {
-                        cisScore = BigDecimal.ZERO;
-                    }
-                    calculationTime[0] += (System.nanoTime() - calcStart) / 1_000_000;
-                    dto.setCisScore(cisScore);
-                    
-                    ContentSnapshot entity = convertToContentSnapshot(dto);
-                    newEntitiesToSave.add(entity);
-                    
-                    processedCount[0]++;
-                    if (processedCount[0] % 1000 == 0) {
-                        cisProgressBar.increment(1000);
-                    }
-                })
-                .collect(Collectors.toList());
+        if (pulledCount[0] > 0) {
+            log.info("  拉取并映射内容快照耗时: {} ms, 数量: {}", pullTime, pulledCount[0]);
+            ProgressBar cisProgressBar = new ProgressBar("内容影响力分数计算（新快照）", newStore.size());
+            
+            long calcStart = System.nanoTime();
+            for (int row = 0; row < newStore.size(); row++) {
+                computeAndStoreCIS(ratingAlgorithm, newStore, row);
+                if ((row + 1) % 1000 == 0) {
+                    cisProgressBar.increment(1000);
+                }
+            }
+            calculationTime += (System.nanoTime() - calcStart) / 1_000_000;
             
-            int remaining = calculatedContentDTOs.size() % 1000;
+            int remaining = newStore.size() % 1000;
             if (remaining > 0) {
                 cisProgressBar.increment(remaining);
             }
             cisProgressBar.complete();
             
             // 过滤新快照：只保留 member_id 已存在于 Member 表的记录
-            Set<Long> existingMemberIds = newEntitiesToSave.stream()
-                .map(ContentSnapshot::getMemberId)
-                .collect(Collectors.toSet());
-            Set<Long> validMemberIds = memberRepository.findAllById(new java.util.ArrayList<>(existingMemberIds)).stream()
+            Set<Long> candidateMemberIds = new java.util.HashSet<>();
+            for (int row = 0; row < newStore.size(); row++) {
+                candidateMemberIds.add(newStore.memberId(row));
+            }
+            Set<Long> validMemberIds = memberRepository.findAllById(candidateMemberIds).stream()
                 .map(Member::getMemberId)
                 .collect(Collectors.toSet());
             
-            List<ContentSnapshot> validNewEntities = newEntitiesToSave.stream()
-                .filter(entity -> validMemberIds.contains(entity.getMemberId()))
-                .collect(Collectors.toList());
+            int[] validRows = new int[newStore.size()];
+            for (int row = 0; row < newStore.size(); row++) {
+                if (validMemberIds.contains(newStore.memberId(row))) {
+                    validRows[newValidCount++] = row;
+                }
+            }
             
-            int skippedCount = newEntitiesToSave.size() - validNewEntities.size();
+            int skippedCount = newStore.size() - newValidCount;
             if (skippedCount > 0) {
                 log.warn("过滤掉 {} 条新内容（member_id 不存在于 Member 表）", skippedCount);
             }
             
-            // 插入新快照：删除旧的相同 content_id，然后插入新的
-            if (!validNewEntities.isEmpty()) {
-                Set<Long> contentIdsToInsert = validNewEntities.stream()
-                    .map(ContentSnapshot::getContentId)
-                    .collect(Collectors.toSet());
-                
-                String deleteSQL = "DELETE FROM ContentSnapshot WHERE content_id IN (" +
-                    String.join(",", contentIdsToInsert.stream().map(String::valueOf).toArray(String[]::new)) +
-                    ")";
-                int deletedCount = jdbcTemplate.update(deleteSQL);
-                if (deletedCount > 0) {
-                    log.info("删除 {} 条重复的 ContentSnapshot 记录", deletedCount);
-                }
-                
-                // 批量插入新快照
-                String insertSQL = """
-                    INSERT INTO ContentSnapshot (
-                        content_id, member_id, area_id, publish_time, post_length_level,
-                        read_count_snapshot, like_count_snapshot, comment_count_snapshot,
-                        share_count_snapshot, collect_count_snapshot, hate_count_snapshot,
-                        cis_score
-                    ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                    """;
-                
-                jdbcTemplate.batchUpdate(insertSQL, validNewEntities, validNewEntities.size(),
-                    (ps, entity) -> {
-                        ps.setLong(1, entity.getContentId());
-                        ps.setLong(2, entity.getMemberId());
-                        ps.setInt(3, entity.getAreaId());
-                        ps.setTimestamp(4, java.sql.Timestamp.valueOf(entity.getPublishTime()));
-                        ps.setInt(5, entity.getPostLengthLevel());
-                        ps.setInt(6, entity.getReadCountSnapshot());
-                        ps.setInt(7, entity.getLikeCountSnapshot());
-                        ps.setInt(8, entity.getCommentCountSnapshot());
-                        ps.setInt(9, entity.getShareCountSnapshot());
-                        ps.setInt(10, entity.getCollectCountSnapshot());
-                        ps.setInt(11, entity.getHateCountSnapshot());
-                        ps.setBigDecimal(12, entity.getCisScore());
-                    });
-                log.info("批量插入 {} 条新的 ContentSnapshot 记录", validNewEntities.size());
+            // 按 content_id 升序分块提交：删除旧的相同 content_id，然后插入新的（可重复执行）。
+            // 变更流对每个内容只保留最新值：中断后重新拉取的版本与检查点不一致时，已提交的分块可能已过时，全部重新写入
+            int[] orderedRows = newStore.rowsOrderedByContentId(validRows, newValidCount);
+            long resumeKey = checkpoint.resumeKey(CalculationCheckpointStore.Stage.CIS_NEW, contentVersion);
+            if (resumeKey == 0 && checkpoint.resumeKey(CalculationCheckpointStore.Stage.CIS_NEW) > 0) {
+                log.info("从检查点恢复：内容变更流在中断后有更新（版本 {} -> {}），重新写入全部新快照",
+                        checkpoint.sourceVersion(), contentVersion);
+            }
+            int chunkStart = 0;
+            while (chunkStart < orderedRows.length && newStore.contentId(orderedRows[chunkStart]) <= resumeKey) {
+                chunkStart++;
+            }
+            if (chunkStart > 0) {
+                log.info("从检查点恢复：跳过 {} 条已提交的新快照（content_id <= {}）", chunkStart, resumeKey);
+            }
+            for (; chunkStart < orderedRows.length; chunkStart += COMMIT_CHUNK_SIZE) {
+                int[] chunk = Arrays.copyOfRange(orderedRows, chunkStart,
+                        Math.min(chunkStart + COMMIT_CHUNK_SIZE, orderedRows.length));
+                ContentSnapshotVersion.Transition transition = chunkTransaction.execute(status -> {
+                    insertContentSnapshotChunk(newStore, chunk);
+                    checkpointStore.save(checkpoint, newStore.contentId(chunk[chunk.length - 1]), contentVersion);
+                    return contentSnapshotVersion.advance();
+                });
+                // 分块提交后同步修补本地内容缓存（仅变化的行），缓存版本随之前进
+                contentSnapshotCache.upsert(newStore, chunk, chunk.length, transition);
+                committedCount += chunk.length;
+            }
+            if (committedCount > 0) {
+                log.info("分块插入 {} 条新的 ContentSnapshot 记录", committedCount);
             }
         }
-        long dbInsertTime = System.currentTimeMillis() - dbInsertStart;
+        // 全部分块落库后才确认（分块已各自提交，此处没有活动事务，立即确认）
+        acknowledgeAfterCommit(() -> forumDataSimulation.acknowledgeContentChanges(contentVersion));
+        ratingMetrics.recordStage(RatingMetrics.STAGE_CIS_NEW, System.currentTimeMillis() - methodStartTime);
+        ratingMetrics.recordRows(RatingMetrics.STAGE_CIS_NEW, newValidCount, pulledCount[0] - newValidCount);
         
-        // 第二步：遍历并更新数据库中所有现有的 ContentSnapshot 条目
+        log.info("新快照处理完成，有效内容: {}, 过滤: {}", newValidCount, pulledFilteredCount[0]);
+        log.info("  - CIS计算耗时: {} ms", calculationTime);
+        log.info("  - 新快照总耗时: {} ms", System.currentTimeMillis() - methodStartTime);
+    }
+
+    // 写入一块新快照（在分块事务内调用）
+    private void insertContentSnapshotChunk(ContentColumnStore newStore, int[] chunk) {
+        // 按主键 (content_id, publish_time) 删除，带上分区列 publish_time 只访问对应月份的分区
+        StringBuilder deleteSQL = new StringBuilder("DELETE FROM ContentSnapshot WHERE (content_id, publish_time) IN (");
+        Object[] deleteArgs = new Object[chunk.length * 2];
+        for (int i = 0; i < chunk.length; i++) {
+            if (i > 0) deleteSQL.append(',');
+            deleteSQL.append("(?, ?)");
+            deleteArgs[i * 2] = newStore.contentId(chunk[i]);
+            deleteArgs[i * 2 + 1] = java.sql.Timestamp.valueOf(newStore.publishTime(chunk[i]));
+        }
+        deleteSQL.append(')');
+        long deleteStart = System.nanoTime();
+        int deletedCount = jdbcTemplate.update(deleteSQL.toString(), deleteArgs);
+        ratingMetrics.recordJdbcBatch("contentsnapshot_delete", System.nanoTime() - deleteStart, chunk.length);
+        if (deletedCount > 0) {
+            log.info("删除 {} 条重复的 ContentSnapshot 记录", deletedCount);
+        }
+        
+        // 批量插入新快照
+        String insertSQL = """
+            INSERT INTO ContentSnapshot (
+                content_id, member_id, area_id, publish_time, post_length_level,
+                read_count_snapshot, like_count_snapshot, comment_count_snapshot,
+                share_count_snapshot, collect_count_snapshot, hate_count_snapshot,
+                cis_score
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+        
+        long batchStart = System.nanoTime();
+        jdbcTemplate.batchUpdate(insertSQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                int row = chunk[i];
+                ps.setLong(1, newStore.contentId(row));
+                ps.setLong(2, newStore.memberId(row));
+                ps.setInt(3, newStore.areaId(row));
+                ps.setTimestamp(4, java.sql.Timestamp.valueOf(newStore.publishTime(row)));
+                ps.setInt(5, newStore.postLengthLevel(row));
+                ps.setInt(6, newStore.readCount(row));
+                ps.setInt(7, newStore.likeCount(row));
+                ps.setInt(8, newStore.commentCount(row));
+                ps.setInt(9, newStore.shareCount(row));
+                ps.setInt(10, newStore.collectCount(row));
+                ps.setInt(11, newStore.hateCount(row));
+                ps.setBigDecimal(12, BigDecimal.valueOf(newStore.cisScoreUnscaled(row), CIS_SCALE));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.length;
+            }
+        });
+        ratingMetrics.recordJdbcBatch("contentsnapshot_insert", System.nanoTime() - batchStart, chunk.length);
+    }
+
+    /**
+     * 职责：重算数据库中所有现有 ContentSnapshot 的 CIS（分数随时间变化），并分块写回（CIS_UPDATE 阶段）。
+     * 全量 CIS 总在内存中重算（供 DES 使用）；写回按 content_id 升序分块提交并记录检查点，
+     * 恢复时跳过已提交的行，阶段已完成时不再写回。
+     * 返回：所有现有内容的列式存储（CIS 已更新，按 member_id, area_id 有序，用于后续DES计算）
+     */
+    private ContentColumnStore updateAllContentCIS(CalculationCheckpointStore.Checkpoint checkpoint) {
+        long updateStageStart = System.currentTimeMillis();
+        long mappingTime = 0;
+        long calculationTime = 0;
+        
+        // 遍历并更新数据库中所有现有的 ContentSnapshot 条目
         // （无论是否拉取到新快照，都要重新计算所有现有内容的分数）
         log.info("开始遍历并更新数据库中所有现有的 ContentSnapshot 条目...");
         
-        String selectSQL = "SELECT content_id, member_id, area_id, publish_time, post_length_level, " +
-            "read_count_snapshot, like_count_snapshot, comment_count_snapshot, share_count_snapshot, " +
-            "collect_count_snapshot, hate_count_snapshot FROM ContentSnapshot";
-        List<Map<String, Object>> allExistingSnapshots = jdbcTemplate.queryForList(selectSQL);
-        log.info("查询到 {} 条现有 ContentSnapshot 记录", allExistingSnapshots.size());
+        long mapStart = System.nanoTime();
+        final int[] updateFilteredCount = {0};
         
-        // 用于返回所有现有内容的更新后CIS列表
-        List<ContentDataDTO> allExistingContentDTOsWithCIS = new java.util.ArrayList<>();
+        // 优先从本地内存映射缓存加载（与数据库数据版本一致时命中），否则全量读取数据库并重建缓存
+        // 版本在读取数据库之前取得：读取期间若有并发修改，重建的缓存版本落后，下次加载时失效
+        long dataVersion = contentSnapshotVersion.current();
+        ContentColumnStore cachedStore = contentSnapshotCache.load(dataVersion);
+        final ContentColumnStore store;
+        if (cachedStore != null) {
+            store = cachedStore;
+            log.info("内容快照缓存命中，跳过数据库全量读取");
+        } else {
+            store = loadContentStoreFromDatabase(updateFilteredCount);
+            contentSnapshotCache.rebuild(store, dataVersion);
+        }
+        mappingTime += (System.nanoTime() - mapStart) / 1_000_000;
+        log.info("查询到 {} 条现有 ContentSnapshot 记录", store.size() + updateFilteredCount[0]);
         
-        if (allExistingSnapshots.isEmpty()) {
+        if (store.isEmpty()) {
             log.info("数据库中没有现有的 ContentSnapshot 记录，跳过全量更新。");
         } else {
-            ProgressBar updateProgressBar = new ProgressBar("内容影响力分数更新（所有现有）", allExistingSnapshots.size());
-            
-            List<ContentSnapshot> entitiesToUpdate = new java.util.ArrayList<>();
-            final int[] updateFilteredCount = {0};
-            final int[] updateProcessedCount = {0};
-            
-            // 收集所有更新后的DTO，用于后续DES计算
-            allExistingContentDTOsWithCIS = allExistingSnapshots.stream()
-                .map(map -> {
-                    long mapStart = System.nanoTime();
-                    ContentDataDTO dto = this.mapToDTOWithAreaId(map);  // 直接使用area_id
-                    mappingTime[0] += (System.nanoTime() - mapStart) / 1_000_000;
-                    return dto;
-                })
-                .filter(dto -> {
-                    boolean hasAreaId = dto.getAreaId() != null;
-                    if (!hasAreaId) updateFilteredCount[0]++;
-                    return hasAreaId;
-                })
-                .map(dto -> {
-                    long calcStart = System.nanoTime();
-                    BigDecimal cisScore = ratingAlgorithm.calculateCIS(dto);
-                    if (cisScore == null || cisScore.compareTo(BigDecimal.ZERO) < 0) {
-                        cisScore = BigDecimal.ZERO;
-                    }
-                    calculationTime[0] += (System.nanoTime() - calcStart) / 1_000_000;
-                    dto.setCisScore(cisScore);
-                    
-                    // 同时准备用于更新的Entity
-                    ContentSnapshot entity = convertToContentSnapshot(dto);
-                    entitiesToUpdate.add(entity);
-                    
-                    updateProcessedCount[0]++;
-                    if (updateProcessedCount[0] % 1000 == 0) {
-                        updateProgressBar.increment(1000);
-                    }
-                    
-                    return dto;  // 返回更新后的DTO
-                })
-                .collect(Collectors.toList());
+            ProgressBar updateProgressBar = new ProgressBar("内容影响力分数更新（所有现有）", store.size());
+            
+            long calcStart = System.nanoTime();
+            Map<Integer, QuantileSketch> cisSketches = new java.util.HashMap<>();
+            for (int row = 0; row < store.size(); row++) {
+                computeAndStoreCIS(ratingAlgorithm, store, row);
+                cisSketches.computeIfAbsent(store.areaId(row), areaId -> new QuantileSketch())
+                        .add(store.cisScoreUnscaled(row) / CIS_UNSCALE);
+                if ((row + 1) % 1000 == 0) {
+                    updateProgressBar.increment(1000);
+                }
+            }
+            calculationTime += (System.nanoTime() - calcStart) / 1_000_000;
+            chunkTransaction.executeWithoutResult(status ->
+                    scoreSketchStore.publish(ScoreSketchStore.METRIC_CIS, cisSketches, checkpoint.asOf()));
             
-            log.info("第二阶段处理完成，收集到 {} 条DTO（过滤: {}），准备更新 {} 条Entity", 
-                allExistingContentDTOsWithCIS.size(), updateFilteredCount[0], entitiesToUpdate.size());
+            log.info("第二阶段处理完成，收集到 {} 条内容（过滤: {}），准备更新 {} 条记录", 
+                store.size(), updateFilteredCount[0], store.size());
             
-            int updateRemaining = allExistingContentDTOsWithCIS.size() % 1000;
+            int updateRemaining = store.size() % 1000;
             if (updateRemaining > 0) {
                 updateProgressBar.increment(updateRemaining);
             }
             updateProgressBar.complete();
             
-            // 批量更新所有现有记录的 CIS 分数
-            if (!entitiesToUpdate.isEmpty()) {
-                String updateSQL = "UPDATE ContentSnapshot SET cis_score = ? WHERE content_id = ?";
-                jdbcTemplate.batchUpdate(updateSQL, entitiesToUpdate, entitiesToUpdate.size(),
-                    (ps, entity) -> {
-                        ps.setBigDecimal(1, entity.getCisScore());
-                        ps.setLong(2, entity.getContentId());
-                    });
-                log.info("批量更新 {} 条现有 ContentSnapshot 记录的 CIS 分数", entitiesToUpdate.size());
+            if (checkpoint.isPast(CalculationCheckpointStore.Stage.CIS_UPDATE)) {
+                log.info("从检查点恢复：CIS 已全部写回，跳过批量更新");
+            } else {
+                updateContentCISInChunks(store, checkpoint, dataVersion);
             }
         }
+        ratingMetrics.recordStage(RatingMetrics.STAGE_CIS_UPDATE, System.currentTimeMillis() - updateStageStart);
+        ratingMetrics.recordRows(RatingMetrics.STAGE_CIS_UPDATE, store.size(), updateFilteredCount[0]);
         
-        long totalTime = System.currentTimeMillis() - methodStartTime;
-        log.info("CIS计算完成，新快照有效内容: {}, 过滤: {}", calculatedContentDTOs.size(), filteredCount[0]);
-        log.info("  - 数据映射耗时: {} ms", mappingTime[0]);
-        log.info("  - CIS计算耗时: {} ms", calculationTime[0]);
-        log.info("  - 数据库操作耗时: {} ms（插入: {} ms）", dbInsertTime + (totalTime - methodStartTime - dbInsertTime), dbInsertTime);
+        long totalTime = System.currentTimeMillis() - updateStageStart;
+        log.info("CIS全量更新完成");
+        log.info("  - 数据映射耗时: {} ms", mappingTime);
+        log.info("  - CIS计算耗时: {} ms", calculationTime);
+        log.info("  - 数据库操作耗时: {} ms", totalTime - mappingTime - calculationTime);
         log.info("  - CIS总耗时: {} ms", totalTime);
-        log.info("  - 返回给DES计算的内容数: {}", allExistingContentDTOsWithCIS.size());
+        log.info("  - 返回给DES计算的内容数: {}", store.size());
         
-        // 返回所有现有内容的更新后CIS列表（用于DES计算）
-        return allExistingContentDTOsWithCIS;
+        // 返回所有现有内容的列式存储（用于DES计算）
+        return store;
     }
 
-    @Transactional
-    private void updateAllMemberRankings(List<ContentDataDTO> contentDTOsWithCIS) {
+    // 按 content_id 升序分块写回 CIS 分数，每块在同一事务内记录检查点及所依据的内容快照数据版本；
+    // 中断后内容快照被修改过（版本不一致）时，已写回的 CIS 可能已过时，从头重新写回（UPDATE 可重复执行）
+    private void updateContentCISInChunks(ContentColumnStore store, CalculationCheckpointStore.Checkpoint checkpoint,
+                                          long dataVersion) {
+        int[] allRows = new int[store.size()];
+        for (int row = 0; row < allRows.length; row++) {
+            allRows[row] = row;
+        }
+        int[] orderedRows = store.rowsOrderedByContentId(allRows, allRows.length);
+        long resumeKey = checkpoint.resumeKey(CalculationCheckpointStore.Stage.CIS_UPDATE, dataVersion);
+        if (resumeKey == 0 && checkpoint.resumeKey(CalculationCheckpointStore.Stage.CIS_UPDATE) > 0) {
+            log.info("从检查点恢复：内容快照在中断后被修改（版本 {} -> {}），重新写回全部 CIS",
+                    checkpoint.sourceVersion(), dataVersion);
+        }
+        int chunkStart = 0;
+        while (chunkStart < orderedRows.length && store.contentId(orderedRows[chunkStart]) <= resumeKey) {
+            chunkStart++;
+        }
+        if (chunkStart > 0) {
+            log.info("从检查点恢复：跳过 {} 条已写回的 CIS（content_id <= {}）", chunkStart, resumeKey);
+        }
+        // 带上分区列 publish_time，每条更新只访问对应月份的分区
+        String updateSQL = "UPDATE ContentSnapshot SET cis_score = ? WHERE content_id = ? AND publish_time = ?";
+        int updatedCount = 0;
+        for (; chunkStart < orderedRows.length; chunkStart += COMMIT_CHUNK_SIZE) {
+            int from = chunkStart;
+            int to = Math.min(chunkStart + COMMIT_CHUNK_SIZE, orderedRows.length);
+            chunkTransaction.executeWithoutResult(status -> {
+                long batchStart = System.nanoTime();
+                jdbcTemplate.batchUpdate(updateSQL, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        int row = orderedRows[from + i];
+                        ps.setBigDecimal(1, BigDecimal.valueOf(store.cisScoreUnscaled(row), CIS_SCALE));
+                        ps.setLong(2, store.contentId(row));
+                        ps.setTimestamp(3, java.sql.Timestamp.valueOf(store.publishTime(row)));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return to - from;
+                    }
+                });
+                ratingMetrics.recordJdbcBatch("contentsnapshot_update_cis", System.nanoTime() - batchStart, to - from);
+                checkpointStore.save(checkpoint, store.contentId(orderedRows[to - 1]), dataVersion);
+            });
+            updatedCount += to - from;
+        }
+        log.info("分块更新 {} 条现有 ContentSnapshot 记录的 CIS 分数", updatedCount);
+    }
+
+    /**
+     * 职责：按 (成员, 领域) 计算 DES 并插入评级历史（DES 阶段）。
+     * 评级历史是追加写入，重复执行会产生重复记录，因此按成员边界分块提交（每块不少于 COMMIT_CHUNK_SIZE 条，
+     * 同一成员的全部领域在同一块内），检查点记录已提交的最大 member_id，恢复时跳过这些成员。
+     */
+    private void updateAllMemberRankings(ContentColumnStore store, LocalDateTime asOf,
+                                         CalculationCheckpointStore.Checkpoint checkpoint) {
         long methodStartTime = System.currentTimeMillis();
         
-        if (contentDTOsWithCIS.isEmpty()) {
+        if (store.isEmpty()) {
             log.warn("没有 CIS 数据，跳过 DES 计算。");
             return;
         }
         
-        // 1. 按 (memberId, areaId) 对内容进行分组 (使用 Integer areaId)
+        // 1. 按 (memberId, areaId) 排序下标（数据库已按该顺序返回时为恒等序列，无需排序）
         long groupStartTime = System.currentTimeMillis();
-        Map<Long, Map<Integer, List<ContentDataDTO>>> memberContentGroup = contentDTOsWithCIS.stream()
-            .collect(Collectors.groupingBy(
-                ContentDataDTO::getMemberId,
-                Collectors.groupingBy(ContentDataDTO::getAreaId)
-            ));
+        int[] rows = store.rowsOrderedByMemberArea();
 
         // 计算总处理组数用于进度条
-        int totalGroups = memberContentGroup.values().stream()
-            .mapToInt(Map::size)
-            .sum();
+        int totalGroups = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (i == 0 || !store.sameMemberArea(rows[i - 1], rows[i])) {
+                totalGroups++;
+            }
+        }
         long groupTime = System.currentTimeMillis() - groupStartTime;
         
         log.info("  分组聚合耗时: {} ms, 成员-领域组合数: {}", groupTime, totalGroups);
@@ -511,61 +720,105 @@ public class RatingCalculationService {
         // 使用进度条
         ProgressBar desProgressBar = new ProgressBar("成员领域专精度得分计算", totalGroups);
 
+        LocalDate updateDate = asOf.toLocalDate();
+        long resumeMemberId = checkpoint.resumeKey(CalculationCheckpointStore.Stage.DES);
+        if (resumeMemberId > 0) {
+            log.info("从检查点恢复：跳过 member_id <= {} 的已提交评级", resumeMemberId);
+        }
+
         // 用于累积各操作的耗时
-        final long[] desCalculationTime = {0};
-        List<MemberRating> ratingsToInsert = new java.util.ArrayList<>();
+        long desCalculationTime = 0;
+        long insertTime = 0;
+        List<MemberRating> ratingsToInsert = new java.util.ArrayList<>(Math.min(totalGroups, COMMIT_CHUNK_SIZE * 2));
         int insertCount = 0;
+        int writtenCount = 0;
+        int skippedGroups = 0;
+        // 各领域的 DES 分布草图（从检查点恢复时不完整，不发布）
+        Map<Integer, QuantileSketch> desSketches = new java.util.HashMap<>();
+
+        // 2. 线性扫描每个 (成员, 领域) 的连续区间，计算 DES
+        int groupStart = 0;
+        while (groupStart < rows.length) {
+            int groupEnd = groupStart + 1;
+            while (groupEnd < rows.length && store.sameMemberArea(rows[groupStart], rows[groupEnd])) {
+                groupEnd++;
+            }
+            int firstRow = rows[groupStart];
+            long memberId = store.memberId(firstRow);
+            
+            if (memberId <= resumeMemberId) {
+                skippedGroups++;
+            } else {
+                // 成员切换时，已累积满一块则先提交（保证同一成员不跨块）
+                if (ratingsToInsert.size() >= COMMIT_CHUNK_SIZE
+                        && ratingsToInsert.get(ratingsToInsert.size() - 1).getMemberId() != memberId) {
+                    long insertStart = System.currentTimeMillis();
+                    writtenCount += insertRatingChunk(ratingsToInsert, checkpoint);
+                    insertTime += System.currentTimeMillis() - insertStart;
+                    ratingsToInsert.clear();
+                }
 
-        // 2. 遍历每个成员和其在不同领域的内容，计算 DES
-        for (Map.Entry<Long, Map<Integer, List<ContentDataDTO>>> memberEntry : memberContentGroup.entrySet()) {
-            Long memberId = memberEntry.getKey();
-            for (Map.Entry<Integer, List<ContentDataDTO>> areaEntry : memberEntry.getValue().entrySet()) {
-                Integer areaId = areaEntry.getKey();
-                List<ContentDataDTO> contents = areaEntry.getValue();
-                
                 long calcStart = System.nanoTime();
-                BigDecimal desScore = ratingAlgorithm.calculateDES(contents);
+                BigDecimal desScore = ratingAlgorithm.calculateDES(store, rows, groupStart, groupEnd, asOf);
                 String ratingLevel = ratingAlgorithm.determineRatingLevel(desScore);
-                desCalculationTime[0] += (System.nanoTime() - calcStart) / 1_000_000;
+                desCalculationTime += (System.nanoTime() - calcStart) / 1_000_000;
+                desSketches.computeIfAbsent(store.areaId(firstRow), areaId -> new QuantileSketch())
+                        .add(desScore.doubleValue());
                 
-                // 创建新记录（保留历史记录，总是插入新行）
+                // 创建当日评级（由 RatingWriter 决定是否写入：分数未变化时不产生新行）
                 MemberRating entity = new MemberRating();
                 entity.setMemberId(memberId);
-                entity.setAreaId(areaId);
+                entity.setAreaId(store.areaId(firstRow));
                 entity.setDesScore(desScore);
                 entity.setRatingLevel(ratingLevel);
-                entity.setUpdateDate(TimeSimulation.now().toLocalDate());
+                entity.setUpdateDate(updateDate);
                 ratingsToInsert.add(entity);
                 insertCount++;
-                
-                desProgressBar.step();
             }
+            
+            desProgressBar.step();
+            groupStart = groupEnd;
         }
-
-        desProgressBar.complete();
         
-        // 3. 批量插入新记录（使用 JdbcTemplate）
-        long insertStartTime = System.currentTimeMillis();
+        // 3. 提交最后一块
         if (!ratingsToInsert.isEmpty()) {
-            String sql = "INSERT INTO memberrating (member_id, area_id, des_score, rating_level, update_date) VALUES (?, ?, ?, ?, ?)";
-            jdbcTemplate.batchUpdate(sql, ratingsToInsert, ratingsToInsert.size(), 
-                (ps, rating) -> {
-                    ps.setLong(1, rating.getMemberId());
-                    ps.setInt(2, rating.getAreaId());
-                    ps.setBigDecimal(3, rating.getDesScore());
-                    ps.setString(4, rating.getRatingLevel());
-                    ps.setObject(5, rating.getUpdateDate());
-                });
+            long insertStart = System.currentTimeMillis();
+            writtenCount += insertRatingChunk(ratingsToInsert, checkpoint);
+            insertTime += System.currentTimeMillis() - insertStart;
+        }
+
+        desProgressBar.complete();
+
+        if (skippedGroups == 0) {
+            chunkTransaction.executeWithoutResult(status ->
+                    scoreSketchStore.publish(ScoreSketchStore.METRIC_DES, desSketches, asOf));
+        } else {
+            log.info("从检查点恢复的 DES 计算不完整，保留上一次的 DES 分布草图");
         }
-        long insertTime = System.currentTimeMillis() - insertStartTime;
+        
+        int unchangedCount = insertCount - writtenCount;
+        ratingMetrics.recordRows(RatingMetrics.STAGE_DES, writtenCount, skippedGroups + unchangedCount);
         
         long totalTime = System.currentTimeMillis() - methodStartTime;
-        log.info("成员领域评分计算完成，新增: {} 条历史记录", insertCount);
-        log.info("  - DES计算耗时: {} ms", desCalculationTime[0]);
+        log.info("成员领域评分计算完成，计算: {} 个，写入: {} 条（分数未变化: {}，恢复跳过: {}）",
+                insertCount, writtenCount, unchangedCount, skippedGroups);
+        log.info("  - DES计算耗时: {} ms", desCalculationTime);
         log.info("  - 批量插入耗时: {} ms", insertTime);
         log.info("  - DES总耗时: {} ms", totalTime);
     }
 
+    // 在一个事务内写入一块评级记录（跳过未变化的分数）并记录检查点（块内最大 member_id），返回实际写入的条数
+    private int insertRatingChunk(List<MemberRating> ratings, CalculationCheckpointStore.Checkpoint checkpoint) {
+        Integer written = chunkTransaction.execute(status -> {
+            long batchStart = System.nanoTime();
+            int count = ratingWriter.write(ratings);
+            ratingMetrics.recordJdbcBatch("memberrating_insert", System.nanoTime() - batchStart, count);
+            checkpointStore.save(checkpoint, ratings.get(ratings.size() - 1).getMemberId());
+            return count;
+        });
+        return written == null ? 0 : written;
+    }
+
     /**
      * 打印性能统计报告
      */
@@ -606,142 +859,68 @@ public class RatingCalculationService {
     }
 
     /**
-     * 持久化单个 DTO 的 CIS 结果到数据库。
+     * 从数据库全量读取 ContentSnapshot 到列式存储。
      */
-    /**
-     * 将 ContentDataDTO 转换为 ContentSnapshot 实体（不保存）
-     */
-    private ContentSnapshot convertToContentSnapshot(ContentDataDTO dto) {
-        ContentSnapshot entity = new ContentSnapshot();
-        
-        // 映射核心字段
-        entity.setContentId(dto.getContentId());
-        entity.setMemberId(dto.getMemberId());
-        entity.setAreaId(dto.getAreaId()); // 使用 areaId
-        entity.setPublishTime(dto.getPublishTime());
-        entity.setPostLengthLevel(dto.getPostLengthLevel());
-        
-        // 核心转换：Long (DTO) -> Integer (Entity)，并安全处理 null
-        entity.setReadCountSnapshot(Optional.ofNullable(dto.getReadCount()).orElse(0L).intValue());
-        entity.setLikeCountSnapshot(Optional.ofNullable(dto.getLikeCount()).orElse(0L).intValue());
-        entity.setCommentCountSnapshot(Optional.ofNullable(dto.getCommentCount()).orElse(0L).intValue());
-        entity.setShareCountSnapshot(Optional.ofNullable(dto.getShareCount()).orElse(0L).intValue());
-        entity.setCollectCountSnapshot(Optional.ofNullable(dto.getCollectCount()).orElse(0L).intValue());
-        entity.setHateCountSnapshot(Optional.ofNullable(dto.getHateCount()).orElse(0L).intValue());
-        
-        // 结果
-        entity.setCisScore(dto.getCisScore());
-        
-        return entity;
+    private ContentColumnStore loadContentStoreFromDatabase(int[] filteredCount) {
+        // 按 (member_id, area_id) 排序读取（命中 idx_member_tag），DES 阶段可直接线性分组
+        String selectSQL = "SELECT content_id, member_id, area_id, publish_time, post_length_level, " +
+            "read_count_snapshot, like_count_snapshot, comment_count_snapshot, share_count_snapshot, " +
+            "collect_count_snapshot, hate_count_snapshot FROM ContentSnapshot ORDER BY member_id, area_id";
+        ContentColumnStore store = new ContentColumnStore();
+        jdbcTemplate.query(selectSQL, (ResultSet rs) -> {
+            int areaId = rs.getInt("area_id");
+            if (rs.wasNull()) {
+                filteredCount[0]++;
+                return;
+            }
+            store.add(
+                rs.getLong("content_id"),
+                rs.getLong("member_id"),
+                areaId,
+                rs.getTimestamp("publish_time").toLocalDateTime(),
+                rs.getInt("post_length_level"),
+                rs.getLong("read_count_snapshot"),
+                rs.getLong("like_count_snapshot"),
+                rs.getLong("comment_count_snapshot"),
+                rs.getLong("share_count_snapshot"),
+                rs.getLong("collect_count_snapshot"),
+                rs.getLong("hate_count_snapshot"));
+        });
+        return store;
     }
 
-
-    /**
-     * 职责：计算特定成员在特定领域 K 的 DES 分数和评级，并持久化。
-     */
     /**
-     * 辅助方法：将 Map 结构转换为 DTO 对象，并解析 knowledgeTag 为 areaId。
+     * 计算指定行的 CIS 并写回列式存储（负分截断为 0，与原逻辑一致）。
+     * 静态包级可见，供基准测试直接测量生产实现。
      */
-    private ContentDataDTO mapToDTO(Map<String, Object> map) {
-        ContentDataDTO dto = new ContentDataDTO();
-        try {
-            dto.setContentId(safeToLong(map, "content_id"));
-            dto.setMemberId(safeToLong(map, "member_id"));
-            
-            // 1. 获取 knowledge_tag
-            String knowledgeTag = (String) map.get("knowledge_tag");
-            if (knowledgeTag != null) {
-                // 2. 通过缓存解析 areaId
-                Integer areaId = tagToIdCache.get(knowledgeTag);
-                
-                // areaId 不为 null 时才设置 DTO
-                if (areaId == null) {
-                    log.warn("内容 ID: {} 无法解析 knowledgeTag: {} 为 areaId，该内容将被过滤。", dto.getContentId(), knowledgeTag);
-                }
-                dto.setAreaId(areaId); 
-            }
-            
-            // 映射其余字段 - publish_time 可能是 String 或 java.sql.Timestamp
-            Object publishTimeObj = map.get("publish_time");
-            if (publishTimeObj != null) {
-                if (publishTimeObj instanceof String) {
-                    dto.setPublishTime(LocalDateTime.parse((String) publishTimeObj));
-                } else if (publishTimeObj instanceof java.sql.Timestamp) {
-                    dto.setPublishTime(((java.sql.Timestamp) publishTimeObj).toLocalDateTime());
-                }
-            }
-            
-            dto.setPostLengthLevel(safeToInteger(map, "post_length_level"));
-
-            // 计数转换为 Long
-            dto.setReadCount(safeToLong(map, "read_count_snapshot"));
-            dto.setLikeCount(safeToLong(map, "like_count_snapshot"));
-            dto.setCommentCount(safeToLong(map, "comment_count_snapshot"));
-            dto.setShareCount(safeToLong(map, "share_count_snapshot"));
-            dto.setCollectCount(safeToLong(map, "collect_count_snapshot"));
-            dto.setHateCount(safeToLong(map, "hate_count_snapshot"));
-            
-        } catch (Exception e) {
-            log.error("映射 Content 快照数据到 DTO 失败: {}", map, e);
+    static void computeAndStoreCIS(RatingAlgorithm ratingAlgorithm, ContentColumnStore store, int row) {
+        BigDecimal cisScore = ratingAlgorithm.calculateCIS(
+            store.readCount(row), store.likeCount(row), store.commentCount(row),
+            store.shareCount(row), store.collectCount(row), store.hateCount(row),
+            store.postLengthLevel(row));
+        if (cisScore == null || cisScore.compareTo(BigDecimal.ZERO) < 0) {
+            cisScore = BigDecimal.ZERO;
         }
-        return dto;
+        store.setCisScoreUnscaled(row, cisScore.setScale(CIS_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue());
     }
-    
+
     /**
-     * 辅助方法：将 Map 结构转换为 DTO 对象，直接使用数据库中的 area_id（用于第二阶段）
+     * 将一条类型化内容快照追加到列式存储（knowledge_tag 解析为 areaId）。
+     * 字段均为原始类型，无需装箱与按键查找；无法解析领域或发布时间缺失时返回 false。
      */
-    private ContentDataDTO mapToDTOWithAreaId(Map<String, Object> map) {
-        ContentDataDTO dto = new ContentDataDTO();
-        try {
-            dto.setContentId(safeToLong(map, "content_id"));
-            dto.setMemberId(safeToLong(map, "member_id"));
-            
-            // 直接使用数据库中的 area_id，无需通过 knowledge_tag 转换
-            Object areaIdObj = map.get("area_id");
-            if (areaIdObj instanceof Number) {
-                dto.setAreaId(((Number) areaIdObj).intValue());
-            }
-            
-            // 映射其余字段 - publish_time 可能是 String 或 java.sql.Timestamp
-            Object publishTimeObj = map.get("publish_time");
-            if (publishTimeObj != null) {
-                if (publishTimeObj instanceof String) {
-                    dto.setPublishTime(LocalDateTime.parse((String) publishTimeObj));
-                } else if (publishTimeObj instanceof java.sql.Timestamp) {
-                    dto.setPublishTime(((java.sql.Timestamp) publishTimeObj).toLocalDateTime());
-                }
-            }
-            
-            dto.setPostLengthLevel(safeToInteger(map, "post_length_level"));
-
-            // 计数转换为 Long
-            dto.setReadCount(safeToLong(map, "read_count_snapshot"));
-            dto.setLikeCount(safeToLong(map, "like_count_snapshot"));
-            dto.setCommentCount(safeToLong(map, "comment_count_snapshot"));
-            dto.setShareCount(safeToLong(map, "share_count_snapshot"));
-            dto.setCollectCount(safeToLong(map, "collect_count_snapshot"));
-            dto.setHateCount(safeToLong(map, "hate_count_snapshot"));
-            
-        } catch (Exception e) {
-            log.error("映射 Content 快照数据到 DTO 失败: {}", map, e);
+    static boolean appendSnapshotRecord(ContentColumnStore store, ContentSnapshotRecord snapshot, Map<String, Integer> tagToAreaId) {
+        String knowledgeTag = snapshot.knowledgeTag();
+        Integer areaId = knowledgeTag != null ? tagToAreaId.get(knowledgeTag) : null;
+        if (knowledgeTag != null && areaId == null) {
+            log.warn("内容 ID: {} 无法解析 knowledgeTag: {} 为 areaId，该内容将被过滤。", snapshot.contentId(), knowledgeTag);
         }
-        return dto;
-    }
-    
-    // 安全转换辅助方法（保持不变）
-    private Long safeToLong(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
-        }
-        return null; 
-    }
-
-    private Integer safeToInteger(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
+        if (areaId == null || snapshot.publishTime() == null) {
+            return false;
         }
-        return null; 
+        store.add(snapshot.contentId(), snapshot.memberId(), areaId, snapshot.publishTime(),
+            snapshot.postLengthLevel(),
+            snapshot.readCount(), snapshot.likeCount(), snapshot.commentCount(),
+            snapshot.shareCount(), snapshot.collectCount(), snapshot.hateCount());
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.community.rating.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 【评级等级分布计数】ratinglevelcounter 表中每个 (领域, 等级) 一行，记录最新评级处于该等级的 (成员, 领域) 数。
+ * RatingWriter 写入评级时按等级变化（旧等级 -1、新等级 +1）在同一事务内增减；
+ * 概览与按领域的分布直接读取这几十行，不再对评级历史做窗口函数与去重统计。
+ */
+@Component
+public class RatingLevelCounterStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingLevelCounterStore.class);
+
+    /**
+     * 计数键
+     */
+    public record LevelKey(int areaId, String ratingLevel) {
+    }
+
+    private static final String INCREMENT_SQL = """
+        INSERT INTO ratinglevelcounter (area_id, rating_level, member_count)
+        VALUES (?, ?, ?)
+        ON DUPLICATE KEY UPDATE member_count = member_count + VALUES(member_count)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RatingLevelCounterStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 累加各 (领域, 等级) 的变化量（忽略为 0 的项）；应在写入评级的同一事务内调用
+     */
+    public void applyDeltas(Map<LevelKey, Long> deltas) {
+        List<Object[]> increments = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                increments.add(new Object[]{key.areaId(), key.ratingLevel(), delta});
+            }
+        });
+        if (!increments.isEmpty()) {
+            jdbcTemplate.batchUpdate(INCREMENT_SQL, increments);
+        }
+    }
+
+    /**
+     * 计数表为空时（首次部署或数据重置后）以给定的最新评级分布初始化；已有计数时不做任何修改
+     */
+    public void seedIfEmpty(Map<LevelKey, Long> counts) {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ratinglevelcounter", Integer.class);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        applyDeltas(counts);
+        log.info("【等级分布】根据最新评级初始化计数 {} 项", counts.size());
+    }
+
+    /**
+     * 全局分布：等级 -> 各领域计数之和（按等级升序）；计数表为空时为空
+     */
+    public Map<String, Long> findGlobalDistribution() {
+        Map<String, Long> distribution = new TreeMap<>();
+        jdbcTemplate.query(
+                "SELECT rating_level, SUM(member_count) AS level_count FROM ratinglevelcounter " +
+                        "GROUP BY rating_level HAVING level_count > 0",
+                (RowCallbackHandler) rs -> distribution.put(rs.getString("rating_level"), rs.getLong("level_count")));
+        return distribution;
+    }
+
+    /**
+     * 指定领域的分布：等级 -> 计数（按等级升序）；计数表为空时为空
+     */
+    public Map<String, Long> findAreaDistribution(int areaId) {
+        Map<String, Long> distribution = new TreeMap<>();
+        jdbcTemplate.query(
+                "SELECT rating_level, member_count FROM ratinglevelcounter WHERE area_id = ? AND member_count > 0",
+                (RowCallbackHandler) rs -> distribution.put(rs.getString("rating_level"), rs.getLong("member_count")),
+                areaId);
+        return distribution;
+    }
+}
@@ -0,0 +1,217 @@
+package com.community.rating.service;
+
+import com.community.rating.entity.MemberRatingRollup;
+import com.community.rating.simulation.ForumDataSimulation;
+import com.community.rating.simulation.VirtualClock;
+import com.community.rating.util.CalculationLease;
+import com.community.rating.util.CalculationStatusManager;
+import com.community.rating.util.DataGeneration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 【评级历史保留】memberrating 每个虚拟日为每个 (成员, 领域) 追加一行，历史无限增长。
+ * 后台压缩任务按分层保留策略汇总旧记录：
+ * - 最近 DAILY_RETENTION_DAYS 天保留日粒度（memberrating）
+ * - 更早的日记录按周汇总到 memberratingrollup（粒度 W），保留到 WEEKLY_RETENTION_DAYS 天
+ * - 更早的周汇总再按月汇总（粒度 M），永久保留
+ * 汇总保留周期内的最后值、最小值、最大值与条数。每个周期在一个事务内“插入汇总 + 删除源记录”，
+ * 汇总按 (成员, 领域, 粒度, 周期) 唯一并在重复时合并，因此任务中断后重跑是安全的。
+ * 只压缩完整的周期（保留期边界向前对齐到周一 / 每月 1 日），最新评级始终在日粒度中。
+ */
+@Service
+public class RatingRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingRetentionService.class);
+
+    // 日粒度保留天数（虚拟时间）
+    static final int DAILY_RETENTION_DAYS = 90;
+    // 周汇总保留天数（虚拟时间），更早的周汇总合并为月汇总
+    static final int WEEKLY_RETENTION_DAYS = 365;
+    // 每次压缩每一层最多处理的周期数，避免长时间占用计算租约
+    private static final int MAX_PERIODS_PER_RUN = 8;
+    // 压缩任务持有计算租约的最长时间（真实时间）
+    private static final Duration COMPACTION_LEASE_TTL = Duration.ofMinutes(10);
+
+    // 重复压缩同一周期时合并到已有汇总：最后值取日期较新的一方（先比较再更新 last_date）
+    private static final String ROLLUP_MERGE_CLAUSE = """
+        ON DUPLICATE KEY UPDATE
+            last_score = IF(VALUES(last_date) >= last_date, VALUES(last_score), last_score),
+            last_level = IF(VALUES(last_date) >= last_date, VALUES(last_level), last_level),
+            last_date = GREATEST(last_date, VALUES(last_date)),
+            min_score = LEAST(min_score, VALUES(min_score)),
+            max_score = GREATEST(max_score, VALUES(max_score)),
+            sample_count = sample_count + VALUES(sample_count)
+        """;
+
+    // 日记录 -> 周汇总：按 (成员, 领域) 取周期内最后一条及最小/最大分数
+    private static final String ROLLUP_DAILY_SQL = """
+        INSERT INTO memberratingrollup (
+            member_id, area_id, granularity, period_start, last_date,
+            last_score, last_level, min_score, max_score, sample_count
+        )
+        SELECT t.member_id, t.area_id, ?, ?, t.update_date,
+               t.des_score, t.rating_level, t.min_score, t.max_score, t.sample_count
+        FROM (
+            SELECT mr.member_id, mr.area_id, mr.update_date, mr.des_score, mr.rating_level,
+                   ROW_NUMBER() OVER(PARTITION BY mr.member_id, mr.area_id ORDER BY mr.update_date DESC, mr.rating_id DESC) AS rn,
+                   MIN(mr.des_score) OVER(PARTITION BY mr.member_id, mr.area_id) AS min_score,
+                   MAX(mr.des_score) OVER(PARTITION BY mr.member_id, mr.area_id) AS max_score,
+                   COUNT(*) OVER(PARTITION BY mr.member_id, mr.area_id) AS sample_count
+            FROM memberrating mr
+            WHERE mr.update_date >= ? AND mr.update_date < ?
+        ) t
+        WHERE t.rn = 1
+        """ + ROLLUP_MERGE_CLAUSE;
+
+    // 周汇总 -> 月汇总：周按起始日归属月份
+    private static final String ROLLUP_WEEKLY_SQL = """
+        INSERT INTO memberratingrollup (
+            member_id, area_id, granularity, period_start, last_date,
+            last_score, last_level, min_score, max_score, sample_count
+        )
+        SELECT t.member_id, t.area_id, ?, ?, t.last_date,
+               t.last_score, t.last_level, t.min_score, t.max_score, t.sample_count
+        FROM (
+            SELECT r.member_id, r.area_id, r.last_date, r.last_score, r.last_level,
+                   ROW_NUMBER() OVER(PARTITION BY r.member_id, r.area_id ORDER BY r.last_date DESC) AS rn,
+                   MIN(r.min_score) OVER(PARTITION BY r.member_id, r.area_id) AS min_score,
+                   MAX(r.max_score) OVER(PARTITION BY r.member_id, r.area_id) AS max_score,
+                   SUM(r.sample_count) OVER(PARTITION BY r.member_id, r.area_id) AS sample_count
+            FROM memberratingrollup r
+            WHERE r.granularity = ? AND r.period_start >= ? AND r.period_start < ?
+        ) t
+        WHERE t.rn = 1
+        """ + ROLLUP_MERGE_CLAUSE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VirtualClock virtualClock;
+    private final CalculationLease calculationLease;
+    private final CalculationStatusManager calculationStatusManager;
+    private final TransactionTemplate periodTransaction;
+    private final DataGeneration dataGeneration;
+
+    public RatingRetentionService(JdbcTemplate jdbcTemplate,
+                                  VirtualClock virtualClock,
+                                  CalculationLease calculationLease,
+                                  CalculationStatusManager calculationStatusManager,
+                                  PlatformTransactionManager transactionManager,
+                                  DataGeneration dataGeneration) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.virtualClock = virtualClock;
+        this.calculationLease = calculationLease;
+        this.calculationStatusManager = calculationStatusManager;
+        this.periodTransaction = new TransactionTemplate(transactionManager);
+        this.dataGeneration = dataGeneration;
+    }
+
+    /**
+     * 后台压缩：真实时间每 5 分钟检查一次。
+     * 与评级计算共用计算租约（计算进行中或租约被占用时跳过）；回放模式由驱动器逐日计算，不压缩。
+     */
+    @Scheduled(initialDelay = 60, fixedDelay = 300, timeUnit = TimeUnit.SECONDS)
+    public void scheduledCompaction() {
+        if (ForumDataSimulation.IS_REPLAY_MODE || calculationStatusManager.isCalculationInProgress()) {
+            return;
+        }
+        CalculationLease.Lease lease = calculationLease.tryAcquire("retention", COMPACTION_LEASE_TTL);
+        if (lease == null) {
+            return;
+        }
+        try {
+            compact(virtualClock.now().toLocalDate());
+        } catch (Exception e) {
+            log.error("评级历史压缩失败: {}", e.getMessage(), e);
+        } finally {
+            calculationLease.release(lease);
+        }
+    }
+
+    /**
+     * 以 today 为基准执行一轮压缩，返回本轮压缩的周期数
+     */
+    public int compact(LocalDate today) {
+        int periods = 0;
+        LocalDate dailyCutoff = dailyCutoff(today);
+        for (int i = 0; i < MAX_PERIODS_PER_RUN; i++) {
+            LocalDate oldest = jdbcTemplate.queryForObject("SELECT MIN(update_date) FROM memberrating", LocalDate.class);
+            if (oldest == null || !oldest.isBefore(dailyCutoff)) {
+                break;
+            }
+            LocalDate weekStart = weekStart(oldest);
+            rollDailyIntoWeek(weekStart);
+            periods++;
+        }
+        LocalDate weeklyCutoff = weeklyCutoff(today);
+        for (int i = 0; i < MAX_PERIODS_PER_RUN; i++) {
+            LocalDate oldest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(period_start) FROM memberratingrollup WHERE granularity = ?",
+                    LocalDate.class, MemberRatingRollup.WEEKLY);
+            if (oldest == null || !oldest.isBefore(weeklyCutoff)) {
+                break;
+            }
+            rollWeeksIntoMonth(oldest.withDayOfMonth(1));
+            periods++;
+        }
+        if (periods > 0) {
+            dataGeneration.advance();
+            log.info("【评级历史压缩】基准日 {}，本轮汇总 {} 个周期（日粒度保留至 {}，周汇总保留至 {}）",
+                    today, periods, dailyCutoff, weeklyCutoff);
+        }
+        return periods;
+    }
+
+    private void rollDailyIntoWeek(LocalDate weekStart) {
+        LocalDate weekEnd = weekStart.plusWeeks(1);
+        periodTransaction.executeWithoutResult(status -> {
+            int rollups = jdbcTemplate.update(ROLLUP_DAILY_SQL, MemberRatingRollup.WEEKLY, weekStart, weekStart, weekEnd);
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM memberrating WHERE update_date >= ? AND update_date < ?", weekStart, weekEnd);
+            log.info("【评级历史压缩】{} 周：{} 条日评级汇总为周汇总（影响 {} 行）", weekStart, deleted, rollups);
+        });
+    }
+
+    private void rollWeeksIntoMonth(LocalDate monthStart) {
+        LocalDate monthEnd = monthStart.plusMonths(1);
+        periodTransaction.executeWithoutResult(status -> {
+            int rollups = jdbcTemplate.update(ROLLUP_WEEKLY_SQL, MemberRatingRollup.MONTHLY, monthStart,
+                    MemberRatingRollup.WEEKLY, monthStart, monthEnd);
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM memberratingrollup WHERE granularity = ? AND period_start >= ? AND period_start < ?",
+                    MemberRatingRollup.WEEKLY, monthStart, monthEnd);
+            log.info("【评级历史压缩】{} 月：{} 条周汇总合并为月汇总（影响 {} 行）", monthStart, deleted, rollups);
+        });
+    }
+
+    /**
+     * 所在周的周一
+     */
+    static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * 早于该日期的日评级可以汇总：保留期起点所在周的周一（只汇总完整的周）
+     */
+    static LocalDate dailyCutoff(LocalDate today) {
+        return weekStart(today.minusDays(DAILY_RETENTION_DAYS));
+    }
+
+    /**
+     * 起始日早于该日期的周汇总可以合并：保留期起点所在月的 1 日（只合并完整的月）
+     */
+    static LocalDate weeklyCutoff(LocalDate today) {
+        return today.minusDays(WEEKLY_RETENTION_DAYS).withDayOfMonth(1);
+    }
+}
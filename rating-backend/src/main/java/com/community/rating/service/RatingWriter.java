@@ -0,0 +1,213 @@
+package com.community.rating.service;
+
+import com.community.rating.entity.MemberRating;
+import com.community.rating.repository.MemberRatingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 【评级写入器】以 (member_id, area_id, update_date) 为键 upsert 评级记录，并跳过未变化的分数：
+ * - 内存中保存每个 (成员, 领域) 在数据库中的最新评级（分数、等级、日期），首次使用时从数据库预热
+ * - 只有分数或等级变化、或距上一条记录已满 HEARTBEAT_DAYS 天时才写入；大多数成员当天没有活动，DES 不变，不再产生新行
+ * - 同一天重复计算时 upsert 覆盖当天的记录，不会产生重复行
+ * - 流式计分写入评级后同样通过 recordWritten 更新内存状态，保证每日计算与数据库中的实际最新值比较
+ * - 写入的评级按等级变化（旧等级 → 新等级）在同一事务内增减等级分布计数（RatingLevelCounterStore），
+ *   计数表为空时在预热后按最新评级初始化
+ * 内存状态只在事务提交后更新，事务回滚时保持不变。
+ */
+@Component
+public class RatingWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingWriter.class);
+
+    /**
+     * 分数未变化时最多间隔多少天重写一次：保证每个 (成员, 领域) 的最新评级落在
+     * MemberRatingRepository.LATEST_RATING_WINDOW_DAYS 窗口内（另留出补跑的余量），“最新评级”查询可以按日期裁剪分区
+     */
+    static final int HEARTBEAT_DAYS = 28;
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO memberrating (member_id, area_id, des_score, rating_level, update_date)
+        VALUES (?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            des_score = VALUES(des_score),
+            rating_level = VALUES(rating_level)
+        """;
+
+    /**
+     * 数据库中的最新评级
+     */
+    record LastRating(BigDecimal desScore, String ratingLevel, LocalDate updateDate) {
+    }
+
+    /**
+     * 评级组合 (成员, 领域)
+     */
+    private record RatingKey(long memberId, int areaId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberRatingRepository memberRatingRepository;
+    private final ScoreSeriesStore scoreSeriesStore;
+    private final RatingLevelCounterStore levelCounterStore;
+
+    private final Map<RatingKey, LastRating> lastRatings = new ConcurrentHashMap<>();
+    private volatile boolean warmedUp = false;
+
+    public RatingWriter(JdbcTemplate jdbcTemplate,
+                        MemberRatingRepository memberRatingRepository,
+                        ScoreSeriesStore scoreSeriesStore,
+                        RatingLevelCounterStore levelCounterStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.memberRatingRepository = memberRatingRepository;
+        this.scoreSeriesStore = scoreSeriesStore;
+        this.levelCounterStore = levelCounterStore;
+    }
+
+    /**
+     * 写入一批评级（按 member_id 有序），返回实际写入的条数；应在调用方的事务内调用。
+     * 变化的评级同时追加到分数序列并计入等级分布。
+     */
+    public int write(List<MemberRating> ratings) {
+        List<MemberRating> changed = filterChanged(ratings);
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, changed, changed.size(),
+            (ps, rating) -> {
+                ps.setLong(1, rating.getMemberId());
+                ps.setInt(2, rating.getAreaId());
+                ps.setBigDecimal(3, rating.getDesScore());
+                ps.setString(4, rating.getRatingLevel());
+                ps.setObject(5, rating.getUpdateDate());
+            });
+        scoreSeriesStore.appendAll(changed);
+        recordWritten(changed);
+        return changed.size();
+    }
+
+    /**
+     * 记录已写入数据库的评级（每个 (成员, 领域) 至多一条）：在调用方事务内按等级变化增减分布计数，提交后更新内存状态
+     */
+    public void recordWritten(List<MemberRating> ratings) {
+        warmUpIfNeeded();
+        levelCounterStore.applyDeltas(levelTransitions(ratings));
+        for (MemberRating rating : ratings) {
+            remember(rating.getMemberId(), rating.getAreaId(), rating.getDesScore(), rating.getRatingLevel(), rating.getUpdateDate());
+        }
+    }
+
+    /**
+     * 等级变化对分布计数的影响：旧等级 -1、新等级 +1（没有已知评级时只有 +1）
+     */
+    Map<RatingLevelCounterStore.LevelKey, Long> levelTransitions(List<MemberRating> ratings) {
+        Map<RatingLevelCounterStore.LevelKey, Long> deltas = new HashMap<>();
+        for (MemberRating rating : ratings) {
+            LastRating last = lastRatings.get(new RatingKey(rating.getMemberId(), rating.getAreaId()));
+            if (last != null && last.ratingLevel().equals(rating.getRatingLevel())) {
+                continue;
+            }
+            if (last != null) {
+                deltas.merge(new RatingLevelCounterStore.LevelKey(rating.getAreaId(), last.ratingLevel()), -1L, Long::sum);
+            }
+            deltas.merge(new RatingLevelCounterStore.LevelKey(rating.getAreaId(), rating.getRatingLevel()), 1L, Long::sum);
+        }
+        return deltas;
+    }
+
+    /**
+     * 需要写入的评级：没有已知评级、分数或等级变化、或上一条记录已满 HEARTBEAT_DAYS 天
+     */
+    List<MemberRating> filterChanged(List<MemberRating> ratings) {
+        warmUpIfNeeded();
+        List<MemberRating> changed = new ArrayList<>(ratings.size());
+        for (MemberRating rating : ratings) {
+            LastRating last = lastRatings.get(new RatingKey(rating.getMemberId(), rating.getAreaId()));
+            if (last == null
+                    || last.desScore().compareTo(rating.getDesScore()) != 0
+                    || !last.ratingLevel().equals(rating.getRatingLevel())
+                    || !last.updateDate().plusDays(HEARTBEAT_DAYS).isAfter(rating.getUpdateDate())) {
+                changed.add(rating);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 记录 (成员, 领域) 在数据库中的最新评级；有活动事务时在提交后生效
+     */
+    void remember(long memberId, int areaId, BigDecimal desScore, String ratingLevel, LocalDate updateDate) {
+        LastRating rating = new LastRating(desScore.setScale(ScoreSeriesCodec.SCORE_SCALE, RoundingMode.HALF_UP),
+                ratingLevel, updateDate);
+        Runnable apply = () -> lastRatings.merge(new RatingKey(memberId, areaId), rating,
+                (existing, replacement) -> replacement.updateDate().isBefore(existing.updateDate()) ? existing : replacement);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    // 首次使用时从数据库加载各 (成员, 领域) 的最新评级（只扫描最近窗口内的分区；窗口外的组合视为未知，下次计算时写入），
+    // 并在计数表为空时据此初始化等级分布。调用方事务回滚时丢弃预热结果，下次重新加载
+    private synchronized void warmUpIfNeeded() {
+        if (warmedUp) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        jdbcTemplate.query("""
+                SELECT latest.member_id, latest.area_id, latest.des_score, latest.rating_level, latest.update_date
+                FROM (
+                    SELECT mr.member_id, mr.area_id, mr.des_score, mr.rating_level, mr.update_date,
+                           ROW_NUMBER() OVER(PARTITION BY mr.member_id, mr.area_id ORDER BY mr.update_date DESC) as rn
+                    FROM memberrating mr
+                    WHERE mr.update_date >= ?
+                ) latest
+                WHERE latest.rn = 1
+                """,
+                (RowCallbackHandler) rs -> lastRatings.put(new RatingKey(rs.getLong("member_id"), rs.getInt("area_id")),
+                        new LastRating(rs.getBigDecimal("des_score").setScale(ScoreSeriesCodec.SCORE_SCALE, RoundingMode.HALF_UP),
+                                rs.getString("rating_level"), rs.getObject("update_date", LocalDate.class))),
+                memberRatingRepository.latestRatingWindowStart());
+        Map<RatingLevelCounterStore.LevelKey, Long> counts = new HashMap<>();
+        lastRatings.forEach((key, rating) ->
+                counts.merge(new RatingLevelCounterStore.LevelKey(key.areaId(), rating.ratingLevel()), 1L, Long::sum));
+        levelCounterStore.seedIfEmpty(counts);
+        warmedUp = true;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        resetWarmUp();
+                    }
+                }
+            });
+        }
+        log.info("【评级写入】预热最新评级 {} 条，耗时 {} ms", lastRatings.size(), System.currentTimeMillis() - startTime);
+    }
+
+    private synchronized void resetWarmUp() {
+        lastRatings.clear();
+        warmedUp = false;
+    }
+}
@@ -0,0 +1,142 @@
+package com.community.rating.service;
+
+import com.community.rating.simulation.ForumDataSimulation;
+import com.community.rating.simulation.TimeSimulation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 【回放驱动器】回放模式（ForumDataSimulation.IS_REPLAY_MODE）下，应用启动后连续执行 REPLAY_DAYS 个虚拟日：
+ * 每日将步进时钟推进到次日凌晨 4 点 → 论坛模拟执行当日更新 → 执行完整的每日评级计算，
+ * 并记录各阶段耗时，结束后输出汇总并写入 CSV 报告。
+ * 固定种子 + 固定数据规模 + 步进时钟保证不同构建面对完全相同的工作负载。
+ */
+@Component
+public class ReplayBenchmarkDriver {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayBenchmarkDriver.class);
+
+    // 回放的虚拟天数
+    private static final int REPLAY_DAYS = 7;
+    // 每日计算触发的虚拟时刻（与定时触发器一致）
+    private static final int CALCULATION_HOUR = 4;
+    // 报告输出目录
+    private static final String REPORT_FOLDER = "./simulation/";
+    private static final DateTimeFormatter REPORT_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /**
+     * 单个虚拟日的回放结果
+     * @param day 第几天（从 1 开始）
+     * @param virtualDate 虚拟日期
+     * @param simulationMillis 论坛模拟当日更新耗时
+     * @param stageMillis 评级计算各阶段耗时（键同性能统计报告）
+     */
+    public record ReplayDayResult(int day, LocalDate virtualDate, long simulationMillis, Map<String, Long> stageMillis) {
+    }
+
+    private final ForumDataSimulation forumDataSimulation;
+    private final RatingCalculationService ratingCalculationService;
+
+    public ReplayBenchmarkDriver(ForumDataSimulation forumDataSimulation,
+                                 RatingCalculationService ratingCalculationService) {
+        this.forumDataSimulation = forumDataSimulation;
+        this.ratingCalculationService = ratingCalculationService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runOnStartup() {
+        if (!ForumDataSimulation.IS_REPLAY_MODE) {
+            return;
+        }
+        List<ReplayDayResult> results = run(REPLAY_DAYS);
+        logSummary(results);
+        writeReport(results);
+    }
+
+    /**
+     * 连续回放 days 个虚拟日，返回每日结果。仅可在步进时钟下调用。
+     */
+    public List<ReplayDayResult> run(int days) {
+        if (!TimeSimulation.isStepped()) {
+            throw new IllegalStateException("回放驱动器需要回放模式的步进时钟");
+        }
+        log.info("【回放】开始回放 {} 个虚拟日，种子 {}，起始虚拟时间 {}",
+                days, ForumDataSimulation.REPLAY_SEED, TimeSimulation.now());
+        List<ReplayDayResult> results = new ArrayList<>(days);
+        for (int day = 1; day <= days; day++) {
+            LocalDateTime target = TimeSimulation.now().toLocalDate().plusDays(1).atTime(CALCULATION_HOUR, 0);
+            TimeSimulation.advanceTo(target);
+
+            long simulationStart = System.currentTimeMillis();
+            forumDataSimulation.runDailyUpdate();
+            long simulationMillis = System.currentTimeMillis() - simulationStart;
+
+            ratingCalculationService.executeDailyRatingCalculation();
+            ReplayDayResult result = new ReplayDayResult(day, target.toLocalDate(), simulationMillis,
+                    new TreeMap<>(ratingCalculationService.getLastTimingStats()));
+            results.add(result);
+            log.info("【回放】第 {} 天（{}）完成：模拟 {} ms，计算 {}", day, result.virtualDate(), simulationMillis,
+                    result.stageMillis());
+        }
+        return results;
+    }
+
+    private void logSummary(List<ReplayDayResult> results) {
+        log.info("========================================");
+        log.info("       回放基准汇总（{} 天）", results.size());
+        log.info("========================================");
+        for (String stage : stageKeys(results)) {
+            long[] values = results.stream()
+                    .mapToLong(r -> r.stageMillis().getOrDefault(stage, 0L))
+                    .sorted()
+                    .toArray();
+            log.info("{}: 最小 {} ms, 中位 {} ms, 最大 {} ms",
+                    stage, values[0], values[values.length / 2], values[values.length - 1]);
+        }
+    }
+
+    private void writeReport(List<ReplayDayResult> results) {
+        List<String> stages = new ArrayList<>(stageKeys(results));
+        StringBuilder csv = new StringBuilder("day,virtual_date,simulation_ms");
+        stages.forEach(stage -> csv.append(',').append(stage));
+        csv.append('\n');
+        for (ReplayDayResult result : results) {
+            csv.append(result.day()).append(',').append(result.virtualDate()).append(',').append(result.simulationMillis());
+            for (String stage : stages) {
+                csv.append(',').append(result.stageMillis().getOrDefault(stage, 0L));
+            }
+            csv.append('\n');
+        }
+        Path report = Paths.get(REPORT_FOLDER, "replay_report_" + LocalDateTime.now().format(REPORT_NAME_FORMAT) + ".csv");
+        try {
+            Files.createDirectories(report.getParent());
+            Files.writeString(report, csv, StandardCharsets.UTF_8);
+            log.info("【回放】报告已写入 {}", report);
+        } catch (IOException e) {
+            log.error("写入回放报告失败: {}", e.getMessage());
+        }
+    }
+
+    private static TreeSet<String> stageKeys(List<ReplayDayResult> results) {
+        TreeSet<String> keys = new TreeSet<>();
+        results.forEach(r -> keys.addAll(r.stageMillis().keySet()));
+        return keys;
+    }
+}
@@ -0,0 +1,143 @@
+package com.community.rating.service;
+
+import com.community.rating.dto.MemberStandingDTO;
+import com.community.rating.dto.ScoreDistributionDTO;
+import com.community.rating.repository.MemberRatingRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 【分数分布查询】基于每日计算发布的分位数草图（ScoreSketchStore）回答分位数、直方图与“成员处于前 X%”，
+ * 不再读取全部成员的最新 DES 排序统计。
+ */
+@Service
+public class ScoreDistributionService {
+
+    // 默认返回的分位数
+    private static final double[] DEFAULT_QUANTILES = {0.5, 0.75, 0.9, 0.95, 0.99};
+    // 直方图桶数上限
+    static final int MAX_HISTOGRAM_BUCKETS = 100;
+
+    private final ScoreSketchStore scoreSketchStore;
+    private final MemberRatingRepository memberRatingRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ScoreDistributionService(ScoreSketchStore scoreSketchStore,
+                                    MemberRatingRepository memberRatingRepository,
+                                    JdbcTemplate jdbcTemplate) {
+        this.scoreSketchStore = scoreSketchStore;
+        this.memberRatingRepository = memberRatingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 指定分数类型（des / cis）与领域（null 为全部领域）的分布；尚未构建草图时返回 null
+     * @throws IllegalArgumentException 分数类型未知
+     */
+    public ScoreDistributionDTO getDistribution(String metric, Integer areaId, int histogramBuckets) {
+        String normalized = normalizeMetric(metric);
+        ScoreSketchStore.PublishedSketch published = scoreSketchStore.find(normalized, areaId);
+        if (published == null) {
+            return null;
+        }
+        QuantileSketch sketch = published.sketch();
+        ScoreDistributionDTO dto = new ScoreDistributionDTO();
+        dto.setMetric(normalized);
+        dto.setAreaId(areaId);
+        dto.setAsOf(published.asOf().toString());
+        dto.setCount(sketch.count());
+        if (sketch.count() == 0) {
+            dto.setPercentiles(Map.of());
+            dto.setHistogram(List.of());
+            return dto;
+        }
+        dto.setMin(round(sketch.min()));
+        dto.setMax(round(sketch.max()));
+
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double q : DEFAULT_QUANTILES) {
+            percentiles.put(percentileKey(q), round(sketch.quantile(q)));
+        }
+        dto.setPercentiles(percentiles);
+
+        int buckets = Math.max(1, Math.min(histogramBuckets, MAX_HISTOGRAM_BUCKETS));
+        long[] counts = sketch.histogram(buckets);
+        double width = (sketch.max() - sketch.min()) / buckets;
+        List<ScoreDistributionDTO.HistogramBucket> histogram = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            histogram.add(new ScoreDistributionDTO.HistogramBucket(
+                    round(sketch.min() + width * i), round(sketch.min() + width * (i + 1)), counts[i]));
+        }
+        dto.setHistogram(histogram);
+        return dto;
+    }
+
+    /**
+     * 成员在其各领域的最新 DES 处于该领域前百分之几（包含自身）；领域尚无 DES 草图时跳过
+     */
+    public List<MemberStandingDTO> getMemberStanding(Long memberId) {
+        List<MemberStandingDTO> standings = new ArrayList<>();
+        jdbcTemplate.query("""
+                SELECT latest.area_id, latest.des_score, ka.area_name
+                FROM (
+                    SELECT mr.area_id, mr.des_score,
+                           ROW_NUMBER() OVER(PARTITION BY mr.area_id ORDER BY mr.update_date DESC) as rn
+                    FROM memberrating mr
+                    WHERE mr.member_id = ? AND mr.update_date >= ?
+                ) latest
+                JOIN knowledgearea ka ON ka.area_id = latest.area_id
+                WHERE latest.rn = 1
+                ORDER BY latest.area_id
+                """,
+                rs -> {
+                    int areaId = rs.getInt("area_id");
+                    ScoreSketchStore.PublishedSketch published = scoreSketchStore.find(ScoreSketchStore.METRIC_DES, areaId);
+                    if (published == null || published.sketch().count() == 0) {
+                        return;
+                    }
+                    double desScore = rs.getBigDecimal("des_score").doubleValue();
+                    MemberStandingDTO dto = new MemberStandingDTO();
+                    dto.setMemberId(memberId);
+                    dto.setAreaId(areaId);
+                    dto.setMainDomain(rs.getString("area_name"));
+                    dto.setDesScore(round(desScore));
+                    dto.setTopPercent(topPercent(published.sketch(), desScore));
+                    dto.setAreaMemberCount(published.sketch().count());
+                    standings.add(dto);
+                },
+                memberId, memberRatingRepository.latestRatingWindowStart());
+        return standings;
+    }
+
+    /**
+     * 分数处于前百分之几（包含自身，保留 1 位小数，最小 0.1）
+     */
+    static double topPercent(QuantileSketch sketch, double score) {
+        double fraction = Math.min(1.0, sketch.fractionAbove(score) + 1.0 / sketch.count());
+        return Math.max(0.1, Math.round(fraction * 1000.0) / 10.0);
+    }
+
+    private static String normalizeMetric(String metric) {
+        String normalized = metric == null ? ScoreSketchStore.METRIC_DES : metric.toUpperCase(Locale.ROOT);
+        if (!normalized.equals(ScoreSketchStore.METRIC_DES) && !normalized.equals(ScoreSketchStore.METRIC_CIS)) {
+            throw new IllegalArgumentException("未知的分数类型: " + metric + "（可选 des / cis）");
+        }
+        return normalized;
+    }
+
+    // 0.5 -> "p50"，0.999 -> "p99.9"
+    private static String percentileKey(double q) {
+        double percent = q * 100;
+        return percent == Math.rint(percent) ? "p" + (long) percent : "p" + percent;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000.0) / 10000.0;
+    }
+}
@@ -0,0 +1,111 @@
+package com.community.rating.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * 【分数序列编码】把一个 (成员, 领域) 的 (epoch-day, DES) 点序列编码为紧凑字节数组：
+ * 每个点依次写入“日期差”（无符号 varint）与“DES 差”（zigzag varint，DES 按 DECIMAL(12, 4) 放大为整数），
+ * 第一个点相对 (0, 0) 编码。相邻两天、分数小幅变化的点通常只占 3~4 字节。
+ * 差分只依赖上一个点，因此追加新点时只需知道序列最后一个点，把 appendPoint 的结果拼接到原数组末尾即可。
+ */
+public final class ScoreSeriesCodec {
+
+    // DES 在数据库中的精度：DECIMAL(12, 4)
+    public static final int SCORE_SCALE = 4;
+
+    private ScoreSeriesCodec() {
+    }
+
+    /**
+     * 解码结果
+     * @param epochDays 各点的日期（epoch day，升序）
+     * @param unscaledScores 各点的 DES（放大 10^SCORE_SCALE 后的整数）
+     */
+    public record Series(int[] epochDays, long[] unscaledScores) {
+
+        public int size() {
+            return epochDays.length;
+        }
+    }
+
+    /**
+     * 编码前 count 个点（日期需升序）
+     */
+    public static byte[] encode(int[] epochDays, long[] unscaledScores, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 4);
+        int lastDay = 0;
+        long lastScore = 0;
+        for (int i = 0; i < count; i++) {
+            writePoint(out, lastDay, lastScore, epochDays[i], unscaledScores[i]);
+            lastDay = epochDays[i];
+            lastScore = unscaledScores[i];
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 在最后一个点为 (lastDay, lastScore) 的序列后追加一个点，返回需拼接到原数组末尾的字节；
+     * 空序列传入 (0, 0)
+     */
+    public static byte[] appendPoint(int lastDay, long lastScore, int epochDay, long unscaledScore) {
+        if (epochDay < lastDay) {
+            throw new IllegalArgumentException("分数序列日期必须递增: " + epochDay + " < " + lastDay);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8);
+        writePoint(out, lastDay, lastScore, epochDay, unscaledScore);
+        return out.toByteArray();
+    }
+
+    public static Series decode(byte[] packed) {
+        int[] days = new int[Math.max(4, packed.length / 3)];
+        long[] scores = new long[days.length];
+        int count = 0;
+        int day = 0;
+        long score = 0;
+        int[] pos = {0};
+        while (pos[0] < packed.length) {
+            day += (int) readVarint(packed, pos);
+            long zigzag = readVarint(packed, pos);
+            score += (zigzag >>> 1) ^ -(zigzag & 1);
+            if (count == days.length) {
+                days = Arrays.copyOf(days, count * 2);
+                scores = Arrays.copyOf(scores, count * 2);
+            }
+            days[count] = day;
+            scores[count] = score;
+            count++;
+        }
+        return new Series(Arrays.copyOf(days, count), Arrays.copyOf(scores, count));
+    }
+
+    private static void writePoint(ByteArrayOutputStream out, int lastDay, long lastScore, int epochDay, long unscaledScore) {
+        writeVarint(out, epochDay - lastDay);
+        long delta = unscaledScore - lastScore;
+        writeVarint(out, (delta << 1) ^ (delta >> 63));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] packed, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= packed.length) {
+                throw new IllegalArgumentException("分数序列数据被截断");
+            }
+            byte b = packed[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
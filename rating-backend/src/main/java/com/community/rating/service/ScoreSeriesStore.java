@@ -0,0 +1,184 @@
+package com.community.rating.service;
+
+import com.community.rating.entity.MemberRating;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 【分数序列存储】每个 (成员, 领域) 的 DES 历史存为 memberscoreseries 表中的一行（ScoreSeriesCodec 编码），
+ * 成员详情的历史分数按主键前缀 member_id 一次读取并解码，不再按评级历史逐行范围扫描。
+ * RatingWriter 在写入评级的同一事务内追加当日的点（只有写入的评级，即分数变化或心跳重写的点）；同一天重复计算时替换最后一个点。
+ */
+@Component
+public class ScoreSeriesStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoreSeriesStore.class);
+
+    /**
+     * 序列中的一个点
+     */
+    public record Point(LocalDate date, BigDecimal desScore) {
+    }
+
+    /**
+     * 序列主键 (成员, 领域)
+     */
+    private record SeriesKey(long memberId, int areaId) {
+    }
+
+    // 追加：新序列直接插入；已有序列把差分字节拼接到末尾
+    private static final String APPEND_SQL = """
+        INSERT INTO memberscoreseries (member_id, area_id, points, point_count, last_day, last_score)
+        VALUES (?, ?, ?, 1, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            points = CONCAT(points, VALUES(points)),
+            point_count = point_count + 1,
+            last_day = VALUES(last_day),
+            last_score = VALUES(last_score)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ScoreSeriesStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 为一批评级追加当日的点；应在写入这些评级的同一事务内调用。
+     * 只按本批的 (member_id, area_id) 主键读取各序列的最后一个点，不依赖批次顺序或成员范围
+     */
+    public void appendAll(List<MemberRating> ratings) {
+        if (ratings.isEmpty()) {
+            return;
+        }
+        Set<SeriesKey> keys = new LinkedHashSet<>();
+        for (MemberRating rating : ratings) {
+            keys.add(new SeriesKey(rating.getMemberId(), rating.getAreaId()));
+        }
+        // 读取本批各序列的最后一个点（只读两列，不读编码数组）
+        Map<SeriesKey, long[]> lastPoints = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT member_id, area_id, last_day, last_score FROM memberscoreseries WHERE (member_id, area_id) IN ("
+                        + inClause(keys) + ")",
+                (RowCallbackHandler) rs -> lastPoints.put(new SeriesKey(rs.getLong("member_id"), rs.getInt("area_id")),
+                        new long[]{rs.getInt("last_day"), rs.getLong("last_score")}));
+
+        List<Object[]> appends = new ArrayList<>(ratings.size());
+        Map<SeriesKey, Long> reruns = new LinkedHashMap<>();
+        int outOfOrder = 0;
+        for (MemberRating rating : ratings) {
+            int day = (int) rating.getUpdateDate().toEpochDay();
+            long score = unscaled(rating.getDesScore());
+            SeriesKey key = new SeriesKey(rating.getMemberId(), rating.getAreaId());
+            long[] last = lastPoints.get(key);
+            if (last != null && day < last[0]) {
+                // 时钟回拨后按更早日期计算：序列只追加，不插入中间点
+                outOfOrder++;
+                continue;
+            }
+            if (last != null && last[0] == day) {
+                reruns.put(key, score);
+                continue;
+            }
+            byte[] bytes = last == null
+                    ? ScoreSeriesCodec.appendPoint(0, 0, day, score)
+                    : ScoreSeriesCodec.appendPoint((int) last[0], last[1], day, score);
+            appends.add(new Object[]{rating.getMemberId(), rating.getAreaId(), bytes, day, score});
+        }
+        if (!appends.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPEND_SQL, appends);
+        }
+        if (!reruns.isEmpty()) {
+            replaceLastPoints(reruns);
+        }
+        if (outOfOrder > 0) {
+            log.warn("【分数序列】{} 个点早于序列最后日期，未追加", outOfOrder);
+        }
+    }
+
+    /**
+     * 成员在各领域的分数序列（领域 ID -> 按日期升序的点）
+     */
+    public Map<Integer, List<Point>> findByMemberId(Long memberId) {
+        Map<Integer, List<Point>> seriesByArea = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT area_id, points FROM memberscoreseries WHERE member_id = ?",
+                rs -> {
+                    seriesByArea.put(rs.getInt("area_id"), decodePoints(rs.getBytes("points")));
+                },
+                memberId);
+        return seriesByArea;
+    }
+
+    /**
+     * 多个成员在各领域的分数序列（成员 ID -> 领域 ID -> 按日期升序的点），一次查询
+     */
+    public Map<Long, Map<Integer, List<Point>>> findByMemberIds(Collection<Long> memberIds) {
+        Map<Long, Map<Integer, List<Point>>> seriesByMember = new HashMap<>();
+        if (memberIds.isEmpty()) {
+            return seriesByMember;
+        }
+        String inClause = memberIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        jdbcTemplate.query("SELECT member_id, area_id, points FROM memberscoreseries WHERE member_id IN (" + inClause + ")",
+                (RowCallbackHandler) rs -> seriesByMember
+                        .computeIfAbsent(rs.getLong("member_id"), id -> new LinkedHashMap<>())
+                        .put(rs.getInt("area_id"), decodePoints(rs.getBytes("points"))));
+        return seriesByMember;
+    }
+
+    private static List<Point> decodePoints(byte[] packed) {
+        ScoreSeriesCodec.Series series = ScoreSeriesCodec.decode(packed);
+        List<Point> points = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            points.add(new Point(LocalDate.ofEpochDay(series.epochDays()[i]),
+                    BigDecimal.valueOf(series.unscaledScores()[i], ScoreSeriesCodec.SCORE_SCALE)));
+        }
+        return points;
+    }
+
+    // 同一天重复计算：一次读取这些序列，解码后替换最后一个点并重新编码，批量写回
+    private void replaceLastPoints(Map<SeriesKey, Long> scores) {
+        List<Object[]> updates = new ArrayList<>(scores.size());
+        jdbcTemplate.query(
+                "SELECT member_id, area_id, points FROM memberscoreseries WHERE (member_id, area_id) IN ("
+                        + inClause(scores.keySet()) + ")",
+                (RowCallbackHandler) rs -> {
+                    long memberId = rs.getLong("member_id");
+                    int areaId = rs.getInt("area_id");
+                    long score = scores.get(new SeriesKey(memberId, areaId));
+                    ScoreSeriesCodec.Series series = ScoreSeriesCodec.decode(rs.getBytes("points"));
+                    long[] unscaledScores = series.unscaledScores().clone();
+                    unscaledScores[unscaledScores.length - 1] = score;
+                    updates.add(new Object[]{ScoreSeriesCodec.encode(series.epochDays(), unscaledScores, unscaledScores.length),
+                            score, memberId, areaId});
+                });
+        jdbcTemplate.batchUpdate("UPDATE memberscoreseries SET points = ?, last_score = ? WHERE member_id = ? AND area_id = ?",
+                updates);
+    }
+
+    // 主键 IN 列表：(member_id, area_id) 行构造器，值均为数字直接拼接
+    private static String inClause(Collection<SeriesKey> keys) {
+        return keys.stream()
+                .map(key -> "(" + key.memberId() + "," + key.areaId() + ")")
+                .collect(Collectors.joining(","));
+    }
+
+    private static long unscaled(BigDecimal score) {
+        return score.setScale(ScoreSeriesCodec.SCORE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
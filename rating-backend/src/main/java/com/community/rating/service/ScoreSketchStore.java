@@ -0,0 +1,89 @@
+package com.community.rating.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 【分数草图存储】每日计算构建的 DES / CIS 分位数草图（按领域各一个，外加全部领域合并的一个）
+ * 持久化在 scoresketch 表中，并在内存中缓存最近发布的版本，查询不访问评级或内容表。
+ * 每次发布整体替换该分数类型的全部草图。
+ */
+@Component
+public class ScoreSketchStore {
+
+    public static final String METRIC_DES = "DES";
+    public static final String METRIC_CIS = "CIS";
+    // 全部领域合并草图的 area_id
+    public static final int ALL_AREAS = 0;
+
+    /**
+     * 已发布的草图
+     */
+    public record PublishedSketch(QuantileSketch sketch, LocalDateTime asOf) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // 分数类型 -> (area_id -> 草图)；首次查询时从数据库加载
+    private final Map<String, Map<Integer, PublishedSketch>> published = new ConcurrentHashMap<>();
+
+    public ScoreSketchStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 发布一种分数的各领域草图：合并出全部领域草图后整体替换；应在事务内调用，提交后更新内存缓存
+     */
+    public void publish(String metric, Map<Integer, QuantileSketch> sketchesByArea, LocalDateTime asOf) {
+        QuantileSketch all = new QuantileSketch();
+        sketchesByArea.values().forEach(all::merge);
+        Map<Integer, PublishedSketch> sketches = new HashMap<>();
+        sketchesByArea.forEach((areaId, sketch) -> sketches.put(areaId, new PublishedSketch(sketch, asOf)));
+        sketches.put(ALL_AREAS, new PublishedSketch(all, asOf));
+
+        List<Object[]> rows = new ArrayList<>(sketches.size());
+        sketches.forEach((areaId, entry) ->
+                rows.add(new Object[]{metric, areaId, entry.sketch().toBytes(), entry.sketch().count(), asOf}));
+        jdbcTemplate.update("DELETE FROM scoresketch WHERE metric = ?", metric);
+        jdbcTemplate.batchUpdate("INSERT INTO scoresketch (metric, area_id, sketch, value_count, as_of) VALUES (?, ?, ?, ?, ?)", rows);
+
+        Runnable apply = () -> published.put(metric, Map.copyOf(sketches));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * 指定分数类型与领域（null 为全部领域）的草图；尚未构建时为 null
+     */
+    public PublishedSketch find(String metric, Integer areaId) {
+        Map<Integer, PublishedSketch> sketches = published.computeIfAbsent(metric, this::load);
+        return sketches.get(areaId == null ? ALL_AREAS : areaId);
+    }
+
+    private Map<Integer, PublishedSketch> load(String metric) {
+        Map<Integer, PublishedSketch> sketches = new HashMap<>();
+        jdbcTemplate.query("SELECT area_id, sketch, as_of FROM scoresketch WHERE metric = ?",
+                (RowCallbackHandler) rs -> sketches.put(rs.getInt("area_id"), new PublishedSketch(
+                        QuantileSketch.fromBytes(rs.getBytes("sketch")), rs.getTimestamp("as_of").toLocalDateTime())),
+                metric);
+        return Map.copyOf(sketches);
+    }
+}
@@ -0,0 +1,361 @@
+package com.community.rating.service;
+
+import com.community.rating.entity.MemberRating;
+import com.community.rating.repository.MemberRatingRepository;
+import com.community.rating.simulation.ForumDataSimulation;
+import com.community.rating.simulation.VirtualClock;
+import com.community.rating.util.CalculationLease;
+import com.community.rating.util.CalculationStatusManager;
+import com.community.rating.util.DataGeneration;
+import com.community.rating.util.RatingMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 【流式计分服务】消费论坛互动事件流，以微批方式增量更新评分。
+ *
+ * 每个微批：
+ * 1. 按游标拉取新的互动事件（LIKE / COMMENT / SHARE / READ / COLLECT / HATE），按内容聚合计数增量；
+ * 2. 读取受影响内容的当前快照，累加计数并重新计算 CIS；
+ * 3. 将 CIS 变化量乘以内容当前的时效性因子，累加到对应 (成员, 领域) 最新评级的 DES 上，写入当天的评级记录。
+ *
+ * 每日定时全量计算仍然保留，用于校准时效性衰减（时效性因子按天变化，无法仅靠增量维护）。
+ * 尚未进入数据库的新内容产生的事件会被跳过，其计数将随下一次每日快照一并写入。
+ */
+@Service
+public class StreamingScoringService {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingScoringService.class);
+
+    // 是否启用流式计分
+    public static final boolean STREAMING_SCORING_ENABLED = true;
+
+    // CIS 在数据库中的精度：DECIMAL(10, 4)
+    private static final int CIS_SCALE = 4;
+
+    // 微批持有计算租约的最长时间（真实时间）
+    private static final Duration MICRO_BATCH_LEASE_TTL = Duration.ofMinutes(5);
+
+    // 事件类型 -> 计数列下标（与 CONTENT_COUNT_COLUMNS 对应）
+    private static final Map<String, Integer> EVENT_TYPE_INDEX = Map.of(
+            "READ", 0, "LIKE", 1, "COMMENT", 2, "SHARE", 3, "COLLECT", 4, "HATE", 5);
+    private static final String[] CONTENT_COUNT_COLUMNS = {
+            "read_count_snapshot", "like_count_snapshot", "comment_count_snapshot",
+            "share_count_snapshot", "collect_count_snapshot", "hate_count_snapshot"};
+
+    private final ForumDataSimulation forumDataSimulation;
+    private final RatingAlgorithm ratingAlgorithm;
+    private final JdbcTemplate jdbcTemplate;
+    private final CalculationStatusManager calculationStatusManager;
+    private final CalculationLease calculationLease;
+    private final RatingMetrics ratingMetrics;
+    private final RatingWriter ratingWriter;
+    private final ScoreSeriesStore scoreSeriesStore;
+    private final DataGeneration dataGeneration;
+    private final ContentSnapshotFileCache contentSnapshotCache;
+    private final ContentSnapshotVersion contentSnapshotVersion;
+    private final MemberRatingRepository memberRatingRepository;
+    private final VirtualClock virtualClock;
+    // 微批事务：定时方法与微批位于同一类中，自调用不经过代理，@Transactional 不会生效
+    private final TransactionTemplate batchTransaction;
+
+    // 事件游标：已处理的最大事件时间与事件 ID（微批事务提交后才前进，回滚时下一批重新消费同一批事件）
+    private LocalDateTime lastEventTime;
+    private long lastEventId = 0;
+
+    public StreamingScoringService(ForumDataSimulation forumDataSimulation,
+                                   RatingAlgorithm ratingAlgorithm,
+                                   JdbcTemplate jdbcTemplate,
+                                   CalculationStatusManager calculationStatusManager,
+                                   CalculationLease calculationLease,
+                                   RatingMetrics ratingMetrics,
+                                   RatingWriter ratingWriter,
+                                   ScoreSeriesStore scoreSeriesStore,
+                                   DataGeneration dataGeneration,
+                                   ContentSnapshotFileCache contentSnapshotCache,
+                                   ContentSnapshotVersion contentSnapshotVersion,
+                                   MemberRatingRepository memberRatingRepository,
+                                   VirtualClock virtualClock,
+                                   PlatformTransactionManager transactionManager) {
+        this.forumDataSimulation = forumDataSimulation;
+        this.ratingAlgorithm = ratingAlgorithm;
+        this.jdbcTemplate = jdbcTemplate;
+        this.calculationStatusManager = calculationStatusManager;
+        this.calculationLease = calculationLease;
+        this.ratingMetrics = ratingMetrics;
+        this.ratingWriter = ratingWriter;
+        this.scoreSeriesStore = scoreSeriesStore;
+        this.dataGeneration = dataGeneration;
+        this.contentSnapshotCache = contentSnapshotCache;
+        this.contentSnapshotVersion = contentSnapshotVersion;
+        this.memberRatingRepository = memberRatingRepository;
+        this.virtualClock = virtualClock;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 定时微批：真实时间每 10 秒消费一次事件流（约为虚拟时间 2 小时）。
+     * 每日全量计算进行中时跳过，避免与全量写入交错；回放模式不生成事件流，同样跳过。
+     */
+    @Scheduled(initialDelay = 30, fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
+    public void scheduledMicroBatch() {
+        if (!STREAMING_SCORING_ENABLED || ForumDataSimulation.IS_REPLAY_MODE
+                || calculationStatusManager.isCalculationInProgress()) {
+            return;
+        }
+        // 与全量计算任务共用计算租约，租约被占用（计算即将开始或进行中）时跳过本次微批
+        CalculationLease.Lease lease = calculationLease.tryAcquire("streaming", MICRO_BATCH_LEASE_TTL);
+        if (lease == null) {
+            return;
+        }
+        try {
+            processMicroBatch();
+        } catch (Exception e) {
+            log.error("流式计分微批执行失败: {}", e.getMessage(), e);
+        } finally {
+            calculationLease.release(lease);
+        }
+    }
+
+    /**
+     * 在一个事务内执行一个微批，返回本批应用的事件数。
+     * 内容快照、评级与提交后钩子（数据代数、缓存修补、等级计数）随事务一起提交或回滚。
+     */
+    public int processMicroBatch() {
+        Integer applied = batchTransaction.execute(status -> applyMicroBatch());
+        return applied != null ? applied : 0;
+    }
+
+    private int applyMicroBatch() {
+        long startTime = System.currentTimeMillis();
+        LocalDateTime now = virtualClock.now();
+        if (lastEventTime == null) {
+            // 首次启动时从当前时间开始消费，历史数据由每日全量计算覆盖
+            lastEventTime = now;
+            return 0;
+        }
+
+        // 窗口左右两端均为开区间，这里各放宽 1 纳秒，并用事件 ID 去重
+        List<Map<String, Object>> events = forumDataSimulation.getAllInteractionEventsInWindow(
+                lastEventTime.minusNanos(1), now.plusNanos(1));
+
+        // 1. 按内容聚合计数增量
+        Map<Long, long[]> deltasByContent = new LinkedHashMap<>();
+        long maxEventId = lastEventId;
+        int ignoredCount = 0;
+        for (Map<String, Object> event : events) {
+            long eventId = ((Number) event.get("eventId")).longValue();
+            if (eventId <= lastEventId) {
+                continue;
+            }
+            maxEventId = Math.max(maxEventId, eventId);
+            Integer typeIndex = EVENT_TYPE_INDEX.get((String) event.get("type"));
+            if (typeIndex == null) {
+                ignoredCount++;
+                continue;
+            }
+            long contentId = ((Number) event.get("contentId")).longValue();
+            deltasByContent.computeIfAbsent(contentId, id -> new long[CONTENT_COUNT_COLUMNS.length])[typeIndex]++;
+        }
+        advanceCursorAfterCommit(now, maxEventId);
+
+        if (deltasByContent.isEmpty()) {
+            return 0;
+        }
+
+        // 2. 读取受影响内容的当前快照，重新计算 CIS，并计算 DES 增量
+        String inClause = deltasByContent.keySet().stream().map(String::valueOf).collect(Collectors.joining(","));
+        String selectSQL = "SELECT content_id, member_id, area_id, publish_time, post_length_level, " +
+                String.join(", ", CONTENT_COUNT_COLUMNS) + ", cis_score FROM ContentSnapshot WHERE content_id IN (" + inClause + ")";
+
+        List<Object[]> contentUpdates = new ArrayList<>();
+        Map<String, BigDecimal> desDeltas = new HashMap<>();
+        Map<String, long[]> groupKeys = new HashMap<>();
+        // 更新后的快照行（仅有领域的内容，与本地缓存的收录范围一致），提交后用于修补本地内容缓存
+        ContentColumnStore cachedRows = new ContentColumnStore(deltasByContent.size());
+        jdbcTemplate.query(selectSQL, (ResultSet rs) -> {
+            long contentId = rs.getLong("content_id");
+            long[] delta = deltasByContent.get(contentId);
+            long[] counts = new long[CONTENT_COUNT_COLUMNS.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = rs.getLong(CONTENT_COUNT_COLUMNS[i]) + delta[i];
+            }
+            BigDecimal oldCis = rs.getBigDecimal("cis_score");
+            BigDecimal newCis = ratingAlgorithm.calculateCIS(
+                    counts[0], counts[1], counts[2], counts[3], counts[4], counts[5], rs.getInt("post_length_level"));
+            if (newCis == null || newCis.compareTo(BigDecimal.ZERO) < 0) {
+                newCis = BigDecimal.ZERO;
+            }
+            newCis = newCis.setScale(CIS_SCALE, RoundingMode.HALF_UP);
+
+            Object[] params = new Object[CONTENT_COUNT_COLUMNS.length + 3];
+            for (int i = 0; i < counts.length; i++) {
+                params[i] = counts[i];
+            }
+            params[counts.length] = newCis;
+            params[counts.length + 1] = contentId;
+            params[counts.length + 2] = rs.getTimestamp("publish_time");
+            contentUpdates.add(params);
+            if (rs.getObject("area_id") != null) {
+                cachedRows.add(contentId, rs.getLong("member_id"), rs.getInt("area_id"),
+                        rs.getTimestamp("publish_time").toLocalDateTime(), rs.getInt("post_length_level"),
+                        counts[0], counts[1], counts[2], counts[3], counts[4], counts[5]);
+            }
+
+            BigDecimal cisDelta = newCis.subtract(oldCis != null ? oldCis : BigDecimal.ZERO);
+            if (cisDelta.signum() != 0) {
+                long memberId = rs.getLong("member_id");
+                int areaId = rs.getInt("area_id");
+                BigDecimal recency = ratingAlgorithm.calculateRecencyFactor(rs.getTimestamp("publish_time").toLocalDateTime(), now);
+                String key = memberId + ":" + areaId;
+                desDeltas.merge(key, cisDelta.multiply(recency), BigDecimal::add);
+                groupKeys.putIfAbsent(key, new long[]{memberId, areaId});
+            }
+        });
+        int unknownContentCount = deltasByContent.size() - contentUpdates.size();
+
+        // 3. 批量写回内容计数与 CIS（带上分区列 publish_time，每条更新只访问对应月份的分区）
+        String updateSQL = "UPDATE ContentSnapshot SET " +
+                Arrays.stream(CONTENT_COUNT_COLUMNS).map(c -> c + " = ?").collect(Collectors.joining(", ")) +
+                ", cis_score = ? WHERE content_id = ? AND publish_time = ?";
+        long batchStart = System.nanoTime();
+        jdbcTemplate.batchUpdate(updateSQL, contentUpdates);
+        ratingMetrics.recordJdbcBatch("stream_contentsnapshot_update", System.nanoTime() - batchStart, contentUpdates.size());
+        if (!cachedRows.isEmpty()) {
+            patchContentCacheAfterCommit(cachedRows, contentSnapshotVersion.advance());
+        }
+
+        // 4. 将 DES 增量应用到各 (成员, 领域) 的最新评级
+        int ratingUpdates = applyDesDeltas(desDeltas, groupKeys, now);
+        if (!contentUpdates.isEmpty()) {
+            dataGeneration.advanceAfterCommit();
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        ratingMetrics.recordStage(RatingMetrics.STAGE_STREAM, elapsed);
+        ratingMetrics.recordRows(RatingMetrics.STAGE_STREAM, events.size() - ignoredCount, ignoredCount + unknownContentCount);
+        log.info("流式计分微批完成：事件 {} 条，内容 {} 条（未入库跳过 {} 条），评级更新 {} 条，耗时 {} ms",
+                events.size(), contentUpdates.size(), unknownContentCount, ratingUpdates, elapsed);
+        return events.size() - ignoredCount;
+    }
+
+    /**
+     * 在当前事务提交后推进事件游标（回滚时游标不变，下一批重新消费这些事件）
+     */
+    private void advanceCursorAfterCommit(LocalDateTime eventTime, long eventId) {
+        runAfterCommit(() -> {
+            lastEventTime = eventTime;
+            lastEventId = eventId;
+        });
+    }
+
+    /**
+     * 在当前事务提交后按版本修补本地内容缓存（回滚时不修补，缓存版本落后于数据库，下次加载时失效）
+     */
+    private void patchContentCacheAfterCommit(ContentColumnStore rows, ContentSnapshotVersion.Transition transition) {
+        int[] allRows = new int[rows.size()];
+        Arrays.setAll(allRows, i -> i);
+        runAfterCommit(() -> contentSnapshotCache.upsert(rows, allRows, allRows.length, transition));
+    }
+
+    // 在当前事务提交后执行；没有事务时立即执行
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 将 DES 增量累加到每个 (成员, 领域) 的最新评级：最新评级就是当天的记录时原地更新，
+     * 否则以 (member_id, area_id, update_date) 为键 upsert 当天的新记录，不修改更早的历史记录；尚无评级的组合以 0 为基数。
+     * 写入的评级在同一事务内追加到分数序列，并交给 RatingWriter 记录（更新等级分布计数），每日计算据此判断分数是否变化。
+     */
+    private int applyDesDeltas(Map<String, BigDecimal> desDeltas, Map<String, long[]> groupKeys, LocalDateTime now) {
+        if (desDeltas.isEmpty()) {
+            return 0;
+        }
+        String memberIds = groupKeys.values().stream()
+                .map(k -> String.valueOf(k[0])).distinct().collect(Collectors.joining(","));
+        // 按 (member_id, area_id, update_date) 唯一键倒序读取，每组取第一条即最新评级；
+        // 只读取最新评级窗口内的分区，避免扫描全部历史评级
+        String latestSQL = "SELECT rating_id, member_id, area_id, des_score, update_date FROM memberrating " +
+                "WHERE member_id IN (" + memberIds + ") AND update_date >= ? ORDER BY member_id, area_id, update_date DESC";
+        Map<String, Object[]> latestByGroup = new HashMap<>();
+        jdbcTemplate.query(latestSQL, (ResultSet rs) -> {
+            String key = rs.getLong("member_id") + ":" + rs.getInt("area_id");
+            latestByGroup.putIfAbsent(key, new Object[]{
+                    rs.getLong("rating_id"), rs.getBigDecimal("des_score"), rs.getObject("update_date", LocalDate.class)});
+        }, memberRatingRepository.latestRatingWindowStart());
+
+        LocalDate today = now.toLocalDate();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        List<MemberRating> written = new ArrayList<>(desDeltas.size());
+        for (Map.Entry<String, BigDecimal> entry : desDeltas.entrySet()) {
+            Object[] latest = latestByGroup.get(entry.getKey());
+            BigDecimal base = latest != null ? (BigDecimal) latest[1] : BigDecimal.ZERO;
+            BigDecimal desScore = base.add(entry.getValue()).max(BigDecimal.ZERO).setScale(CIS_SCALE, RoundingMode.HALF_UP);
+            String ratingLevel = ratingAlgorithm.determineRatingLevel(desScore);
+            long[] group = groupKeys.get(entry.getKey());
+            if (latest != null && today.equals(latest[2])) {
+                updates.add(new Object[]{desScore, ratingLevel, latest[0], latest[2]});
+            } else {
+                inserts.add(new Object[]{group[0], (int) group[1], desScore, ratingLevel, today});
+            }
+            MemberRating rating = new MemberRating();
+            rating.setMemberId(group[0]);
+            rating.setAreaId((int) group[1]);
+            rating.setDesScore(desScore);
+            rating.setRatingLevel(ratingLevel);
+            rating.setUpdateDate(today);
+            written.add(rating);
+        }
+
+        if (!updates.isEmpty()) {
+            long batchStart = System.nanoTime();
+            // 按主键 (rating_id, update_date) 更新，带上分区列只访问当月分区
+            jdbcTemplate.batchUpdate("UPDATE memberrating SET des_score = ?, rating_level = ? WHERE rating_id = ? AND update_date = ?", updates);
+            ratingMetrics.recordJdbcBatch("stream_memberrating_update", System.nanoTime() - batchStart, updates.size());
+        }
+        if (!inserts.isEmpty()) {
+            long batchStart = System.nanoTime();
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO memberrating (member_id, area_id, des_score, rating_level, update_date) VALUES (?, ?, ?, ?, ?) " +
+                            "ON DUPLICATE KEY UPDATE des_score = VALUES(des_score), rating_level = VALUES(rating_level)",
+                    inserts);
+            ratingMetrics.recordJdbcBatch("stream_memberrating_insert", System.nanoTime() - batchStart, inserts.size());
+        }
+        scoreSeriesStore.appendAll(written);
+        ratingWriter.recordWritten(written);
+        return updates.size() + inserts.size();
+    }
+}
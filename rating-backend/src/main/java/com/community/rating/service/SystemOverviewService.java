@@ -3,6 +3,8 @@ package com.community.rating.service;
 
 import com.community.rating.dto.SystemOverviewDTO;
 
+import java.util.Map;
+
 /**
  * 系统概览数据的服务接口
  */
@@ -12,4 +14,12 @@ public interface SystemOverviewService {
      * @return 包含所有系统统计数据的 SystemOverviewDTO
      */
     SystemOverviewDTO getSystemOverview();
+
+    /**
+     * 获取评级等级分布百分比（与概览中的 ratingDistribution 口径相同）。
+     * 按 (成员, 领域) 的最新评级计数：全局分布中，在多个领域有评级的成员在各领域的等级上各计一次
+     * @param areaId 领域 ID；为 null 时返回全局分布
+     * @return Map<等级, 百分比>，例如 {"L1": 5.2, "L2": 12.5}
+     */
+    Map<String, Double> getRatingDistribution(Integer areaId);
 }
\ No newline at end of file
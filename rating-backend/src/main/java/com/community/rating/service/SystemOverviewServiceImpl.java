@@ -34,6 +34,7 @@ public class SystemOverviewServiceImpl implements SystemOverviewService {
     private final Member_MemberRating_KnowledgeArea_Repository memberRankingRepo;
     private final AchievementStatus_AchievementDefinition_Repository achievementStatsRepo;
     private final RatingAlgorithm ratingAlgorithm;
+    private final RatingLevelCounterStore levelCounterStore;
 
     private static final int TOP_LIST_LIMIT = 5;
     private static final DateTimeFormatter ISO_FORMATTER = 
@@ -74,7 +75,7 @@ public class SystemOverviewServiceImpl implements SystemOverviewService {
         Double avgDesScore = memberRatingRepository.calculateAverageDesScoreOfLatestRatings();
         String formattedAverageRating = ratingAlgorithm.formatAverageRatingLevel(avgDesScore);
         
-        // 打印 DES 分数分布用于调整等级阈值
+        // 打印 DES 分数分布用于调整等级阈值（全量排序开销大，已停用；分位数与直方图见 ScoreDistributionService）
         // printDesScoreDistribution();
         
         // 计算评级分布百分比
@@ -102,21 +103,48 @@ public class SystemOverviewServiceImpl implements SystemOverviewService {
         return dto;
     }
 
+    @Override
+    public Map<String, Double> getRatingDistribution(Integer areaId) {
+        if (areaId == null) {
+            return calculateRatingDistribution(null);
+        }
+        // 优先读取等级分布计数；计数表为空（尚未初始化）时回退到按评级历史统计
+        Map<String, Long> levelCounts = levelCounterStore.findAreaDistribution(areaId);
+        if (levelCounts.isEmpty()) {
+            levelCounts = toLevelCounts(memberRatingRepository.getRatingDistributionByArea(areaId));
+        }
+        return toPercentages(levelCounts);
+    }
+
     /**
      * 计算各评级等级的分布百分比
      * @param totalMembers 总成员数（未使用，保持接口兼容）
      * @return Map<等级, 百分比>，例如 {"L1": 5.2, "L2": 12.5}
      */
     private Map<String, Double> calculateRatingDistribution(Long totalMembers) {
+        // 优先读取等级分布计数（由评级写入时增量维护）；计数表为空（尚未初始化）时回退到按评级历史统计
+        Map<String, Long> levelCounts = levelCounterStore.findGlobalDistribution();
+        if (levelCounts.isEmpty()) {
+            levelCounts = toLevelCounts(memberRatingRepository.getRatingDistribution());
+        }
+        return toPercentages(levelCounts);
+    }
+
+    // [rating_level, count] 行 -> 等级 -> 计数（保持查询顺序）
+    private static Map<String, Long> toLevelCounts(List<Object[]> rawData) {
+        Map<String, Long> levelCounts = new LinkedHashMap<>();
+        for (Object[] row : rawData) {
+            levelCounts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return levelCounts;
+    }
+
+    private static Map<String, Double> toPercentages(Map<String, Long> levelCounts) {
         Map<String, Double> distribution = new LinkedHashMap<>();
         
-        // 从数据库查询各等级的成员数（最新评级）
-        List<Object[]> rawData = memberRatingRepository.getRatingDistribution();
-        
         // 第一遍：计算最新评级的总数
         long totalLatestRatings = 0;
-        for (Object[] row : rawData) {
-            Long levelCount = ((Number) row[1]).longValue();
+        for (Long levelCount : levelCounts.values()) {
             totalLatestRatings += levelCount;
         }
         
@@ -126,15 +154,12 @@ public class SystemOverviewServiceImpl implements SystemOverviewService {
         }
         
         // 第二遍：根据最新评级总数计算百分比
-        for (Object[] row : rawData) {
-            String ratingLevel = (String) row[0];
-            Long levelCount = ((Number) row[1]).longValue();
-            
+        for (Map.Entry<String, Long> entry : levelCounts.entrySet()) {
             // 计算百分比：基于最新评级总数而非成员数（保留 1 位小数）
-            double percentage = (double) levelCount / totalLatestRatings * 100.0;
+            double percentage = (double) entry.getValue() / totalLatestRatings * 100.0;
             percentage = Math.round(percentage * 10.0) / 10.0; // 保留 1 位小数
             
-            distribution.put(ratingLevel, percentage);
+            distribution.put(entry.getKey(), percentage);
         }
         
         return distribution;
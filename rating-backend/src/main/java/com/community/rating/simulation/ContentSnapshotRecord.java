@@ -0,0 +1,48 @@
+package com.community.rating.simulation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 内容快照（类型化传输结构），字段对齐 ContentSnapshot 表（不含 cis_score）。
+ * 代替每行 11 个键的 HashMap：计数字段为原始类型，评级端直接读取，无需装箱与按键查找。
+ * JSON 字段名与旧 Map 结构保持一致。
+ */
+public record ContentSnapshotRecord(
+        @JsonProperty("content_id") long contentId,
+        @JsonProperty("member_id") long memberId,
+        @JsonProperty("publish_time") LocalDateTime publishTime,
+        @JsonProperty("knowledge_tag") String knowledgeTag,
+        @JsonProperty("post_length_level") int postLengthLevel,
+        @JsonProperty("read_count_snapshot") long readCount,
+        @JsonProperty("like_count_snapshot") long likeCount,
+        @JsonProperty("comment_count_snapshot") long commentCount,
+        @JsonProperty("share_count_snapshot") long shareCount,
+        @JsonProperty("collect_count_snapshot") long collectCount,
+        @JsonProperty("hate_count_snapshot") long hateCount
+) {
+
+    /**
+     * 转换为旧的 Map 结构（仅供兼容接口使用）
+     */
+    public Map<String, Object> toMap() {
+        // 使用 HashMap 替代 Map.of() 来支持超过 10 个键值对。
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("content_id", contentId);
+        snapshot.put("member_id", memberId);
+        snapshot.put("publish_time", publishTime.toString());
+        snapshot.put("knowledge_tag", knowledgeTag);
+        snapshot.put("post_length_level", postLengthLevel);
+        // 快照计数
+        snapshot.put("read_count_snapshot", readCount);
+        snapshot.put("like_count_snapshot", likeCount);
+        snapshot.put("comment_count_snapshot", commentCount);
+        snapshot.put("share_count_snapshot", shareCount);
+        snapshot.put("collect_count_snapshot", collectCount);
+        snapshot.put("hate_count_snapshot", hateCount);
+        return snapshot;
+    }
+}
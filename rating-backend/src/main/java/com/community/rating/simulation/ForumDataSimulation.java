@@ -0,0 +1,1303 @@
+package com.community.rating.simulation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import lombok.*;
+import org.antlr.v4.runtime.misc.Pair;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+import java.util.stream.Collectors;
+import jakarta.annotation.PostConstruct;
+/**
+ * 【重构组件】论坛系统模拟器：完全模拟外部论坛数据库和数据接口。
+ * 职责：
+ * 1. 持续生成并维护 Member, Content, InteractionEvent 三类实体数据。
+ * 2. 对外暴露：评级系统定时拉取数据的接口 (PULL)。
+ * 3. 模拟：外部系统偶尔向评级系统推送通知 (PUSH)。
+ * 数据结构已严格对齐评级系统的 ContentSnapshot 和 Member 表要求。
+ */
+@Service
+@RequiredArgsConstructor
+public class ForumDataSimulation {
+
+    // 知识领域映射 (使用 String 作为知识领域标签)
+    private static final List<String> KNOWLEDGE_AREA_TAGS = List.of(
+            "前端开发", "后端开发", "数据科学", "视觉设计", "产品管理", "云计算与运维");
+
+    // 是否使用虚拟时间
+    public static final boolean USE_VIRTUAL_TIME = true;
+    // 模拟用户行为特征定义
+    private static final int GENERATE_DAYS_RANGE = 300; // 生成数据的时间范围（天）, 需大于180
+    // 生成用户量
+    private static final int SIMULATE_USER_COUNT = 2000;
+    // 是否为读取模式
+    public static final boolean IS_LOAD_MODE = false;
+    // 【回放模式】固定随机种子 + 手动步进的虚拟时钟，定时生成任务停用，由回放驱动器逐日推进，
+    // 用于在相同工作负载下对比不同构建的性能（数据规模由 SIMULATE_USER_COUNT 固定）
+    public static final boolean IS_REPLAY_MODE = false;
+    // 回放模式的随机种子与起始虚拟时间
+    public static final long REPLAY_SEED = 20240601L;
+    public static final LocalDateTime REPLAY_START_TIME = LocalDateTime.of(2024, 6, 1, 0, 0);
+    // 模拟行为文件夹
+    private static final String SIMULATION_DATA_FOLDER = "./simulation/";
+    // 模拟行为文件（旧 JSON 全量格式，仅用于迁移加载）
+    private static final String SIMULATION_DATA_FILE = SIMULATION_DATA_FOLDER + "forum_simulation_data.json";
+    // 模拟状态二进制快照与追加日志
+    private static final String SIMULATION_SNAPSHOT_FILE = SIMULATION_DATA_FOLDER + "forum_simulation_state.bin";
+    private static final String SIMULATION_LOG_FILE = SIMULATION_DATA_FOLDER + "forum_simulation_changes.log";
+    // 追加日志超过快照大小的该倍数时压缩（重写快照并清空日志）
+    private static final int SIMULATION_LOG_COMPACT_RATIO = 2;
+    // 持久化记录类型
+    private static final byte RECORD_MEMBER = 1;
+    private static final byte RECORD_CONTENT = 2;
+    
+    // 【动态缩放因子】基于用户总数调整 readMean，保持相对比例不变
+    // 基准用户数为 1000，如果实际用户数不同，按比例调整
+    // 公式：actualReadMean = baselineReadMean * (SIMULATE_USER_COUNT / 1000) * scalingFactor
+    private static final int BASELINE_USER_COUNT = 8000;
+    private static final double READ_SCALING_FACTOR = 1; // 总体缩放因子，可根据需要调整 (0-1)
+    
+    private static double getScaledReadMean(double baselineReadMean) {
+        return baselineReadMean * (SIMULATE_USER_COUNT / (double) BASELINE_USER_COUNT) * READ_SCALING_FACTOR;
+    }
+    
+    // 【压测生成】每个并行任务负责的用户数
+    private static final int PARALLEL_CHUNK_USERS = 1000;
+    // 【压测生成】成员 ID 起始值，与在线模拟的自增 ID 区间分开
+    private static final long LOAD_TEST_MEMBER_ID_BASE = 10_000_000L;
+    // 【压测生成】内容 ID = 成员 ID * 步长 + 序号；单个用户生成的文章数远小于该步长
+    private static final long LOAD_TEST_CONTENT_ID_STRIDE = 1000L;
+    // 每日更新已有内容时的并行分块大小
+    private static final int UPDATE_CHUNK_SIZE = 4096;
+
+    // 新增阅读量衰减因子
+    public static final double NEW_READ_DECAY_FACTOR = 0.35;
+    // 【互动事件流】是否持续生成互动事件（供评级系统流式计分消费）
+    public static final boolean SIMULATE_INTERACTION_EVENTS = true;
+    // 每批生成的互动事件数（真实时间每 5 秒一批，约为虚拟时间 1 小时）
+    private static final int INTERACTION_EVENTS_PER_TICK = 200;
+    // 互动事件保留期（虚拟天数），更早的事件被淘汰
+    private static final int INTERACTION_EVENT_RETENTION_DAYS = 3;
+    // 互动类型分布
+    private static final WeightedList<InteractionType> INTERACTION_TYPE_WEIGHTS = new WeightedList<>(
+            List.of(InteractionType.READ, InteractionType.LIKE, InteractionType.COMMENT,
+                    InteractionType.SHARE, InteractionType.COLLECT, InteractionType.HATE),
+            List.of(80, 8, 3, 2, 4, 3));
+    // 用户行为枚举
+    private static final WeightedList<UserBehavior> SIMULATE_USER_BEHAVIORS = new WeightedList<>(List.of(
+            new Pair<>(new UserBehavior(
+                    "沉默浏览型",
+                    new WeightedList<>(List.of(0, 2, 5), List.of(80, 15, 5)),
+                    new WeightedList<>(List.of(0), List.of(1)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(80, 15, 5)),
+                    new InteractionMetrics(200, 80, 0.005, 0.001, 0.001, 0.002, 0.005),
+                    Optional.empty()
+            ), 30),
+            new Pair<>(new UserBehavior(
+                    "量产低质型",
+                    new WeightedList<>(List.of(60, 90, 150), List.of(50, 35, 15)),
+                    new WeightedList<>(List.of(0), List.of(1)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(80, 18, 2)),
+                    new InteractionMetrics(800, 250, 0.01, 0.002, 0.001, 0.003, 0.025),
+                    Optional.empty()
+            ), 4),
+            new Pair<>(new UserBehavior(
+                    "稳健创作型",
+                    new WeightedList<>(List.of(24, 36, 60), List.of(60, 30, 10)),
+                    new WeightedList<>(List.of(0, 1), List.of(70, 30)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(20, 60, 20)),
+                    new InteractionMetrics(8000, 3000, 0.05, 0.015, 0.008, 0.012, 0.004),
+                    Optional.of(new SpecialPostRules(0.01, 5.0, 1.6, 1.6, 1.6, 1.6, 1.6))
+            ), 15),
+            new Pair<>(new UserBehavior(
+                    "爆款拉动型",
+                    new WeightedList<>(List.of(24, 36, 72), List.of(50, 40, 10)),
+                    new WeightedList<>(List.of(0, 1), List.of(80, 20)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(30, 50, 20)),
+                    new InteractionMetrics(4000, 2500, 0.04, 0.01, 0.006, 0.01, 0.005),
+                    Optional.of(new SpecialPostRules(0.08, 10.0, 1.8, 1.8, 1.8, 1.8, 1.8))
+            ), 8),
+            new Pair<>(new UserBehavior(
+                    "长文深度收藏型",
+                    new WeightedList<>(List.of(12, 18, 30), List.of(70, 25, 5)),
+                    new WeightedList<>(List.of(0, 1), List.of(90, 10)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(5, 35, 60)),
+                    new InteractionMetrics(5500, 2000, 0.05, 0.03, 0.012, 0.06, 0.003),
+                    Optional.empty()
+            ), 6),
+            new Pair<>(new UserBehavior(
+                    "传播导向型",
+                    new WeightedList<>(List.of(36, 48, 80), List.of(50, 35, 15)),
+                    new WeightedList<>(List.of(0, 1), List.of(60, 40)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(70, 25, 5)),
+                    new InteractionMetrics(12000, 6000, 0.03, 0.006, 0.05, 0.006, 0.006),
+                    Optional.empty()
+            ), 6),
+            new Pair<>(new UserBehavior(
+                    "讨论驱动型",
+                    new WeightedList<>(List.of(18, 24, 36), List.of(60, 30, 10)),
+                    new WeightedList<>(List.of(0, 1, 2), List.of(70, 20, 10)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(10, 55, 35)),
+                    new InteractionMetrics(4500, 2200, 0.035, 0.05, 0.008, 0.018, 0.007),
+                    Optional.empty()
+            ), 6),
+            new Pair<>(new UserBehavior(
+                    "争议两极型",
+                    new WeightedList<>(List.of(12, 16, 30), List.of(60, 30, 10)),
+                    new WeightedList<>(List.of(0, 1), List.of(70, 30)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(30, 50, 20)),
+                    new InteractionMetrics(6000, 4000, 0.03, 0.05, 0.01, 0.01, 0.03),
+                    Optional.of(new SpecialPostRules(0.2, 4.0, 2.0, 2.0, 2.0, 1.0, 2.0))
+            ), 4),
+            new Pair<>(new UserBehavior(
+                    "标题党低转化型",
+                    new WeightedList<>(List.of(20, 30, 50), List.of(50, 35, 15)),
+                    new WeightedList<>(List.of(0, 1), List.of(60, 40)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(70, 25, 5)),
+                    new InteractionMetrics(30000, 15000, 0.007, 0.002, 0.005, 0.001, 0.012),
+                    Optional.empty()
+            ), 8),
+            new Pair<>(new UserBehavior(
+                    "单领域精品型",
+                    new WeightedList<>(List.of(10, 15, 24), List.of(70, 25, 5)),
+                    new WeightedList<>(List.of(0), List.of(1)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(10, 40, 50)),
+                    new InteractionMetrics(2500, 900, 0.04, 0.018, 0.012, 0.07, 0.002),
+                    Optional.of(new SpecialPostRules(0.25, 3.0, 1.5, 1.5, 1.5, 2.0, 1.5))
+            ), 5),
+            new Pair<>(new UserBehavior(
+                    "单领域勤奋型",
+                    new WeightedList<>(List.of(30, 45, 70), List.of(40, 40, 20)),
+                    new WeightedList<>(List.of(0, 1), List.of(95, 5)),
+                    new WeightedList<>(List.of(1, 2, 3), List.of(30, 60, 10)),
+                    new InteractionMetrics(2000, 700, 0.025, 0.006, 0.004, 0.013, 0.005),
+                    Optional.empty()
+            ), 8)
+    ));
+    // 依赖注入 JdbcTemplate 用于原生 SQL 操作
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final Logger log = LoggerFactory.getLogger(ForumDataSimulation.class);
+    private final Random random = IS_REPLAY_MODE ? new Random(REPLAY_SEED) : new Random();
+
+    // --- 模拟数据存储 (模拟论坛实时数据库) ---
+    // 成员 / 内容变更流：按版本号分页拉取，评级系统提交后确认（ack），确认前的变更不会丢失
+    private final VersionedChangeFeed<Long, MemberRecord> memberChanges = new VersionedChangeFeed<>();
+    private final VersionedChangeFeed<Long, ContentRecord> contentChanges = new VersionedChangeFeed<>();
+    // 互动事件按时间索引存储，窗口查询 O(log n + k)，超出保留期的事件定期淘汰
+    private final TimeIndexedEventStore<InteractionEventRecord> eventLog = new TimeIndexedEventStore<>();
+
+    // 模拟状态持久化：二进制快照 + 每日追加变化记录
+    private final SimulationStateStore stateStore = new SimulationStateStore(
+            Paths.get(SIMULATION_SNAPSHOT_FILE), Paths.get(SIMULATION_LOG_FILE));
+    // 自上次持久化以来变化的成员 / 内容（fullSaveData 列表下标）
+    private final BitSet dirtyMembers = new BitSet();
+    private final BitSet dirtyContents = new BitSet();
+
+    // 模拟保存数据结构
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimulationSaveData fullSaveData = new SimulationSaveData(
+            new ArrayList<>(), new ArrayList<>(), TimeSimulation.now()
+    );
+
+    // 唯一 ID 生成器
+    private final AtomicLong memberIdCounter = new AtomicLong(100);
+    private final AtomicLong contentIdCounter = new AtomicLong(200);
+    private final AtomicLong eventIdCounter = new AtomicLong(1);
+
+    // 内部数据实体定义 (使用 Record 模拟)
+    // MemberRecord 匹配 Member 表, 多了对应的
+    private record MemberRecord(
+            @JsonProperty("id") long id,
+            @JsonProperty("name") String name,
+            @JsonProperty("join") LocalDateTime joinDate,
+            @JsonProperty("behaviour") int behaviorIndex,
+            @JsonProperty("domains") List<String> domains,
+            @JsonProperty("post") int postCountBase
+    ) {}
+
+    // ContentRecord 匹配 ContentSnapshot 表（不含 cis_score）
+    private record ContentRecord(
+            @JsonProperty("id") long id,
+            @JsonProperty("author") long authorId,
+            @JsonProperty("title") String title,
+            @JsonProperty("time") LocalDateTime publishTime,
+            @JsonProperty("tag") String knowledgeTag,         // knowledge_tag
+            @JsonProperty("length") int postLengthLevel,         // post_length_level (1, 2, 3)
+            // 快照计数器，用于实时累积
+            @JsonProperty("read") long readCount,        // read_count_snapshot
+            @JsonProperty("like") long likeCount,        // like_count_snapshot
+            @JsonProperty("comment") long commentCount,     // comment_count_snapshot
+            @JsonProperty("share") long shareCount,       // share_count_snapshot
+            @JsonProperty("collect") long collectCount,     // collect_count_snapshot
+            @JsonProperty("hate") long hateCount         // hate_count_snapshot
+    ) {}
+
+    // InteractionType 扩展为 6 种类型
+    private record InteractionEventRecord(Long eventId, Long contentId, Long memberId, InteractionType type, LocalDateTime timestamp) {}
+    private enum InteractionType { LIKE, COMMENT, SHARE, READ, COLLECT, HATE }
+
+    private record UserBehavior(
+            String behaviorName, // 行为名称
+            WeightedList<Integer> postCountBase, // 发帖数基准
+            WeightedList<Integer> domains, // 领域分布
+            WeightedList<Integer> lengthLevels, // 文章长度分布
+            InteractionMetrics interaction, // 互动基准
+            Optional<ExtraRules> extraRules // 额外规则
+    ) {}
+
+    private record InteractionMetrics(
+            double readMean, double readStdDev, double likePercent, double commentPercent,
+            double sharePercent, double collectPercent, double hatePercent
+    ) {}
+
+
+    private record InteractionCount(
+            long readCount, long likeCount, long commentCount,
+            long shareCount, long collectCount, long hateCount
+    ) {
+        public InteractionCount multiply(double factor) {
+            return new InteractionCount(
+                    (long) (readCount * factor),
+                    (long) (likeCount * factor),
+                    (long) (commentCount * factor),
+                    (long) (shareCount * factor),
+                    (long) (collectCount * factor),
+                    (long) (hateCount * factor)
+            );
+        }
+
+        public InteractionCount multiply(SpecialPostRules rules) {
+            return new InteractionCount(
+                    (long) (readCount * rules.readMultiplier),
+                    (long) (likeCount * rules.likeMultiplier),
+                    (long) (commentCount * rules.commentMultiplier),
+                    (long) (shareCount * rules.shareMultiplier),
+                    (long) (collectCount * rules.collectMultiplier),
+                    (long) (hateCount * rules.hateMultiplier)
+            );
+        }
+    }
+
+    // 占位符，未来可扩展额外规则
+    private interface ExtraRules {}
+
+    // 特殊文章规则
+    private record SpecialPostRules(
+            double percent,
+            double readMultiplier, double likeMultiplier,
+            double commentMultiplier, double shareMultiplier,
+            double collectMultiplier, double hateMultiplier
+    ) implements ExtraRules {}
+
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    private static class SimulationSaveData {
+        public List<MemberRecord> members;
+        public List<ContentRecord> contents;
+        public LocalDateTime timestamp;
+    }
+
+    // 初始化方法，由Spring在构造函数执行后自动调用
+    @PostConstruct
+    public void initialize() {
+        // 当不是读取模式时，清除并初始化数据库表
+        if (!IS_LOAD_MODE) {
+            log.info("开始清除并初始化数据库表...");
+            long startTime = System.currentTimeMillis();
+            // 使用原生 SQL DELETE 清除表数据（按依赖关系顺序）
+            truncateTables();
+            long endTime = System.currentTimeMillis();
+            log.info("数据库表清除完成，耗时: {} ms", endTime - startTime);
+        }
+
+        configureObjectMapper();
+
+        createFilesIfNotExist();
+        if (IS_LOAD_MODE) {
+            loadFromFile();
+        } else {
+            resetStateFiles();
+            simulate();
+            saveToFile();
+        }
+    }
+
+    /**
+     * 使用原生 SQL 批量删除表数据（比 deleteAll() 快 10-100 倍）
+     * 按照外键依赖关系顺序删除（计算检查点随数据一起清除）：
+     * 1. AchievementStatus (依赖 Member 和 AchievementDefinition)
+     * 2. ScoreSketch、RatingLevelCounter、MemberScoreSeries、MemberRatingRollup、MemberRating (依赖 Member 和 KnowledgeArea)
+     * 3. ContentSnapshot (依赖 Member)
+     * 4. Member (基础表，最后删除)
+     */
+    private void truncateTables() {
+        try {
+            // 禁用外键检查（MySQL）
+            jdbcTemplate.execute("SET FOREIGN_KEY_CHECKS=0");
+            
+            // 按依赖关系删除表
+            String[] tables = {"calculationcheckpoint", "dataversion", "achievementstatus", "scoresketch", "ratinglevelcounter", "memberscoreseries", "memberratingrollup", "memberrating", "contentsnapshot", "member"};
+            for (String table : tables) {
+                long startTime = System.currentTimeMillis();
+                int rowsDeleted = jdbcTemplate.update("DELETE FROM " + table);
+                long elapsed = System.currentTimeMillis() - startTime;
+                log.info("已删除 {} 表: {} 行，耗时: {} ms", table, rowsDeleted, elapsed);
+                
+                // 重置自增计数器（可选，根据 DB 类型调整）
+                jdbcTemplate.execute("ALTER TABLE " + table + " AUTO_INCREMENT=1");
+            }
+            
+            // 重新启用外键检查
+            jdbcTemplate.execute("SET FOREIGN_KEY_CHECKS=1");
+            log.info("表清除完成，已重新启用外键检查");
+        } catch (Exception e) {
+            log.error("清除表时出错: {}", e.getMessage(), e);
+            // 恢复外键检查
+            try {
+                jdbcTemplate.execute("SET FOREIGN_KEY_CHECKS=1");
+            } catch (Exception ignore) {
+            }
+            throw new RuntimeException("数据库表清除失败", e);
+        }
+    }
+
+    // 主模拟方法
+    private void simulate() {
+        int[] distributes = SIMULATE_USER_BEHAVIORS.getDistributeList(SIMULATE_USER_COUNT);
+        LocalDateTime now = TimeSimulation.now();
+        for (int i = 0; i < SIMULATE_USER_BEHAVIORS.size(); i++) {
+            UserBehavior behavior = SIMULATE_USER_BEHAVIORS.getElements().get(i);
+            int userCount = distributes[i];
+            log.info("生成用户行为类型 '{}' 的用户，共计 {} 人。", behavior.behaviorName, userCount);
+            for (int j = 0; j < userCount; j++) {
+                generateUserOfBehavior(i, now);
+            }
+        }
+        fullSaveData.timestamp = now;
+        log.info("初始模拟完成，共生成用户 {} 人，内容 {} 篇。)", fullSaveData.members.size(), fullSaveData.contents.size());
+    }
+
+    // 持续生成方法
+    @Scheduled(initialDelay = 15, fixedRate = 30, timeUnit = TimeUnit.SECONDS) // 每1分钟执行一次
+    private void simulateDailyUpdates() {
+        // 回放模式由驱动器显式调用 runDailyUpdate
+        if (IS_REPLAY_MODE) {
+            return;
+        }
+        runDailyUpdate();
+    }
+
+    /**
+     * 若当前虚拟时间已进入新的一天，则更新已有内容并生成当天的新内容，返回是否执行了更新。
+     */
+    public synchronized boolean runDailyUpdate() {
+        LocalDateTime now = TimeSimulation.now();
+        LocalDate nowDate = now.toLocalDate();
+        LocalDate lastUpdateDate = fullSaveData.timestamp.toLocalDate();
+        // 计算与上次更新是否在同一天
+        if (!nowDate.isAfter(lastUpdateDate)) {
+            return false;
+        }
+        log.info("检测到新的一天{}，开始更新并生成新的内容数据...", now.toLocalDate());
+        // 更新已有内容的阅读量等数据
+        updatePreviousContents(nowDate);
+        // 生成新的内容数据
+        generateNewDayContent(nowDate);
+        fullSaveData.timestamp = now;
+        // 保存到文件
+        saveToFile();
+        return true;
+    }
+
+    /**
+     * 【互动事件流】定时生成一批互动事件，并实时累加到对应内容的快照计数。
+     * 被互动的内容会进入下一次增量快照，保证每日快照与事件流一致。
+     */
+    @Scheduled(initialDelay = 20, fixedRate = 5, timeUnit = TimeUnit.SECONDS)
+    private void simulateInteractionEvents() {
+        if (!SIMULATE_INTERACTION_EVENTS || IS_REPLAY_MODE
+                || fullSaveData.contents.isEmpty() || fullSaveData.members.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = TimeSimulation.now();
+        for (int i = 0; i < INTERACTION_EVENTS_PER_TICK; i++) {
+            int index = random.nextInt(fullSaveData.contents.size());
+            ContentRecord content = fullSaveData.contents.get(index);
+            MemberRecord actor = fullSaveData.members.get(random.nextInt(fullSaveData.members.size()));
+            InteractionType type = sample(random, INTERACTION_TYPE_WEIGHTS);
+
+            eventLog.append(now, new InteractionEventRecord(eventIdCounter.incrementAndGet(), content.id, actor.id, type, now));
+
+            ContentRecord updatedContent = incrementInteraction(content, type);
+            fullSaveData.contents.set(index, updatedContent);
+            dirtyContents.set(index);
+            contentChanges.put(updatedContent.id, updatedContent);
+        }
+
+        long evicted = eventLog.evictBefore(now.minusDays(INTERACTION_EVENT_RETENTION_DAYS));
+        if (evicted > 0) {
+            log.debug("淘汰过期互动事件 {} 条，当前保留 {} 条", evicted, eventLog.size());
+        }
+    }
+
+    // 对内容的某类互动计数加一
+    private ContentRecord incrementInteraction(ContentRecord c, InteractionType type) {
+        return new ContentRecord(
+                c.id, c.authorId, c.title, c.publishTime, c.knowledgeTag, c.postLengthLevel,
+                c.readCount + (type == InteractionType.READ ? 1 : 0),
+                c.likeCount + (type == InteractionType.LIKE ? 1 : 0),
+                c.commentCount + (type == InteractionType.COMMENT ? 1 : 0),
+                c.shareCount + (type == InteractionType.SHARE ? 1 : 0),
+                c.collectCount + (type == InteractionType.COLLECT ? 1 : 0),
+                c.hateCount + (type == InteractionType.HATE ? 1 : 0)
+        );
+    }
+
+    // 根据用户特征生成用户
+    private void generateUserOfBehavior(int behaviorIndex, LocalDateTime now) {
+        UserBehavior behavior = SIMULATE_USER_BEHAVIORS.getElements().get(behaviorIndex);
+        // 计算需要抽取的领域数
+        int domainCount = behavior.domains.size();
+        // 抽取领域
+        List<String> domains = sample(random, KNOWLEDGE_AREA_TAGS, domainCount);
+        int postCountBase = sample(random, behavior.postCountBase);
+
+        LocalDateTime registerTime = now.minusDays(GENERATE_DAYS_RANGE);
+        // 生成用户
+        MemberRecord memberRecord = generateRandomMember(behaviorIndex, domains, postCountBase, registerTime);
+
+        // 计算需要生成的文章数
+        int articlesToGenerate = randAround(random, postCountBase, 10);
+        // 生成文章发布时间
+        List<LocalDateTime> publishDates = sampleDates(random, registerTime, GENERATE_DAYS_RANGE, articlesToGenerate);
+
+        for (LocalDateTime publishDate : publishDates) {
+
+            long elapsedDays = ChronoUnit.DAYS.between(publishDate.toLocalDate(), now.toLocalDate());
+
+            ContentRecord content = generateSingleArticle(
+                    random,
+                    behavior,
+                    domains,
+                    memberRecord.id,
+                    contentIdCounter.incrementAndGet(),
+                    publishDate,
+                    elapsedDays
+            );
+
+            contentChanges.put(content.id, content);
+            fullSaveData.contents.add(content);
+            dirtyContents.set(fullSaveData.contents.size() - 1);
+//            logContent(content);
+        }
+    }
+
+    private void generateNewDayContent(LocalDate currentDate) {
+        // 遍历所有成员，按其行为特征生成新内容
+        for (MemberRecord member : fullSaveData.members) {
+            // 成员的行为特征
+            UserBehavior behavior = SIMULATE_USER_BEHAVIORS.getElements().get(member.behaviorIndex);
+            // 抽取领域
+            List<String> domains = member.domains;
+            // 计算需要生成的文章数
+            WeightedList<Boolean> postDecision = new WeightedList<>(
+                    List.of(true, false), List.of(member.postCountBase, GENERATE_DAYS_RANGE - member.postCountBase)
+            );
+            int articlesToGenerate = sample(random, postDecision) ? 1 : 0;
+            // 生成文章发布时间
+            LocalDateTime startOfDay = currentDate.atStartOfDay();
+            List<LocalDateTime> publishDates = sampleDates(random, startOfDay, 1, articlesToGenerate);
+
+            for (LocalDateTime publishDate : publishDates) {
+
+                ContentRecord content = generateSingleArticle(
+                        random,
+                        behavior,
+                        domains,
+                        member.id,
+                        contentIdCounter.incrementAndGet(),
+                        publishDate,
+                        0
+                );
+
+                contentChanges.put(content.id, content);
+                fullSaveData.contents.add(content);
+                dirtyContents.set(fullSaveData.contents.size() - 1);
+//                logContent(content);
+            }
+        }
+    }
+
+    private void updatePreviousContents(LocalDate nowDate) {
+        List<ContentRecord> contents = fullSaveData.contents;
+        int chunkCount = (contents.size() + UPDATE_CHUNK_SIZE - 1) / UPDATE_CHUNK_SIZE;
+        // 按块并行计算新的互动数据（纯计算，各块只替换自己区间内的元素，不改变列表结构）
+        boolean[] updated = new boolean[contents.size()];
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            int end = Math.min(contents.size(), (chunk + 1) * UPDATE_CHUNK_SIZE);
+            for (int i = chunk * UPDATE_CHUNK_SIZE; i < end; i++) {
+                ContentRecord oldContent = contents.get(i);
+                long elapsedDays = ChronoUnit.DAYS.between(oldContent.publishTime.toLocalDate(), nowDate);
+                if (elapsedDays <= 0) {
+                    continue; // 刚发布的内容不更新
+                }
+                // 替换旧内容
+                contents.set(i, getContentRecord(oldContent, elapsedDays));
+                updated[i] = true;
+            }
+        });
+        // 变更流写入按原顺序串行进行，保证版本号顺序稳定
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i]) {
+                dirtyContents.set(i);
+                ContentRecord updatedContent = contents.get(i);
+                contentChanges.put(updatedContent.id, updatedContent);
+            }
+        }
+    }
+
+    private ContentRecord getContentRecord(ContentRecord oldContent, long elapsedDays) {
+        InteractionCount newInteractions = new InteractionCount(
+                oldContent.readCount, oldContent.likeCount, oldContent.commentCount, oldContent.shareCount, oldContent.collectCount, oldContent.hateCount
+        ).multiply(1. + calcDecayFactor(elapsedDays));
+
+        // 更新内容记录
+        ContentRecord updatedContent = new ContentRecord(
+                oldContent.id, oldContent.authorId, oldContent.title, oldContent.publishTime, oldContent.knowledgeTag, oldContent.postLengthLevel,
+                newInteractions.readCount, newInteractions.likeCount, newInteractions.commentCount, newInteractions.shareCount, newInteractions.collectCount, newInteractions.hateCount
+        );
+        return updatedContent;
+    }
+
+
+    private static ContentRecord generateSingleArticle(
+            RandomGenerator rng,
+            UserBehavior behavior,
+            List<String> domains,
+            long memberId,
+            long contentId,
+            LocalDateTime publishDate,
+            long elapsedDays
+    ) {
+        // 随机选择领域和长度等级
+        String domainTag = domains.get(sample(rng, behavior.domains));
+        int lengthLevel = sample(rng, behavior.lengthLevels);
+
+        // 【修改】生成阅读量，使用动态缩放后的 readMean
+        double scaledReadMean = getScaledReadMean(behavior.interaction.readMean);
+        double scaledReadStdDev = behavior.interaction.readStdDev * (SIMULATE_USER_COUNT / (double) BASELINE_USER_COUNT) * READ_SCALING_FACTOR;
+        long readCount = (long) Math.max(0, normalRandom(rng, scaledReadMean, scaledReadStdDev));
+
+        InteractionCount interactionCount = new InteractionCount(
+                readCount,
+                randAround(rng, (long) (readCount * behavior.interaction.likePercent), 10),
+                randAround(rng, (long) (readCount * behavior.interaction.commentPercent), 10),
+                randAround(rng, (long) (readCount * behavior.interaction.sharePercent), 10),
+                randAround(rng, (long) (readCount * behavior.interaction.collectPercent), 10),
+                randAround(rng, (long) (readCount * behavior.interaction.hatePercent), 10)
+        ).multiply(calcAccumulatedDecayFactor(elapsedDays));
+
+        // 检查是否应用特殊文章规则
+        if (behavior.extraRules.isPresent()) {
+            ExtraRules extraRules = behavior.extraRules.get();
+            if (extraRules instanceof SpecialPostRules specialRules) {
+                // 抽中
+                if (rng.nextDouble() < specialRules.percent) {
+                    interactionCount = interactionCount.multiply(specialRules);
+                }
+            } else {
+                log.warn("未知的额外规则类型: {}", extraRules.getClass().getName());
+                throw new IllegalArgumentException("未知的额外规则类型");
+            }
+        }
+
+        // 生成内容记录
+        return fillContent(
+                contentId,
+                memberId,
+                domainTag,
+                publishDate,
+                lengthLevel,
+                interactionCount
+        );
+    }
+
+    private void createFilesIfNotExist() {
+        try {
+            File folder = new File(SIMULATION_DATA_FOLDER);
+            if (!folder.exists()) {
+                folder.mkdirs();
+            }
+        } catch (Exception e) {
+            log.error("创建文件时出错: {}", e.getMessage());
+        }
+    }
+
+    private void resetStateFiles() {
+        try {
+            stateStore.reset();
+        } catch (IOException e) {
+            log.error("清除模拟数据文件时出错: {}", e.getMessage());
+        }
+    }
+
+    private void configureObjectMapper() {
+        JavaTimeModule javaTimeModule = new JavaTimeModule(); // 注册 Java 时间模块
+        javaTimeModule.addSerializer(
+                LocalDateTime.class, new LocalDateTimeSerializer(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        javaTimeModule.addDeserializer(
+                LocalDateTime.class, new LocalDateTimeDeserializer(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        objectMapper.registerModule(javaTimeModule);
+//        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+//        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * 持久化模拟状态：首次、日志过大或时间未晚于快照（追加段会在加载时被当作旧段跳过）时写全量快照，
+     * 否则只把自上次以来变化的记录追加为一个段。
+     */
+    private void saveToFile() {
+        long startTime = System.currentTimeMillis();
+        try {
+            if (!stateStore.hasSnapshot() || !stateStore.canAppendAt(fullSaveData.timestamp)
+                    || stateStore.logSize() > stateStore.snapshotSize() * SIMULATION_LOG_COMPACT_RATIO) {
+                int written = writeStateSnapshot();
+                log.info("模拟数据快照已写入 {}（{} 条记录），耗时 {} ms",
+                        SIMULATION_SNAPSHOT_FILE, written, System.currentTimeMillis() - startTime);
+            } else {
+                int written = appendDirtyRecords();
+                log.info("模拟数据增量已追加到 {}（{} 条记录），耗时 {} ms",
+                        SIMULATION_LOG_FILE, written, System.currentTimeMillis() - startTime);
+            }
+            dirtyMembers.clear();
+            dirtyContents.clear();
+        } catch (Exception e) {
+            log.error("保存模拟数据时出错: {}", e.getMessage(), e);
+        }
+    }
+
+    // 写全量快照（同时清空追加日志）
+    private int writeStateSnapshot() throws IOException {
+        try (SimulationStateStore.SegmentWriter writer = stateStore.beginSnapshot()) {
+            for (MemberRecord member : fullSaveData.members) {
+                writer.write(RECORD_MEMBER, ForumDataSimulation::encodeMember, member);
+            }
+            for (ContentRecord content : fullSaveData.contents) {
+                writer.write(RECORD_CONTENT, ForumDataSimulation::encodeContent, content);
+            }
+            writer.commit(fullSaveData.timestamp);
+            return writer.recordCount();
+        }
+    }
+
+    // 追加自上次持久化以来变化的记录
+    private int appendDirtyRecords() throws IOException {
+        try (SimulationStateStore.SegmentWriter writer = stateStore.beginAppend()) {
+            for (int i = dirtyMembers.nextSetBit(0); i >= 0; i = dirtyMembers.nextSetBit(i + 1)) {
+                writer.write(RECORD_MEMBER, ForumDataSimulation::encodeMember, fullSaveData.members.get(i));
+            }
+            for (int i = dirtyContents.nextSetBit(0); i >= 0; i = dirtyContents.nextSetBit(i + 1)) {
+                writer.write(RECORD_CONTENT, ForumDataSimulation::encodeContent, fullSaveData.contents.get(i));
+            }
+            writer.commit(fullSaveData.timestamp);
+            return writer.recordCount();
+        }
+    }
+
+    /**
+     * 加载模拟状态：优先回放二进制快照与追加日志；只有旧 JSON 文件时按旧格式加载并转存为快照。
+     */
+    private void loadFromFile() {
+        long startTime = System.currentTimeMillis();
+        try {
+            // 同一 ID 的后续记录覆盖先前记录，保持首次出现的顺序
+            Map<Long, MemberRecord> members = new LinkedHashMap<>();
+            Map<Long, ContentRecord> contents = new LinkedHashMap<>();
+            LocalDateTime timestamp = stateStore.load((kind, payload) -> {
+                if (kind == RECORD_MEMBER) {
+                    MemberRecord member = decodeMember(payload);
+                    members.put(member.id, member);
+                } else if (kind == RECORD_CONTENT) {
+                    ContentRecord content = decodeContent(payload);
+                    contents.put(content.id, content);
+                }
+            });
+            if (timestamp == null) {
+                loadFromLegacyJsonFile();
+                if (!fullSaveData.members.isEmpty()) {
+                    writeStateSnapshot();
+                    log.info("旧 JSON 模拟数据已转存为二进制快照 {}", SIMULATION_SNAPSHOT_FILE);
+                }
+                return;
+            }
+            restoreState(members.values(), contents.values(), timestamp);
+            log.info("模拟数据已从 {} 加载（成员 {}，内容 {}），保存时间: {}，耗时 {} ms。",
+                    SIMULATION_SNAPSHOT_FILE, members.size(), contents.size(), timestamp,
+                    System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("加载模拟数据时出错: {}", e.getMessage(), e);
+        }
+    }
+
+    private void loadFromLegacyJsonFile() {
+        File file = new File(SIMULATION_DATA_FILE);
+        if (!file.exists() || file.length() == 0) {
+            log.warn("未找到模拟数据文件，跳过加载。");
+            return;
+        }
+        try(FileInputStream fis = new FileInputStream(file)) {
+            SimulationSaveData saveData = objectMapper.readValue(fis, SimulationSaveData.class);
+            restoreState(saveData.members, saveData.contents, saveData.timestamp);
+            log.info("模拟数据已从 {} 文件加载, 保存时间: {}。", SIMULATION_DATA_FILE, saveData.timestamp);
+        } catch (Exception e) {
+            log.error("加载模拟数据时出错: {}", e.getMessage());
+        }
+    }
+
+    private void restoreState(Collection<MemberRecord> members, Collection<ContentRecord> contents, LocalDateTime timestamp) {
+        for (MemberRecord member : members) {
+            memberChanges.put(member.id, member);
+        }
+        fullSaveData.members.addAll(members);
+        for (ContentRecord content : contents) {
+            contentChanges.put(content.id, content);
+        }
+        fullSaveData.contents.addAll(contents);
+        fullSaveData.timestamp = timestamp;
+        // 恢复 ID 计数器
+        memberIdCounter.set(
+                members.stream().mapToLong(m -> m.id).max().orElse(100));
+        contentIdCounter.set(
+                contents.stream().mapToLong(c -> c.id).max().orElse(200));
+    }
+
+    private static void encodeMember(MemberRecord m, DataOutputStream out) throws IOException {
+        out.writeLong(m.id);
+        SimulationStateStore.writeString(out, m.name);
+        SimulationStateStore.writeDateTime(out, m.joinDate);
+        out.writeInt(m.behaviorIndex);
+        out.writeByte(m.domains.size());
+        for (String domain : m.domains) {
+            SimulationStateStore.writeString(out, domain);
+        }
+        out.writeInt(m.postCountBase);
+    }
+
+    private static MemberRecord decodeMember(ByteBuffer in) {
+        long id = in.getLong();
+        String name = SimulationStateStore.readString(in);
+        LocalDateTime joinDate = SimulationStateStore.readDateTime(in);
+        int behaviorIndex = in.getInt();
+        int domainCount = in.get();
+        List<String> domains = new ArrayList<>(domainCount);
+        for (int i = 0; i < domainCount; i++) {
+            domains.add(SimulationStateStore.readString(in));
+        }
+        return new MemberRecord(id, name, joinDate, behaviorIndex, domains, in.getInt());
+    }
+
+    private static void encodeContent(ContentRecord c, DataOutputStream out) throws IOException {
+        out.writeLong(c.id);
+        out.writeLong(c.authorId);
+        SimulationStateStore.writeString(out, c.title);
+        SimulationStateStore.writeDateTime(out, c.publishTime);
+        SimulationStateStore.writeString(out, c.knowledgeTag);
+        out.writeByte(c.postLengthLevel);
+        out.writeLong(c.readCount);
+        out.writeLong(c.likeCount);
+        out.writeLong(c.commentCount);
+        out.writeLong(c.shareCount);
+        out.writeLong(c.collectCount);
+        out.writeLong(c.hateCount);
+    }
+
+    private static ContentRecord decodeContent(ByteBuffer in) {
+        return new ContentRecord(
+                in.getLong(), in.getLong(),
+                SimulationStateStore.readString(in),
+                SimulationStateStore.readDateTime(in),
+                SimulationStateStore.readString(in),
+                in.get(),
+                in.getLong(), in.getLong(), in.getLong(), in.getLong(), in.getLong(), in.getLong());
+    }
+    
+//    /**
+//     * 【持续活动模拟】定时任务：每 5 秒生成一次新的论坛活动。
+//     * 模拟持续数据写入。
+//     */
+//    @Scheduled(fixedRate = 5000)
+//    public void simulateContinuousActivity() {
+//        // 随机生成互动事件
+//        generateRandomInteraction();
+//
+//        // 偶尔生成新成员 (每 10 次活动模拟生成 1 次新成员，即约 50 秒一次)
+//        if (System.currentTimeMillis() % 50000 < 5000) {
+//            generateRandomMember();
+//        }
+//        // 偶尔生成新内容 (每 5 次活动模拟生成 1 次新内容)
+//        if (System.currentTimeMillis() % 25000 < 5000) {
+//             generateRandomContent();
+//        }
+//    }
+    /**
+     * 新增方法：生成一个新的用户（MemberRecord）。
+     */
+    private MemberRecord generateRandomMember(
+            int behaviorIndex,
+            List<String> domains,
+            int postCountBase,
+            LocalDateTime registerTime
+    ) {
+        // 获取递增的成员 ID
+        long newMemberId = memberIdCounter.incrementAndGet();
+
+        String behaviorName = SIMULATE_USER_BEHAVIORS.getElements().get(behaviorIndex).behaviorName;
+
+        String newName = behaviorName + '-' + newMemberId + '-' + String.join("+", domains);
+
+        // 创建新成员
+        MemberRecord newMember = new MemberRecord(newMemberId, newName, registerTime, behaviorIndex, domains, postCountBase);
+        memberChanges.put(newMemberId, newMember);
+        fullSaveData.members.add(newMember);
+        dirtyMembers.set(fullSaveData.members.size() - 1);
+        // 显示日志
+//        log.info("【新成员】注册成功: ID={}, 姓名={}, 加入时间={}", newMemberId, newName, newJoinDate);
+
+        return newMember;
+    }
+
+    // 辅助初始化方法
+    private static ContentRecord fillContent(
+            long contentId,
+            long authorId,
+            String knowledgeTag,
+            LocalDateTime publishTime,
+            int lengthLevel,
+            InteractionCount interaction
+    ) {
+        return new ContentRecord(
+                contentId,
+                authorId,
+                "新内容标题-" + contentId,
+                publishTime,
+                knowledgeTag,
+                lengthLevel,
+                interaction.readCount,
+                interaction.likeCount,
+                interaction.commentCount,
+                interaction.shareCount,
+                interaction.collectCount,
+                interaction.hateCount
+        );
+    }
+
+    // 计算衰减因子
+    private static double calcDecayFactor(long daysElapsed) {
+        //   y(x,t) = x * beta * (1-beta)^t
+        return NEW_READ_DECAY_FACTOR * Math.pow(1 - NEW_READ_DECAY_FACTOR, daysElapsed);
+    }
+
+    // 计算累积衰减因子
+    private static double calcAccumulatedDecayFactor(long daysElapsed) {
+        // 累积衰减因子计算公式
+        // S(t) = beta * (1 - (1 - beta)^t) / beta = 1 - (1 - beta)^t
+        return 1 - Math.pow(1 - NEW_READ_DECAY_FACTOR, daysElapsed + 1);
+    }
+
+//    private void generateRandomInteraction() {
+//        if (contentDB.isEmpty() || memberDB.isEmpty()) return;
+//
+//        // 随机选择一个已发布内容
+//        Long[] contentIds = contentDB.keySet().toArray(new Long[0]);
+//        Long contentId = contentIds[random.nextInt(contentIds.length)];
+//
+//        // 随机选择一个成员
+//        Long[] memberIds = memberDB.keySet().toArray(new Long[0]);
+//        Long memberId = memberIds[random.nextInt(memberIds.length)];
+//
+//        // 随机选择一个互动类型 (6种类型)
+//        InteractionType[] types = InteractionType.values();
+//        InteractionType type = types[random.nextInt(types.length)];
+//
+//        // 1. 创建新事件 (用于评级系统批量拉取)
+//        InteractionEventRecord newEvent = new InteractionEventRecord(
+//                eventIdCounter.incrementAndGet(),
+//                contentId,
+//                memberId,
+//                type,
+//                LocalDateTime.now()
+//        );
+//
+//        eventLog.add(newEvent);
+//        log.debug("生成互动事件: 内容ID={}, 成员ID={}, 类型={}", contentId, memberId, type);
+//
+//        // 2. 【实时更新快照】更新 ContentRecord 中的累积计数
+//        ContentRecord content = contentDB.get(contentId);
+//        if (content != null) {
+//            switch (type) {
+//                case READ -> content.readCount().incrementAndGet();
+//                case LIKE -> content.likeCount().incrementAndGet(); // 移除 checkAchievement() 调用
+//                case COMMENT -> content.commentCount().incrementAndGet();
+//                case SHARE -> content.shareCount().incrementAndGet();
+//                case COLLECT -> content.collectCount().incrementAndGet();
+//                case HATE -> content.hateCount().incrementAndGet();
+//            }
+//        }
+//    }
+    
+    
+    // --- 数据源接口与交互规范：批量评级数据拉取规范 ---
+    
+    /**
+     * 接口：拉取在特定时间窗口内产生的所有互动事件记录。
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 互动事件列表（DTOs）
+     */
+    public List<Map<String, Object>> getAllInteractionEventsInWindow(LocalDateTime startTime, LocalDateTime endTime) {
+        log.info("【评级系统 PULL】拉取互动事件：从 {} 到 {}", startTime, endTime);
+
+        // 按时间索引查询窗口内的事件
+        return eventLog.window(startTime, endTime).stream()
+                .map(e -> Map.<String, Object>of(
+                        "eventId", e.eventId,
+                        "contentId", e.contentId,
+                        "memberId", e.memberId,
+                        "type", e.type.name(),
+                        "timestamp", e.timestamp.toString()
+                ))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 辅助方法：将 ContentRecord 映射为 ContentSnapshot 结构。
+     */
+    private static ContentSnapshotRecord toContentSnapshot(ContentRecord c) {
+        return new ContentSnapshotRecord(
+                c.id, c.authorId, c.publishTime, c.knowledgeTag, c.postLengthLevel,
+                c.readCount, c.likeCount, c.commentCount, c.shareCount, c.collectCount, c.hateCount);
+    }
+
+    /**
+     * 接口：分页拉取 sinceVersion 之后的内容变更（类型化记录，字段同 getContentSnapshot），不修改数据，可重复拉取。
+     * 评级系统处理并提交后应调用 acknowledgeContentChanges(page.nextVersion())。
+     * @param sinceVersion 起始水位线（不含），通常为 getContentAcknowledgedVersion()
+     * @param limit 每页最大条数
+     * @return 一页内容变更
+     */
+    public VersionedChangeFeed.ChangePage<ContentSnapshotRecord> getContentChangesSince(long sinceVersion, int limit) {
+        return contentChanges.changesSince(sinceVersion, limit, ForumDataSimulation::toContentSnapshot);
+    }
+
+    /**
+     * 接口：确认 version 及之前的内容变更已持久化
+     */
+    public void acknowledgeContentChanges(long version) {
+        contentChanges.acknowledge(version);
+        log.info("【评级系统 ACK】内容变更已确认至版本 {}，剩余未确认 {} 条", version, contentChanges.pendingCount());
+    }
+
+    /**
+     * 内容变更流已确认的版本号
+     */
+    public long getContentAcknowledgedVersion() {
+        return contentChanges.acknowledgedVersion();
+    }
+
+    /**
+     * 接口：提供最新的增量内容数据快照。
+     * 返回结构已对齐 ContentSnapshot 表结构（不含 cis_score）。
+     * 兼容旧调用方：拉取全部未确认变更并立即确认（破坏性、不可重放），新代码应使用 getContentChangesSince。
+     * @return 内容快照列表（DTOs）
+     */
+    public List<Map<String, Object>> getContentSnapshot() {
+        log.info("【评级系统 PULL】拉取内容快照 (增量)。");
+        VersionedChangeFeed.ChangePage<Map<String, Object>> page =
+                contentChanges.changesSince(contentChanges.acknowledgedVersion(), Integer.MAX_VALUE,
+                        c -> toContentSnapshot(c).toMap());
+        contentChanges.acknowledge(page.nextVersion());
+        return page.items();
+    }
+
+    /**
+     * 离线接口：按行为模型生成指定数量的合成内容快照。
+     * 不写入模拟数据库、不落盘，供基准测试等场景构造大规模数据集。
+     * @param contentCount 需要生成的内容数
+     * @param now 参考时间（发布时间分布在其前 GENERATE_DAYS_RANGE 天内）
+     * @param sink 逐条接收生成的快照，避免一次性持有全部快照
+     */
+    public void generateSyntheticContentSnapshots(int contentCount, LocalDateTime now, Consumer<ContentSnapshotRecord> sink) {
+        LocalDateTime registerTime = now.minusDays(GENERATE_DAYS_RANGE);
+        int generated = 0;
+        while (generated < contentCount) {
+            // 按行为权重抽取一个虚拟作者
+            UserBehavior behavior = sample(random, SIMULATE_USER_BEHAVIORS);
+            List<String> domains = sample(random, KNOWLEDGE_AREA_TAGS, behavior.domains.size());
+            long memberId = memberIdCounter.incrementAndGet();
+            int articlesToGenerate = Math.min(randAround(random, sample(random, behavior.postCountBase), 10), contentCount - generated);
+
+            for (LocalDateTime publishDate : sampleDates(random, registerTime, GENERATE_DAYS_RANGE, articlesToGenerate)) {
+                long elapsedDays = ChronoUnit.DAYS.between(publishDate.toLocalDate(), now.toLocalDate());
+                sink.accept(toContentSnapshot(
+                        generateSingleArticle(random, behavior, domains, memberId,
+                                contentIdCounter.incrementAndGet(), publishDate, elapsedDays)));
+                generated++;
+            }
+        }
+    }
+
+    /**
+     * 并行生成的一块结果（一个行为类型下的一批用户及其全部文章）
+     */
+    public record GeneratedChunk(int chunkIndex, List<MemberSnapshotRecord> members, List<ContentSnapshotRecord> contents) {
+    }
+
+    // 并行生成任务：行为类型、该块用户在全局的起始序号、用户数及独立的随机数生成器
+    private record GenerationTask(int chunkIndex, int behaviorIndex, long firstUserIndex, int userCount, SplittableRandom rng) {
+    }
+
+    /**
+     * 压测接口：按行为模型并行生成大规模成员与内容快照（不写入模拟数据库、不落盘）。
+     * - 用户按行为权重分配后，每个行为类型再切分为 PARALLEL_CHUNK_USERS 人一块，在公共 ForkJoinPool 上并行生成
+     * - 每块使用从 seed 依次 split 出的 SplittableRandom，成员 / 内容 ID 由全局用户序号确定，
+     *   因此相同参数下生成结果与线程调度无关、可复现
+     * @param userCount 用户总数（可达百万级，内容数约为用户数的数十倍）
+     * @param seed 随机种子
+     * @param now 参考时间（发布时间分布在其前 GENERATE_DAYS_RANGE 天内）
+     * @param sink 每块生成完成后回调一次；会被多个线程并发调用，实现方需自行保证线程安全
+     */
+    public void generateParallel(int userCount, long seed, LocalDateTime now, Consumer<GeneratedChunk> sink) {
+        int[] distributes = SIMULATE_USER_BEHAVIORS.getDistributeList(userCount);
+        SplittableRandom root = new SplittableRandom(seed);
+        List<GenerationTask> tasks = new ArrayList<>();
+        long userIndex = 0;
+        for (int behaviorIndex = 0; behaviorIndex < distributes.length; behaviorIndex++) {
+            for (int offset = 0; offset < distributes[behaviorIndex]; offset += PARALLEL_CHUNK_USERS) {
+                int chunkUsers = Math.min(PARALLEL_CHUNK_USERS, distributes[behaviorIndex] - offset);
+                // split 在提交前按固定顺序完成，保证每块的随机序列确定
+                tasks.add(new GenerationTask(tasks.size(), behaviorIndex, userIndex, chunkUsers, root.split()));
+                userIndex += chunkUsers;
+            }
+        }
+        log.info("【压测生成】开始并行生成 {} 名用户，共 {} 个任务块，种子 {}", userCount, tasks.size(), seed);
+        long startTime = System.currentTimeMillis();
+        tasks.parallelStream().forEach(task -> sink.accept(generateChunk(task, now)));
+        log.info("【压测生成】生成完成，耗时 {} ms", System.currentTimeMillis() - startTime);
+    }
+
+    private static GeneratedChunk generateChunk(GenerationTask task, LocalDateTime now) {
+        UserBehavior behavior = SIMULATE_USER_BEHAVIORS.getElements().get(task.behaviorIndex);
+        SplittableRandom rng = task.rng;
+        LocalDateTime registerTime = now.minusDays(GENERATE_DAYS_RANGE);
+        List<MemberSnapshotRecord> members = new ArrayList<>(task.userCount);
+        List<ContentSnapshotRecord> contents = new ArrayList<>(task.userCount * 32);
+
+        for (int i = 0; i < task.userCount; i++) {
+            long memberId = LOAD_TEST_MEMBER_ID_BASE + task.firstUserIndex + i;
+            List<String> domains = sample(rng, KNOWLEDGE_AREA_TAGS, behavior.domains.size());
+            int postCountBase = sample(rng, behavior.postCountBase);
+            members.add(new MemberSnapshotRecord(
+                    memberId, behavior.behaviorName + '-' + memberId + '-' + String.join("+", domains), registerTime));
+
+            int articlesToGenerate = randAround(rng, postCountBase, 10);
+            long contentSeq = 0;
+            for (LocalDateTime publishDate : sampleDates(rng, registerTime, GENERATE_DAYS_RANGE, articlesToGenerate)) {
+                long elapsedDays = ChronoUnit.DAYS.between(publishDate.toLocalDate(), now.toLocalDate());
+                long contentId = memberId * LOAD_TEST_CONTENT_ID_STRIDE + contentSeq++;
+                contents.add(toContentSnapshot(
+                        generateSingleArticle(rng, behavior, domains, memberId, contentId, publishDate, elapsedDays)));
+            }
+        }
+        return new GeneratedChunk(task.chunkIndex, members, contents);
+    }
+
+    /**
+     * 辅助方法：将 MemberRecord 映射为 Member 结构。
+     */
+    private static MemberSnapshotRecord toMemberSnapshot(MemberRecord m) {
+        return new MemberSnapshotRecord(m.id, m.name, m.joinDate);
+    }
+
+    /**
+     * 接口：分页拉取 sinceVersion 之后的成员变更（类型化记录，字段同 getMemberSnapshot），不修改数据，可重复拉取。
+     * 评级系统处理并提交后应调用 acknowledgeMemberChanges(page.nextVersion())。
+     * @param sinceVersion 起始水位线（不含），通常为 getMemberAcknowledgedVersion()
+     * @param limit 每页最大条数
+     * @return 一页成员变更
+     */
+    public VersionedChangeFeed.ChangePage<MemberSnapshotRecord> getMemberChangesSince(long sinceVersion, int limit) {
+        return memberChanges.changesSince(sinceVersion, limit, ForumDataSimulation::toMemberSnapshot);
+    }
+
+    /**
+     * 接口：确认 version 及之前的成员变更已持久化
+     */
+    public void acknowledgeMemberChanges(long version) {
+        memberChanges.acknowledge(version);
+        log.info("【评级系统 ACK】成员变更已确认至版本 {}，剩余未确认 {} 条", version, memberChanges.pendingCount());
+    }
+
+    /**
+     * 成员变更流已确认的版本号
+     */
+    public long getMemberAcknowledgedVersion() {
+        return memberChanges.acknowledgedVersion();
+    }
+
+    /**
+     * 接口：提供最新的增量成员数据快照。
+     * 返回结构已对齐 Member 表结构。
+     * 兼容旧调用方：拉取全部未确认变更并立即确认（破坏性、不可重放），新代码应使用 getMemberChangesSince。
+     * @return 成员快照列表（DTOs）
+     */
+    public List<Map<String, Object>> getMemberSnapshot() {
+        log.info("【评级系统 PULL】拉取成员快照 (增量)。");
+        VersionedChangeFeed.ChangePage<Map<String, Object>> page =
+                memberChanges.changesSince(memberChanges.acknowledgedVersion(), Integer.MAX_VALUE,
+                        m -> toMemberSnapshot(m).toMap());
+        memberChanges.acknowledge(page.nextVersion());
+        return page.items();
+    }
+
+    /**
+     * 辅助方法：生成围绕基数的随机长整型数值。
+     * @param base 基数
+     * @param percentage 波动百分比
+     * @return 随机长整型数值
+     */
+    private static long randAround(RandomGenerator rng, long base, int percentage) {
+        long round = (long) (base * percentage / 100.0);
+        return rng.nextLong(base - round, base + round + 1);
+    }
+
+    private static int randAround(RandomGenerator rng, int base, int percentage) {
+        int round = (int) (base * percentage / 100.0);
+        return rng.nextInt(base - round, base + round + 1);
+    }
+
+    private static <T> List<T> sample(RandomGenerator rng, List<T> elements, int k) {
+        if (k <= 0) return Collections.emptyList();
+        int size = elements.size();
+        if (size <= k) return new ArrayList<>(elements);
+
+        return rng.ints(0, size)
+                .distinct().limit(k)
+                .mapToObj(elements::get)
+                .toList();
+    }
+
+    private static List<LocalDateTime> sampleDates(RandomGenerator rng, LocalDateTime start, int days, int k) {
+        if (k <= 0) return Collections.emptyList();
+        LocalDateTime end = start.plusDays(days);
+        long startEpochDay = start.toEpochSecond(ZoneOffset.UTC);
+        long endEpochDay = end.toEpochSecond(ZoneOffset.UTC);
+
+        return rng.longs(startEpochDay, endEpochDay)
+                .limit(k).sorted()
+                .mapToObj(epoch -> LocalDateTime.ofEpochSecond(epoch, 0, ZoneOffset.UTC))
+                .toList();
+    }
+
+    private void logContent(ContentRecord content) {
+        log.info("内容ID: {}, 作者ID: {}, 领域: {}, 发布时间: {}, 阅读数: {}, 点赞数: {}, 评论数: {}, 分享数: {}, 收藏数: {}, 点踩数: {}",
+                content.id, content.authorId, content.knowledgeTag, content.publishTime,
+                content.readCount, content.likeCount, content.commentCount,
+                content.shareCount, content.collectCount, content.hateCount);
+    }
+
+    // 辅助类：加权随机抽样
+    @Getter
+    private static class WeightedList<T> {
+        List<T> elements;
+        List<Integer> weights;
+        int totalWeight;
+
+        WeightedList(List<T> elements, List<Integer> weights) {
+            assert elements.size() == weights.size();
+            this.elements = elements;
+            this.weights = weights;
+            this.totalWeight = weights.stream().mapToInt(Integer::intValue).sum();
+        }
+
+        WeightedList(List<Pair<T, Integer>> pairs) {
+            this.elements = pairs.stream().map(p->p.a).toList();
+            this.weights = pairs.stream().map(p->p.b).toList();
+            this.totalWeight = weights.stream().mapToInt(Integer::intValue).sum();
+        }
+
+        public int size() {
+            return elements.size();
+        }
+
+        // 将num均分到各元素上，返回分布列表
+        public int[] getDistributeList(int num) {
+            int[] distributes = new int[this.size()];
+
+            // 存储小数部分及其索引
+            List<Pair<Integer, Double>> fractionalParts = new ArrayList<>();
+            int remain = num;
+            double base = (double) num / totalWeight;
+            for (int i = 0; i < this.size(); i++) {
+                double exact = weights.get(i) * base;
+                int floor = (int) Math.floor(exact);
+                distributes[i] = floor;
+                remain -= floor;
+                double fractional = exact - floor;
+                fractionalParts.add(new Pair<>(i, fractional));
+            }
+            // 按小数部分排序，优先分配给小数部分大的
+            fractionalParts.sort((a, b) -> Double.compare(b.b, a.b));
+            for (int i = 0; i < remain; i++) {
+                int index = fractionalParts.get(i).a;
+                distributes[index] += 1;
+            }
+
+            return distributes;
+        }
+
+    }
+
+    private static double normalRandom(RandomGenerator rng, double mean, double stdDev) {
+        return mean + rng.nextGaussian() * stdDev;
+    }
+
+    private static <T> T sample(RandomGenerator rng, WeightedList<T> weightedList) {
+        int rand = rng.nextInt(weightedList.getTotalWeight());
+        int cumulativeWeight = 0;
+        for (int i = 0; i < weightedList.size(); i++) {
+            cumulativeWeight += weightedList.getWeights().get(i);
+            if (rand < cumulativeWeight) {
+                return weightedList.getElements().get(i);
+            }
+        }
+        throw new IllegalStateException("WeightedList sampling failed");
+    }
+}
\ No newline at end of file
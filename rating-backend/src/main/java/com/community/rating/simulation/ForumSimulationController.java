@@ -0,0 +1,141 @@
+package com.community.rating.simulation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 【模拟数据接口】用于可视化和测试 ForumDataSimulation 的数据拉取（PULL）功能。
+ * 评级系统开发人员可以通过浏览器直接访问这些接口，实时查看模拟数据。
+ */
+@RestController
+@RequestMapping("/api/simulation")
+public class ForumSimulationController {
+
+    private static final Logger log = LoggerFactory.getLogger(ForumSimulationController.class);
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    
+    private final ForumDataSimulation forumDataSimulation;
+
+    @Autowired
+    public ForumSimulationController(ForumDataSimulation forumDataSimulation) {
+        this.forumDataSimulation = forumDataSimulation;
+    }
+
+    /**
+     * GET /api/simulation/member-snapshot
+     * 接口：获取全量成员数据快照。
+     * @return 成员列表
+     */
+    @GetMapping("/member-snapshot")
+    public List<Map<String, Object>> getMemberSnapshot() {
+        log.info("API CALL: 拉取成员快照。");
+        return forumDataSimulation.getMemberSnapshot();
+    }
+
+    /**
+     * GET /api/simulation/content-snapshot
+     * 接口：获取全量内容数据快照 (包含实时计数器)。
+     * @return 内容快照列表
+     */
+    @GetMapping("/content-snapshot")
+    public List<Map<String, Object>> getContentSnapshot() {
+        log.info("API CALL: 拉取内容快照。");
+        return forumDataSimulation.getContentSnapshot();
+    }
+
+    /**
+     * GET /api/simulation/member-changes?since=0&limit=1000
+     * 接口：按水位线分页拉取成员变更，不修改数据。
+     * @param since 起始版本（不含），缺省为已确认版本
+     * @param limit 每页最大条数
+     * @return 一页成员变更（含 nextVersion / hasMore）
+     */
+    @GetMapping("/member-changes")
+    public VersionedChangeFeed.ChangePage<MemberSnapshotRecord> getMemberChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "1000") int limit) {
+        long sinceVersion = since != null ? since : forumDataSimulation.getMemberAcknowledgedVersion();
+        log.info("API CALL: 拉取成员变更，since={}, limit={}。", sinceVersion, limit);
+        return forumDataSimulation.getMemberChangesSince(sinceVersion, limit);
+    }
+
+    /**
+     * POST /api/simulation/member-changes/ack?version=N
+     * 接口：确认 version 及之前的成员变更已持久化。
+     */
+    @PostMapping("/member-changes/ack")
+    public void acknowledgeMemberChanges(@RequestParam long version) {
+        forumDataSimulation.acknowledgeMemberChanges(version);
+    }
+
+    /**
+     * GET /api/simulation/content-changes?since=0&limit=1000
+     * 接口：按水位线分页拉取内容变更，不修改数据。
+     * @param since 起始版本（不含），缺省为已确认版本
+     * @param limit 每页最大条数
+     * @return 一页内容变更（含 nextVersion / hasMore）
+     */
+    @GetMapping("/content-changes")
+    public VersionedChangeFeed.ChangePage<ContentSnapshotRecord> getContentChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "1000") int limit) {
+        long sinceVersion = since != null ? since : forumDataSimulation.getContentAcknowledgedVersion();
+        log.info("API CALL: 拉取内容变更，since={}, limit={}。", sinceVersion, limit);
+        return forumDataSimulation.getContentChangesSince(sinceVersion, limit);
+    }
+
+    /**
+     * POST /api/simulation/content-changes/ack?version=N
+     * 接口：确认 version 及之前的内容变更已持久化。
+     */
+    @PostMapping("/content-changes/ack")
+    public void acknowledgeContentChanges(@RequestParam long version) {
+        forumDataSimulation.acknowledgeContentChanges(version);
+    }
+
+    /**
+     * POST /api/simulation/clock/advance?days=1
+     * 接口：回放模式下手动推进虚拟时钟，并执行跨天后的论坛数据更新。
+     * @param days 推进的虚拟天数
+     * @return 推进后的虚拟时间
+     */
+    @PostMapping("/clock/advance")
+    public Map<String, Object> advanceClock(@RequestParam(defaultValue = "1") int days) {
+        LocalDateTime now = TimeSimulation.advanceDays(days);
+        boolean updated = forumDataSimulation.runDailyUpdate();
+        log.info("API CALL: 虚拟时钟推进 {} 天至 {}，论坛数据更新: {}", days, now, updated);
+        return Map.of("virtualTime", now.format(FORMATTER), "dailyUpdate", updated);
+    }
+
+    /**
+     * GET /api/simulation/interaction-events
+     * 接口：获取指定时间窗口内的互动事件记录。
+     * 默认拉取过去 30 秒的事件。
+     * @param startTime 开始时间 (格式: YYYY-MM-DDTHH:MM:SS)
+     * @param endTime 结束时间 (格式: YYYY-MM-DDTHH:MM:SS)
+     * @return 互动事件列表
+     */
+    @GetMapping("/interaction-events")
+    public List<Map<String, Object>> getAllInteractionEventsInWindow(
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime) {
+
+        LocalDateTime end = (endTime != null) ? LocalDateTime.parse(endTime, FORMATTER) : TimeSimulation.now();
+        LocalDateTime start = (startTime != null) ? LocalDateTime.parse(startTime, FORMATTER) : end.minusSeconds(30);
+
+        log.info("API CALL: 拉取互动事件，时间窗口从 {} 到 {}。", start, end);
+        
+        return forumDataSimulation.getAllInteractionEventsInWindow(start, end);
+    }
+}
@@ -0,0 +1,27 @@
+package com.community.rating.simulation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 成员快照（类型化传输结构），字段对齐 Member 表。JSON 字段名与旧 Map 结构保持一致。
+ */
+public record MemberSnapshotRecord(
+        @JsonProperty("member_id") long memberId,
+        @JsonProperty("name") String name,
+        @JsonProperty("join_date") LocalDateTime joinDate
+) {
+
+    /**
+     * 转换为旧的 Map 结构（仅供兼容接口使用）
+     */
+    public Map<String, Object> toMap() {
+        return Map.of(
+                "member_id", memberId,
+                "name", name,
+                "join_date", joinDate.toString()
+        );
+    }
+}
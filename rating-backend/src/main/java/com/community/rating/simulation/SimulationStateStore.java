@@ -0,0 +1,380 @@
+package com.community.rating.simulation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 【模拟状态持久化】二进制快照 + 追加日志。
+ *
+ * - 快照文件：全量状态，写入临时文件后原子替换，替换成功即清空追加日志；
+ * - 追加日志：每个虚拟日只追加当天变化的记录，作为一个段（segment）写入并 fsync；
+ *   段尾时间戳必须晚于快照时间戳，加载时跳过不晚于快照的段——替换快照后、清空日志前崩溃残留的旧段，
+ *   其内容已包含在快照中，回放会把记录回滚为旧值；
+ * - 加载：快照与日志均以 MappedByteBuffer 分窗口映射读取，按顺序回放，后出现的同键记录覆盖先前的记录。
+ *
+ * 段格式：SEGMENT_MAGIC(4) + 若干记录 [kind(1) + length(4) + payload] + 段尾 [KIND_END(1) + 时间戳(12) + 记录数(4)]。
+ * 追加过程中崩溃只会留下不完整的尾段，加载时该段被丢弃并截断，已提交的段不受影响。
+ * 记录内容的编码由调用方负责，本类只负责分帧、提交与回放。
+ */
+class SimulationStateStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulationStateStore.class);
+
+    // 快照文件头：magic(4) + version(4)
+    private static final int FILE_MAGIC = 0x53494D46; // "SIMF"
+    private static final int FORMAT_VERSION = 1;
+    private static final int SEGMENT_MAGIC = 0x53494D53; // "SIMS"
+    private static final byte KIND_END = 0;
+    // 段尾：kind(1) + epochSecond(8) + nano(4) + recordCount(4)
+    private static final int TRAILER_SIZE = 17;
+    // 加载时单个映射窗口的大小
+    private static final int MAP_WINDOW_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * 记录回放回调：payload 为该条记录内容的只读视图，仅在回调期间有效
+     */
+    interface RecordHandler {
+        void accept(byte kind, ByteBuffer payload);
+    }
+
+    /**
+     * 记录编码器
+     */
+    interface RecordEncoder<T> {
+        void encode(T value, DataOutputStream out) throws IOException;
+    }
+
+    private final Path snapshotPath;
+    private final Path logPath;
+    // 当前快照的时间戳（加载或写入快照后已知）；未知时不允许追加
+    private LocalDateTime snapshotTimestamp;
+
+    SimulationStateStore(Path snapshotPath, Path logPath) {
+        this.snapshotPath = snapshotPath;
+        this.logPath = logPath;
+    }
+
+    boolean hasSnapshot() {
+        return Files.exists(snapshotPath);
+    }
+
+    long snapshotSize() throws IOException {
+        return Files.exists(snapshotPath) ? Files.size(snapshotPath) : 0L;
+    }
+
+    long logSize() throws IOException {
+        return Files.exists(logPath) ? Files.size(logPath) : 0L;
+    }
+
+    /**
+     * 删除快照与日志（重新开始模拟时调用）
+     */
+    void reset() throws IOException {
+        Files.deleteIfExists(snapshotPath);
+        Files.deleteIfExists(logPath);
+        snapshotTimestamp = null;
+    }
+
+    /**
+     * 能否以指定时间戳追加段：快照时间戳已知且该时间戳晚于快照（否则加载时该段会被当作旧段跳过），
+     * 不能追加时调用方应改写全量快照
+     */
+    boolean canAppendAt(LocalDateTime timestamp) {
+        return snapshotTimestamp != null && timestamp.isAfter(snapshotTimestamp);
+    }
+
+    /**
+     * 开始写入新的全量快照；commit 后原子替换旧快照并清空追加日志
+     */
+    SegmentWriter beginSnapshot() throws IOException {
+        Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        FileChannel channel = FileChannel.open(tempPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        SegmentWriter writer = new SegmentWriter(channel, timestamp -> {
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshotTimestamp = timestamp;
+            Files.deleteIfExists(logPath);
+        });
+        writer.out.writeInt(FILE_MAGIC);
+        writer.out.writeInt(FORMAT_VERSION);
+        writer.out.writeInt(SEGMENT_MAGIC);
+        return writer;
+    }
+
+    /**
+     * 开始向追加日志写入一个新段；段的时间戳须满足 canAppendAt
+     */
+    SegmentWriter beginAppend() throws IOException {
+        FileChannel channel = FileChannel.open(logPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        SegmentWriter writer = new SegmentWriter(channel, timestamp -> { });
+        writer.out.writeInt(SEGMENT_MAGIC);
+        return writer;
+    }
+
+    /**
+     * 回放快照与追加日志中全部已提交的记录，返回最后一个已提交段的时间戳；没有快照时返回 null。
+     * 追加日志末尾不完整的段会被截断；时间戳不晚于快照的段被跳过。
+     */
+    LocalDateTime load(RecordHandler handler) throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return null;
+        }
+        LocalDateTime timestamp;
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(channel);
+            if (reader.require(8).getInt() != FILE_MAGIC || reader.window.getInt() != FORMAT_VERSION) {
+                throw new IOException("模拟快照文件格式不符: " + snapshotPath);
+            }
+            timestamp = readSegment(reader, handler);
+            if (timestamp == null) {
+                throw new IOException("模拟快照文件不完整: " + snapshotPath);
+            }
+        }
+        snapshotTimestamp = timestamp;
+        if (Files.exists(logPath)) {
+            int segments = 0;
+            int staleSegments = 0;
+            try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedReader reader = new MappedReader(channel);
+                while (reader.position() < reader.size) {
+                    long segmentStart = reader.position();
+                    // 先扫描确认段完整，再回到段首回放，避免回放未提交的记录
+                    LocalDateTime segmentTimestamp = scanCommittedSegment(reader);
+                    if (segmentTimestamp == null) {
+                        log.warn("追加日志在偏移 {} 处存在未提交的段，截断丢弃", segmentStart);
+                        channel.truncate(segmentStart);
+                        break;
+                    }
+                    if (!segmentTimestamp.isAfter(snapshotTimestamp)) {
+                        // 已包含在快照中的旧段（快照替换后、清空日志前崩溃残留），跳过
+                        staleSegments++;
+                        continue;
+                    }
+                    reader.seek(segmentStart);
+                    timestamp = readSegment(reader, handler);
+                    segments++;
+                }
+            }
+            if (staleSegments > 0) {
+                log.warn("追加日志中 {} 个段不晚于快照时间 {}，已跳过", staleSegments, snapshotTimestamp);
+            }
+            log.info("追加日志回放完成，共 {} 段", segments);
+        }
+        return timestamp;
+    }
+
+    // 扫描一个段（不回放）并停在段尾之后，段完整（含段尾）时返回段尾时间戳，否则返回 null
+    private static LocalDateTime scanCommittedSegment(MappedReader reader) throws IOException {
+        if (!reader.has(4) || reader.require(4).getInt() != SEGMENT_MAGIC) {
+            return null;
+        }
+        while (reader.has(1)) {
+            byte kind = reader.require(1).get();
+            if (kind == KIND_END) {
+                if (!reader.has(TRAILER_SIZE - 1)) {
+                    return null;
+                }
+                ByteBuffer trailer = reader.require(TRAILER_SIZE - 1);
+                LocalDateTime timestamp = LocalDateTime.ofEpochSecond(trailer.getLong(), trailer.getInt(), ZoneOffset.UTC);
+                trailer.getInt();
+                return timestamp;
+            }
+            if (!reader.has(4)) {
+                return null;
+            }
+            int length = reader.require(4).getInt();
+            if (length < 0 || !reader.has(length)) {
+                return null;
+            }
+            reader.skip(length);
+        }
+        return null;
+    }
+
+    // 回放一个段，返回段尾时间戳；段不完整时返回 null
+    private static LocalDateTime readSegment(MappedReader reader, RecordHandler handler) throws IOException {
+        if (!reader.has(4) || reader.require(4).getInt() != SEGMENT_MAGIC) {
+            return null;
+        }
+        while (reader.has(1)) {
+            byte kind = reader.require(1).get();
+            if (kind == KIND_END) {
+                if (!reader.has(TRAILER_SIZE - 1)) {
+                    return null;
+                }
+                ByteBuffer trailer = reader.require(TRAILER_SIZE - 1);
+                LocalDateTime timestamp = LocalDateTime.ofEpochSecond(trailer.getLong(), trailer.getInt(), ZoneOffset.UTC);
+                trailer.getInt(); // 记录数，仅用于排查
+                return timestamp;
+            }
+            int length = reader.require(4).getInt();
+            ByteBuffer window = reader.require(length);
+            handler.accept(kind, window.slice(window.position(), length).asReadOnlyBuffer());
+            window.position(window.position() + length);
+        }
+        return null;
+    }
+
+    /**
+     * 段写入器：逐条写入记录，commit 写入段尾并 fsync；未 commit 就关闭的段在加载时被丢弃
+     */
+    static final class SegmentWriter implements Closeable {
+
+        private interface CommitAction {
+            void run(LocalDateTime timestamp) throws IOException;
+        }
+
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final CommitAction onCommit;
+        // 单条记录的编码缓冲，用于先得到长度再写入
+        private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+        private final DataOutputStream recordOut = new DataOutputStream(recordBuffer);
+        private int recordCount;
+        private boolean committed;
+
+        private SegmentWriter(FileChannel channel, CommitAction onCommit) {
+            this.channel = channel;
+            // out 不单独关闭，由 commit / close 直接关闭底层通道
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            this.onCommit = onCommit;
+        }
+
+        <T> void write(byte kind, RecordEncoder<T> encoder, T value) throws IOException {
+            if (kind == KIND_END) {
+                throw new IllegalArgumentException("记录类型 0 为段尾保留");
+            }
+            recordBuffer.reset();
+            encoder.encode(value, recordOut);
+            out.writeByte(kind);
+            out.writeInt(recordBuffer.size());
+            recordBuffer.writeTo(out);
+            recordCount++;
+        }
+
+        int recordCount() {
+            return recordCount;
+        }
+
+        void commit(LocalDateTime timestamp) throws IOException {
+            out.writeByte(KIND_END);
+            out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(timestamp.getNano());
+            out.writeInt(recordCount);
+            out.flush();
+            channel.force(false);
+            channel.close();
+            committed = true;
+            onCommit.run(timestamp);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+            }
+        }
+
+    }
+
+    /**
+     * 分窗口的只读映射：require(n) 保证当前位置起的 n 个字节位于窗口内，必要时在当前位置重新映射
+     */
+    private static final class MappedReader {
+
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            remap(0, 0);
+        }
+
+        long position() {
+            return windowStart + window.position();
+        }
+
+        boolean has(long bytes) {
+            return position() + bytes <= size;
+        }
+
+        ByteBuffer require(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                remap(position(), bytes);
+            }
+            return window;
+        }
+
+        void skip(long bytes) throws IOException {
+            seek(position() + bytes);
+        }
+
+        void seek(long position) throws IOException {
+            if (position >= windowStart && position <= windowStart + window.limit()) {
+                window.position((int) (position - windowStart));
+            } else {
+                remap(position, 0);
+            }
+        }
+
+        private void remap(long position, int minBytes) throws IOException {
+            long length = Math.min(size - position, Math.max(MAP_WINDOW_BYTES, minBytes));
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.max(length, 0));
+            windowStart = position;
+        }
+    }
+
+    /**
+     * 编码辅助：写入 UTF-8 字符串（2 字节长度前缀）
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 解码辅助：读取 writeString 写入的字符串
+     */
+    static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 编码辅助：写入时间（UTC 秒 + 纳秒）
+     */
+    static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    /**
+     * 解码辅助：读取 writeDateTime 写入的时间
+     */
+    static LocalDateTime readDateTime(ByteBuffer buffer) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+}
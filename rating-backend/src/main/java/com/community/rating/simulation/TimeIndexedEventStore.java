@@ -0,0 +1,68 @@
+package com.community.rating.simulation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按时间索引的事件存储：以事件时间为键的 ConcurrentSkipListMap，同一时刻的事件按追加顺序保存在无锁队列中。
+ * - 追加：无锁（跳表 CAS + 队列 CAS）
+ * - 时间窗口查询：O(log n + k)，只遍历窗口内的键
+ * - 过期淘汰：按保留期整体丢弃早于截止时间的键
+ *
+ * @param <E> 事件类型
+ */
+public class TimeIndexedEventStore<E> {
+
+    private final ConcurrentSkipListMap<LocalDateTime, Queue<E>> eventsByTime = new ConcurrentSkipListMap<>();
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * 追加一条事件
+     */
+    public void append(LocalDateTime timestamp, E event) {
+        eventsByTime.computeIfAbsent(timestamp, t -> new ConcurrentLinkedQueue<>()).add(event);
+        size.incrementAndGet();
+    }
+
+    /**
+     * 查询开区间 (start, end) 内的事件，按时间升序返回（与原线性过滤 isAfter / isBefore 语义一致）
+     */
+    public List<E> window(LocalDateTime start, LocalDateTime end) {
+        List<E> result = new ArrayList<>();
+        if (!start.isBefore(end)) {
+            return result;
+        }
+        for (Queue<E> events : eventsByTime.subMap(start, false, end, false).values()) {
+            result.addAll(events);
+        }
+        return result;
+    }
+
+    /**
+     * 淘汰早于截止时间的全部事件，返回淘汰条数
+     */
+    public long evictBefore(LocalDateTime cutoff) {
+        NavigableMap<LocalDateTime, Queue<E>> expired = eventsByTime.headMap(cutoff, false);
+        long evicted = 0;
+        Map.Entry<LocalDateTime, Queue<E>> entry;
+        while ((entry = expired.pollFirstEntry()) != null) {
+            evicted += entry.getValue().size();
+        }
+        size.addAndGet(-evicted);
+        return evicted;
+    }
+
+    /**
+     * 当前保存的事件数
+     */
+    public long size() {
+        return size.get();
+    }
+}
@@ -0,0 +1,226 @@
+package com.community.rating.simulation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * 单文件时间模拟服务：支持真实/虚拟时间切换，虚拟时间默认每 120s 推进 1 天并持久化。
+ * 虚拟时钟可暂停、步进与调速（由 VirtualClock 暴露给管理接口）；
+ * 回放模式下虚拟时钟以暂停状态启动：时间只在调用 advance 系列方法时前进，与真实时间无关。
+ */
+public class TimeSimulation {
+
+    // 时间模式
+    private static final boolean IS_REAL_TIME = !ForumDataSimulation.USE_VIRTUAL_TIME;
+    private static final boolean LOAD_FROM_FILE = ForumDataSimulation.IS_LOAD_MODE;
+    private static final boolean IS_STEPPED = ForumDataSimulation.IS_REPLAY_MODE;
+    // 全局实例（回放模式从固定起点暂停启动，也不覆盖持久化文件）
+    private static final VirtualTimeProvider VIRTUAL_TIME_PROVIDER =
+            IS_STEPPED ? new VirtualTimeProvider(ForumDataSimulation.REPLAY_START_TIME)
+                    : IS_REAL_TIME ? null : new VirtualTimeProvider();
+
+    // 获取当前时间
+    public static LocalDateTime now() {
+        return VIRTUAL_TIME_PROVIDER == null ? LocalDateTime.now() : VIRTUAL_TIME_PROVIDER.now();
+    }
+
+    /**
+     * 是否为手动步进时钟（回放模式）
+     */
+    public static boolean isStepped() {
+        return IS_STEPPED;
+    }
+
+    /**
+     * 是否为真实时间（不可控制）
+     */
+    public static boolean isRealTime() {
+        return VIRTUAL_TIME_PROVIDER == null;
+    }
+
+    /**
+     * 虚拟时钟是否暂停
+     */
+    public static boolean isPaused() {
+        return VIRTUAL_TIME_PROVIDER != null && VIRTUAL_TIME_PROVIDER.state.paused();
+    }
+
+    /**
+     * 虚拟时间相对真实时间的倍速；真实时间模式下为 1
+     */
+    public static double speed() {
+        return VIRTUAL_TIME_PROVIDER == null ? 1.0 : VIRTUAL_TIME_PROVIDER.state.speed();
+    }
+
+    /**
+     * 暂停虚拟时钟，返回暂停时刻的虚拟时间
+     */
+    public static LocalDateTime pause() {
+        return requireVirtual().pause();
+    }
+
+    /**
+     * 恢复虚拟时钟，返回恢复时刻的虚拟时间
+     */
+    public static LocalDateTime resume() {
+        return requireVirtual().resume();
+    }
+
+    /**
+     * 调整虚拟时间倍速（必须为正数），返回调整时刻的虚拟时间
+     */
+    public static LocalDateTime setSpeed(double speed) {
+        if (!(speed > 0) || Double.isInfinite(speed)) {
+            throw new IllegalArgumentException("倍速必须为正数: " + speed);
+        }
+        return requireVirtual().setSpeed(speed);
+    }
+
+    /**
+     * 虚拟时钟前进指定天数，返回前进后的时间
+     */
+    public static LocalDateTime advanceDays(int days) {
+        return advance(Duration.ofDays(days));
+    }
+
+    /**
+     * 虚拟时钟前进指定时长，返回前进后的时间
+     */
+    public static LocalDateTime advance(Duration duration) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("虚拟时间不能后退");
+        }
+        return requireVirtual().advanceBy(duration);
+    }
+
+    /**
+     * 虚拟时钟前进到指定时间（不能早于当前时间），返回前进后的时间
+     */
+    public static LocalDateTime advanceTo(LocalDateTime target) {
+        return requireVirtual().advanceTo(target);
+    }
+
+    private static VirtualTimeProvider requireVirtual() {
+        if (VIRTUAL_TIME_PROVIDER == null) {
+            throw new IllegalStateException("当前为真实时间模式，不能控制时钟");
+        }
+        return VIRTUAL_TIME_PROVIDER;
+    }
+
+    // ---- 虚拟时间 ----
+    private static class VirtualTimeProvider {
+        private static final String STORE_FOLDER = "./simulation";
+        private static final String STORE_FILE = "virtual_time.txt";
+
+        private static final double DEFAULT_SPEED = 60 * 24 * 60 / 120.0; // 120 秒推进 1 天
+
+        private static final DateTimeFormatter FMT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        private static final Path STORE_DIR = Paths.get(STORE_FOLDER);
+        private static final Path STORE = STORE_DIR.resolve(STORE_FILE);
+
+        /**
+         * 时钟状态（不可变，整体替换）：虚拟时间 = anchorVirtual + (真实流逝毫秒 × speed)，暂停时固定为 anchorVirtual
+         */
+        private record State(long anchorRealMillis, LocalDateTime anchorVirtual, double speed, boolean paused) {
+
+            LocalDateTime virtualAt(long realMillis) {
+                if (paused) {
+                    return anchorVirtual;
+                }
+                return anchorVirtual.plus((long) ((realMillis - anchorRealMillis) * speed), ChronoUnit.MILLIS);
+            }
+        }
+
+        // 读取无锁；修改在 synchronized 方法内以当前虚拟时间为新锚点整体替换
+        private volatile State state;
+
+        static {
+            // 确保存储目录存在
+            try {
+                if (!Files.exists(STORE_DIR)) {
+                    Files.createDirectories(STORE_DIR);
+                }
+            } catch (IOException e) {
+                System.err.println("创建目录失败: " + e.getMessage());
+            }
+        }
+
+        VirtualTimeProvider() {
+            LocalDateTime startRealTime = LocalDateTime.now();
+            LocalDateTime startVirtualTime = LOAD_FROM_FILE
+                    ? loadFromFile().orElse(startRealTime)
+                    : startRealTime;
+            this.state = new State(System.currentTimeMillis(), startVirtualTime, DEFAULT_SPEED, false);
+            // 注册 JVM 关闭钩子，保存虚拟时间
+            Runtime.getRuntime().addShutdownHook(new Thread(this::saveToFile));
+        }
+
+        // 回放模式：从固定起点暂停启动，不持久化
+        VirtualTimeProvider(LocalDateTime start) {
+            this.state = new State(System.currentTimeMillis(), start, DEFAULT_SPEED, true);
+        }
+
+        public LocalDateTime now() {
+            return state.virtualAt(System.currentTimeMillis());
+        }
+
+        synchronized LocalDateTime pause() {
+            return reanchor(now(), state.speed(), true);
+        }
+
+        synchronized LocalDateTime resume() {
+            return reanchor(now(), state.speed(), false);
+        }
+
+        synchronized LocalDateTime setSpeed(double speed) {
+            return reanchor(now(), speed, state.paused());
+        }
+
+        synchronized LocalDateTime advanceBy(Duration duration) {
+            return reanchor(now().plus(duration), state.speed(), state.paused());
+        }
+
+        synchronized LocalDateTime advanceTo(LocalDateTime target) {
+            LocalDateTime current = now();
+            if (target.isBefore(current)) {
+                throw new IllegalArgumentException("虚拟时间不能后退: " + current + " -> " + target);
+            }
+            return reanchor(target, state.speed(), state.paused());
+        }
+
+        private LocalDateTime reanchor(LocalDateTime virtualTime, double speed, boolean paused) {
+            state = new State(System.currentTimeMillis(), virtualTime, speed, paused);
+            return virtualTime;
+        }
+
+        private Optional<LocalDateTime> loadFromFile() {
+            try {
+                if (Files.exists(STORE)) {
+                    String s = Files.readString(STORE).trim();
+                    if (!s.isEmpty()) {
+                        return Optional.of(LocalDateTime.parse(s, FMT));
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to load virtual time: " + e.getMessage());
+            }
+            return Optional.empty();
+        }
+
+        private void saveToFile() {
+            try {
+                String s = now().format(FMT);
+                Files.writeString(STORE, s, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                System.out.println("保存虚拟时间成功: " + s);
+            } catch (Exception e) {
+                System.err.println("Failed to save virtual time: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.community.rating.simulation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * 带版本号的变更流：每次写入分配单调递增的版本号，消费方按水位线分页拉取“某版本之后的变更”，
+ * 提交成功后再确认（ack）版本，已确认的条目才会被移除。
+ * - 同一键只保留最新值：再次写入时旧版本条目被替换，内存上限为“未确认的不同键数”
+ * - 拉取不修改数据，可重复；消费方失败时未确认的变更保留，下次从原水位线继续
+ * - 写入串行化（生成任务本身是单线程定时任务），读取无锁，只读到已发布的版本，保证分页不会跳过空洞
+ *
+ * @param <K> 键类型（如内容 ID）
+ * @param <V> 值类型
+ */
+public class VersionedChangeFeed<K, V> {
+
+    /**
+     * 一页变更
+     * @param items 本页变更值（按版本升序）
+     * @param sinceVersion 本页起始水位线（不含）
+     * @param nextVersion 下一页的起始水位线，也是本页处理完成后应确认的版本
+     * @param hasMore 水位线之后是否还有更多变更
+     */
+    public record ChangePage<T>(List<T> items, long sinceVersion, long nextVersion, boolean hasMore) {
+    }
+
+    private record Change<K, V>(K key, V value) {
+    }
+
+    private final ConcurrentSkipListMap<Long, Change<K, V>> changesByVersion = new ConcurrentSkipListMap<>();
+    private final Map<K, Long> versionOfKey = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    // 已分配的最大版本号（仅在写锁内修改）
+    private long lastAssignedVersion = 0;
+    // 已发布的最大版本号：该版本及之前的条目都已写入，读取方以此为上界
+    private volatile long publishedVersion = 0;
+    // 消费方已确认的版本号
+    private volatile long acknowledgedVersion = 0;
+
+    /**
+     * 写入（或覆盖）一个键的最新值，返回分配的版本号
+     */
+    public long put(K key, V value) {
+        synchronized (writeLock) {
+            long version = ++lastAssignedVersion;
+            Long previous = versionOfKey.put(key, version);
+            if (previous != null) {
+                changesByVersion.remove(previous);
+            }
+            changesByVersion.put(version, new Change<>(key, value));
+            publishedVersion = version;
+            return version;
+        }
+    }
+
+    /**
+     * 拉取 sinceVersion 之后的最多 limit 条变更（不修改数据，可重复调用）
+     */
+    public <T> ChangePage<T> changesSince(long sinceVersion, int limit, Function<V, T> mapper) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit 必须为正数");
+        }
+        long upperBound = publishedVersion;
+        List<T> items = new ArrayList<>(Math.min(limit, 1024));
+        long nextVersion = sinceVersion;
+        if (sinceVersion >= upperBound) {
+            return new ChangePage<>(items, sinceVersion, sinceVersion, false);
+        }
+        Iterator<Map.Entry<Long, Change<K, V>>> it =
+                changesByVersion.subMap(sinceVersion, false, upperBound, true).entrySet().iterator();
+        while (it.hasNext() && items.size() < limit) {
+            Map.Entry<Long, Change<K, V>> entry = it.next();
+            items.add(mapper.apply(entry.getValue().value()));
+            nextVersion = entry.getKey();
+        }
+        // 本页为空说明窗口内的条目均已被覆盖到更高版本，直接推进到上界
+        if (items.isEmpty()) {
+            nextVersion = upperBound;
+        }
+        return new ChangePage<>(items, sinceVersion, nextVersion, it.hasNext());
+    }
+
+    /**
+     * 确认 version 及之前的全部变更已被消费方持久化，移除对应条目。
+     * 低于当前确认水位线的确认会被忽略。
+     */
+    public void acknowledge(long version) {
+        synchronized (writeLock) {
+            long target = Math.min(version, publishedVersion);
+            if (target <= acknowledgedVersion) {
+                return;
+            }
+            Map.Entry<Long, Change<K, V>> entry;
+            while ((entry = changesByVersion.firstEntry()) != null && entry.getKey() <= target) {
+                changesByVersion.remove(entry.getKey());
+                versionOfKey.remove(entry.getValue().key(), entry.getKey());
+            }
+            acknowledgedVersion = target;
+        }
+    }
+
+    /**
+     * 消费方已确认的版本号（下一次拉取的默认起点）
+     */
+    public long acknowledgedVersion() {
+        return acknowledgedVersion;
+    }
+
+    /**
+     * 当前已发布的最新版本号
+     */
+    public long latestVersion() {
+        return publishedVersion;
+    }
+
+    /**
+     * 未确认的变更条数
+     */
+    public int pendingCount() {
+        return changesByVersion.size();
+    }
+}
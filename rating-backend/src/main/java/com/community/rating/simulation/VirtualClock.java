@@ -0,0 +1,107 @@
+package com.community.rating.simulation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 【可注入的虚拟时钟】TimeSimulation 的 Bean 门面：
+ * - now()：当前虚拟时间（随真实时间流动，受暂停/倍速影响）
+ * - captureAsOf()：评级计算开始时调用一次，得到本次计算冻结的参考时间，之后整条计算链路只使用该值，
+ *   既保证同一次计算内各阶段、各行数据的时间一致，也避免逐行重新计算虚拟时间
+ * - pause / resume / step / setSpeed：供管理接口控制时钟，每次控制后发布 ClockChangedEvent，
+ *   依赖“虚拟时间 → 真实时间”换算的组件（如计算调度器）据此重新排期
+ */
+@Component
+public class VirtualClock {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualClock.class);
+
+    /**
+     * 时钟状态
+     * @param virtualTime 当前虚拟时间
+     * @param mode 时间模式：REAL / VIRTUAL / REPLAY
+     * @param speed 相对真实时间的倍速
+     * @param paused 是否暂停
+     * @param lastAsOf 最近一次计算冻结的参考时间（尚未计算时为 null）
+     */
+    public record ClockStatus(LocalDateTime virtualTime, String mode, double speed, boolean paused, LocalDateTime lastAsOf) {
+    }
+
+    /**
+     * 时钟被暂停、恢复、步进或调速后发布的事件
+     */
+    public record ClockChangedEvent(ClockStatus status) {
+    }
+
+    private final ApplicationEventPublisher eventPublisher;
+    private volatile LocalDateTime lastAsOf;
+
+    public VirtualClock(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    public LocalDateTime now() {
+        return TimeSimulation.now();
+    }
+
+    /**
+     * 冻结并返回本次计算的参考时间
+     */
+    public LocalDateTime captureAsOf() {
+        return freezeAsOf(TimeSimulation.now());
+    }
+
+    /**
+     * 以指定时间作为本次计算的参考时间（补跑历史日期时使用该日的触发时刻）
+     */
+    public LocalDateTime freezeAsOf(LocalDateTime asOf) {
+        lastAsOf = asOf;
+        return asOf;
+    }
+
+    /**
+     * 当前状态下，虚拟时间流逝 virtualDuration 对应的真实时长；时钟暂停时返回 null（不会自然到达）
+     */
+    public Duration realDurationOf(Duration virtualDuration) {
+        if (TimeSimulation.isPaused()) {
+            return null;
+        }
+        return Duration.ofNanos((long) (virtualDuration.toNanos() / TimeSimulation.speed()));
+    }
+
+    public ClockStatus status() {
+        String mode = TimeSimulation.isStepped() ? "REPLAY" : TimeSimulation.isRealTime() ? "REAL" : "VIRTUAL";
+        return new ClockStatus(TimeSimulation.now(), mode, TimeSimulation.speed(), TimeSimulation.isPaused(), lastAsOf);
+    }
+
+    public ClockStatus pause() {
+        log.info("【虚拟时钟】暂停于 {}", TimeSimulation.pause());
+        return changed();
+    }
+
+    public ClockStatus resume() {
+        log.info("【虚拟时钟】恢复于 {}", TimeSimulation.resume());
+        return changed();
+    }
+
+    public ClockStatus step(Duration duration) {
+        log.info("【虚拟时钟】步进 {} 至 {}", duration, TimeSimulation.advance(duration));
+        return changed();
+    }
+
+    public ClockStatus setSpeed(double speed) {
+        log.info("【虚拟时钟】倍速调整为 {}，当前虚拟时间 {}", speed, TimeSimulation.setSpeed(speed));
+        return changed();
+    }
+
+    private ClockStatus changed() {
+        ClockStatus status = status();
+        eventPublisher.publishEvent(new ClockChangedEvent(status));
+        return status;
+    }
+}
@@ -0,0 +1,74 @@
+package com.community.rating.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 评级计算租约：同一时刻只允许一个持有者执行评级计算，避免定时触发、补跑与手动触发重叠。
+ * 租约带过期时间（真实时间），持有者异常卡死时，过期后可被其他触发方接管。
+ */
+@Component
+public class CalculationLease {
+
+    private static final Logger log = LoggerFactory.getLogger(CalculationLease.class);
+
+    /**
+     * 租约信息
+     * @param token 租约令牌（释放时校验）
+     * @param holder 持有者描述（如 "scheduled:2024-06-01"、"manual"）
+     * @param acquiredAt 获取时间
+     * @param expiresAt 过期时间
+     */
+    public record Lease(String token, String holder, Instant acquiredAt, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
+    private final AtomicReference<Lease> current = new AtomicReference<>();
+
+    /**
+     * 尝试获取租约：无人持有或已过期时成功并返回租约，否则返回 null
+     */
+    public Lease tryAcquire(String holder, Duration ttl) {
+        Instant now = Instant.now();
+        Lease lease = new Lease(UUID.randomUUID().toString(), holder, now, now.plus(ttl));
+        while (true) {
+            Lease existing = current.get();
+            if (existing != null && !existing.isExpired(now)) {
+                return null;
+            }
+            if (current.compareAndSet(existing, lease)) {
+                if (existing != null) {
+                    log.warn("评级计算租约已过期，由 {} 接管（原持有者 {}，获取于 {}）",
+                            holder, existing.holder(), existing.acquiredAt());
+                }
+                return lease;
+            }
+        }
+    }
+
+    /**
+     * 释放租约；租约已被接管时不做任何事
+     */
+    public void release(Lease lease) {
+        if (!current.compareAndSet(lease, null)) {
+            log.warn("释放评级计算租约时发现已被接管: {}", lease.holder());
+        }
+    }
+
+    /**
+     * 当前有效的租约，没有时返回 null
+     */
+    public Lease current() {
+        Lease lease = current.get();
+        return lease == null || lease.isExpired(Instant.now()) ? null : lease;
+    }
+}
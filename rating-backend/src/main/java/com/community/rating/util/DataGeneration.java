@@ -0,0 +1,50 @@
+package com.community.rating.util;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据代数 - 对外可见的评级数据每次变化（每日计算结束、流式计分微批提交、历史压缩、名称索引重建）时递增，
+ * 读接口以“启动纪元 + 代数”作为 ETag（见 GenerationETagFilter），代数不变时客户端缓存的响应仍然有效。
+ * 启动纪元保证重启后不会复用重启前的 ETag。
+ */
+@Component
+public class DataGeneration {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong generation = new AtomicLong();
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public long current() {
+        return generation.get();
+    }
+
+    /**
+     * 数据已变化：立即递增代数
+     */
+    public void advance() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * 在当前事务提交后递增代数（回滚时不变）；没有事务时立即递增
+     */
+    public void advanceAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    advance();
+                }
+            });
+        } else {
+            advance();
+        }
+    }
+}
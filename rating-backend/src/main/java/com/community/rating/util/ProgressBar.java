@@ -8,10 +8,34 @@ import java.time.temporal.ChronoUnit;
 
 /**
  * 通用进度条工具类
- * 用于在长时间运行的任务中显示进度信息
+ * 用于在长时间运行的任务中显示进度信息；安装了监听器时同时上报给监听器（如计算任务的进度接口）
  */
 public class ProgressBar {
     private static final Logger log = LoggerFactory.getLogger(ProgressBar.class);
+
+    /**
+     * 进度监听器：同一时刻最多一个（评级计算由租约保证串行）。
+     * 回调在步进线程上同步执行，应保持轻量；onProgress 可抛出 CancellationException 以中止任务。
+     */
+    public interface Listener {
+        void onStart(String taskName, int totalSteps);
+
+        void onProgress(String taskName, int currentStep);
+
+        void onComplete(String taskName);
+    }
+
+    private static volatile Listener listener;
+
+    /**
+     * 安装监听器，之后新建的进度条会上报进度；传入 null 卸载
+     */
+    public static void setListener(Listener newListener) {
+        listener = newListener;
+    }
+
+    // 创建时捕获的监听器
+    private final Listener boundListener;
     private final String taskName;
     private final int totalSteps;
     private int currentStep;
@@ -41,6 +65,10 @@ public class ProgressBar {
         this.currentStep = 0;
         this.startTime = LocalDateTime.now();
         this.updateInterval = updateInterval;
+        this.boundListener = listener;
+        if (boundListener != null) {
+            boundListener.onStart(taskName, this.totalSteps);
+        }
         // 开始任务时输出一行，后续更新使用同一行
         System.out.printf("[%s] 开始任务，共 %d 步\n", taskName, totalSteps);
     }
@@ -58,6 +86,7 @@ public class ProgressBar {
      */
     public void increment(int steps) {
         currentStep += steps;
+        report();
         displayProgress();
     }
 
@@ -67,6 +96,7 @@ public class ProgressBar {
      */
     public void setCurrentStep(int currentStep) {
         this.currentStep = Math.min(currentStep, totalSteps);
+        report();
         displayProgress();
     }
 
@@ -82,6 +112,15 @@ public class ProgressBar {
         
         long duration = ChronoUnit.MILLIS.between(startTime, LocalDateTime.now());
         System.out.printf("[%s] 任务完成！总耗时: %dms\n", taskName, duration);
+        if (boundListener != null) {
+            boundListener.onComplete(taskName);
+        }
+    }
+
+    private void report() {
+        if (boundListener != null) {
+            boundListener.onProgress(taskName, currentStep);
+        }
     }
 
     /**
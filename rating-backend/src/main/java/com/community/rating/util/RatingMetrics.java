@@ -0,0 +1,123 @@
+package com.community.rating.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 评级计算指标 - 对 Micrometer 的薄封装，集中定义指标名与标签
+ * 通过 /actuator/prometheus 暴露，用于观察各阶段耗时与数据量的跨日趋势
+ *
+ * 指标一览：
+ * - rating.calculation.stage     Timer    各阶段耗时（tag: stage）
+ * - rating.calculation.runs      Counter  计算次数（tag: outcome = success / failure）
+ * - rating.calculation.rows      Gauge    最近一次各阶段处理/过滤行数（tag: stage, type）
+ * - rating.achievement.rule      Timer    单条成就规则检测耗时（tag: rule）
+ * - rating.achievement.awarded   Counter  累计颁发成就数（tag: rule）
+ * - rating.jdbc.batch            Timer    单次 JDBC 批量操作耗时，带百分位直方图（tag: operation）
+ * - rating.jdbc.batch.rows       Summary  单次 JDBC 批量操作行数（tag: operation）
+ */
+@Component
+public class RatingMetrics {
+
+    // 阶段名（作为 stage 标签值）
+    public static final String STAGE_SYNC = "sync";
+    public static final String STAGE_CIS_NEW = "cis_new";
+    public static final String STAGE_CIS_UPDATE = "cis_update";
+    public static final String STAGE_DES = "des";
+    public static final String STAGE_ACHIEVEMENT = "achievement";
+    public static final String STAGE_TOTAL = "total";
+    public static final String STAGE_STREAM = "stream";
+
+    private final MeterRegistry registry;
+
+    // Gauge 只持有弱引用，需自行保存数值容器
+    private final Map<String, AtomicLong> rowGauges = new ConcurrentHashMap<>();
+
+    public RatingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 记录阶段耗时
+     */
+    public void recordStage(String stage, long elapsedMillis) {
+        Timer.builder("rating.calculation.stage")
+                .description("评级计算各阶段耗时")
+                .tag("stage", stage)
+                .register(registry)
+                .record(elapsedMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次计算的结果
+     */
+    public void recordRun(boolean success) {
+        Counter.builder("rating.calculation.runs")
+                .description("评级计算执行次数")
+                .tag("outcome", success ? "success" : "failure")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 更新阶段处理行数与过滤行数（保留最近一次的值）
+     */
+    public void recordRows(String stage, long processed, long filtered) {
+        rowGauge(stage, "processed").set(processed);
+        rowGauge(stage, "filtered").set(filtered);
+    }
+
+    /**
+     * 记录单条成就规则的检测耗时与新颁发数
+     */
+    public void recordRule(String ruleKey, long elapsedMillis, int awarded) {
+        Timer.builder("rating.achievement.rule")
+                .description("成就规则检测耗时")
+                .tag("rule", ruleKey)
+                .register(registry)
+                .record(elapsedMillis, TimeUnit.MILLISECONDS);
+        Counter.builder("rating.achievement.awarded")
+                .description("累计颁发成就数")
+                .tag("rule", ruleKey)
+                .register(registry)
+                .increment(awarded);
+    }
+
+    /**
+     * 记录单次 JDBC 批量操作的耗时与行数
+     */
+    public void recordJdbcBatch(String operation, long elapsedNanos, int rows) {
+        Timer.builder("rating.jdbc.batch")
+                .description("JDBC 批量操作耗时")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("rating.jdbc.batch.rows")
+                .description("JDBC 批量操作行数")
+                .tag("operation", operation)
+                .register(registry)
+                .record(rows);
+    }
+
+    private AtomicLong rowGauge(String stage, String type) {
+        return rowGauges.computeIfAbsent(stage + ':' + type, key -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("rating.calculation.rows", value, AtomicLong::get)
+                    .description("最近一次计算各阶段的行数")
+                    .tag("stage", stage)
+                    .tag("type", type)
+                    .register(registry);
+            return value;
+        });
+    }
+}
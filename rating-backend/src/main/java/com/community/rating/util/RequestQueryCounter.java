@@ -0,0 +1,41 @@
+package com.community.rating.util;
+
+/**
+ * 请求级 SQL 语句计数器 - 基于 ThreadLocal
+ * 由 RequestMetricsFilter 在请求开始时开启、结束时关闭；
+ * 计数由数据源包装层在每次创建 Statement 时累加（同时覆盖 JPA 与 JdbcTemplate）
+ * 未开启时（如定时任务线程）累加为空操作
+ */
+public final class RequestQueryCounter {
+
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    private RequestQueryCounter() {
+    }
+
+    /**
+     * 开始统计当前线程的语句数
+     */
+    public static void start() {
+        COUNTER.set(new int[1]);
+    }
+
+    /**
+     * 累加一次语句（仅在统计开启时生效）
+     */
+    public static void increment() {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+    }
+
+    /**
+     * 结束统计并返回语句数
+     */
+    public static int stop() {
+        int[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter != null ? counter[0] : 0;
+    }
+}
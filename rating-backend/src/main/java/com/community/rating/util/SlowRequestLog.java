@@ -0,0 +1,52 @@
+package com.community.rating.util;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 慢请求日志 - 保留最近的慢请求记录（含 SQL 语句数），供 /actuator/slowrequests 查询
+ */
+@Component
+public class SlowRequestLog {
+
+    // 最多保留的记录数
+    private static final int CAPACITY = 200;
+
+    private final Deque<SlowRequest> records = new ArrayDeque<>(CAPACITY);
+
+    /**
+     * 慢请求记录
+     * @param reason slow = 超过耗时阈值，queries = 语句数超过阈值（疑似 N+1）
+     */
+    public record SlowRequest(
+            LocalDateTime time,
+            String method,
+            String uri,
+            String pattern,
+            int status,
+            long durationMs,
+            int queryCount,
+            String reason
+    ) {}
+
+    public synchronized void add(SlowRequest record) {
+        if (records.size() == CAPACITY) {
+            records.removeFirst();
+        }
+        records.addLast(record);
+    }
+
+    /**
+     * 返回最近的记录（新的在前）
+     */
+    public synchronized List<SlowRequest> recent() {
+        List<SlowRequest> result = new ArrayList<>(records.size());
+        records.descendingIterator().forEachRemaining(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package com.community.rating.filter;
+
+import com.community.rating.util.DataGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationETagFilterTest {
+
+    private final DataGeneration dataGeneration = new DataGeneration();
+    private final GenerationETagFilter filter = new GenerationETagFilter(dataGeneration);
+
+    // 测试 ETag 一致时返回 304 且不进入后续处理；代数递增后重新处理
+    @Test
+    void testNotModifiedUntilGenerationAdvances() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockFilterChain firstChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/Member/getMemberList"), first, firstChain);
+        String etag = first.getHeader("ETag");
+        assertNotNull(etag);
+        assertNotNull(firstChain.getRequest());
+
+        MockHttpServletRequest revalidate = new MockHttpServletRequest("GET", "/api/Member/getMemberList");
+        revalidate.addHeader("If-None-Match", etag);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        MockFilterChain secondChain = new MockFilterChain();
+        filter.doFilter(revalidate, second, secondChain);
+        assertEquals(304, second.getStatus());
+        assertNull(secondChain.getRequest());
+
+        dataGeneration.advance();
+        MockHttpServletResponse third = new MockHttpServletResponse();
+        MockFilterChain thirdChain = new MockFilterChain();
+        filter.doFilter(revalidate, third, thirdChain);
+        assertEquals(200, third.getStatus());
+        assertNotNull(thirdChain.getRequest());
+        assertNotEquals(etag, third.getHeader("ETag"));
+    }
+
+    // 测试非 GET 请求与管理接口不附带 ETag
+    @Test
+    void testSkipsWritesAndAdminEndpoints() throws Exception {
+        MockHttpServletResponse post = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/Member/typeahead"), post, new MockFilterChain());
+        assertNull(post.getHeader("ETag"));
+
+        MockHttpServletResponse admin = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/admin/clock"), admin, new MockFilterChain());
+        assertNull(admin.getHeader("ETag"));
+    }
+
+    // 测试模拟数据源接口不附带 ETag，且携带 If-None-Match 时仍正常处理
+    @Test
+    void testSkipsSimulationFeeds() throws Exception {
+        MockHttpServletRequest feed = new MockHttpServletRequest("GET", "/api/simulation/content-changes");
+        feed.addHeader("If-None-Match", filter.currentETag());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(feed, response, chain);
+        assertNull(response.getHeader("ETag"));
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    // 测试 If-None-Match 的弱比较、多值与通配
+    @Test
+    void testMatches() {
+        String etag = "W/\"1-2-20240601\"";
+        assertTrue(GenerationETagFilter.matches(etag, etag));
+        assertTrue(GenerationETagFilter.matches("\"1-2-20240601\"", etag));
+        assertTrue(GenerationETagFilter.matches("W/\"1-1-20240601\", W/\"1-2-20240601\"", etag));
+        assertTrue(GenerationETagFilter.matches("*", etag));
+        assertFalse(GenerationETagFilter.matches("W/\"1-1-20240601\"", etag));
+        assertFalse(GenerationETagFilter.matches(null, etag));
+    }
+}
@@ -0,0 +1,77 @@
+package com.community.rating.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalculationCheckpointStoreTest {
+
+    private static final LocalDateTime AS_OF = LocalDateTime.of(2024, 6, 1, 4, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private CalculationCheckpointStore checkpointStore;
+
+    @BeforeEach
+    void setUp() {
+        checkpointStore = new CalculationCheckpointStore(jdbcTemplate);
+    }
+
+    // 测试检查点语义 - 已完成阶段、当前阶段的恢复键、未开始阶段
+    @Test
+    void testCheckpointStageSemantics() {
+        CalculationCheckpointStore.Checkpoint checkpoint = new CalculationCheckpointStore.Checkpoint(
+                "run", AS_OF, CalculationCheckpointStore.Stage.CIS_UPDATE, 1200L, 5L);
+
+        assertTrue(checkpoint.isPast(CalculationCheckpointStore.Stage.CIS_NEW));
+        assertFalse(checkpoint.isPast(CalculationCheckpointStore.Stage.CIS_UPDATE));
+        assertEquals(1200L, checkpoint.resumeKey(CalculationCheckpointStore.Stage.CIS_UPDATE));
+        assertEquals(0L, checkpoint.resumeKey(CalculationCheckpointStore.Stage.DES));
+        // 数据源版本与检查点一致时跳过已提交的键，中断后数据源有更新时从头重放
+        assertEquals(1200L, checkpoint.resumeKey(CalculationCheckpointStore.Stage.CIS_UPDATE, 5L));
+        assertEquals(0L, checkpoint.resumeKey(CalculationCheckpointStore.Stage.CIS_UPDATE, 6L));
+    }
+
+    // 测试恢复 - 参考时间相同的未完成运行直接恢复，不新建运行
+    @Test
+    @SuppressWarnings("unchecked")
+    void testResumeUnfinishedRunWithSameAsOf() {
+        CalculationCheckpointStore.Checkpoint unfinished = new CalculationCheckpointStore.Checkpoint(
+                "run-1", AS_OF, CalculationCheckpointStore.Stage.DES, 42L, 0L);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("RUNNING"))).thenReturn(List.of(unfinished));
+
+        assertEquals(unfinished, checkpointStore.resumeOrBegin(AS_OF));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    // 测试新运行 - 参考时间不同时放弃旧运行，从第一个阶段开始
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBeginNewRunAbandonsStaleRun() {
+        CalculationCheckpointStore.Checkpoint stale = new CalculationCheckpointStore.Checkpoint(
+                "run-0", AS_OF.minusDays(1), CalculationCheckpointStore.Stage.CIS_NEW, 7L, 3L);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("RUNNING"))).thenReturn(List.of(stale));
+
+        CalculationCheckpointStore.Checkpoint checkpoint = checkpointStore.resumeOrBegin(AS_OF);
+
+        assertNotEquals("run-0", checkpoint.runId());
+        assertEquals(CalculationCheckpointStore.Stage.MEMBER_SYNC, checkpoint.stage());
+        assertEquals(0L, checkpoint.lastKey());
+        verify(jdbcTemplate).update(startsWith("UPDATE calculationcheckpoint SET status"), eq("ABANDONED"), eq("RUNNING"));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO calculationcheckpoint"),
+                eq(checkpoint.runId()), eq(AS_OF), eq("MEMBER_SYNC"), eq(0L), eq("RUNNING"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.community.rating.service;
+
+import com.community.rating.util.CalculationLease;
+import com.community.rating.util.ProgressBar;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalculationJobRunnerTest {
+
+    private static final LocalDateTime AS_OF = LocalDateTime.of(2024, 6, 1, 4, 0);
+
+    @Mock
+    private RatingCalculationService ratingCalculationService;
+
+    private CalculationLease calculationLease;
+    private CalculationJobRunner jobRunner;
+
+    @BeforeEach
+    void setUp() {
+        calculationLease = new CalculationLease();
+        jobRunner = new CalculationJobRunner(ratingCalculationService, calculationLease);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRunner.shutdown();
+    }
+
+    // 测试任务执行 - 采集阶段进度与耗时，结束后释放租约并进入历史
+    @Test
+    void testJobReportsStageProgress() throws Exception {
+        doAnswer(invocation -> {
+            ProgressBar bar = new ProgressBar("DES计算", 10);
+            bar.increment(4);
+            bar.complete();
+            return null;
+        }).when(ratingCalculationService).executeDailyRatingCalculation(AS_OF);
+        when(ratingCalculationService.getLastTimingStats()).thenReturn(Map.of("总耗时", 5L));
+
+        CompletableFuture<CalculationJobRunner.JobSnapshot> finished = new CompletableFuture<>();
+        long jobId = jobRunner.submit("manual", AS_OF, finished::complete);
+        CalculationJobRunner.JobSnapshot job = finished.get(5, TimeUnit.SECONDS);
+
+        assertEquals(jobId, job.jobId());
+        assertEquals(CalculationJobRunner.JobStatus.SUCCEEDED, job.status());
+        assertEquals(1, job.stages().size());
+        assertEquals(10, job.stages().get(0).processed());
+        assertTrue(job.stages().get(0).completed());
+        assertEquals(Map.of("总耗时", 5L), job.stageMillis());
+        assertNull(calculationLease.current());
+        assertEquals(jobId, jobRunner.history().get(0).jobId());
+    }
+
+    // 测试取消 - 运行中的任务在下一次进度上报时中止
+    @Test
+    void testRunningJobIsCancelledAtNextProgressReport() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            ProgressBar bar = new ProgressBar("CIS计算", 100);
+            bar.step();
+            started.countDown();
+            cancelled.await(5, TimeUnit.SECONDS);
+            bar.step();
+            fail("取消后不应继续执行");
+            return null;
+        }).when(ratingCalculationService).executeDailyRatingCalculation(AS_OF);
+
+        CompletableFuture<CalculationJobRunner.JobSnapshot> finished = new CompletableFuture<>();
+        long jobId = jobRunner.submit("manual", AS_OF, finished::complete);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(CalculationJobRunner.JobStatus.RUNNING, jobRunner.find(jobId).orElseThrow().status());
+
+        assertTrue(jobRunner.cancel(jobId));
+        cancelled.countDown();
+        CalculationJobRunner.JobSnapshot job = finished.get(5, TimeUnit.SECONDS);
+
+        assertEquals(CalculationJobRunner.JobStatus.CANCELLED, job.status());
+        assertEquals(1, job.stages().get(0).processed());
+        assertFalse(jobRunner.cancel(jobId));
+        verify(ratingCalculationService, never()).getLastTimingStats();
+    }
+}
@@ -0,0 +1,55 @@
+package com.community.rating.service;
+
+import com.community.rating.util.CalculationLease;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalculationSchedulerTest {
+
+    // 测试到期日期计算 - 以凌晨 4 点为界，错过的天数按上限补跑
+    @Test
+    void dueDatesBackfillsMissedDaysUpToLimit() {
+        LocalDate lastCompleted = LocalDate.of(2024, 6, 1);
+
+        // 当天 4 点之前：只到前一天
+        assertEquals(List.of(LocalDate.of(2024, 6, 2)),
+                CalculationScheduler.dueDates(lastCompleted, LocalDateTime.of(2024, 6, 3, 3, 59), 3));
+        // 恰好 4 点：当天到期
+        assertEquals(List.of(LocalDate.of(2024, 6, 2), LocalDate.of(2024, 6, 3)),
+                CalculationScheduler.dueDates(lastCompleted, LocalDateTime.of(2024, 6, 3, 4, 0), 3));
+        // 错过 9 天：只补跑最近 3 天
+        assertEquals(List.of(LocalDate.of(2024, 6, 8), LocalDate.of(2024, 6, 9), LocalDate.of(2024, 6, 10)),
+                CalculationScheduler.dueDates(lastCompleted, LocalDateTime.of(2024, 6, 10, 12, 0), 3));
+        // 已完成当天：无到期
+        assertTrue(CalculationScheduler.dueDates(LocalDate.of(2024, 6, 3), LocalDateTime.of(2024, 6, 3, 23, 0), 3).isEmpty());
+    }
+
+    // 测试计算租约 - 持有期间拒绝重叠获取，过期后可接管
+    @Test
+    void leasePreventsOverlapUntilReleasedOrExpired() throws InterruptedException {
+        CalculationLease lease = new CalculationLease();
+
+        CalculationLease.Lease first = lease.tryAcquire("scheduled", Duration.ofMinutes(5));
+        assertNotNull(first);
+        assertNull(lease.tryAcquire("manual", Duration.ofMinutes(5)));
+        assertEquals("scheduled", lease.current().holder());
+
+        lease.release(first);
+        assertNull(lease.current());
+
+        CalculationLease.Lease shortLived = lease.tryAcquire("stuck", Duration.ofMillis(1));
+        assertNotNull(shortLived);
+        Thread.sleep(5);
+        CalculationLease.Lease takeover = lease.tryAcquire("manual", Duration.ofMinutes(5));
+        assertNotNull(takeover);
+        // 被接管后原持有者的释放不影响新租约
+        lease.release(shortLived);
+        assertEquals("manual", lease.current().holder());
+    }
+}
@@ -17,9 +17,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 
 import java.math.BigDecimal;
+import java.sql.ResultSet;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -39,6 +43,9 @@ public class ContentServiceImplTest {
     @Mock
     private KnowledgeAreaRepository areaRepository;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @InjectMocks
     private ContentServiceImpl contentService;
 
@@ -271,4 +278,51 @@ public class ContentServiceImplTest {
         // 验证依赖方法是否被正确调用
         verify(contentRepository, never()).findById(anyLong());
     }
-}
\ No newline at end of file
+
+    // 测试 getContentsByIds 方法 - 集合查询，一次扫描统计排名，按请求顺序返回，不存在的内容为 null
+    @Test
+    void testGetContentsByIds_BatchInRequestOrder() {
+        when(contentRepository.findAllById(any())).thenReturn(Arrays.asList(contentSnapshot1, contentSnapshot2));
+        when(memberRepository.findAllById(any())).thenReturn(List.of(member));
+        when(areaRepository.findAll()).thenReturn(List.of(knowledgeArea));
+        // 表中分数为 95、90、85：按绑定的各分数统计更高的帖子数
+        doAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            ResultSet rs = mock(ResultSet.class);
+            for (int i = 2; i < args.length; i++) {
+                BigDecimal score = (BigDecimal) args[i];
+                long higher = List.of(new BigDecimal("95"), new BigDecimal("90"), new BigDecimal("85")).stream()
+                        .filter(s -> s.compareTo(score) > 0).count();
+                when(rs.getLong(i - 1)).thenReturn(higher);
+            }
+            ((RowCallbackHandler) args[1]).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        List<ContentDTO> result = contentService.getContentsByIds(Arrays.asList(2L, 999L, 1L));
+
+        assertEquals(3, result.size());
+        assertEquals(2L, result.get(0).getContentId());
+        assertEquals(3, result.get(0).getRank());
+        assertNull(result.get(1));
+        assertEquals(1L, result.get(2).getContentId());
+        assertEquals(2, result.get(2).getRank());
+        assertEquals("测试用户", result.get(2).getAuthorName());
+        assertEquals("Java", result.get(2).getDomain());
+
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        verify(contentRepository, never()).countContentsWithHigherScore(anyDouble());
+        verify(memberRepository, never()).findById(anyLong());
+    }
+
+    // 测试 getContentsByIds 方法 - 超过批量上限
+    @Test
+    void testGetContentsByIds_TooManyIds() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i <= ContentServiceImpl.MAX_BATCH_SIZE; i++) {
+            ids.add(i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> contentService.getContentsByIds(ids));
+        verify(contentRepository, never()).findAllById(any());
+    }
+}
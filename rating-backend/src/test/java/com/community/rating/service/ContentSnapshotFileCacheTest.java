@@ -0,0 +1,133 @@
+package com.community.rating.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentSnapshotFileCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDateTime publishTime = LocalDateTime.of(2024, 3, 15, 13, 45, 30);
+
+    // 测试重建后重新打开 - 数据在重启后保持一致
+    @Test
+    void testRebuildAndReopen() {
+        Path file = tempDir.resolve("content.bin");
+        ContentColumnStore store = new ContentColumnStore();
+        store.add(1L, 10L, 2, publishTime, 3, 100, 10, 5, 3, 8, 2);
+        store.add(2L, 11L, 4, publishTime.minusDays(40), 1, 50, 1, 0, 0, 0, 0);
+
+        ContentSnapshotFileCache cache = new ContentSnapshotFileCache(file);
+        cache.rebuild(store, 7L);
+        cache.close();
+
+        ContentSnapshotFileCache reopened = new ContentSnapshotFileCache(file);
+        reopened.open();
+        ContentColumnStore loaded = reopened.load(7L);
+
+        assertNotNull(loaded);
+        assertEquals(2, loaded.size());
+        assertEquals(1L, loaded.contentId(0));
+        assertEquals(10L, loaded.memberId(0));
+        assertEquals(2, loaded.areaId(0));
+        assertEquals(publishTime, loaded.publishTime(0));
+        assertEquals(3, loaded.postLengthLevel(0));
+        assertEquals(100, loaded.readCount(0));
+        assertEquals(2, loaded.hateCount(0));
+        assertEquals(publishTime.minusDays(40), loaded.publishTime(1));
+        reopened.close();
+    }
+
+    // 测试按 content_id 修补 - 覆盖已有记录并追加新记录
+    @Test
+    void testUpsertOverwritesAndAppends() {
+        ContentSnapshotFileCache cache = new ContentSnapshotFileCache(tempDir.resolve("content.bin"));
+        ContentColumnStore initial = new ContentColumnStore();
+        initial.add(1L, 10L, 1, publishTime, 1, 100, 1, 1, 1, 1, 1);
+        cache.rebuild(initial, 7L);
+
+        ContentColumnStore changes = new ContentColumnStore();
+        changes.add(1L, 10L, 1, publishTime, 1, 999, 1, 1, 1, 1, 1);
+        changes.add(2L, 20L, 3, publishTime, 2, 5, 0, 0, 0, 0, 0);
+        cache.upsert(changes, new int[]{0, 1}, 2, new ContentSnapshotVersion.Transition(7L, 8L));
+
+        assertNull(cache.load(7L));
+        ContentColumnStore loaded = cache.load(8L);
+        assertNotNull(loaded);
+        assertEquals(2, loaded.size());
+        assertEquals(999, loaded.readCount(0));
+        assertEquals(2L, loaded.contentId(1));
+        cache.close();
+    }
+
+    // 测试数据版本不一致 - 缓存失效返回 null
+    @Test
+    void testLoadReturnsNullOnVersionMismatch() {
+        ContentSnapshotFileCache cache = new ContentSnapshotFileCache(tempDir.resolve("content.bin"));
+        assertNull(cache.load(0));
+
+        ContentColumnStore store = new ContentColumnStore();
+        store.add(1L, 10L, 1, publishTime, 1, 1, 0, 0, 0, 0, 0);
+        cache.rebuild(store, 7L);
+        assertNull(cache.load(5L));
+
+        cache.invalidate();
+        assertNull(cache.load(7L));
+    }
+
+    // 测试修补前的版本不匹配（之前的修补丢失）- 缓存直接失效，不会在旧数据上继续修补
+    @Test
+    void testUpsertInvalidatesOnMissedVersion() {
+        ContentSnapshotFileCache cache = new ContentSnapshotFileCache(tempDir.resolve("content.bin"));
+        ContentColumnStore store = new ContentColumnStore();
+        store.add(1L, 10L, 1, publishTime, 1, 1, 0, 0, 0, 0, 0);
+        cache.rebuild(store, 7L);
+
+        cache.upsert(store, new int[]{0}, 1, new ContentSnapshotVersion.Transition(8L, 9L));
+
+        assertNull(cache.load(7L));
+        assertNull(cache.load(9L));
+    }
+
+    // 测试分段映射 - 记录跨越多个映射段，追加扩容后重新打开仍一致
+    @Test
+    void testSegmentedMappingAcrossSegments() {
+        Path file = tempDir.resolve("content.bin");
+        ContentSnapshotFileCache cache = new ContentSnapshotFileCache(file, 3);
+        ContentColumnStore store = new ContentColumnStore();
+        for (int i = 0; i < 10; i++) {
+            store.add(i + 1L, 100L + i, 1, publishTime.plusSeconds(i), 1, i, 0, 0, 0, 0, 0);
+        }
+        cache.rebuild(store, 7L);
+
+        ContentColumnStore changes = new ContentColumnStore();
+        for (int i = 5; i < 8000; i++) {
+            changes.add(i + 1L, 100L + i, 2, publishTime.plusSeconds(i), 2, i * 10L, 0, 0, 0, 0, 0);
+        }
+        int[] rows = new int[changes.size()];
+        Arrays.setAll(rows, i -> i);
+        cache.upsert(changes, rows, rows.length, new ContentSnapshotVersion.Transition(7L, 8L));
+        cache.close();
+
+        ContentSnapshotFileCache reopened = new ContentSnapshotFileCache(file, 3);
+        reopened.open();
+        ContentColumnStore loaded = reopened.load(8L);
+        assertNotNull(loaded);
+        assertEquals(8000, loaded.size());
+        assertEquals(4, loaded.readCount(4));
+        assertEquals(1, loaded.areaId(4));
+        assertEquals(50, loaded.readCount(5));
+        assertEquals(2, loaded.areaId(5));
+        assertEquals(8000L, loaded.contentId(7999));
+        assertEquals(79990, loaded.readCount(7999));
+        assertEquals(publishTime.plusSeconds(7999), loaded.publishTime(7999));
+        reopened.close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.community.rating.service;
+
+import com.community.rating.dto.MemberDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemberSearchIndexTest {
+
+    private static final LocalDateTime JOIN = LocalDateTime.of(2023, 1, 1, 10, 0);
+
+    private MemberSearchIndex.Snapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = MemberSearchIndex.Snapshot.build(List.of(
+                member(1L, "测试用户1", new int[]{1}),
+                member(2L, "另一个测试用户", new int[]{2}),
+                member(3L, "Alice", new int[]{1, 2}),
+                member(4L, "alice_wonder", new int[]{}),
+                member(5L, "Malice", new int[]{2})),
+                Map.of(1, "Java", 2, "Python"));
+    }
+
+    // 测试子串搜索 - 短关键词直接命中倒排表，长关键词校验包含关系，按名字长度（相关度）排序，不区分大小写
+    @Test
+    void testSearchOrdersByRelevance() {
+        assertEquals(List.of(1L, 2L), ids(snapshot.search("测试", null, 10, false)));
+        assertEquals(List.of(3L, 5L, 4L), ids(snapshot.search("ALICE", null, 10, false)));
+        assertEquals(List.of(4L), ids(snapshot.search("e_won", null, 10, false)));
+        assertEquals(List.of(3L), ids(snapshot.search("lic", null, 1, false)));
+        assertTrue(snapshot.search("bob", null, 10, false).isEmpty());
+
+        MemberDTO first = snapshot.search("测试", null, 10, false).get(0);
+        assertEquals(1, first.getRank());
+        assertEquals("Java", first.getMain_domain());
+        assertEquals("2023-01-01", first.getJoin_time());
+    }
+
+    // 测试领域过滤 - 只返回在该领域有评级的成员；领域不存在时为空
+    @Test
+    void testSearchFiltersByDomain() {
+        assertEquals(List.of(3L, 5L), ids(snapshot.search("alice", "Python", 10, false)));
+        assertEquals(List.of(1L), ids(snapshot.search("测试", "Java", 10, false)));
+        assertTrue(snapshot.search("alice", "Go", 10, false).isEmpty());
+    }
+
+    // 测试前缀联想 - 只匹配名称开头，长前缀先取 3 字符前缀再校验
+    @Test
+    void testTypeaheadMatchesPrefixOnly() {
+        assertEquals(List.of(3L, 4L), ids(snapshot.search("al", null, 10, true)));
+        assertEquals(List.of(4L), ids(snapshot.search("alice_", null, 10, true)));
+        assertEquals(List.of(2L), ids(snapshot.search("另一", null, 10, true)));
+    }
+
+    private static MemberSearchIndex.IndexedMember member(long memberId, String name, int[] areaIds) {
+        return new MemberSearchIndex.IndexedMember(memberId, name, JOIN, "L3", 100,
+                areaIds.length > 0 ? (areaIds[0] == 1 ? "Java" : "Python") : null, areaIds);
+    }
+
+    private static List<Long> ids(List<MemberDTO> results) {
+        return results.stream().map(MemberDTO::getMember_id).toList();
+    }
+}
@@ -2,11 +2,14 @@ package com.community.rating.service;
 
 import com.community.rating.dto.MemberDTO;
 import com.community.rating.dto.MemberScoreHistoryDTO;
+import com.community.rating.dto.ScoreHistoryItemDTO;
 import com.community.rating.entity.KnowledgeArea;
 import com.community.rating.entity.Member;
 import com.community.rating.entity.MemberRating;
+import com.community.rating.entity.MemberRatingRollup;
 import com.community.rating.repository.KnowledgeAreaRepository;
 import com.community.rating.repository.MemberRatingRepository;
+import com.community.rating.repository.MemberRatingRollupRepository;
 import com.community.rating.repository.MemberRepository;
 import com.community.rating.repository.Member_MemberRating_KnowledgeArea_Repository;
 import org.junit.jupiter.api.BeforeEach;
@@ -33,12 +36,24 @@ public class MemberServiceImplTest {
     @Mock
     private MemberRatingRepository memberRatingRepository;
 
+    @Mock
+    private MemberRatingRollupRepository memberRatingRollupRepository;
+
     @Mock
     private KnowledgeAreaRepository knowledgeAreaRepository;
 
     @Mock
     private Member_MemberRating_KnowledgeArea_Repository combinedRepo;
 
+    @Mock
+    private ScoreSeriesStore scoreSeriesStore;
+
+    @Mock
+    private MemberSearchIndex memberSearchIndex;
+
+    @Mock
+    private RatingAlgorithm ratingAlgorithm;
+
     @InjectMocks
     private MemberServiceImpl memberService;
 
@@ -322,84 +337,182 @@ public class MemberServiceImplTest {
         verify(knowledgeAreaRepository, never()).findById(anyInt());
     }
 
-    // 测试 searchMembers 方法 - 关键词匹配
+    // 测试 getMember 方法 - 历史分数跨日粒度与周/月汇总拼接（按日期降序）
     @Test
-    void testSearchMembers_KeywordMatch() {
-        // 准备测试数据
-        String keyword = "测试";
-        Integer limit = 5;
+    void testGetMember_HistoryAcrossRetentionTiers() {
+        Long memberId = 1L;
+        MemberRatingRollup weekly = new MemberRatingRollup();
+        weekly.setMemberId(memberId);
+        weekly.setAreaId(1);
+        weekly.setGranularity(MemberRatingRollup.WEEKLY);
+        weekly.setPeriodStart(LocalDate.of(2023, 3, 6));
+        weekly.setLastDate(LocalDate.of(2023, 3, 12));
+        weekly.setLastScore(new BigDecimal(80));
+        weekly.setLastLevel("B");
+        weekly.setMinScore(new BigDecimal(75));
+        weekly.setMaxScore(new BigDecimal(82));
+        MemberRatingRollup monthly = new MemberRatingRollup();
+        monthly.setMemberId(memberId);
+        monthly.setAreaId(1);
+        monthly.setGranularity(MemberRatingRollup.MONTHLY);
+        monthly.setPeriodStart(LocalDate.of(2023, 1, 1));
+        monthly.setLastDate(LocalDate.of(2023, 1, 29));
+        monthly.setLastScore(new BigDecimal(70));
+        monthly.setLastLevel("C");
+        monthly.setMinScore(new BigDecimal(60));
+        monthly.setMaxScore(new BigDecimal(72));
 
-        // 模拟依赖方法调用
-        when(memberRepository.findByNameContainingIgnoreCase(keyword)).thenReturn(Arrays.asList(member1));
-        when(memberRatingRepository.findAllByMemberId(1L)).thenReturn(Arrays.asList(rating1));
+        when(memberRepository.findById(memberId)).thenReturn(Optional.of(member1));
+        when(memberRatingRepository.findAllByMemberId(memberId)).thenReturn(Arrays.asList(rating2, rating1));
+        when(memberRatingRollupRepository.findAllByMemberId(memberId)).thenReturn(Arrays.asList(monthly, weekly));
         when(knowledgeAreaRepository.findById(1)).thenReturn(Optional.of(knowledgeAreaJava));
+        when(memberRatingRepository.findByAreaIdOrderByDesScoreDesc(1)).thenReturn(Arrays.asList(rating1, rating2));
 
-        // 执行测试方法
-        List<MemberDTO> result = memberService.searchMembers(keyword, null, limit);
+        List<MemberScoreHistoryDTO> result = memberService.getMember(memberId);
 
-        // 验证结果
         assertEquals(1, result.size());
-        assertEquals(1L, result.get(0).getMember_id());
-        assertEquals("测试用户1", result.get(0).getMember_name());
-
-        // 验证依赖方法是否被正确调用
-        verify(memberRepository).findByNameContainingIgnoreCase(keyword);
-        verify(memberRatingRepository).findAllByMemberId(1L);
+        MemberScoreHistoryDTO dto = result.get(0);
+        assertEquals("A", dto.getLevel());
+        assertEquals(90, dto.getScore());
+        List<String> dates = dto.getScore_history().stream().map(ScoreHistoryItemDTO::getUpdate_date).toList();
+        assertEquals(List.of("2023-06-01", "2023-05-01", "2023-03-12", "2023-01-29"), dates);
+        List<String> granularities = dto.getScore_history().stream().map(ScoreHistoryItemDTO::getGranularity).toList();
+        assertEquals(List.of("day", "day", "week", "month"), granularities);
+        assertEquals(60.0, dto.getScore_history().get(3).getMin_score());
+        assertEquals(72.0, dto.getScore_history().get(3).getMax_score());
     }
 
-    // 测试 searchMembers 方法 - 关键词不匹配
+    // 测试 getMember 方法 - 有分数序列时历史分数与当前评级取自序列（按日期降序），不再读取序列覆盖的日记录
     @Test
-    void testSearchMembers_KeywordNoMatch() {
-        // 准备测试数据
-        String keyword = "不存在的关键词";
-        Integer limit = 5;
-
-        // 模拟依赖方法调用
-        when(memberRepository.findByNameContainingIgnoreCase(keyword)).thenReturn(new ArrayList<>());
-
-        // 执行测试方法
-        List<MemberDTO> result = memberService.searchMembers(keyword, null, limit);
+    void testGetMember_HistoryFromScoreSeries() {
+        Long memberId = 1L;
+        when(memberRepository.findById(memberId)).thenReturn(Optional.of(member1));
+        when(memberRatingRepository.findAllByMemberIdAndUpdateDateBefore(memberId, LocalDate.of(2023, 1, 1)))
+                .thenReturn(new ArrayList<>());
+        when(memberRatingRollupRepository.findAllByMemberIdAndLastDateBefore(memberId, LocalDate.of(2023, 1, 1)))
+                .thenReturn(new ArrayList<>());
+        when(ratingAlgorithm.determineRatingLevel(new BigDecimal("90.0000"))).thenReturn("A");
+        when(scoreSeriesStore.findByMemberId(memberId)).thenReturn(Map.of(1, List.of(
+                new ScoreSeriesStore.Point(LocalDate.of(2023, 1, 1), new BigDecimal("60.5000")),
+                new ScoreSeriesStore.Point(LocalDate.of(2023, 5, 1), new BigDecimal("85.0000")),
+                new ScoreSeriesStore.Point(LocalDate.of(2023, 6, 1), new BigDecimal("90.0000")))));
+        when(knowledgeAreaRepository.findById(1)).thenReturn(Optional.of(knowledgeAreaJava));
+        when(memberRatingRepository.findByAreaIdOrderByDesScoreDesc(1)).thenReturn(Arrays.asList(rating1, rating2));
 
-        // 验证结果
-        assertTrue(result.isEmpty());
+        List<MemberScoreHistoryDTO> result = memberService.getMember(memberId);
 
-        // 验证依赖方法是否被正确调用
-        verify(memberRepository).findByNameContainingIgnoreCase(keyword);
+        assertEquals(1, result.size());
+        List<ScoreHistoryItemDTO> history = result.get(0).getScore_history();
+        assertEquals(List.of("2023-06-01", "2023-05-01", "2023-01-01"),
+                history.stream().map(ScoreHistoryItemDTO::getUpdate_date).toList());
+        assertEquals(60.5, history.get(2).getDes_score());
+        assertEquals("A", result.get(0).getLevel());
+        assertEquals(90, result.get(0).getScore());
         verify(memberRatingRepository, never()).findAllByMemberId(anyLong());
+        verify(memberRatingRollupRepository, never()).findAllByMemberId(anyLong());
     }
 
-    // 测试 searchMembers 方法 - 关键词匹配+指定领域
+    // 测试 getMember 方法 - 序列开始之前的历史取自日记录与周/月汇总（序列表建立前的数据不丢失）
     @Test
-    void testSearchMembers_KeywordMatchWithDomain() {
-        // 准备测试数据
-        String keyword = "测试";
-        String domain = "Java";
-        Integer limit = 5;
+    void testGetMember_HistoryMergesSeriesWithOlderTiers() {
+        Long memberId = 1L;
+        MemberRatingRollup monthly = new MemberRatingRollup();
+        monthly.setMemberId(memberId);
+        monthly.setAreaId(1);
+        monthly.setGranularity(MemberRatingRollup.MONTHLY);
+        monthly.setPeriodStart(LocalDate.of(2023, 1, 1));
+        monthly.setLastDate(LocalDate.of(2023, 1, 29));
+        monthly.setLastScore(new BigDecimal(70));
+        monthly.setLastLevel("C");
+        monthly.setMinScore(new BigDecimal(60));
+        monthly.setMaxScore(new BigDecimal(72));
+
+        when(memberRepository.findById(memberId)).thenReturn(Optional.of(member1));
+        when(memberRatingRepository.findAllByMemberIdAndUpdateDateBefore(memberId, LocalDate.of(2023, 6, 1)))
+                .thenReturn(new ArrayList<>(List.of(rating2)));
+        when(memberRatingRollupRepository.findAllByMemberIdAndLastDateBefore(memberId, LocalDate.of(2023, 6, 1)))
+                .thenReturn(new ArrayList<>(List.of(monthly)));
+        when(ratingAlgorithm.determineRatingLevel(new BigDecimal("91.0000"))).thenReturn("A");
+        when(scoreSeriesStore.findByMemberId(memberId)).thenReturn(Map.of(1, List.of(
+                new ScoreSeriesStore.Point(LocalDate.of(2023, 6, 1), new BigDecimal("90.0000")),
+                new ScoreSeriesStore.Point(LocalDate.of(2023, 6, 2), new BigDecimal("91.0000")))));
+        when(knowledgeAreaRepository.findById(1)).thenReturn(Optional.of(knowledgeAreaJava));
+        when(memberRatingRepository.findByAreaIdOrderByDesScoreDesc(1)).thenReturn(Arrays.asList(rating1, rating2));
+
+        List<MemberScoreHistoryDTO> result = memberService.getMember(memberId);
 
-        // 创建另一个领域的成员
+        List<ScoreHistoryItemDTO> history = result.get(0).getScore_history();
+        assertEquals(List.of("2023-06-02", "2023-06-01", "2023-05-01", "2023-01-29"),
+                history.stream().map(ScoreHistoryItemDTO::getUpdate_date).toList());
+        assertEquals(List.of("day", "day", "day", "month"),
+                history.stream().map(ScoreHistoryItemDTO::getGranularity).toList());
+        assertEquals(91.0, history.get(0).getDes_score());
+    }
+
+    // 测试 getMembers 方法 - 集合查询，按请求顺序返回，不存在的成员为空列表，同一领域的排名数据只加载一次
+    @Test
+    void testGetMembers_BatchInRequestOrder() {
         Member member2 = new Member();
         member2.setMemberId(2L);
-        member2.setName("另一个测试用户");
-        member2.setJoinDate(LocalDateTime.of(2023, 3, 1, 10, 0));
+        member2.setName("测试用户2");
 
-        // 模拟依赖方法调用
-        when(memberRepository.findByNameContainingIgnoreCase(keyword)).thenReturn(Arrays.asList(member1, member2));
-        when(knowledgeAreaRepository.findByAreaName(domain)).thenReturn(Optional.of(knowledgeAreaJava));
-        
-        // member1在Java领域有评级
-        when(memberRatingRepository.findByMemberId(1L)).thenReturn(Arrays.asList(rating1));
-        when(memberRatingRepository.findByMemberId(2L)).thenReturn(Arrays.asList(rating4));
+        when(memberRepository.findAllById(any())).thenReturn(Arrays.asList(member1, member2));
+        when(memberRatingRepository.findAllByMemberIdIn(any())).thenReturn(Arrays.asList(rating1, rating2, rating3, rating4));
+        when(memberRatingRollupRepository.findAllByMemberIdIn(any())).thenReturn(new ArrayList<>());
+        when(scoreSeriesStore.findByMemberIds(any())).thenReturn(Map.of());
+        when(knowledgeAreaRepository.findAll()).thenReturn(Arrays.asList(knowledgeAreaJava, knowledgeAreaPython));
+        when(memberRatingRepository.findByAreaIdOrderByDesScoreDesc(1)).thenReturn(Arrays.asList(rating1, rating2));
+        when(memberRatingRepository.findByAreaIdOrderByDesScoreDesc(2)).thenReturn(Arrays.asList(rating3, rating4));
 
-        // 执行测试方法
-        List<MemberDTO> result = memberService.searchMembers(keyword, domain, limit);
+        List<List<MemberScoreHistoryDTO>> result = memberService.getMembers(Arrays.asList(2L, 99L, 1L));
 
-        // 验证结果
-        assertEquals(1, result.size()); // 只有member1在Java领域有评级
-        assertEquals(1L, result.get(0).getMember_id());
+        assertEquals(3, result.size());
+        assertEquals(1, result.get(0).size());
+        assertEquals("测试用户2", result.get(0).get(0).getMember_name());
+        assertEquals("Python", result.get(0).get(0).getMain_domain());
+        assertEquals(2, result.get(0).get(0).getRank());
+        assertTrue(result.get(1).isEmpty());
+        assertEquals(2, result.get(2).size());
+        assertTrue(result.get(2).stream().allMatch(dto -> dto.getRank() == 1));
+
+        verify(memberRatingRepository, times(1)).findByAreaIdOrderByDesScoreDesc(2);
+        verify(memberRepository, never()).findById(anyLong());
+        verify(knowledgeAreaRepository, never()).findById(anyInt());
+    }
+
+    // 测试 getMembers 方法 - 超过批量上限
+    @Test
+    void testGetMembers_TooManyIds() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i <= MemberServiceImpl.MAX_BATCH_SIZE; i++) {
+            ids.add(i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> memberService.getMembers(ids));
+        verify(memberRepository, never()).findAllById(any());
+    }
+
+    // 测试 searchMembers 方法 - 委托名称索引，未指定条数时默认 5 条
+    @Test
+    void testSearchMembers_UsesSearchIndex() {
+        MemberDTO dto = new MemberDTO();
+        dto.setMember_id(1L);
+        dto.setMember_name("测试用户1");
+        when(memberSearchIndex.search("测试", "Java", 5)).thenReturn(List.of(dto));
+
+        List<MemberDTO> result = memberService.searchMembers("测试", "Java", null);
+
+        assertEquals(1, result.size());
         assertEquals("测试用户1", result.get(0).getMember_name());
+        verify(memberRepository, never()).findByNameContainingIgnoreCase(anyString());
+        verify(memberRatingRepository, never()).findAllByMemberId(anyLong());
+    }
 
-        // 验证依赖方法是否被正确调用
-        verify(memberRepository).findByNameContainingIgnoreCase(keyword);
-        verify(knowledgeAreaRepository).findByAreaName(domain);
+    // 测试 typeaheadMembers 方法 - 委托名称索引的前缀查询
+    @Test
+    void testTypeaheadMembers_UsesSearchIndex() {
+        when(memberSearchIndex.typeahead("测", null, 8)).thenReturn(List.of());
+
+        assertTrue(memberService.typeaheadMembers("测", null, 8).isEmpty());
+        verify(memberSearchIndex).typeahead("测", null, 8);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.community.rating.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionMaintenanceServiceTest {
+
+    // 测试新增分区 - 从最后一个上界所在月开始补足到虚拟时间之后 N 个月
+    @Test
+    void testMonthsToAddCoversFutureWindow() {
+        List<LocalDate> months = PartitionMaintenanceService.monthsToAdd(
+                LocalDate.of(2024, 5, 1), LocalDate.of(2024, 6, 15), 2);
+
+        assertEquals(List.of(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 6, 1),
+                LocalDate.of(2024, 7, 1), LocalDate.of(2024, 8, 1)), months);
+        assertTrue(PartitionMaintenanceService.monthsToAdd(
+                LocalDate.of(2024, 9, 1), LocalDate.of(2024, 6, 15), 2).isEmpty());
+    }
+
+    // 测试分区 DDL - 切分 p_future 生成按月分区，分区上界解析兼容日期与日期时间
+    @Test
+    void testReorganizeSqlAndBoundParsing() {
+        String sql = PartitionMaintenanceService.reorganizeFutureSql("memberrating",
+                List.of(LocalDate.of(2024, 12, 1)));
+
+        assertEquals("ALTER TABLE memberrating REORGANIZE PARTITION p_future INTO (" +
+                "PARTITION p202412 VALUES LESS THAN ('2025-01-01'), " +
+                "PARTITION p_future VALUES LESS THAN (MAXVALUE))", sql);
+        assertEquals(LocalDate.of(2024, 2, 1), PartitionMaintenanceService.parseBound("'2024-02-01'"));
+        assertEquals(LocalDate.of(2024, 2, 1), PartitionMaintenanceService.parseBound("'2024-02-01 00:00:00'"));
+        assertNull(PartitionMaintenanceService.parseBound("MAXVALUE"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.community.rating.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    // 测试精度 - 分位数估计与精确排序结果的相对误差不超过 RELATIVE_ACCURACY，最小值/最大值精确
+    @Test
+    void testQuantilesWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        double[] values = new double[20_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // 长尾分布，与 DES 相近
+            values[i] = Math.exp(random.nextGaussian() * 2 + 5);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.1, 0.5, 0.9, 0.99}) {
+            double exact = values[(int) Math.ceil(q * values.length) - 1];
+            assertEquals(exact, sketch.quantile(q), exact * QuantileSketch.RELATIVE_ACCURACY, "q=" + q);
+        }
+        assertEquals(values[0], sketch.min());
+        assertEquals(values[values.length - 1], sketch.max());
+        assertEquals(values.length, sketch.count());
+        assertEquals(values.length, Arrays.stream(sketch.histogram(10)).sum());
+    }
+
+    // 测试合并 - 分片各自构建的草图合并后与整体构建的草图完全相同（零值单独计数），序列化后不变
+    @Test
+    void testMergeOfPartitionsEqualsWholeAndRoundTrips() {
+        Random random = new Random(7);
+        QuantileSketch whole = new QuantileSketch();
+        QuantileSketch[] partitions = {new QuantileSketch(), new QuantileSketch(), new QuantileSketch()};
+        for (int i = 0; i < 5_000; i++) {
+            double value = i % 10 == 0 ? 0 : random.nextDouble() * 1_000;
+            whole.add(value);
+            partitions[i % partitions.length].add(value);
+        }
+        QuantileSketch merged = new QuantileSketch();
+        for (QuantileSketch partition : partitions) {
+            merged.merge(partition);
+        }
+
+        assertEquals(whole, merged);
+        assertEquals(whole.quantile(0.95), merged.quantile(0.95));
+        assertEquals(whole, QuantileSketch.fromBytes(whole.toBytes()));
+    }
+
+    // 测试排名百分比 - 最高分处于前 1/N，最低分处于前 100%
+    @Test
+    void testTopPercent() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 1_000; i++) {
+            sketch.add(i);
+        }
+
+        assertEquals(0.1, ScoreDistributionService.topPercent(sketch, 1_000));
+        assertEquals(100.0, ScoreDistributionService.topPercent(sketch, 1));
+        assertEquals(10.0, ScoreDistributionService.topPercent(sketch, 900), 1.0);
+    }
+}
@@ -1,10 +1,12 @@
 package com.community.rating.service;
 
 import com.community.rating.dto.ContentDataDTO;
+import com.community.rating.simulation.TimeSimulation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -13,6 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mockStatic;
 
 @ExtendWith(MockitoExtension.class)
 class RatingAlgorithmTest {
@@ -112,6 +115,17 @@ class RatingAlgorithmTest {
         assertEquals(new BigDecimal("0.4"), factor5);
     }
 
+    // 测试 calculateRecencyFactor 方法 - 使用冻结的参考时间，与当前虚拟时间无关
+    @Test
+    void testCalculateRecencyFactorWithAsOf() {
+        LocalDateTime asOf = LocalDateTime.of(2024, 6, 1, 4, 0);
+        LocalDateTime publishTime = asOf.minusDays(100);
+
+        assertEquals(new BigDecimal("0.4"), ratingAlgorithm.calculateRecencyFactor(publishTime, asOf));
+        assertEquals(BigDecimal.ONE, ratingAlgorithm.calculateRecencyFactor(publishTime, asOf.minusDays(80)));
+        assertEquals(new BigDecimal("0.1"), ratingAlgorithm.calculateRecencyFactor(publishTime, asOf.plusDays(100)));
+    }
+
     // 测试 calculateDES 方法 - 多个内容
     @Test
     void testCalculateDES() {
@@ -156,6 +170,43 @@ class RatingAlgorithmTest {
         assertEquals(BigDecimal.ZERO.setScale(4), desScore);
     }
 
+    // 测试列式存储版 calculateDES - 结果与 DTO 版本一致（含乱序分组）
+    @Test
+    void testCalculateDES_ColumnStoreMatchesDTO() {
+        LocalDateTime asOf = LocalDateTime.of(2024, 6, 1, 4, 0, 0);
+        ContentColumnStore store = new ContentColumnStore();
+        List<ContentDataDTO> member1Contents = new ArrayList<>();
+
+        long[][] counts = {{500, 40, 12, 5, 9, 2}, {80, 3, 1, 0, 0, 6}, {2000, 150, 60, 30, 45, 10}};
+        int[] daysAgo = {10, 31, 200};
+        for (int i = 0; i < counts.length; i++) {
+            // 成员2 的内容穿插其间，验证分组排序
+            store.add(100 + i, 2L, 1, asOf.minusDays(1), 1, 10, 1, 0, 0, 0, 0);
+            LocalDateTime publishTime = asOf.minusDays(daysAgo[i]).plusHours(1);
+            int row = store.add(i, 1L, 1, publishTime, 2,
+                    counts[i][0], counts[i][1], counts[i][2], counts[i][3], counts[i][4], counts[i][5]);
+            BigDecimal cis = ratingAlgorithm.calculateCIS(
+                    counts[i][0], counts[i][1], counts[i][2], counts[i][3], counts[i][4], counts[i][5], 2);
+            store.setCisScoreUnscaled(row, cis.setScale(4, RoundingMode.HALF_UP).unscaledValue().longValue());
+
+            ContentDataDTO dto = new ContentDataDTO();
+            dto.setCisScore(cis.setScale(4, RoundingMode.HALF_UP));
+            dto.setPublishTime(publishTime);
+            member1Contents.add(dto);
+        }
+
+        int[] rows = store.rowsOrderedByMemberArea();
+        assertEquals(1L, store.memberId(rows[0]));
+        assertEquals(1L, store.memberId(rows[2]));
+        assertEquals(2L, store.memberId(rows[3]));
+
+        try (MockedStatic<TimeSimulation> mockedTime = mockStatic(TimeSimulation.class)) {
+            mockedTime.when(TimeSimulation::now).thenReturn(asOf);
+            BigDecimal expected = ratingAlgorithm.calculateDES(member1Contents);
+            assertEquals(expected, ratingAlgorithm.calculateDES(store, rows, 0, 3, asOf));
+        }
+    }
+
     // 测试 determineRatingLevel 方法 - 不同分数范围
     @Test
     void testDetermineRatingLevel() {
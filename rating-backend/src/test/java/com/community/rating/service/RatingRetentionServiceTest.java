@@ -0,0 +1,31 @@
+package com.community.rating.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingRetentionServiceTest {
+
+    // 测试保留期边界 - 日粒度边界对齐到周一，只汇总完整的周且不早于保留期起点
+    @Test
+    void testDailyCutoffAlignsToCompleteWeeks() {
+        LocalDate today = LocalDate.of(2024, 6, 15);
+        LocalDate cutoff = RatingRetentionService.dailyCutoff(today);
+
+        assertEquals(DayOfWeek.MONDAY, cutoff.getDayOfWeek());
+        assertFalse(cutoff.isAfter(today.minusDays(RatingRetentionService.DAILY_RETENTION_DAYS)));
+        assertTrue(cutoff.isAfter(today.minusDays(RatingRetentionService.DAILY_RETENTION_DAYS + 7)));
+        assertEquals(LocalDate.of(2024, 3, 11), RatingRetentionService.weekStart(LocalDate.of(2024, 3, 17)));
+        assertEquals(LocalDate.of(2024, 3, 11), RatingRetentionService.weekStart(LocalDate.of(2024, 3, 11)));
+    }
+
+    // 测试保留期边界 - 周汇总边界对齐到月初，只合并完整的月
+    @Test
+    void testWeeklyCutoffAlignsToCompleteMonths() {
+        assertEquals(LocalDate.of(2023, 6, 1), RatingRetentionService.weeklyCutoff(LocalDate.of(2024, 6, 15)));
+        assertEquals(LocalDate.of(2023, 5, 1), RatingRetentionService.weeklyCutoff(LocalDate.of(2024, 5, 30)));
+    }
+}
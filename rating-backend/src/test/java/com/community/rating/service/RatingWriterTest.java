@@ -0,0 +1,133 @@
+package com.community.rating.service;
+
+import com.community.rating.entity.MemberRating;
+import com.community.rating.repository.MemberRatingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RatingWriterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 1);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private MemberRatingRepository memberRatingRepository;
+
+    @Mock
+    private ScoreSeriesStore scoreSeriesStore;
+
+    @Mock
+    private RatingLevelCounterStore levelCounterStore;
+
+    private RatingWriter ratingWriter;
+
+    @BeforeEach
+    void setUp() {
+        ratingWriter = new RatingWriter(jdbcTemplate, memberRatingRepository, scoreSeriesStore, levelCounterStore);
+    }
+
+    // 测试跳过未变化的分数 - 只有未知组合、分数变化或等级变化的评级需要写入
+    @Test
+    void testFilterSkipsUnchangedScores() {
+        ratingWriter.remember(1L, 1, new BigDecimal("80.5"), "L4", DAY);
+        ratingWriter.remember(1L, 2, new BigDecimal("30.0000"), "L2", DAY);
+        ratingWriter.remember(2L, 1, new BigDecimal("60.0000"), "L3", DAY);
+
+        MemberRating unchanged = rating(1L, 1, "80.5000", "L4", DAY.plusDays(1));
+        MemberRating scoreChanged = rating(1L, 2, "31.0000", "L2", DAY.plusDays(1));
+        MemberRating levelChanged = rating(2L, 1, "60.0000", "L4", DAY.plusDays(1));
+        MemberRating unknown = rating(3L, 1, "10.0000", "L1", DAY.plusDays(1));
+
+        List<MemberRating> changed = ratingWriter.filterChanged(List.of(unchanged, scoreChanged, levelChanged, unknown));
+
+        assertEquals(List.of(scoreChanged, levelChanged, unknown), changed);
+    }
+
+    // 测试心跳重写 - 分数未变化但距上一条记录已满 HEARTBEAT_DAYS 天时重写，保证最新评级落在查询窗口内
+    @Test
+    void testHeartbeatRewritesStaleRatings() {
+        ratingWriter.remember(1L, 1, new BigDecimal("80.5000"), "L4", DAY);
+
+        assertTrue(ratingWriter.filterChanged(List.of(
+                rating(1L, 1, "80.5000", "L4", DAY.plusDays(RatingWriter.HEARTBEAT_DAYS - 1)))).isEmpty());
+        assertEquals(1, ratingWriter.filterChanged(List.of(
+                rating(1L, 1, "80.5000", "L4", DAY.plusDays(RatingWriter.HEARTBEAT_DAYS)))).size());
+        assertTrue(RatingWriter.HEARTBEAT_DAYS < MemberRatingRepository.LATEST_RATING_WINDOW_DAYS);
+    }
+
+    // 测试大成员 ID - member_id 超过 2^32 时不与其他 (成员, 领域) 组合混淆
+    @Test
+    void testLargeMemberIdsDoNotCollide() {
+        ratingWriter.remember(0L, 1, new BigDecimal("80.5000"), "L4", DAY);
+
+        MemberRating large = rating(1L << 32, 1, "80.5000", "L4", DAY.plusDays(1));
+
+        assertEquals(List.of(large), ratingWriter.filterChanged(List.of(large)));
+    }
+
+    // 测试写入 - 只写入并追加变化的评级，写入后再次计算相同分数不再写入
+    @Test
+    void testWriteRemembersWrittenRatings() {
+        List<MemberRating> ratings = List.of(rating(1L, 1, "80.5000", "L4", DAY), rating(2L, 1, "60.0000", "L3", DAY));
+
+        assertEquals(2, ratingWriter.write(ratings));
+        verify(scoreSeriesStore).appendAll(ratings);
+
+        assertEquals(0, ratingWriter.write(List.of(rating(1L, 1, "80.5000", "L4", DAY.plusDays(1)))));
+        verifyNoMoreInteractions(scoreSeriesStore);
+    }
+
+    // 测试等级分布口径 - 按 (成员, 领域) 计数：同一成员在两个领域处于同一等级时，全局分布中该等级计 2（不按成员去重）
+    @Test
+    void testLevelTransitionsCountMemberAreas() {
+        Map<RatingLevelCounterStore.LevelKey, Long> deltas = ratingWriter.levelTransitions(List.of(
+                rating(1L, 1, "60.0000", "L3", DAY),
+                rating(1L, 2, "61.0000", "L3", DAY)));
+
+        assertEquals(Map.of(
+                new RatingLevelCounterStore.LevelKey(1, "L3"), 1L,
+                new RatingLevelCounterStore.LevelKey(2, "L3"), 1L), deltas);
+        assertEquals(2L, deltas.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    // 测试等级分布增量 - 等级变化时旧等级 -1、新等级 +1，新组合只 +1，等级不变不计
+    @Test
+    void testLevelTransitions() {
+        ratingWriter.remember(1L, 1, new BigDecimal("80.0000"), "L4", DAY);
+        ratingWriter.remember(2L, 1, new BigDecimal("30.0000"), "L2", DAY);
+
+        Map<RatingLevelCounterStore.LevelKey, Long> deltas = ratingWriter.levelTransitions(List.of(
+                rating(1L, 1, "95.0000", "L5", DAY.plusDays(1)),
+                rating(2L, 1, "31.0000", "L2", DAY.plusDays(1)),
+                rating(3L, 1, "90.0000", "L5", DAY.plusDays(1))));
+
+        assertEquals(Map.of(
+                new RatingLevelCounterStore.LevelKey(1, "L4"), -1L,
+                new RatingLevelCounterStore.LevelKey(1, "L5"), 2L), deltas);
+    }
+
+    private static MemberRating rating(long memberId, int areaId, String desScore, String level, LocalDate date) {
+        MemberRating rating = new MemberRating();
+        rating.setMemberId(memberId);
+        rating.setAreaId(areaId);
+        rating.setDesScore(new BigDecimal(desScore));
+        rating.setRatingLevel(level);
+        rating.setUpdateDate(date);
+        return rating;
+    }
+}
@@ -0,0 +1,52 @@
+package com.community.rating.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreSeriesCodecTest {
+
+    // 测试编解码 - 整体编码与逐点追加拼接的结果一致，解码还原所有点（含负差分）
+    @Test
+    void testAppendedPointsDecodeToOriginalSeries() {
+        int start = (int) LocalDate.of(2024, 6, 1).toEpochDay();
+        int[] days = {start, start + 1, start + 2, start + 5, start + 6};
+        long[] scores = {1_234_567L, 1_240_000L, 1_180_001L, 0L, 98_765_432_100L};
+
+        ByteArrayOutputStream appended = new ByteArrayOutputStream();
+        int lastDay = 0;
+        long lastScore = 0;
+        for (int i = 0; i < days.length; i++) {
+            appended.writeBytes(ScoreSeriesCodec.appendPoint(lastDay, lastScore, days[i], scores[i]));
+            lastDay = days[i];
+            lastScore = scores[i];
+        }
+        byte[] encoded = ScoreSeriesCodec.encode(days, scores, days.length);
+
+        assertArrayEquals(encoded, appended.toByteArray());
+        ScoreSeriesCodec.Series series = ScoreSeriesCodec.decode(encoded);
+        assertArrayEquals(days, series.epochDays());
+        assertArrayEquals(scores, series.unscaledScores());
+    }
+
+    // 测试紧凑性 - 每日小幅变化的分数每点只占几个字节，日期倒退时拒绝追加
+    @Test
+    void testDailySeriesIsCompact() {
+        int count = 365;
+        int[] days = new int[count];
+        long[] scores = new long[count];
+        for (int i = 0; i < count; i++) {
+            days[i] = 19_000 + i;
+            scores[i] = 500_000L + (i % 7) * 1_500L - (i % 3) * 2_000L;
+        }
+
+        byte[] encoded = ScoreSeriesCodec.encode(days, scores, count);
+
+        assertTrue(encoded.length <= count * 4 + 8, "编码长度: " + encoded.length);
+        assertEquals(count, ScoreSeriesCodec.decode(encoded).size());
+        assertThrows(IllegalArgumentException.class, () -> ScoreSeriesCodec.appendPoint(10, 0, 9, 0));
+    }
+}
@@ -0,0 +1,91 @@
+package com.community.rating.service;
+
+import com.community.rating.entity.MemberRating;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScoreSeriesStoreTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 1);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ResultSet rs;
+
+    private ScoreSeriesStore scoreSeriesStore;
+
+    @BeforeEach
+    void setUp() {
+        scoreSeriesStore = new ScoreSeriesStore(jdbcTemplate);
+    }
+
+    // 测试追加 - 按本批主键读取最后一个点；新序列批量追加，同一天重复计算的序列一次读取、一次批量写回
+    @Test
+    void testAppendAllBatchesSameDayReruns() throws Exception {
+        long memberId = 5_000_000_000L;
+        int day = (int) DAY.toEpochDay();
+        byte[] packed = ScoreSeriesCodec.encode(new int[]{day - 1, day}, new long[]{700_000, 750_000}, 2);
+        when(rs.getLong("member_id")).thenReturn(memberId);
+        when(rs.getInt("area_id")).thenReturn(1);
+        when(rs.getInt("last_day")).thenReturn(day);
+        when(rs.getLong("last_score")).thenReturn(750_000L);
+        when(rs.getBytes("points")).thenReturn(packed);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        scoreSeriesStore.appendAll(List.of(rating(memberId, 1, "80.0000"), rating(memberId + 1, 1, "60.0000")));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).query(sql.capture(), any(RowCallbackHandler.class));
+        assertTrue(sql.getAllValues().get(0).endsWith("IN ((5000000000,1),(5000000001,1))"));
+        assertTrue(sql.getAllValues().get(1).endsWith("IN ((5000000000,1))"));
+
+        ArgumentCaptor<List<Object[]>> appends = captor();
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO memberscoreseries"), appends.capture());
+        assertEquals(1, appends.getValue().size());
+        assertEquals(memberId + 1, appends.getValue().get(0)[0]);
+
+        ArgumentCaptor<List<Object[]>> updates = captor();
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE memberscoreseries"), updates.capture());
+        Object[] update = updates.getValue().get(0);
+        ScoreSeriesCodec.Series series = ScoreSeriesCodec.decode((byte[]) update[0]);
+        assertArrayEquals(new long[]{700_000, 800_000}, series.unscaledScores());
+        assertEquals(800_000L, update[1]);
+        assertEquals(memberId, update[2]);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Object[]>> captor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static MemberRating rating(long memberId, int areaId, String score) {
+        MemberRating rating = new MemberRating();
+        rating.setMemberId(memberId);
+        rating.setAreaId(areaId);
+        rating.setDesScore(new BigDecimal(score));
+        rating.setUpdateDate(DAY);
+        return rating;
+    }
+}
@@ -0,0 +1,121 @@
+package com.community.rating.service;
+
+import com.community.rating.repository.MemberRatingRepository;
+import com.community.rating.simulation.ForumDataSimulation;
+import com.community.rating.simulation.VirtualClock;
+import com.community.rating.util.CalculationLease;
+import com.community.rating.util.CalculationStatusManager;
+import com.community.rating.util.DataGeneration;
+import com.community.rating.util.RatingMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StreamingScoringServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 6, 1, 10, 0);
+    private static final LocalDateTime T1 = T0.plusHours(2);
+    private static final LocalDateTime T2 = T0.plusHours(4);
+    private static final LocalDateTime T3 = T0.plusHours(6);
+
+    @Mock
+    private ForumDataSimulation forumDataSimulation;
+    @Mock
+    private RatingAlgorithm ratingAlgorithm;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private CalculationStatusManager calculationStatusManager;
+    @Mock
+    private CalculationLease calculationLease;
+    @Mock
+    private RatingMetrics ratingMetrics;
+    @Mock
+    private RatingWriter ratingWriter;
+    @Mock
+    private ScoreSeriesStore scoreSeriesStore;
+    @Mock
+    private DataGeneration dataGeneration;
+    @Mock
+    private ContentSnapshotFileCache contentSnapshotCache;
+    @Mock
+    private ContentSnapshotVersion contentSnapshotVersion;
+    @Mock
+    private MemberRatingRepository memberRatingRepository;
+    @Mock
+    private VirtualClock virtualClock;
+
+    private StreamingScoringService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new StreamingScoringService(forumDataSimulation, ratingAlgorithm, jdbcTemplate,
+                calculationStatusManager, calculationLease, ratingMetrics, ratingWriter, scoreSeriesStore,
+                dataGeneration, contentSnapshotCache, contentSnapshotVersion, memberRatingRepository,
+                virtualClock, new NoOpTransactionManager());
+    }
+
+    // 测试微批回滚 - 事件游标不前进，下一批从同一位置重新消费这些事件；提交后游标才前进
+    @Test
+    void testCursorDoesNotAdvanceOnRollback() {
+        when(virtualClock.now()).thenReturn(T0, T1, T2, T3);
+        List<Map<String, Object>> events = List.of(
+                Map.of("eventId", 1L, "type", "LIKE", "contentId", 100L),
+                Map.of("eventId", 2L, "type", "READ", "contentId", 100L));
+        when(forumDataSimulation.getAllInteractionEventsInWindow(any(), any())).thenReturn(events, events, List.of());
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE ContentSnapshot"), anyList()))
+                .thenThrow(new DataIntegrityViolationException("写入失败"))
+                .thenReturn(new int[0]);
+
+        // 首次启动：只初始化游标
+        assertEquals(0, service.processMicroBatch());
+        // 写入失败，事务回滚
+        assertThrows(DataIntegrityViolationException.class, () -> service.processMicroBatch());
+        // 重新消费同一批事件（游标仍为 T0，事件 ID 未被去重跳过）
+        assertEquals(2, service.processMicroBatch());
+        // 提交后游标前进到 T2
+        assertEquals(0, service.processMicroBatch());
+
+        verify(forumDataSimulation).getAllInteractionEventsInWindow(T0.minusNanos(1), T1.plusNanos(1));
+        verify(forumDataSimulation, never()).getAllInteractionEventsInWindow(eq(T1.minusNanos(1)), any());
+        verify(forumDataSimulation).getAllInteractionEventsInWindow(T0.minusNanos(1), T2.plusNanos(1));
+        verify(forumDataSimulation).getAllInteractionEventsInWindow(T2.minusNanos(1), T3.plusNanos(1));
+    }
+
+    // 启用事务同步、不访问数据库的事务管理器：提交时触发 afterCommit，回滚时丢弃
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -15,6 +15,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -43,6 +45,9 @@ public class SystemOverviewServiceImplTest {
     @Mock
     private RatingAlgorithm ratingAlgorithm;
 
+    @Mock
+    private RatingLevelCounterStore levelCounterStore;
+
     @InjectMocks
     private SystemOverviewServiceImpl systemOverviewService;
 
@@ -146,6 +151,25 @@ public class SystemOverviewServiceImplTest {
         }
     }
 
+    // 测试 getSystemOverview 方法 - 等级分布计数已初始化时直接读取计数，不查询评级历史
+    @Test
+    void testGetSystemOverview_ReadsLevelCounters() {
+        Map<String, Long> levelCounts = new TreeMap<>();
+        levelCounts.put("L1", 300L);
+        levelCounts.put("L2", 100L);
+        when(levelCounterStore.findGlobalDistribution()).thenReturn(levelCounts);
+
+        try (MockedStatic<TimeSimulation> mockedTime = mockStatic(TimeSimulation.class)) {
+            mockedTime.when(TimeSimulation::now).thenReturn(testDateTime);
+
+            SystemOverviewDTO result = systemOverviewService.getSystemOverview();
+
+            assertEquals(75.0, result.getRatingDistribution().get("L1"), 0.1);
+            assertEquals(25.0, result.getRatingDistribution().get("L2"), 0.1);
+            verify(memberRatingRepository, never()).getRatingDistribution();
+        }
+    }
+
     // 测试 getSystemOverview 方法 - 无评级数据情况
     @Test
     void testGetSystemOverview_NoRatingData() {
@@ -0,0 +1,56 @@
+package com.community.rating.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ForumDataSimulationParallelTest {
+
+    private static final LocalDateTime AS_OF = LocalDateTime.of(2024, 6, 1, 4, 0);
+
+    private List<ForumDataSimulation.GeneratedChunk> generate(int userCount, long seed) {
+        List<ForumDataSimulation.GeneratedChunk> chunks = new ArrayList<>();
+        new ForumDataSimulation(null).generateParallel(userCount, seed, AS_OF, chunk -> {
+            synchronized (chunks) {
+                chunks.add(chunk);
+            }
+        });
+        chunks.sort(Comparator.comparingInt(ForumDataSimulation.GeneratedChunk::chunkIndex));
+        return chunks;
+    }
+
+    // 测试并行生成 - 相同种子结果与线程调度无关，ID 唯一
+    @Test
+    void testGenerateParallelIsDeterministic() {
+        List<ForumDataSimulation.GeneratedChunk> first = generate(2500, 42L);
+        List<ForumDataSimulation.GeneratedChunk> second = generate(2500, 42L);
+
+        assertEquals(first, second);
+        assertEquals(2500, first.stream().mapToInt(c -> c.members().size()).sum());
+
+        Set<Long> contentIds = new HashSet<>();
+        int contentCount = 0;
+        for (ForumDataSimulation.GeneratedChunk chunk : first) {
+            for (ContentSnapshotRecord content : chunk.contents()) {
+                contentIds.add(content.contentId());
+                contentCount++;
+                assertTrue(content.publishTime().isBefore(AS_OF));
+            }
+        }
+        assertTrue(contentCount > 0);
+        assertEquals(contentCount, contentIds.size());
+    }
+
+    // 测试并行生成 - 不同种子得到不同数据
+    @Test
+    void testGenerateParallelSeedChangesOutput() {
+        assertNotEquals(generate(500, 1L), generate(500, 2L));
+    }
+}
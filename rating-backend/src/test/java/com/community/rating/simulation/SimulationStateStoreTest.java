@@ -0,0 +1,129 @@
+package com.community.rating.simulation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationStateStoreTest {
+
+    private static final byte KIND = 1;
+    private static final SimulationStateStore.RecordEncoder<long[]> ENCODER = (value, out) -> {
+        out.writeLong(value[0]);
+        SimulationStateStore.writeString(out, "v" + value[1]);
+    };
+
+    @TempDir
+    Path tempDir;
+
+    private SimulationStateStore newStore() {
+        return new SimulationStateStore(tempDir.resolve("state.bin"), tempDir.resolve("changes.log"));
+    }
+
+    private Map<Long, String> load(SimulationStateStore store, LocalDateTime[] timestamp) throws Exception {
+        Map<Long, String> values = new LinkedHashMap<>();
+        timestamp[0] = store.load((kind, payload) -> values.put(payload.getLong(), SimulationStateStore.readString(payload)));
+        return values;
+    }
+
+    // 测试快照 + 追加段回放 - 后写入的同键记录覆盖先前记录，时间戳取最后提交的段
+    @Test
+    void testSnapshotAndAppendReplay() throws Exception {
+        SimulationStateStore store = newStore();
+        LocalDateTime day1 = LocalDateTime.of(2024, 1, 1, 4, 0, 0, 123);
+        try (SimulationStateStore.SegmentWriter writer = store.beginSnapshot()) {
+            for (long id = 1; id <= 3; id++) {
+                writer.write(KIND, ENCODER, new long[]{id, 1});
+            }
+            writer.commit(day1);
+        }
+        try (SimulationStateStore.SegmentWriter writer = store.beginAppend()) {
+            writer.write(KIND, ENCODER, new long[]{2, 2});
+            writer.write(KIND, ENCODER, new long[]{4, 2});
+            writer.commit(day1.plusDays(1));
+        }
+
+        LocalDateTime[] timestamp = new LocalDateTime[1];
+        Map<Long, String> values = load(newStore(), timestamp);
+        assertEquals(Map.of(1L, "v1", 2L, "v2", 3L, "v1", 4L, "v2"), values);
+        assertEquals(day1.plusDays(1), timestamp[0]);
+
+        // 重新写快照后追加日志被清空
+        try (SimulationStateStore.SegmentWriter writer = store.beginSnapshot()) {
+            writer.write(KIND, ENCODER, new long[]{9, 9});
+            writer.commit(day1.plusDays(2));
+        }
+        assertEquals(0, store.logSize());
+        assertEquals(Map.of(9L, "v9"), load(newStore(), timestamp));
+    }
+
+    // 测试崩溃恢复 - 未提交的尾段被丢弃并截断，已提交的段保留
+    @Test
+    void testUncommittedTailIsTruncated() throws Exception {
+        SimulationStateStore store = newStore();
+        LocalDateTime day1 = LocalDateTime.of(2024, 1, 1, 4, 0);
+        try (SimulationStateStore.SegmentWriter writer = store.beginSnapshot()) {
+            writer.write(KIND, ENCODER, new long[]{1, 1});
+            writer.commit(day1);
+        }
+        try (SimulationStateStore.SegmentWriter writer = store.beginAppend()) {
+            writer.write(KIND, ENCODER, new long[]{1, 2});
+            writer.commit(day1.plusDays(1));
+        }
+        long committedSize = store.logSize();
+        // 模拟写入中途崩溃：写了记录但未提交
+        SimulationStateStore.SegmentWriter torn = store.beginAppend();
+        torn.write(KIND, ENCODER, new long[]{1, 3});
+        torn.close();
+        Files.write(tempDir.resolve("changes.log"), new byte[]{1, 2, 3}, java.nio.file.StandardOpenOption.APPEND);
+
+        LocalDateTime[] timestamp = new LocalDateTime[1];
+        assertEquals(Map.of(1L, "v2"), load(newStore(), timestamp));
+        assertEquals(day1.plusDays(1), timestamp[0]);
+        assertEquals(committedSize, store.logSize());
+    }
+
+    // 测试替换快照后、清空日志前崩溃 - 残留的旧段不晚于新快照，加载时跳过，不回滚为旧值
+    @Test
+    void testStaleLogAfterSnapshotIsSkipped() throws Exception {
+        SimulationStateStore store = newStore();
+        Path logPath = tempDir.resolve("changes.log");
+        LocalDateTime day1 = LocalDateTime.of(2024, 1, 1, 4, 0);
+        try (SimulationStateStore.SegmentWriter writer = store.beginSnapshot()) {
+            writer.write(KIND, ENCODER, new long[]{1, 1});
+            writer.commit(day1);
+        }
+        assertTrue(store.canAppendAt(day1.plusDays(1)));
+        assertFalse(store.canAppendAt(day1));
+        try (SimulationStateStore.SegmentWriter writer = store.beginAppend()) {
+            writer.write(KIND, ENCODER, new long[]{1, 2});
+            writer.commit(day1.plusDays(1));
+        }
+        byte[] staleLog = Files.readAllBytes(logPath);
+        try (SimulationStateStore.SegmentWriter writer = store.beginSnapshot()) {
+            writer.write(KIND, ENCODER, new long[]{1, 3});
+            writer.commit(day1.plusDays(2));
+        }
+        // 模拟崩溃：快照已替换，旧日志未删除
+        Files.write(logPath, staleLog);
+
+        SimulationStateStore reopened = newStore();
+        LocalDateTime[] timestamp = new LocalDateTime[1];
+        assertEquals(Map.of(1L, "v3"), load(reopened, timestamp));
+        assertEquals(day1.plusDays(2), timestamp[0]);
+
+        // 之后追加的新段正常回放
+        try (SimulationStateStore.SegmentWriter writer = reopened.beginAppend()) {
+            writer.write(KIND, ENCODER, new long[]{1, 4});
+            writer.commit(day1.plusDays(3));
+        }
+        assertEquals(Map.of(1L, "v4"), load(newStore(), timestamp));
+        assertEquals(day1.plusDays(3), timestamp[0]);
+    }
+}
@@ -0,0 +1,42 @@
+package com.community.rating.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeIndexedEventStoreTest {
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    // 测试窗口查询 - 开区间语义，同一时刻的事件保持追加顺序
+    @Test
+    void testWindowIsExclusiveAndOrdered() {
+        TimeIndexedEventStore<String> store = new TimeIndexedEventStore<>();
+        store.append(base, "a");
+        store.append(base.plusHours(1), "b1");
+        store.append(base.plusHours(1), "b2");
+        store.append(base.plusHours(2), "c");
+
+        assertEquals(List.of("b1", "b2"), store.window(base, base.plusHours(2)));
+        assertEquals(List.of("a", "b1", "b2", "c"), store.window(base.minusSeconds(1), base.plusHours(3)));
+        assertTrue(store.window(base.plusHours(2), base).isEmpty());
+        assertEquals(4, store.size());
+    }
+
+    // 测试过期淘汰 - 仅淘汰早于截止时间的事件
+    @Test
+    void testEvictBefore() {
+        TimeIndexedEventStore<String> store = new TimeIndexedEventStore<>();
+        store.append(base, "old1");
+        store.append(base, "old2");
+        store.append(base.plusDays(5), "new");
+
+        assertEquals(2, store.evictBefore(base.plusDays(1)));
+        assertEquals(1, store.size());
+        assertEquals(List.of("new"), store.window(base.minusDays(1), base.plusDays(6)));
+        assertEquals(0, store.evictBefore(base.plusDays(5)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.community.rating.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedChangeFeedTest {
+
+    // 测试分页拉取 - 按版本升序，分页可续拉，拉取不修改数据
+    @Test
+    void testPagedPullIsRepeatable() {
+        VersionedChangeFeed<Long, String> feed = new VersionedChangeFeed<>();
+        for (long id = 1; id <= 5; id++) {
+            feed.put(id, "v" + id);
+        }
+
+        VersionedChangeFeed.ChangePage<String> first = feed.changesSince(0, 2, Function.identity());
+        assertEquals(List.of("v1", "v2"), first.items());
+        assertTrue(first.hasMore());
+
+        VersionedChangeFeed.ChangePage<String> second = feed.changesSince(first.nextVersion(), 10, Function.identity());
+        assertEquals(List.of("v3", "v4", "v5"), second.items());
+        assertFalse(second.hasMore());
+
+        // 未确认时重复拉取得到相同结果
+        assertEquals(first.items(), feed.changesSince(0, 2, Function.identity()).items());
+        assertEquals(5, feed.pendingCount());
+    }
+
+    // 测试确认 - 仅移除已确认版本，确认后再次修改的键以新版本重新出现
+    @Test
+    void testAcknowledgeRetainsLaterChanges() {
+        VersionedChangeFeed<Long, String> feed = new VersionedChangeFeed<>();
+        feed.put(1L, "a1");
+        feed.put(2L, "b1");
+        VersionedChangeFeed.ChangePage<String> page = feed.changesSince(0, 10, Function.identity());
+
+        // 拉取之后、确认之前又发生的修改不能被确认吞掉
+        feed.put(3L, "c1");
+        feed.acknowledge(page.nextVersion());
+        assertEquals(page.nextVersion(), feed.acknowledgedVersion());
+        assertEquals(List.of("c1"), feed.changesSince(feed.acknowledgedVersion(), 10, Function.identity()).items());
+
+        // 同一键覆盖只保留最新值
+        feed.put(3L, "c2");
+        feed.put(1L, "a2");
+        assertEquals(List.of("c2", "a2"), feed.changesSince(feed.acknowledgedVersion(), 10, Function.identity()).items());
+        assertEquals(2, feed.pendingCount());
+    }
+}